@@ -16,11 +16,13 @@ import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -30,6 +32,9 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @Component
 public class AuthServiceClient {
 
+    //the most users auth-service returns in one page
+    private static final int USERS_PER_REQUEST = 100;
+
     private final WebClient.Builder webClientBuilder;
 
     private final CustomersServiceClient customersServiceClient;
@@ -80,12 +85,50 @@ public class AuthServiceClient {
                 .bodyToFlux(UserDetails.class);
     }
 
+    /**
+     * Streams every user, USERS_PER_REQUEST at a time: each request starts after the last username of the previous one,
+     * so auth-service never reads the whole table at once
+     */
     public Flux<UserDetails> getUsers(String jwtToken) {
+        return getUsersAfter(jwtToken, null)
+                .expand(users -> users.size() < USERS_PER_REQUEST
+                        ? Mono.empty()
+                        : getUsersAfter(jwtToken, users.get(users.size() - 1).getUsername()))
+                .flatMapIterable(users -> users);
+    }
+
+    private Mono<List<UserDetails>> getUsersAfter(String jwtToken, String afterUsername) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(authServiceUrl + "/users/")
+                .queryParam("size", USERS_PER_REQUEST)
+                .queryParamIfPresent("afterUsername", Optional.ofNullable(afterUsername));
+
         return webClientBuilder.build().get()
-                .uri(authServiceUrl + "/users/withoutPages")
+                .uri(builder.encode().build().toUri())
                 .cookie("Bearer", jwtToken)
                 .retrieve()
-                .bodyToFlux(UserDetails.class);
+                .bodyToFlux(UserDetails.class)
+                .collectList();
+    }
+
+    /**
+     * @param username The start of the usernames to return, all the users when null
+     */
+    public Mono<UserPageResponseDTO> getUsersPage(String jwtToken, int page, int size, String username) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(authServiceUrl + "/users/page")
+                .queryParam("page", page)
+                .queryParam("size", size);
+        if (username != null && !username.isEmpty()) {
+            builder.queryParam("username", username);
+        }
+
+        return webClientBuilder.build().get()
+                .uri(builder.encode().build().toUri())
+                .cookie("Bearer", jwtToken)
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError,
+                        n -> rethrower.rethrow(n,
+                                x -> new GenericHttpException(x.get("message").toString(), BAD_REQUEST)))
+                .bodyToMono(UserPageResponseDTO.class);
     }
 
     public Mono<Void> deleteUser(String jwtToken, String userId) {
@@ -232,10 +275,22 @@ public class AuthServiceClient {
     }
 
     public  Mono<ResponseEntity<UserPasswordLessDTO>> login(final Mono<Login> login) throws Exception {
+        return login(login, null);
+    }
+
+    /**
+     * @param clientIp The address of the client, forwarded so auth-service can throttle the failed logins by address
+     */
+    public  Mono<ResponseEntity<UserPasswordLessDTO>> login(final Mono<Login> login, final String clientIp) throws Exception {
         try {
             return webClientBuilder.build()
                     .post()
                     .uri(authServiceUrl+"/users/login")
+                    .headers(headers -> {
+                        if (clientIp != null) {
+                            headers.set("X-Forwarded-For", clientIp);
+                        }
+                    })
                     .body(login, Login.class)
                     .retrieve()
                     .onStatus(HttpStatusCode::is4xxClientError, clientResponse -> clientResponse.bodyToMono(HttpErrorInfo.class)
@@ -53,12 +53,24 @@ public class CustomersServiceClient {
     }
 
     public Flux<OwnerResponseDTO> getOwnersByPagination(Optional<Integer> page, Optional<Integer> size, String ownerId, String firstName, String lastName, String phoneNumber, String city) {
+        return getOwnersByPagination(page, size, null, ownerId, firstName, lastName, phoneNumber, city);
+    }
+
+    /**
+     * Same as getOwnersByPagination, but when the page token (ownerId of the last owner of the previous page) is given
+     * the page is found with a cursor and the page number is ignored
+     */
+    public Flux<OwnerResponseDTO> getOwnersByPagination(Optional<Integer> page, Optional<Integer> size, String pageToken, String ownerId, String firstName, String lastName, String phoneNumber, String city) {
 
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(customersServiceUrl + "/owners/owners-pagination");
 
         builder.queryParam("page", page);
         builder.queryParam("size",size);
 
+        if (pageToken != null && !pageToken.isEmpty()) {
+            builder.queryParam("pageToken", pageToken);
+        }
+
         // Add query parameters conditionally if they are not null or empty
         if (ownerId != null && !ownerId.isEmpty()) {
             builder.queryParam("ownerId", ownerId);
@@ -55,6 +55,15 @@ public class ProductsServiceClient {
                 .bodyToFlux(ProductResponseDTO.class);
     }
 
+    public Flux<ProductResponseDTO> getTrendingProducts(final int limit) {
+        return webClientBuilder.build()
+                .get()
+                .uri(productsServiceUrl + "/trending?limit=" + limit)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToFlux(ProductResponseDTO.class);
+    }
+
     public Mono<ProductResponseDTO> getProductByProductId(final String productId) {
         return webClientBuilder.build()
                 .get()
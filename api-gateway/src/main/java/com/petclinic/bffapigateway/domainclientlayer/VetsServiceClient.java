@@ -5,21 +5,25 @@ import com.petclinic.bffapigateway.exceptions.ExistingRatingNotFoundException;
 import com.petclinic.bffapigateway.exceptions.ExistingVetNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.webjars.NotFoundException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -31,6 +35,10 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @Component
 @Slf4j
 public class VetsServiceClient {
+    private static final List<String> PHOTO_REQUEST_HEADERS = List.of(HttpHeaders.RANGE, HttpHeaders.IF_NONE_MATCH);
+    private static final List<String> PHOTO_RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.CONTENT_RANGE, HttpHeaders.ETAG, HttpHeaders.ACCEPT_RANGES, HttpHeaders.CACHE_CONTROL);
+
     private final WebClient.Builder webClientBuilder;
     private String vetsServiceUrl;
 
@@ -48,12 +56,23 @@ public class VetsServiceClient {
     }
 
     //Photo
-    public Mono<Resource> getPhotoByVetId(String vetId){
+    /**
+     * Streams the photo through, Range and If-None-Match are passed on so vet-service can answer 206 or 304
+     * @param size "thumbnail" for the small version of the photo, null for the photo itself
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getPhotoByVetId(String vetId, String size, HttpHeaders requestHeaders){
         return webClientBuilder.build()
                 .get()
-                .uri(vetsServiceUrl + "/" + vetId + "/photo")
+                .uri(UriComponentsBuilder.fromHttpUrl(vetsServiceUrl + "/" + vetId + "/photo")
+                        .queryParamIfPresent("size", Optional.ofNullable(size))
+                        .toUriString())
+                .headers(headers -> PHOTO_REQUEST_HEADERS.forEach(name -> {
+                    List<String> values = requestHeaders.get(name);
+                    if (values != null)
+                        headers.put(name, values);
+                }))
                 .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, error->{
+                .onStatus(status -> status.is4xxClientError() && status.value() != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), error->{
                     HttpStatusCode statusCode = error.statusCode();
                     if(statusCode.equals(NOT_FOUND))
                         return Mono.error(new ExistingVetNotFoundException("Photo for vet "+vetId + " not found", NOT_FOUND));
@@ -62,7 +81,8 @@ public class VetsServiceClient {
                 .onStatus(HttpStatusCode::is5xxServerError,error->
                         Mono.error(new IllegalArgumentException("Something went wrong with the server"))
                 )
-                .bodyToMono(Resource.class);
+                .toEntityFlux(DataBuffer.class)
+                .map(VetsServiceClient::toPhotoResponse);
     }
     public Mono<PhotoResponseDTO> getDefaultPhotoByVetId(String vetId){
         return webClientBuilder.build()
@@ -81,13 +101,13 @@ public class VetsServiceClient {
                 .bodyToMono(PhotoResponseDTO.class);
     }
 
-    public Mono<Resource> addPhotoToVet(String vetId, String photoName, Mono<Resource> image) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> addPhotoToVet(String vetId, String photoName, Flux<DataBuffer> image) {
         return webClientBuilder
                 .build()
                 .post()
                 .uri(vetsServiceUrl + "/" + vetId + "/photos/" + photoName)
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
-                .body(image, Resource.class)
+                .body(BodyInserters.fromDataBuffers(image))
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, error -> {
                     HttpStatusCode statusCode = error.statusCode();
@@ -98,16 +118,17 @@ public class VetsServiceClient {
                 .onStatus(HttpStatusCode::is5xxServerError, error ->
                         Mono.error(new IllegalArgumentException("Something went wrong with the server"))
                 )
-                .bodyToMono(Resource.class);
+                .toEntityFlux(DataBuffer.class)
+                .map(VetsServiceClient::toPhotoResponse);
     }
 
-    public Mono<Resource> updatePhotoOfVet(String vetId, String photoName, Mono<Resource> image){
+    public Mono<ResponseEntity<Flux<DataBuffer>>> updatePhotoOfVet(String vetId, String photoName, Flux<DataBuffer> image){
         return webClientBuilder
                 .build()
                 .put()
                 .uri(vetsServiceUrl+"/"+vetId+"/photos/"+photoName)
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
-                .body(image, Resource.class)
+                .body(BodyInserters.fromDataBuffers(image))
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, error->{
                     HttpStatusCode statusCode = error.statusCode();
@@ -118,7 +139,19 @@ public class VetsServiceClient {
                 .onStatus(HttpStatusCode::is5xxServerError,error->
                         Mono.error(new IllegalArgumentException("Something went wrong with the server"))
                 )
-                .bodyToMono(Resource.class);
+                .toEntityFlux(DataBuffer.class)
+                .map(VetsServiceClient::toPhotoResponse);
+    }
+
+    //only the headers describing the photo are relayed, not the ones of the connection to vet-service
+    private static ResponseEntity<Flux<DataBuffer>> toPhotoResponse(ResponseEntity<Flux<DataBuffer>> response) {
+        HttpHeaders headers = new HttpHeaders();
+        PHOTO_RESPONSE_HEADERS.forEach(name -> {
+            List<String> values = response.getHeaders().get(name);
+            if (values != null)
+                headers.put(name, values);
+        });
+        return ResponseEntity.status(response.getStatusCode()).headers(headers).body(response.getBody());
     }
 
     //Badge
@@ -27,7 +27,9 @@ import org.webjars.NotFoundException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -81,6 +83,25 @@ public class VisitsServiceClient {
                 .retrieve()
                 .bodyToFlux(VisitResponseDTO.class);
     }
+    /**
+     * The visits of all the pets of the owner, found by visits-service-new in a single query
+     * @param from Optional first day of the visits
+     * @param to Optional last day of the visits
+     * @param status Optional status of the visits
+     */
+    public Flux<VisitResponseDTO> getVisitsForOwner(final String ownerId, final LocalDate from, final LocalDate to, final Status status){
+        return webClient
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/owners/{ownerId}")
+                        .queryParamIfPresent("from", Optional.ofNullable(from))
+                        .queryParamIfPresent("to", Optional.ofNullable(to))
+                        .queryParamIfPresent("status", Optional.ofNullable(status))
+                        .build(ownerId))
+                .retrieve()
+                .bodyToFlux(VisitResponseDTO.class);
+    }
+
     public Flux<VisitResponseDTO> getVisitByPractitionerId(final String practitionerId){
         return webClient
                 .get()
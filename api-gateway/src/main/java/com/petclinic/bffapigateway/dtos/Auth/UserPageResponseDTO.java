@@ -0,0 +1,24 @@
+package com.petclinic.bffapigateway.dtos.Auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of users of auth-service, in the order of their usernames, with the number of users matching the search
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserPageResponseDTO {
+
+    private List<UserDetails> users;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
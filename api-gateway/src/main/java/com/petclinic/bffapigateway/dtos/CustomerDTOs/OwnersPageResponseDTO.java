@@ -0,0 +1,22 @@
+package com.petclinic.bffapigateway.dtos.CustomerDTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of owners with the number of owners matching the filters.
+ * nextPageToken is null on the last page.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OwnersPageResponseDTO {
+    private List<OwnerResponseDTO> owners;
+    private long totalCount;
+    private String nextPageToken;
+}
@@ -17,6 +17,7 @@ public class VisitRequestDTO {
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
     private LocalDateTime visitDate;
+    private Integer duration;//in minutes
     private String description;
     private String petId;
     private String ownerId;
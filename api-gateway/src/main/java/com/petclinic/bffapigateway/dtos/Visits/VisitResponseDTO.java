@@ -18,8 +18,10 @@ public class VisitResponseDTO {
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
     private LocalDateTime visitDate;
+    private Integer duration;//in minutes
     private String description;
     private String petId;
+    private String ownerId;
     private String petName;
     private Date petBirthDate;
     private String practitionerId;
@@ -9,8 +9,10 @@ import com.petclinic.bffapigateway.dtos.Bills.BillStatus;
 import com.petclinic.bffapigateway.dtos.CustomerDTOs.OwnerRequestDTO;
 import com.petclinic.bffapigateway.dtos.Inventory.*;
 import com.petclinic.bffapigateway.dtos.CustomerDTOs.OwnerResponseDTO;
+import com.petclinic.bffapigateway.dtos.CustomerDTOs.OwnersPageResponseDTO;
 import com.petclinic.bffapigateway.dtos.Pets.*;
 import com.petclinic.bffapigateway.dtos.Vets.*;
+import com.petclinic.bffapigateway.dtos.Visits.Status;
 import com.petclinic.bffapigateway.dtos.Visits.VisitRequestDTO;
 import com.petclinic.bffapigateway.dtos.Visits.reviews.ReviewRequestDTO;
 import com.petclinic.bffapigateway.dtos.Visits.reviews.ReviewResponseDTO;
@@ -24,7 +26,8 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nonapi.io.github.classgraph.json.Id;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -34,6 +37,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 import java.awt.print.Pageable;
 import java.util.Optional;
@@ -312,9 +316,11 @@ public class BFFApiGatewayController {
     @SecuredEndpoint(allowedRoles = {Roles.ADMIN,Roles.VET,Roles.OWNER})
     @IsUserSpecific(idToMatch = {"ownerId"}, bypassRoles = {Roles.ADMIN,Roles.VET})
     @GetMapping(value = "visits/owners/{ownerId}", produces= MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<VisitResponseDTO> getVisitsByOwnerId(@PathVariable String ownerId){
-//not ideal since returns complete pet dto
-        return getPetsByOwnerId(ownerId).flatMap(petResponseDTO -> getVisitsForPet(petResponseDTO.getPetId()));
+    public Flux<VisitResponseDTO> getVisitsByOwnerId(@PathVariable String ownerId,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                     @RequestParam(required = false) Status status){
+        return visitsServiceClient.getVisitsForOwner(ownerId, from, to, status);
     }
     @GetMapping(value = "visits/vets/{practitionerId}", produces= MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<VisitResponseDTO> getVisitByPractitionerId(@PathVariable String practitionerId){
@@ -423,9 +429,10 @@ public class BFFApiGatewayController {
     //Photo
     @SecuredEndpoint(allowedRoles = {Roles.ANONYMOUS})
     @GetMapping("vets/{vetId}/photo")
-    public Mono<ResponseEntity<Resource>> getPhotoByVetId(@PathVariable String vetId) {
-        return vetsServiceClient.getPhotoByVetId(vetId)
-                .map(r -> ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE).body(r))
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getPhotoByVetId(@PathVariable String vetId,
+                                                                  @RequestParam(required = false) String size,
+                                                                  @RequestHeader HttpHeaders headers) {
+        return vetsServiceClient.getPhotoByVetId(vetId, size, headers)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     @SecuredEndpoint(allowedRoles = {Roles.ANONYMOUS})
@@ -437,16 +444,14 @@ public class BFFApiGatewayController {
     }
 
     @PostMapping(value = "vets/{vetId}/photos/{photoName}")
-    public Mono<ResponseEntity<Resource>> addPhoto(@PathVariable String vetId, @PathVariable String photoName, @RequestBody Mono<Resource> image) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> addPhoto(@PathVariable String vetId, @PathVariable String photoName, @RequestBody Flux<DataBuffer> image) {
         return vetsServiceClient.addPhotoToVet(vetId, photoName, image)
-                .map(r -> ResponseEntity.status(HttpStatus.CREATED).body(r))
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 
     @PutMapping(value = "vets/{vetId}/photos/{photoName}")
-    public Mono<ResponseEntity<Resource>> updatePhotoByVetId(@PathVariable String vetId, @PathVariable String photoName, @RequestBody Mono<Resource> image) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> updatePhotoByVetId(@PathVariable String vetId, @PathVariable String photoName, @RequestBody Flux<DataBuffer> image) {
         return vetsServiceClient.updatePhotoOfVet(vetId, photoName, image)
-                .map(p -> ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE).body(p))
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 
@@ -685,6 +690,35 @@ public class BFFApiGatewayController {
         return customersServiceClient.getOwnersByPagination(page,size,ownerId,firstName,lastName,phoneNumber,city);
     }
 
+    @SecuredEndpoint(allowedRoles = {Roles.ADMIN,Roles.VET})
+    @GetMapping(value = "/owners-page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<OwnersPageResponseDTO> getOwnersPage(@RequestParam Optional<Integer> page,
+                                                     @RequestParam Optional<Integer> size,
+                                                     @RequestParam(required = false) String pageToken,
+                                                     @RequestParam(required = false) String ownerId,
+                                                     @RequestParam(required = false) String firstName,
+                                                     @RequestParam(required = false) String lastName,
+                                                     @RequestParam(required = false) String phoneNumber,
+                                                     @RequestParam(required = false) String city) {
+
+        int pageSize = size.orElse(5);
+
+        //the page and the count are fetched at the same time
+        return Mono.zip(
+                customersServiceClient.getOwnersByPagination(Optional.of(page.orElse(0)), Optional.of(pageSize), pageToken, ownerId, firstName, lastName, phoneNumber, city).collectList(),
+                customersServiceClient.getTotalNumberOfOwnersWithFilters(ownerId, firstName, lastName, phoneNumber, city))
+                .map(tuple -> {
+                    List<OwnerResponseDTO> owners = tuple.getT1();
+                    String nextPageToken = !owners.isEmpty() && owners.size() == pageSize ? owners.get(owners.size() - 1).getOwnerId() : null;
+
+                    return OwnersPageResponseDTO.builder()
+                            .owners(owners)
+                            .totalCount(tuple.getT2())
+                            .nextPageToken(nextPageToken)
+                            .build();
+                });
+    }
+
     @SecuredEndpoint(allowedRoles = {Roles.ADMIN,Roles.VET})
     @GetMapping(value = "/owners-count")
     public Mono<Long> getTotalNumberOfOwners(){
@@ -847,6 +881,15 @@ public class BFFApiGatewayController {
         }
     }
 
+    @SecuredEndpoint(allowedRoles = {Roles.ADMIN})
+    @GetMapping(value = "users/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<UserPageResponseDTO> getUsersPage(@CookieValue("Bearer") String auth,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "20") int size,
+                                                  @RequestParam Optional<String> username) {
+        return authServiceClient.getUsersPage(auth, page, size, username.orElse(null));
+    }
+
     @PatchMapping(value = "users/{userId}",
             consumes = "application/json",
             produces = "application/json")
@@ -873,10 +916,15 @@ public class BFFApiGatewayController {
     @Operation()
     @SecuredEndpoint(allowedRoles = {Roles.ANONYMOUS})
     @PostMapping(value = "/users/login",produces = "application/json;charset=utf-8;", consumes = "application/json")
-    public Mono<ResponseEntity<UserPasswordLessDTO>> login(@RequestBody Mono<Login> login) throws Exception {
+    public Mono<ResponseEntity<UserPasswordLessDTO>> login(@RequestBody Mono<Login> login, ServerHttpRequest request) throws Exception {
         log.info("Entered controller /login");
-        return authServiceClient.login(login);
+        return authServiceClient.login(login, clientIp(request));
+
+    }
 
+    //the address the request came from, an X-Forwarded-For sent by the client is not trusted
+    private static String clientIp(ServerHttpRequest request) {
+        return request.getRemoteAddress() == null ? null : request.getRemoteAddress().getAddress().getHostAddress();
     }
 
     @SecuredEndpoint(allowedRoles = {Roles.ANONYMOUS})
@@ -40,6 +40,12 @@ public class ProductController {
         return productsServiceClient.getAllProducts(minPrice, maxPrice);
     }
 
+    @SecuredEndpoint(allowedRoles = {Roles.ALL})
+    @GetMapping(value = "trending", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<ProductResponseDTO> getTrendingProducts(@RequestParam(defaultValue = "4") int limit) {
+        return productsServiceClient.getTrendingProducts(limit);
+    }
+
     @SecuredEndpoint(allowedRoles = {Roles.ADMIN})
     @GetMapping(value = "{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<ProductResponseDTO>> getProductByProductId(@PathVariable String productId) {
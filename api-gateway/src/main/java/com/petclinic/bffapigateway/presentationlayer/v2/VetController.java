@@ -14,20 +14,18 @@ import com.petclinic.bffapigateway.utils.Security.Variables.Roles;
 import com.petclinic.bffapigateway.utils.VetsEntityDtoUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import org.springframework.web.multipart.MultipartFile;
 
 
-import java.io.IOException;
 
 
 @RestController
@@ -83,18 +81,15 @@ public class VetController {
     }
     @SecuredEndpoint(allowedRoles = {Roles.ADMIN})
     @PostMapping(value = "{vetId}/photos/{photoName}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public Mono<ResponseEntity<Resource>> addPhoto(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> addPhoto(
             @PathVariable String vetId,
             @PathVariable String photoName,
-            @RequestParam("image") MultipartFile image) throws IOException {
+            @RequestPart("image") Mono<FilePart> image) {
 
+        // The part is streamed to vet-service as it arrives
+        Flux<DataBuffer> content = image.flatMapMany(FilePart::content);
 
-        // Convert MultipartFile to Resource
-        Mono<Resource> resourceMono = Mono.just(new ByteArrayResource(image.getBytes()));
-
-
-        return vetsServiceClient.addPhotoToVet(vetId, photoName, resourceMono)
-                .map(r -> ResponseEntity.status(HttpStatus.CREATED).body(r))
+        return vetsServiceClient.addPhotoToVet(vetId, photoName, content)
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 
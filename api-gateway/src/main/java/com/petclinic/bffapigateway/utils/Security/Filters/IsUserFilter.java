@@ -5,23 +5,19 @@ import com.petclinic.bffapigateway.dtos.Auth.TokenResponseDTO;
 import com.petclinic.bffapigateway.exceptions.ForbiddenAccessException;
 import com.petclinic.bffapigateway.exceptions.InvalidInputException;
 import com.petclinic.bffapigateway.exceptions.InvalidTokenException;
-import com.petclinic.bffapigateway.utils.Security.Annotations.IsUserSpecific;
-import com.petclinic.bffapigateway.utils.Security.Variables.Roles;
-import com.petclinic.bffapigateway.utils.Utility;
+import com.petclinic.bffapigateway.utils.Security.Policies.SecurityPolicy;
+import com.petclinic.bffapigateway.utils.Security.Policies.SecurityPolicyTable;
 import lombok.Generated;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -32,7 +28,7 @@ import java.util.Map;
 @Generated
 public class IsUserFilter implements WebFilter {
 
-    private final Utility utility;
+    private final SecurityPolicyTable securityPolicyTable;
 
     @SuppressWarnings("NullableProblems")
     @Override
@@ -44,21 +40,12 @@ public class IsUserFilter implements WebFilter {
             }
         }
 
-        HandlerMethod handler = utility.getHandler(exchange);
+        SecurityPolicy policy = securityPolicyTable.getPolicy(exchange);
 
-        if (handler.getMethod().getAnnotation(IsUserSpecific.class) == null) {
+        //false when there is no @IsUserSpecific or when its bypassRoles contains ALL or ANONYMOUS
+        if (!policy.isUserSpecific()) {
             return chain.filter(exchange);
         }
-
-
-        if (Arrays.stream(handler.getMethod().getAnnotation(IsUserSpecific.class).bypassRoles()).anyMatch(role -> role == Roles.ALL)
-        || Arrays.stream(handler.getMethod().getAnnotation(IsUserSpecific.class).bypassRoles()).anyMatch(role -> role == Roles.ANONYMOUS)) {
-
-            if(Arrays.stream(handler.getMethod().getAnnotation(IsUserSpecific.class).bypassRoles()).anyMatch(role -> role == Roles.ANONYMOUS))
-                log.error("Endpoint is not secured, anyone can access it and annotation is redundant. This is likely caused because the bypassRoles array contains ANONYMOUS.");
-
-
-        }
         else {
 
 
@@ -86,16 +73,16 @@ public class IsUserFilter implements WebFilter {
                         .replace(",","")
                         .trim();
 
-               if(Arrays.toString(handler.getMethod().getAnnotation(IsUserSpecific.class).bypassRoles()).contains(role)){
+               if(policy.getBypassRoles().contains(role)){
                    return chain.filter(exchange);
                }
             }
 
-            String[] idToMatch = handler.getMethod().getAnnotation(IsUserSpecific.class).idToMatch();
+            List<String> idToMatch = policy.getIdToMatch();
 
 
 
-            Map<String,String> pathVariables = exchange.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            Map<String,String> pathVariables = securityPolicyTable.getUriVariables(exchange);
 
 
 
@@ -3,9 +3,8 @@ package com.petclinic.bffapigateway.utils.Security.Filters;
 
 import com.petclinic.bffapigateway.domainclientlayer.AuthServiceClient;
 import com.petclinic.bffapigateway.dtos.Auth.TokenResponseDTO;
-import com.petclinic.bffapigateway.utils.Security.Annotations.SecuredEndpoint;
-import com.petclinic.bffapigateway.utils.Security.Variables.Roles;
-import com.petclinic.bffapigateway.utils.Utility;
+import com.petclinic.bffapigateway.utils.Security.Policies.PathTrie;
+import com.petclinic.bffapigateway.utils.Security.Policies.SecurityPolicyTable;
 import lombok.Generated;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.Order;
@@ -14,15 +13,11 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Objects;
 
 
@@ -32,40 +27,40 @@ import java.util.Objects;
 @Generated
 public class JwtTokenFilter implements WebFilter {
 
-    AntPathMatcher antPathMatcher = new AntPathMatcher();
-
-
     private final AuthServiceClient authValidationService;
 
     private final JwtTokenUtil jwtTokenUtil;
 
-    private final Utility utility;
+    private final JwtTokenVerifier jwtTokenVerifier;
 
-    private final HashMap<String, String> AUTH_WHITELIST = new HashMap<>();
-    //fill up the hashmap with the endpoints that are whitelisted
+    private final SecurityPolicyTable securityPolicyTable;
 
+    private final PathTrie<String> AUTH_WHITELIST = new PathTrie<>();
+    //fill up the trie with the endpoints that are whitelisted
 
-    public JwtTokenFilter(AuthServiceClient authValidationService, JwtTokenUtil jwtTokenUtil, Utility utility) {
+
+    public JwtTokenFilter(AuthServiceClient authValidationService, JwtTokenUtil jwtTokenUtil, JwtTokenVerifier jwtTokenVerifier, SecurityPolicyTable securityPolicyTable) {
         this.authValidationService = authValidationService;
         this.jwtTokenUtil = jwtTokenUtil;
-        this.utility = utility;
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.securityPolicyTable = securityPolicyTable;
         //All white listed endpoints
-        AUTH_WHITELIST.put("/context-path/swagger-ui", "/context-path/swagger-ui");
-        AUTH_WHITELIST.put("/custom/swagger-ui.html", "/custom/swagger-ui.html");
-        AUTH_WHITELIST.put("/swagger-resources", "/swagger-resources");
-        AUTH_WHITELIST.put("/swagger-resources/**", "/swagger-resources/**");
-        AUTH_WHITELIST.put("/configuration/ui", "/configuration/ui");
-        AUTH_WHITELIST.put("/configuration/security", "/configuration/security");
-        AUTH_WHITELIST.put("/swagger-ui.html", "/swagger-ui.html");
-        AUTH_WHITELIST.put("/webjars/**", "/webjars/**");
-        AUTH_WHITELIST.put("/api-docs", "/api-docs");
-        AUTH_WHITELIST.put("/api-docs/**", "/api-docs/**");
-
-        AUTH_WHITELIST.put("/swagger-ui/**", "/swagger-ui/**");
-        AUTH_WHITELIST.put("/scripts/**", "/scripts/**");
-        AUTH_WHITELIST.put("/css/**", "/css/**");
-        AUTH_WHITELIST.put("/images/**", "/images/**");
-        AUTH_WHITELIST.put("/images/*", "/images/*");
+        AUTH_WHITELIST.insert("/context-path/swagger-ui", "/context-path/swagger-ui");
+        AUTH_WHITELIST.insert("/custom/swagger-ui.html", "/custom/swagger-ui.html");
+        AUTH_WHITELIST.insert("/swagger-resources", "/swagger-resources");
+        AUTH_WHITELIST.insert("/swagger-resources/**", "/swagger-resources/**");
+        AUTH_WHITELIST.insert("/configuration/ui", "/configuration/ui");
+        AUTH_WHITELIST.insert("/configuration/security", "/configuration/security");
+        AUTH_WHITELIST.insert("/swagger-ui.html", "/swagger-ui.html");
+        AUTH_WHITELIST.insert("/webjars/**", "/webjars/**");
+        AUTH_WHITELIST.insert("/api-docs", "/api-docs");
+        AUTH_WHITELIST.insert("/api-docs/**", "/api-docs/**");
+
+        AUTH_WHITELIST.insert("/swagger-ui/**", "/swagger-ui/**");
+        AUTH_WHITELIST.insert("/scripts/**", "/scripts/**");
+        AUTH_WHITELIST.insert("/css/**", "/css/**");
+        AUTH_WHITELIST.insert("/images/**", "/images/**");
+        AUTH_WHITELIST.insert("/images/*", "/images/*");
     }
 
 
@@ -83,8 +78,7 @@ public class JwtTokenFilter implements WebFilter {
 
         exchange.getResponse().getHeaders().add("Access-Control-Allow-Headers", "Content-Type");
 
-        //todo optimize this
-        if (exchange.getRequest().getMethod().equals(HttpMethod.OPTIONS) || AUTH_WHITELIST.keySet().stream().anyMatch(pattern -> antPathMatcher.match(pattern, path))) {
+        if (exchange.getRequest().getMethod().equals(HttpMethod.OPTIONS) || AUTH_WHITELIST.matches(path)) {
             exchange.getAttributes().put("whitelisted", true);
 
             return chain.filter(exchange);
@@ -97,15 +91,10 @@ public class JwtTokenFilter implements WebFilter {
         }
 
 
-        HandlerMethod handler = utility.getHandler(exchange);
-
-
-        if (handler.getMethod().getAnnotation(SecuredEndpoint.class) != null) {
-            if (Arrays.asList(handler.getMethod().getAnnotation(SecuredEndpoint.class).allowedRoles()).contains(Roles.ANONYMOUS)) {
-                exchange.getAttributes().put("whitelisted", true);
+        if (securityPolicyTable.getPolicy(exchange).isAnonymous()) {
+            exchange.getAttributes().put("whitelisted", true);
 
-                return chain.filter(exchange);
-            }
+            return chain.filter(exchange);
         }
 
 
@@ -116,6 +105,21 @@ public class JwtTokenFilter implements WebFilter {
             return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap("No token provided".getBytes())));
         }
 
+        //verify the signature locally when the secret is shared, auth-service is only called when it is not
+        if (jwtTokenVerifier.isEnabled()) {
+            return jwtTokenVerifier.verify(token)
+                    .map(tokenValues -> {
+                        exchange.getAttributes().put("tokenValues", tokenValues);
+
+                        return chain.filter(exchange);
+                    })
+                    .orElseGet(() -> {
+                        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+
+                        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap("Authentication refused !\nToken is invalid or expired".getBytes())));
+                    });
+        }
+
 
         Mono<ResponseEntity<TokenResponseDTO>> validationResponse = authValidationService.validateToken(token);
 
@@ -0,0 +1,151 @@
+package com.petclinic.bffapigateway.utils.Security.Filters;
+
+import com.petclinic.bffapigateway.dtos.Auth.TokenResponseDTO;
+import com.petclinic.bffapigateway.utils.Security.Variables.SecurityConst;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>Verifies the Bearer token inside the gateway instead of asking auth-service.</h1>
+ *
+ * <p>
+ * The token is signed by auth-service with the shared HMAC secret, so the gateway can check the signature and expiry
+ * itself and build the same {@link TokenResponseDTO} that {@code /users/validate-token} would have returned.
+ * Verified tokens are kept in a bounded cache keyed by the SHA-256 hash of the token until they expire.
+ * </p>
+ *
+ * <p>
+ * When no SECRET_KEY is configured the verifier is disabled and {@link JwtTokenFilter} falls back to auth-service.
+ * </p>
+ */
+@Slf4j
+@Component
+public class JwtTokenVerifier {
+
+    private static final String CLAIM_KEY_ROLES = "roles";
+    private static final String CLAIM_KEY_ID = "id";
+
+    private final JwtParser jwtParser;
+
+    private final int maxCachedTokens;
+
+    private final Map<String, CachedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+
+    public JwtTokenVerifier(SecurityConst securityConst, @Value("${TOKEN_CACHE_MAX_SIZE:10000}") int maxCachedTokens) {
+        this.maxCachedTokens = maxCachedTokens;
+
+        if (securityConst.getSECRET() == null || securityConst.getSECRET().isBlank()) {
+            log.info("No SECRET_KEY configured, tokens will be validated by auth-service");
+            this.jwtParser = null;
+        } else {
+            this.jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(securityConst.getSECRET().getBytes()))
+                    .build();
+        }
+    }
+
+
+    public boolean isEnabled() {
+        return jwtParser != null;
+    }
+
+
+    /**
+     * Returns the token values when the signature is valid and the token is not expired, empty otherwise.
+     */
+    public Optional<TokenResponseDTO> verify(String token) {
+        if (!isEnabled() || token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+
+        CachedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return Optional.of(cached.tokenValues());
+            }
+            verifiedTokens.remove(key, cached);
+        }
+
+        Claims claims;
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token refused by local verification: {}", e.getMessage());
+            return Optional.empty();
+        }
+
+        // parseClaimsJws already refuses expired tokens, a token without expiry is refused like auth-service does
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Optional.empty();
+        }
+
+        TokenResponseDTO tokenValues = TokenResponseDTO.builder()
+                .token(token)
+                .userId(claims.get(CLAIM_KEY_ID) == null ? null : claims.get(CLAIM_KEY_ID).toString())
+                .email(claims.getSubject())
+                .roles(getRoles(claims))
+                .build();
+
+        cache(key, new CachedToken(tokenValues, expiration.getTime()), now);
+
+        return Optional.of(tokenValues);
+    }
+
+
+    int cachedTokenCount() {
+        return verifiedTokens.size();
+    }
+
+
+    private void cache(String key, CachedToken cachedToken, long now) {
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            verifiedTokens.entrySet().removeIf(entry -> entry.getValue().expiresAt() <= now);
+        }
+        //if everything is still live we skip caching instead of evicting tokens that are in use
+        if (verifiedTokens.size() < maxCachedTokens) {
+            verifiedTokens.put(key, cachedToken);
+        }
+    }
+
+    private List<String> getRoles(Claims claims) {
+        Object roles = claims.get(CLAIM_KEY_ROLES);
+
+        if (roles instanceof Collection<?> collection) {
+            return collection.stream().map(String::valueOf).toList();
+        }
+        if (roles != null) {
+            return Arrays.asList(roles.toString().split(","));
+        }
+        return null;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+
+    private record CachedToken(TokenResponseDTO tokenValues, long expiresAt) {
+    }
+}
@@ -3,20 +3,17 @@ package com.petclinic.bffapigateway.utils.Security.Filters;
 
 import com.petclinic.bffapigateway.dtos.Auth.TokenResponseDTO;
 import com.petclinic.bffapigateway.exceptions.ForbiddenAccessException;
-import com.petclinic.bffapigateway.utils.Security.Annotations.SecuredEndpoint;
+import com.petclinic.bffapigateway.utils.Security.Policies.SecurityPolicyTable;
 import com.petclinic.bffapigateway.utils.Security.Variables.Roles;
-import com.petclinic.bffapigateway.utils.Utility;
 import lombok.Generated;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
 import java.util.List;
 
 @Slf4j
@@ -25,10 +22,10 @@ import java.util.List;
 @Generated
 public class RoleFilter implements WebFilter {
 
-   private final Utility utility;
+   private final SecurityPolicyTable securityPolicyTable;
 
-    public RoleFilter(Utility utility) {
-        this.utility = utility;
+    public RoleFilter(SecurityPolicyTable securityPolicyTable) {
+        this.securityPolicyTable = securityPolicyTable;
     }
 
 
@@ -44,16 +41,8 @@ public class RoleFilter implements WebFilter {
         }
 
 
-        HandlerMethod handler = utility.getHandler(exchange);
-
-
-
-        if (handler.getMethod().getAnnotation(SecuredEndpoint.class) == null || Arrays.stream(handler.getMethod().getAnnotation(SecuredEndpoint.class).allowedRoles()).anyMatch(role -> role == Roles.ALL)) {
-            return chain.filter(exchange);
-        }
-
-
-        List<Roles> rolesAllowed = List.of(handler.getMethod().getAnnotation(SecuredEndpoint.class).allowedRoles());
+        //empty when the endpoint has no @SecuredEndpoint or allows ALL
+        List<Roles> rolesAllowed = securityPolicyTable.getPolicy(exchange).getAllowedRoles();
 
         log.debug("Roles allowed: {}", rolesAllowed);
 
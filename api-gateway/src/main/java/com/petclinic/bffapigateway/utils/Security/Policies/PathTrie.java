@@ -0,0 +1,88 @@
+package com.petclinic.bffapigateway.utils.Security.Policies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h1>Segment trie for path patterns.</h1>
+ *
+ * <p>
+ * Patterns are split on "/" and stored one segment per level so a lookup only walks the branches that can match the
+ * request path instead of testing every pattern. Supported segments are literals, "*" and "{variable}" (exactly one
+ * segment) and "**" or "{*variable}" (zero or more trailing segments).
+ * </p>
+ *
+ * @param <T> value stored for each pattern
+ */
+public class PathTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+
+    public void insert(String pattern, T value) {
+        Node<T> node = root;
+
+        for (String segment : split(pattern)) {
+            if (segment.equals("**") || segment.startsWith("{*")) {
+                node = node.rest == null ? (node.rest = new Node<>()) : node.rest;
+            } else if (segment.contains("*") || segment.contains("{")) {
+                node = node.wildcard == null ? (node.wildcard = new Node<>()) : node.wildcard;
+            } else {
+                node = node.literals.computeIfAbsent(segment, s -> new Node<>());
+            }
+        }
+
+        node.values.add(value);
+    }
+
+    /**
+     * Returns the values of every pattern matching the path, literal matches first.
+     */
+    public List<T> match(String path) {
+        List<T> matches = new ArrayList<>();
+        collect(root, split(path), 0, matches);
+        return matches;
+    }
+
+    public boolean matches(String path) {
+        return !match(path).isEmpty();
+    }
+
+
+    private void collect(Node<T> node, String[] segments, int index, List<T> matches) {
+        if (node.rest != null) {
+            //"**" swallows whatever is left, including nothing
+            matches.addAll(node.rest.values);
+        }
+
+        if (index == segments.length) {
+            matches.addAll(node.values);
+            return;
+        }
+
+        Node<T> literal = node.literals.get(segments[index]);
+        if (literal != null) {
+            collect(literal, segments, index + 1, matches);
+        }
+        if (node.wildcard != null) {
+            collect(node.wildcard, segments, index + 1, matches);
+        }
+    }
+
+    private static String[] split(String path) {
+        return Arrays.stream(path.split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .toArray(String[]::new);
+    }
+
+
+    private static class Node<T> {
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+        private Node<T> wildcard;
+        private Node<T> rest;
+    }
+}
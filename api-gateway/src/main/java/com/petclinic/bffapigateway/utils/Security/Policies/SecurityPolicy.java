@@ -0,0 +1,77 @@
+package com.petclinic.bffapigateway.utils.Security.Policies;
+
+import com.petclinic.bffapigateway.utils.Security.Annotations.IsUserSpecific;
+import com.petclinic.bffapigateway.utils.Security.Annotations.SecuredEndpoint;
+import com.petclinic.bffapigateway.utils.Security.Variables.Roles;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <h1>Security requirements of one endpoint, read once from its annotations.</h1>
+ *
+ * <p>
+ * allowedRoles is empty when any authenticated user can access the endpoint, which is the case when
+ * {@link SecuredEndpoint} is absent or contains ALL.
+ * userSpecific is only true when {@link IsUserSpecific} is present and can not be bypassed by everyone.
+ * </p>
+ *
+ * @see SecurityPolicyTable
+ */
+@Slf4j
+@Value
+@Builder
+public class SecurityPolicy {
+
+    boolean anonymous;
+
+    List<Roles> allowedRoles;
+
+    boolean userSpecific;
+
+    Set<String> bypassRoles;
+
+    List<String> idToMatch;
+
+
+    public static SecurityPolicy of(Method method) {
+        SecuredEndpoint securedEndpoint = method.getAnnotation(SecuredEndpoint.class);
+        IsUserSpecific isUserSpecific = method.getAnnotation(IsUserSpecific.class);
+
+        List<Roles> allowedRoles = securedEndpoint == null ? List.of() : List.of(securedEndpoint.allowedRoles());
+        boolean anonymous = allowedRoles.contains(Roles.ANONYMOUS);
+        if (allowedRoles.contains(Roles.ALL)) {
+            allowedRoles = List.of();
+        }
+
+        boolean userSpecific = false;
+        Set<String> bypassRoles = Set.of();
+        List<String> idToMatch = List.of();
+
+        if (isUserSpecific != null) {
+            List<Roles> bypass = List.of(isUserSpecific.bypassRoles());
+
+            if (bypass.contains(Roles.ANONYMOUS)) {
+                log.error("Endpoint {} is not secured, anyone can access it and annotation is redundant. This is likely caused because the bypassRoles array contains ANONYMOUS.", method);
+            }
+
+            userSpecific = !bypass.contains(Roles.ALL) && !bypass.contains(Roles.ANONYMOUS);
+            bypassRoles = bypass.stream().map(Roles::toString).collect(Collectors.toUnmodifiableSet());
+            idToMatch = Arrays.asList(isUserSpecific.idToMatch());
+        }
+
+        return SecurityPolicy.builder()
+                .anonymous(anonymous)
+                .allowedRoles(allowedRoles)
+                .userSpecific(userSpecific)
+                .bypassRoles(bypassRoles)
+                .idToMatch(idToMatch)
+                .build();
+    }
+}
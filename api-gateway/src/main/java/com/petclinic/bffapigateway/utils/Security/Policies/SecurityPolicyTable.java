@@ -0,0 +1,152 @@
+package com.petclinic.bffapigateway.utils.Security.Policies;
+
+import com.petclinic.bffapigateway.exceptions.HandlerIsNullException;
+import com.petclinic.bffapigateway.utils.Utility;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * <h1>Route to security policy table compiled once at startup.</h1>
+ *
+ * <p>
+ * Every controller mapping is read when the gateway starts and its {@link SecurityPolicy} is stored in a
+ * {@link PathTrie} keyed by the mapping pattern, so the security filters can find the policy of a request without
+ * blocking on the handler mapping and without reflecting over annotations.
+ * The most specific pattern wins, then a mapping restricted to some methods over one for every method, like they do
+ * in the handler mapping.
+ * </p>
+ *
+ * <p>
+ * If two mappings share a pattern and method but differ on something else (produces, params...) and have different
+ * policies, the route is resolved through {@link Utility#getHandler} like before.
+ * </p>
+ */
+@Slf4j
+@Component
+public class SecurityPolicyTable {
+
+    private static final String MATCHED_ROUTE_ATTRIBUTE = SecurityPolicyTable.class.getName() + ".route";
+
+    private static final Comparator<Route> MOST_SPECIFIC_FIRST = Comparator
+            .comparing(Route::pattern, PathPattern.SPECIFICITY_COMPARATOR)
+            .thenComparing(route -> route.methods().isEmpty());
+
+    private final PathTrie<Route> routes = new PathTrie<>();
+
+    private final Map<HandlerMethod, SecurityPolicy> policiesByHandler = new ConcurrentHashMap<>();
+
+    private final Utility utility;
+
+
+    public SecurityPolicyTable(RequestMappingHandlerMapping requestMappingHandlerMapping, Utility utility) {
+        this.utility = utility;
+
+        Map<String, List<Route>> routesByPatternAndMethods = new LinkedHashMap<>();
+
+        requestMappingHandlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+            SecurityPolicy policy = SecurityPolicy.of(handlerMethod.getMethod());
+            policiesByHandler.put(handlerMethod, policy);
+
+            Set<String> methods = getMethods(info);
+            for (PathPattern pattern : info.getPatternsCondition().getPatterns()) {
+                routesByPatternAndMethods
+                        .computeIfAbsent(pattern.getPatternString() + " " + methods, key -> new ArrayList<>())
+                        .add(new Route(pattern, methods, policy));
+            }
+        });
+
+        routesByPatternAndMethods.values().forEach(candidates -> {
+            Route route = candidates.get(0);
+            boolean ambiguous = candidates.stream().map(Route::policy).distinct().count() > 1;
+            if (ambiguous) {
+                log.warn("Mappings for {} {} have different security policies, they will be resolved through the handler mapping", route.methods(), route.pattern());
+                route = new Route(route.pattern(), route.methods(), null);
+            }
+            routes.insert(route.pattern().getPatternString(), route);
+        });
+
+        log.info("Compiled security policies for {} routes", routesByPatternAndMethods.size());
+    }
+
+
+    /**
+     * Returns the policy of the endpoint targeted by the request, the lookup is only done once per exchange.
+     */
+    public SecurityPolicy getPolicy(ServerWebExchange exchange) {
+        return getRoute(exchange).policy();
+    }
+
+    /**
+     * Returns the path variables of the request, as the handler mapping would have extracted them.
+     */
+    public Map<String, String> getUriVariables(ServerWebExchange exchange) {
+        Route route = getRoute(exchange);
+
+        if (route.pattern() == null) {
+            return exchange.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        }
+
+        PathPattern.PathMatchInfo matchInfo = route.pattern().matchAndExtract(exchange.getRequest().getPath().pathWithinApplication());
+        return matchInfo == null ? null : matchInfo.getUriVariables();
+    }
+
+
+    private Route getRoute(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(MATCHED_ROUTE_ATTRIBUTE);
+
+        if (route == null) {
+            route = findRoute(exchange);
+            exchange.getAttributes().put(MATCHED_ROUTE_ATTRIBUTE, route);
+        }
+
+        return route;
+    }
+
+    private Route findRoute(ServerWebExchange exchange) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        String method = exchange.getRequest().getMethod().name();
+
+        Route route = routes.match(path.value()).stream()
+                .filter(candidate -> candidate.allows(method))
+                .filter(candidate -> candidate.pattern().matches(path))
+                .min(MOST_SPECIFIC_FIRST)
+                .orElseThrow(() -> new HandlerIsNullException("Handler is null, check if the endpoint is valid"));
+
+        if (route.policy() == null) {
+            //ambiguous route, let the handler mapping decide and remember it for the other filters
+            HandlerMethod handler = utility.getHandler(exchange);
+            return new Route(null, route.methods(), policiesByHandler.computeIfAbsent(handler, h -> SecurityPolicy.of(h.getMethod())));
+        }
+
+        return route;
+    }
+
+    private static Set<String> getMethods(RequestMappingInfo info) {
+        return info.getMethodsCondition().getMethods().stream()
+                .map(RequestMethod::name)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+
+    private record Route(PathPattern pattern, Set<String> methods, SecurityPolicy policy) {
+
+        boolean allows(String method) {
+            //an empty set means every method, HEAD is served by GET mappings
+            return methods.isEmpty() || methods.contains(method)
+                    || (HttpMethod.HEAD.name().equals(method) && methods.contains(HttpMethod.GET.name()));
+        }
+    }
+}
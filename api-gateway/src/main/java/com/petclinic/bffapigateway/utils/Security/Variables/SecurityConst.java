@@ -12,10 +12,12 @@ public class SecurityConst {
 
     private final long EXPIRATION_TIME_MINUTES;     // 1 hour
     private final String TOKEN_PREFIX;     // Bearer
+    private final String SECRET;     // jwt secret shared with auth-service, empty disables local verification
 
 
-    public SecurityConst(@Value("${EXPIRATION_TIME_MINUTES}") long EXPIRATION_TIME_MINUTES,@Value("${TOKEN_PREFIX}") String TOKEN_PREFIX) {
+    public SecurityConst(@Value("${EXPIRATION_TIME_MINUTES}") long EXPIRATION_TIME_MINUTES, @Value("${TOKEN_PREFIX}") String TOKEN_PREFIX, @Value("${SECRET_KEY:}") String SECRET) {
         this.EXPIRATION_TIME_MINUTES = EXPIRATION_TIME_MINUTES;
         this.TOKEN_PREFIX = TOKEN_PREFIX;
+        this.SECRET = SECRET;
     }
 }
@@ -4,39 +4,48 @@ angular.module('adminPanel')
 
         var self = this;
         self.users = []
+        /*------------------------------------------------------------*/
+        self.currentPage = 0;
+        self.pageSize = 20;
+        self.totalPages = 0;
+        self.currentPageOnSite = 1;
+        self.query = '';
 
-        let eventSource = new EventSource("api/gateway/users")
-        eventSource.addEventListener('message', function (event){
-            $scope.$apply(function(){
-                console.log(event.data)
-                self.users.push(JSON.parse(event.data))
-            })
-        })
-        eventSource.onerror = (error) =>{
-            if(eventSource.readyState === 0){
-                eventSource.close()
-                console.log("EventSource was closed by server successfully."+error)
-            }else{
-                console.log("EventSource error: "+error)
+        // the users are read one page at a time, the username search matches the start of the usernames
+        function loadPage() {
+            var params = { page: self.currentPage, size: self.pageSize };
+            if (self.query) {
+                params.username = self.query;
             }
+            $http.get('api/gateway/users/page', {
+                params: params,
+                headers: {'Authorization': "Bearer " + authProvider.getUser().token}
+            })
+                .then(function (resp) {
+                    self.users = resp.data.users;
+                    self.totalPages = resp.data.totalPages;
+                    self.currentPageOnSite = self.currentPage + 1;
+                });
         }
-        
-        $scope.search = function () {
-            if ($scope.query === '') {
-                $http.get('api/gateway/users', {
-                    headers: {'Authorization': "Bearer " + authProvider.getUser().token}
-                })
-                    .then(function (resp) {
-                        self.users = resp.data;
-                    });
-            } else {
-                $http.get('api/gateway/users', {
-                    params: { username: $scope.query },
-                    headers: {'Authorization': "Bearer " + authProvider.getUser().token}
-                })
-                    .then(function (resp) {
-                        self.users = resp.data;
-                    });
+
+        loadPage();
+
+        self.search = function () {
+            self.currentPage = 0;
+            loadPage();
+        };
+
+        self.goNextPage = function () {
+            if (self.currentPage + 1 < self.totalPages) {
+                self.currentPage++;
+                loadPage();
+            }
+        };
+
+        self.goPreviousPage = function () {
+            if (self.currentPage - 1 >= 0) {
+                self.currentPage--;
+                loadPage();
             }
         };
 
@@ -45,13 +54,8 @@ angular.module('adminPanel')
             $http.delete('api/gateway/users/' + userid, {
                 headers: {'Authorization': "Bearer " + authProvider.getUser().token}})
                 .then(function () {
-                    $http.get('api/gateway/users', {
-                        headers: {'Authorization': "Bearer " + authProvider.getUser().token}})
-                        .then(function (resp) {
-                            self.users = resp.data;
-                            alert("User has been deleted successfully.");
-                            $window.location.reload();
-                        });
+                    alert("User has been deleted successfully.");
+                    $window.location.reload();
                 });
         };
 
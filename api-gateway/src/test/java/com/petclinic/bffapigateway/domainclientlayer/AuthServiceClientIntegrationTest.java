@@ -28,6 +28,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -46,7 +47,7 @@ import static reactor.core.publisher.Mono.when;
 public class AuthServiceClientIntegrationTest {
 
     private final SecurityConst securityConst = new SecurityConst(60
-            ,"Bearer");
+            ,"Bearer", "");
 
     @MockBean
     CustomersServiceClient customersServiceClient;
@@ -438,6 +439,51 @@ public class AuthServiceClientIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getAllUsers_MoreThanOnePage_ShouldReadThePagesAfterTheLastUsername() throws Exception {
+        List<UserDetails> firstPage = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            firstPage.add(UserDetails.builder().userId("userId" + i).username(String.format("user%03d", i)).build());
+        }
+        UserDetails last = UserDetails.builder().userId("userId100").username("user100").build();
+
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(objectMapper.writeValueAsString(firstPage)));
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(objectMapper.writeValueAsString(List.of(last))));
+
+        StepVerifier.create(authServiceClient.getUsers("jwtToken"))
+                .expectNextCount(100)
+                .expectNext(last)
+                .verifyComplete();
+
+        assertEquals("/users/?size=100", server.takeRequest().getPath());
+        assertEquals("/users/?size=100&afterUsername=user099", server.takeRequest().getPath());
+    }
+
+    @Test
+    void getUsersPage_ShouldReturnThePageOfAuthService() throws Exception {
+        UserPageResponseDTO page = UserPageResponseDTO.builder()
+                .users(List.of(userDetails))
+                .page(1)
+                .size(20)
+                .totalElements(21)
+                .totalPages(2)
+                .build();
+
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(objectMapper.writeValueAsString(page)));
+
+        StepVerifier.create(authServiceClient.getUsersPage("jwtToken", 1, 20, "user"))
+                .expectNext(page)
+                .verifyComplete();
+
+        assertEquals("/users/page?page=1&size=20&username=user", server.takeRequest().getPath());
+    }
+
     @Test
     @DisplayName("Should return user details when valid userId is provided")
     void shouldReturnUserDetails_WhenValidUserIdIsProvided() throws IOException {
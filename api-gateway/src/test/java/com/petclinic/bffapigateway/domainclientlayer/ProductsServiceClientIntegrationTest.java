@@ -102,6 +102,23 @@ class ProductsServiceClientIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getTrendingProducts_ThenReturnTheMostRequestedProducts() {
+
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("[{\"productId\":\"4affcab7-3ab1-4917-a114-2b6301aa5565\",\"productName\":\"Rabbit Hutch\",\"productDescription\":\"Outdoor wooden hutch for rabbits\",\"productSalePrice\":79.99,\"averageRating\":0.0}," +
+                        "{\"productId\":\"baee7cd2-b67a-449f-b262-91f45dde8a6d\",\"productName\":\"Flea Collar\",\"productDescription\":\"Flea and tick prevention for small dogs\",\"productSalePrice\":9.99,\"averageRating\":0.0}]"
+                ).setHeader("Content-Type", "application/json")
+        );
+
+        Flux<ProductResponseDTO> productsFlux = productsServiceClient.getTrendingProducts(2);
+
+        StepVerifier.create(productsFlux)
+                .expectNextMatches(product -> product.getProductId().equals("4affcab7-3ab1-4917-a114-2b6301aa5565"))
+                .expectNextMatches(product -> product.getProductId().equals("baee7cd2-b67a-449f-b262-91f45dde8a6d"))
+                .verifyComplete();
+    }
+
     @Test
     void whenAddProduct_thenReturnProduct() throws JsonProcessingException {
         ProductResponseDTO productResponseDTO = new ProductResponseDTO(
@@ -13,14 +13,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.util.FileCopyUtils;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.webjars.NotFoundException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -864,14 +868,64 @@ class VetsServiceClientIntegrationTest {
     void getPhotoByVetId() throws IOException {
         prepareResponse(response -> response
                 .setHeader("Content-Type", "image/jpeg")
+                .setHeader("ETag", "\"5a1f0c\"")
+                .setHeader("Connection", "keep-alive")
                 .setBody("    {\n" +
                         "        {12, 24, 52, 87}" +
                         "    }"));
 
-        final Resource photo = vetsServiceClient.getPhotoByVetId("deb1950c-3c56-45dc-874b-89e352695eb7").block();
-        byte[] photoBytes = FileCopyUtils.copyToByteArray(photo.getInputStream());
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.getPhotoByVetId("deb1950c-3c56-45dc-874b-89e352695eb7", null, new HttpHeaders()).block();
+        byte[] photoBytes = readPhoto(photo);
 
         assertNotNull(photoBytes);
+        assertEquals(MediaType.IMAGE_JPEG, photo.getHeaders().getContentType());
+        assertEquals("\"5a1f0c\"", photo.getHeaders().getETag());
+        assertFalse(photo.getHeaders().containsKey(HttpHeaders.CONNECTION));
+    }
+
+    @Test
+    void getPhotoByVetId_WithRange_ShouldRelayPartialContent() {
+        prepareResponse(response -> response
+                .setResponseCode(206)
+                .setHeader("Content-Type", "image/jpeg")
+                .setHeader("Content-Range", "bytes 1-2/4")
+                .setBody("ab"));
+
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.set(HttpHeaders.RANGE, "bytes=1-2");
+
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.getPhotoByVetId("deb1950c-3c56-45dc-874b-89e352695eb7", null, requestHeaders).block();
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, photo.getStatusCode());
+        assertEquals("bytes 1-2/4", photo.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals("ab".getBytes(), readPhoto(photo));
+    }
+
+    @Test
+    void getPhotoByVetId_NotModified_ShouldRelayNotModified() {
+        prepareResponse(response -> response
+                .setResponseCode(304)
+                .setHeader("ETag", "\"5a1f0c\""));
+
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setIfNoneMatch("\"5a1f0c\"");
+
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.getPhotoByVetId("deb1950c-3c56-45dc-874b-89e352695eb7", "thumbnail", requestHeaders).block();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, photo.getStatusCode());
+        assertEquals("\"5a1f0c\"", photo.getHeaders().getETag());
+    }
+
+    @Test
+    void getPhotoByInvalidVetId_shouldThrowExistingVetNotFoundException() {
+        prepareResponse(response -> response
+                .setHeader("Content-Type", "application/json")
+                .setResponseCode(404)
+                .setBody("Photo for vet 123 does not exist."));
+
+        StepVerifier.create(vetsServiceClient.getPhotoByVetId("123", null, new HttpHeaders()))
+                .expectError(ExistingVetNotFoundException.class)
+                .verify();
     }
     @Test
     void getDefaultPhotoByVetId() throws IOException {
@@ -962,30 +1016,30 @@ class VetsServiceClientIntegrationTest {
 
     @Test
     void addPhotoToVet() throws IOException {
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(new byte[]{12, 24, 52, 87}));
+        Flux<DataBuffer> photoResource = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{12, 24, 52, 87}));
         prepareResponse(response -> response
                 .setHeader("Content-Type", "image/jpeg")
                 .setBody("    {\n" +
                         "        {12, 24, 52, 87}" +
                         "    }"));
 
-        final Resource photo = vetsServiceClient.addPhotoToVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource).block();
-        byte[] photoBytes = FileCopyUtils.copyToByteArray(photo.getInputStream());
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.addPhotoToVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource).block();
+        byte[] photoBytes = readPhoto(photo);
 
         assertNotNull(photoBytes);
     }
 
     @Test
     void updatePhotoByValidVetId_shouldSucceed() throws IOException {
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(new byte[]{12, 24, 52, 87}));
+        Flux<DataBuffer> photoResource = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{12, 24, 52, 87}));
         prepareResponse(response -> response
                 .setHeader("Content-Type", "image/jpeg")
                 .setBody("    {\n" +
                         "        {12, 24, 52, 87}" +
                         "    }"));
 
-        final Resource photo = vetsServiceClient.updatePhotoOfVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource).block();
-        byte[] photoBytes = FileCopyUtils.copyToByteArray(photo.getInputStream());
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.updatePhotoOfVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource).block();
+        byte[] photoBytes = readPhoto(photo);
 
         assertNotNull(photoBytes);
     }
@@ -993,14 +1047,14 @@ class VetsServiceClientIntegrationTest {
     @Test
     void updatePhotoByInvalidVetId_shouldThrowNotFoundException() throws NotFoundException {
         String invalidVetId="123";
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(new byte[]{12, 24, 52, 87}));
+        Flux<DataBuffer> photoResource = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{12, 24, 52, 87}));
 
         prepareResponse(response -> response
                 .setHeader("Content-Type", "application/json")
                 .setResponseCode(404)
                 .setBody("Photo for vet "+invalidVetId + " not found"));
 
-        final Resource photo = vetsServiceClient.updatePhotoOfVet(invalidVetId, "image/jpeg", photoResource)
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.updatePhotoOfVet(invalidVetId, "image/jpeg", photoResource)
                         .onErrorResume(throwable -> {
                             if (throwable instanceof NotFoundException && throwable.getMessage().equals("Photo for vet "+invalidVetId + " not found")) {
                                 return Mono.empty();
@@ -1015,14 +1069,14 @@ class VetsServiceClientIntegrationTest {
 
     @Test
     void updatePhotoByValidVetId_IllegalArgumentException400() throws IllegalArgumentException {
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(new byte[]{12, 24, 52, 87}));
+        Flux<DataBuffer> photoResource = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{12, 24, 52, 87}));
 
         prepareResponse(response -> response
                 .setHeader("Content-Type", "application/json")
                 .setResponseCode(400)
                 .setBody("Something went wrong with the client"));
 
-        final Resource photo = vetsServiceClient.updatePhotoOfVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource)
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.updatePhotoOfVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource)
                         .onErrorResume(throwable -> {
                             if (throwable instanceof IllegalArgumentException && throwable.getMessage().equals("Something went wrong with the client")) {
                                 return Mono.empty();
@@ -1037,7 +1091,7 @@ class VetsServiceClientIntegrationTest {
 
     @Test
     void updatePhotoByValidVetId_IllegalArgumentException500() throws IllegalArgumentException {
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(new byte[]{12, 24, 52, 87}));
+        Flux<DataBuffer> photoResource = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{12, 24, 52, 87}));
 
 
         prepareResponse(response -> response
@@ -1045,7 +1099,7 @@ class VetsServiceClientIntegrationTest {
                 .setResponseCode(500)
                 .setBody("Something went wrong with the server"));
 
-        final Resource photo = vetsServiceClient.updatePhotoOfVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource)
+        final ResponseEntity<Flux<DataBuffer>> photo = vetsServiceClient.updatePhotoOfVet("deb1950c-3c56-45dc-874b-89e352695eb7", "image/jpeg", photoResource)
                         .onErrorResume(throwable -> {
                             if (throwable instanceof IllegalArgumentException && throwable.getMessage().equals("Something went wrong with the server")) {
                                 return Mono.empty();
@@ -1901,6 +1955,17 @@ class VetsServiceClientIntegrationTest {
         assertEquals(empty.block(), null);
     }
 
+    private byte[] readPhoto(ResponseEntity<Flux<DataBuffer>> photo) {
+        return DataBufferUtils.join(photo.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .block();
+    }
+
     private void prepareResponse(Consumer<MockResponse> consumer) {
         MockResponse response = new MockResponse();
         consumer.accept(response);
@@ -25,6 +25,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
@@ -361,6 +362,25 @@ class VisitsServiceClientIntegrationTest {
                 .expectNext(visitResponseDTO)
                 .verifyComplete();
     }
+    @Test
+    void getVisitsForOwner() throws Exception {
+        VisitResponseDTO visitResponseDTO = VisitResponseDTO.builder()
+                .visitId("73b5c112-5703-4fb7-b7bc-ac8186811ae1")
+                .visitDate(LocalDateTime.parse("2024-11-25 13:45", DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")))
+                .description("this is a dummy description")
+                .petId("2")
+                .ownerId("3")
+                .practitionerId("2")
+                .status(Status.UPCOMING)
+                .build();
+        server.enqueue(new MockResponse().setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).setBody(objectMapper.writeValueAsString(visitResponseDTO)));
+
+        Flux<VisitResponseDTO> visits = visitsServiceClient.getVisitsForOwner("3", LocalDate.of(2024, 1, 1), null, Status.UPCOMING);
+        StepVerifier.create(visits)
+                .expectNext(visitResponseDTO)
+                .verifyComplete();
+    }
+
     @Test
     void getVisitById() throws Exception {
         VisitResponseDTO visitResponseDTO = VisitResponseDTO.builder()
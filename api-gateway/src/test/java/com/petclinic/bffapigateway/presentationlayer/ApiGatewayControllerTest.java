@@ -8,6 +8,7 @@ import com.petclinic.bffapigateway.dtos.Bills.BillResponseDTO;
 import com.petclinic.bffapigateway.dtos.Bills.BillStatus;
 import com.petclinic.bffapigateway.dtos.CustomerDTOs.OwnerRequestDTO;
 import com.petclinic.bffapigateway.dtos.CustomerDTOs.OwnerResponseDTO;
+import com.petclinic.bffapigateway.dtos.CustomerDTOs.OwnersPageResponseDTO;
 import com.petclinic.bffapigateway.dtos.Inventory.InventoryRequestDTO;
 import com.petclinic.bffapigateway.dtos.Inventory.InventoryResponseDTO;
 import com.petclinic.bffapigateway.dtos.Inventory.ProductRequestDTO;
@@ -38,9 +39,8 @@ import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -63,6 +63,7 @@ import reactor.test.StepVerifier;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -820,23 +821,27 @@ class ApiGatewayControllerTest {
     @Test
     void getPhotoByVetId() {
         byte[] photo = {123, 23, 75, 34};
-        Resource resource = new ByteArrayResource(photo);
 
-        when(vetsServiceClient.getPhotoByVetId(anyString()))
-                .thenReturn(Mono.just(resource));
+        when(vetsServiceClient.getPhotoByVetId(anyString(), any(), any(HttpHeaders.class)))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .eTag("5a1f0c")
+                        .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(photo)))));
 
         client.get()
                 .uri("/api/gateway/vets/{vetId}/photo", VET_ID)
+                .header(HttpHeaders.RANGE, "bytes=0-")
                 .exchange()
                 .expectStatus().isOk()
                 .expectHeader().contentType(MediaType.IMAGE_JPEG_VALUE)
-                .expectBody(Resource.class)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5a1f0c\"")
+                .expectBody(byte[].class)
                 .consumeWith(response -> {
-                    assertEquals(resource, response.getResponseBody());
+                    Assertions.assertArrayEquals(photo, response.getResponseBody());
                 });
 
         Mockito.verify(vetsServiceClient, times(1))
-                .getPhotoByVetId(VET_ID);
+                .getPhotoByVetId(eq(VET_ID), isNull(), argThat(headers -> "bytes=0-".equals(headers.getFirst(HttpHeaders.RANGE))));
     }
     @Test
     void getDefaultPhotoByVetId() throws IOException {
@@ -871,49 +876,51 @@ class ApiGatewayControllerTest {
     @Test
     void addPhotoToVet() {
         byte[] photo = {123, 23, 75, 34};
-        Resource resource = new ByteArrayResource(photo);
 
-        when(vetsServiceClient.addPhotoToVet(anyString(), anyString(), any(Mono.class)))
-                .thenReturn(Mono.just(resource));
+        when(vetsServiceClient.addPhotoToVet(anyString(), anyString(), any(Flux.class)))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.CREATED)
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(photo)))));
 
         client.post()
                 .uri("/api/gateway/vets/{vetId}/photos/{photoName}", VET_ID, "vet_photo.jpg")
-                .body(Mono.just(resource), Resource.class)
-                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(photo)
                 .exchange()
                 .expectStatus().isCreated()
-                .expectHeader().contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .expectBody(Resource.class)
+                .expectHeader().contentType(MediaType.IMAGE_JPEG_VALUE)
+                .expectBody(byte[].class)
                 .consumeWith(response -> {
-                    assertEquals(resource, response.getResponseBody());
+                    Assertions.assertArrayEquals(photo, response.getResponseBody());
                 });
 
         Mockito.verify(vetsServiceClient, times(1))
-                .addPhotoToVet(anyString(), anyString(), any(Mono.class));
+                .addPhotoToVet(anyString(), anyString(), any(Flux.class));
     }
 
     @Test
     void updatePhotoToVet() {
         byte[] photo = {123, 23, 75, 34};
-        Resource resource = new ByteArrayResource(photo);
 
-        when(vetsServiceClient.updatePhotoOfVet(anyString(), anyString(), any(Mono.class)))
-                .thenReturn(Mono.just(resource));
+        when(vetsServiceClient.updatePhotoOfVet(anyString(), anyString(), any(Flux.class)))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(photo)))));
 
         client.put()
                 .uri("/api/gateway/vets/{vetId}/photos/{photoName}", VET_ID, "vet_photo.jpg")
-                .body(Mono.just(resource), Resource.class)
-                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(photo)
                 .exchange()
                 .expectStatus().isOk()
                 .expectHeader().contentType(MediaType.IMAGE_JPEG_VALUE)
-                .expectBody(Resource.class)
+                .expectBody(byte[].class)
                 .consumeWith(response -> {
-                    assertEquals(resource, response.getResponseBody());
+                    Assertions.assertArrayEquals(photo, response.getResponseBody());
                 });
 
         Mockito.verify(vetsServiceClient, times(1))
-                .updatePhotoOfVet(anyString(), anyString(), any(Mono.class));
+                .updatePhotoOfVet(anyString(), anyString(), any(Flux.class));
     }
 
     @Test
@@ -1329,6 +1336,58 @@ class ApiGatewayControllerTest {
                 });
     }
 
+    @Test
+    void getOwnersPage_shouldReturnPageCountAndNextPageToken(){
+
+        OwnerResponseDTO owner1 = new OwnerResponseDTO();
+        owner1.setOwnerId("ownerId-01");
+        owner1.setCity("C1");
+        OwnerResponseDTO owner2 = new OwnerResponseDTO();
+        owner2.setOwnerId("ownerId-02");
+        owner2.setCity("C1");
+
+        when(customersServiceClient.getOwnersByPagination(Optional.of(0), Optional.of(2), null, null, null, null, null, "C1"))
+                .thenReturn(Flux.just(owner1, owner2));
+        when(customersServiceClient.getTotalNumberOfOwnersWithFilters(null, null, null, null, "C1"))
+                .thenReturn(Mono.just(3L));
+
+        client.get()
+                .uri("/api/gateway/owners-page?size=2&city=C1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OwnersPageResponseDTO.class)
+                .value(ownersPage -> {
+                    assertEquals(2, ownersPage.getOwners().size());
+                    assertEquals(3L, ownersPage.getTotalCount());
+                    assertEquals("ownerId-02", ownersPage.getNextPageToken());
+                });
+    }
+
+    @Test
+    void getOwnersPage_lastPage_shouldNotReturnNextPageToken(){
+
+        OwnerResponseDTO owner = new OwnerResponseDTO();
+        owner.setOwnerId("ownerId-03");
+
+        when(customersServiceClient.getOwnersByPagination(Optional.of(0), Optional.of(2), "ownerId-02", null, null, null, null, null))
+                .thenReturn(Flux.just(owner));
+        when(customersServiceClient.getTotalNumberOfOwnersWithFilters(null, null, null, null, null))
+                .thenReturn(Mono.just(3L));
+
+        client.get()
+                .uri("/api/gateway/owners-page?size=2&pageToken=ownerId-02")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OwnersPageResponseDTO.class)
+                .value(ownersPage -> {
+                    assertEquals(1, ownersPage.getOwners().size());
+                    assertEquals(3L, ownersPage.getTotalCount());
+                    assertNull(ownersPage.getNextPageToken());
+                });
+    }
+
     @Test
     void getTotalNumberOfOwners(){
         long expectedCount = 0;
@@ -2491,18 +2550,14 @@ class ApiGatewayControllerTest {
     void getVisitsByOwnerId_shouldReturnOk(){
         //arrange
         final String ownerId = "ownerId";
-        PetResponseDTO petResponseDTO1 = PetResponseDTO.builder().petId("petId1").build();
-        PetResponseDTO petResponseDTO2 = PetResponseDTO.builder().petId("petId2").build();
-        VisitResponseDTO visitResponseDTO1 = VisitResponseDTO.builder().visitId("visitId1").petId("petId1").build();
-        VisitResponseDTO visitResponseDTO2 = VisitResponseDTO.builder().visitId("visitId2").petId("petId1").build();
-        VisitResponseDTO visitResponseDTO3 = VisitResponseDTO.builder().visitId("visitId3").petId("petId2").build();
-        VisitResponseDTO visitResponseDTO4 = VisitResponseDTO.builder().visitId("visitId4").petId("petId2").build();
-        VisitResponseDTO visitResponseDTO5 = VisitResponseDTO.builder().visitId("visitId5").petId("petId1").build();
+        VisitResponseDTO visitResponseDTO1 = VisitResponseDTO.builder().visitId("visitId1").petId("petId1").ownerId(ownerId).build();
+        VisitResponseDTO visitResponseDTO2 = VisitResponseDTO.builder().visitId("visitId2").petId("petId1").ownerId(ownerId).build();
+        VisitResponseDTO visitResponseDTO3 = VisitResponseDTO.builder().visitId("visitId3").petId("petId2").ownerId(ownerId).build();
+        VisitResponseDTO visitResponseDTO4 = VisitResponseDTO.builder().visitId("visitId4").petId("petId2").ownerId(ownerId).build();
+        VisitResponseDTO visitResponseDTO5 = VisitResponseDTO.builder().visitId("visitId5").petId("petId1").ownerId(ownerId).build();
 
-        Mockito.when(customersServiceClient.getPetsByOwnerId(anyString())).thenReturn(Flux.just(petResponseDTO1, petResponseDTO2));
-
-        Mockito.when(visitsServiceClient.getVisitsForPet(petResponseDTO1.getPetId())).thenReturn(Flux.just(visitResponseDTO1, visitResponseDTO2, visitResponseDTO5));
-        Mockito.when(visitsServiceClient.getVisitsForPet(petResponseDTO2.getPetId())).thenReturn(Flux.just(visitResponseDTO3, visitResponseDTO4));
+        Mockito.when(visitsServiceClient.getVisitsForOwner(ownerId, null, null, null))
+                .thenReturn(Flux.just(visitResponseDTO1, visitResponseDTO2, visitResponseDTO3, visitResponseDTO4, visitResponseDTO5));
 
         //act and assert
         client
@@ -2519,6 +2574,30 @@ class ApiGatewayControllerTest {
                     Assertions.assertNotNull(list);
                     Assertions.assertEquals(5, list.size());
                 });
+
+        //the visits come from a single call, the pets of the owner are not fetched
+        Mockito.verify(visitsServiceClient, times(1)).getVisitsForOwner(ownerId, null, null, null);
+        Mockito.verify(customersServiceClient, never()).getPetsByOwnerId(anyString());
+        Mockito.verify(visitsServiceClient, never()).getVisitsForPet(anyString());
+    }
+
+    @Test
+    void getVisitsByOwnerId_withFilters_shouldForwardThem(){
+        final String ownerId = "ownerId";
+        Mockito.when(visitsServiceClient.getVisitsForOwner(ownerId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), Status.UPCOMING))
+                .thenReturn(Flux.just(VisitResponseDTO.builder().visitId("visitId1").ownerId(ownerId).build()));
+
+        client
+                .get()
+                .uri("/api/gateway/visits/owners/{ownerId}?from=2024-01-01&to=2024-12-31&status=UPCOMING", ownerId)
+                .accept(MediaType.valueOf(MediaType.TEXT_EVENT_STREAM_VALUE))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(VisitResponseDTO.class)
+                .value((list) -> Assertions.assertEquals(1, list.size()));
+
+        Mockito.verify(visitsServiceClient, times(1)).getVisitsForOwner(ownerId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), Status.UPCOMING);
     }
     @Test
     void shouldGetAVisit() {
@@ -3055,10 +3134,10 @@ class ApiGatewayControllerTest {
 
         Mono<ResponseEntity<UserPasswordLessDTO>> httpResponse = Mono.just(ResponseEntity.ok().headers(HttpHeaders.readOnlyHttpHeaders(headers)).body(userPasswordLessDTO));
 
-        when(authServiceClient.login(any()))
+        when(authServiceClient.login(any(), any()))
                 .thenReturn(httpResponse);
 
-        when(authServiceClient.login(any()))
+        when(authServiceClient.login(any(), any()))
                 .thenReturn(httpResponse);
 
 
@@ -3066,7 +3145,7 @@ class ApiGatewayControllerTest {
                 .password("valid")
                 .email(user.getEmail())
                 .build();
-        when(authServiceClient.login(any()))
+        when(authServiceClient.login(any(), any()))
                 .thenReturn(
                         httpResponse
                 );
@@ -3099,7 +3178,7 @@ class ApiGatewayControllerTest {
                 .email(user.getEmail())
                 .build();
         final String message = "I live in unending agony. I spent 6 hours and ended up with nothing";
-        when(authServiceClient.login(any()))
+        when(authServiceClient.login(any(), any()))
                 .thenThrow(new GenericHttpException(message, UNAUTHORIZED));
 
         client.post()
@@ -3851,6 +3930,33 @@ private VetAverageRatingDTO buildVetAverageRatingDTO(){
                 .hasSize(1);
     }
 
+    @Test
+    public void getUsersPage_ShouldReturnThePageOfUsers() {
+        UserDetails user = UserDetails.builder()
+                .userId("userId")
+                .username("specificUsername")
+                .email("email")
+                .build();
+        UserPageResponseDTO page = UserPageResponseDTO.builder()
+                .users(List.of(user))
+                .page(0)
+                .size(20)
+                .totalElements(1)
+                .totalPages(1)
+                .build();
+
+        when(authServiceClient.getUsersPage("validToken", 0, 20, "specific"))
+                .thenReturn(Mono.just(page));
+
+        client.get()
+                .uri("/api/gateway/users/page?username=specific")
+                .cookie("Bearer", "validToken")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UserPageResponseDTO.class)
+                .isEqualTo(page);
+    }
+
     @Test
     public void getUserById_ValidUserId_ShouldReturnUser() {
         UserDetails userDetails = UserDetails.builder()
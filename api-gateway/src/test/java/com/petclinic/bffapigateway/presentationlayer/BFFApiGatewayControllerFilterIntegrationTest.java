@@ -7,7 +7,9 @@ import com.petclinic.bffapigateway.dtos.Auth.TokenResponseDTO;
 import com.petclinic.bffapigateway.utils.Security.Filters.IsUserFilter;
 import com.petclinic.bffapigateway.utils.Security.Filters.JwtTokenFilter;
 import com.petclinic.bffapigateway.utils.Security.Filters.JwtTokenUtil;
+import com.petclinic.bffapigateway.utils.Security.Filters.JwtTokenVerifier;
 import com.petclinic.bffapigateway.utils.Security.Filters.RoleFilter;
+import com.petclinic.bffapigateway.utils.Security.Policies.SecurityPolicyTable;
 import com.petclinic.bffapigateway.utils.Utility;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -57,7 +59,9 @@ class BFFApiGatewayControllerFilterIntegrationTest {
     @MockBean private BillServiceClient billServiceClient;
     @MockBean private InventoryServiceClient inventoryServiceClient;
     @MockBean private JwtTokenUtil jwtTokenUtil;
+    @MockBean private JwtTokenVerifier jwtTokenVerifier;
     @MockBean private Utility utility;
+    @MockBean private SecurityPolicyTable securityPolicyTable;
 
 //    @Test
     void testGetAllCustomers_ShouldReturnUnauthorized() {
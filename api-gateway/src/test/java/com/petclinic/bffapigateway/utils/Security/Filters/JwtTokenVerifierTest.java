@@ -0,0 +1,97 @@
+package com.petclinic.bffapigateway.utils.Security.Filters;
+
+import com.petclinic.bffapigateway.dtos.Auth.TokenResponseDTO;
+import com.petclinic.bffapigateway.utils.Security.Variables.SecurityConst;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenVerifierTest {
+
+    private static final String SECRET = "mkcyetrmjcqLjOkwM08M676tl8LPnkgKHD2HlIpsYcSI8zGIiobE7yZ4N5JElvYMlTE8qqjTJ09JcqAsKdNxVA";
+
+    private final JwtTokenVerifier jwtTokenVerifier = new JwtTokenVerifier(new SecurityConst(60, "Bearer", SECRET), 2);
+
+    private String generateToken(String secret, int minutesToLive, String userId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "admin@email.com");
+        claims.put("roles", new String[]{"ADMIN", "VET"});
+        claims.put("id", userId);
+
+        return Jwts.builder()
+                .setClaims(claims)
+                .setExpiration(Date.from(ZonedDateTime.now().plusMinutes(minutesToLive).toInstant()))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .compact();
+    }
+
+    @Test
+    void whenTokenIsSignedWithSharedSecret_thenReturnTokenValues() {
+        String token = generateToken(SECRET, 60, "userId");
+
+        Optional<TokenResponseDTO> tokenValues = jwtTokenVerifier.verify(token);
+
+        assertTrue(tokenValues.isPresent());
+        assertEquals("userId", tokenValues.get().getUserId());
+        assertEquals("admin@email.com", tokenValues.get().getEmail());
+        assertEquals(List.of("ADMIN", "VET"), tokenValues.get().getRoles());
+        assertEquals(token, tokenValues.get().getToken());
+    }
+
+    @Test
+    void whenTokenIsVerifiedTwice_thenItIsCachedOnce() {
+        String token = generateToken(SECRET, 60, "userId");
+
+        jwtTokenVerifier.verify(token);
+        jwtTokenVerifier.verify(token);
+
+        assertEquals(1, jwtTokenVerifier.cachedTokenCount());
+    }
+
+    @Test
+    void whenCacheIsFull_thenTokensAreStillVerified() {
+        jwtTokenVerifier.verify(generateToken(SECRET, 60, "user1"));
+        jwtTokenVerifier.verify(generateToken(SECRET, 60, "user2"));
+
+        Optional<TokenResponseDTO> tokenValues = jwtTokenVerifier.verify(generateToken(SECRET, 60, "user3"));
+
+        assertTrue(tokenValues.isPresent());
+        assertEquals(2, jwtTokenVerifier.cachedTokenCount());
+    }
+
+    @Test
+    void whenTokenIsSignedWithAnotherSecret_thenReturnEmpty() {
+        String token = generateToken(SECRET.toUpperCase(), 60, "userId");
+
+        assertTrue(jwtTokenVerifier.verify(token).isEmpty());
+    }
+
+    @Test
+    void whenTokenIsExpired_thenReturnEmpty() {
+        String token = generateToken(SECRET, -1, "userId");
+
+        assertTrue(jwtTokenVerifier.verify(token).isEmpty());
+    }
+
+    @Test
+    void whenTokenIsMalformed_thenReturnEmpty() {
+        assertTrue(jwtTokenVerifier.verify("valid-test-token-for-valid-admin").isEmpty());
+    }
+
+    @Test
+    void whenNoSecretIsConfigured_thenVerifierIsDisabled() {
+        JwtTokenVerifier disabledVerifier = new JwtTokenVerifier(new SecurityConst(60, "Bearer", ""), 2);
+
+        assertFalse(disabledVerifier.isEnabled());
+        assertTrue(disabledVerifier.verify(generateToken(SECRET, 60, "userId")).isEmpty());
+    }
+}
@@ -0,0 +1,51 @@
+package com.petclinic.bffapigateway.utils.Security.Policies;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathTrieTest {
+
+    @Test
+    void whenPathIsLiteral_thenOnlyExactPatternMatches() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.insert("/swagger-ui.html", "swagger");
+        trie.insert("/configuration/ui", "ui");
+
+        assertEquals(List.of("swagger"), trie.match("/swagger-ui.html"));
+        assertTrue(trie.match("/configuration").isEmpty());
+        assertTrue(trie.match("/configuration/ui/extra").isEmpty());
+    }
+
+    @Test
+    void whenPatternHasVariable_thenItMatchesExactlyOneSegment() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.insert("/api/gateway/owners/{ownerId}", "owner");
+        trie.insert("/images/*", "image");
+
+        assertEquals(List.of("owner"), trie.match("/api/gateway/owners/1"));
+        assertEquals(List.of("image"), trie.match("/images/vet.png"));
+        assertTrue(trie.match("/api/gateway/owners/1/pets").isEmpty());
+    }
+
+    @Test
+    void whenPatternEndsWithDoubleWildcard_thenItMatchesAnyRemainingSegments() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.insert("/webjars/**", "webjars");
+
+        assertTrue(trie.matches("/webjars"));
+        assertTrue(trie.matches("/webjars/bootstrap/5.1.0/css/bootstrap.css"));
+        assertFalse(trie.matches("/web"));
+    }
+
+    @Test
+    void whenSeveralPatternsMatch_thenLiteralMatchIsReturnedFirst() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.insert("/api/gateway/vets/{vetId}", "byId");
+        trie.insert("/api/gateway/vets/topVets", "topVets");
+
+        assertEquals(List.of("topVets", "byId"), trie.match("/api/gateway/vets/topVets"));
+    }
+}
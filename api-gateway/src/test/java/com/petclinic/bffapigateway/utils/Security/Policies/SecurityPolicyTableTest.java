@@ -0,0 +1,180 @@
+package com.petclinic.bffapigateway.utils.Security.Policies;
+
+import com.petclinic.bffapigateway.exceptions.HandlerIsNullException;
+import com.petclinic.bffapigateway.utils.Security.Annotations.IsUserSpecific;
+import com.petclinic.bffapigateway.utils.Security.Annotations.SecuredEndpoint;
+import com.petclinic.bffapigateway.utils.Security.Variables.Roles;
+import com.petclinic.bffapigateway.utils.Utility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SecurityPolicyTableTest {
+
+    private final TestController controller = new TestController();
+
+    private final RequestMappingHandlerMapping handlerMapping = mock(RequestMappingHandlerMapping.class);
+
+    private final Utility utility = mock(Utility.class);
+
+    private final Map<RequestMappingInfo, HandlerMethod> handlerMethods = new LinkedHashMap<>();
+
+    private SecurityPolicyTable securityPolicyTable;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        map(RequestMappingInfo.paths("/api/gateway/vets").methods(RequestMethod.GET), "getVets");
+        map(RequestMappingInfo.paths("/api/gateway/vets").methods(RequestMethod.POST), "addVet");
+        map(RequestMappingInfo.paths("/api/gateway/owners/{ownerId}").methods(RequestMethod.GET), "getOwner");
+        map(RequestMappingInfo.paths("/api/gateway/owners/current").methods(RequestMethod.GET), "getCurrentOwner");
+        map(RequestMappingInfo.paths("/api/gateway/bills"), "handleBills");
+        map(RequestMappingInfo.paths("/api/gateway/bills").methods(RequestMethod.GET), "getBills");
+        map(RequestMappingInfo.paths("/api/gateway/visits").methods(RequestMethod.GET)
+                .produces(MediaType.APPLICATION_JSON_VALUE), "getVisits");
+        map(RequestMappingInfo.paths("/api/gateway/visits").methods(RequestMethod.GET)
+                .produces(MediaType.TEXT_EVENT_STREAM_VALUE), "streamVisits");
+
+        when(handlerMapping.getHandlerMethods()).thenReturn(handlerMethods);
+        securityPolicyTable = new SecurityPolicyTable(handlerMapping, utility);
+    }
+
+    @Test
+    void whenRouteIsAnonymous_thenPolicyIsAnonymous() {
+        SecurityPolicy policy = securityPolicyTable.getPolicy(exchange(MockServerHttpRequest.get("/api/gateway/vets")));
+
+        assertTrue(policy.isAnonymous());
+        assertFalse(policy.isUserSpecific());
+    }
+
+    @Test
+    void whenRouteIsSecuredByRoles_thenPolicyHasTheRolesOfTheMethod() {
+        SecurityPolicy policy = securityPolicyTable.getPolicy(exchange(MockServerHttpRequest.post("/api/gateway/vets")));
+
+        assertFalse(policy.isAnonymous());
+        assertEquals(List.of(Roles.ADMIN, Roles.VET), policy.getAllowedRoles());
+    }
+
+    @Test
+    void whenRouteIsUserSpecific_thenPolicyHasTheIdsToMatchAndThePathVariables() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/gateway/owners/ownerId-1"));
+
+        SecurityPolicy policy = securityPolicyTable.getPolicy(exchange);
+
+        assertTrue(policy.isUserSpecific());
+        assertEquals(List.of("ownerId"), policy.getIdToMatch());
+        assertEquals(Set.of("ADMIN"), policy.getBypassRoles());
+        assertEquals(Map.of("ownerId", "ownerId-1"), securityPolicyTable.getUriVariables(exchange));
+    }
+
+    @Test
+    void whenLiteralAndVariablePatternsMatch_thenTheLiteralPatternWins() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/gateway/owners/current"));
+
+        SecurityPolicy policy = securityPolicyTable.getPolicy(exchange);
+
+        assertFalse(policy.isUserSpecific());
+        assertTrue(policy.getAllowedRoles().isEmpty());
+        assertEquals(Map.of(), securityPolicyTable.getUriVariables(exchange));
+    }
+
+    @Test
+    void whenMappingsForAllMethodsAndForTheMethodMatch_thenTheMappingForTheMethodWins() {
+        assertTrue(securityPolicyTable.getPolicy(exchange(MockServerHttpRequest.get("/api/gateway/bills"))).isAnonymous());
+        assertEquals(List.of(Roles.ADMIN),
+                securityPolicyTable.getPolicy(exchange(MockServerHttpRequest.delete("/api/gateway/bills"))).getAllowedRoles());
+    }
+
+    @Test
+    void whenRouteIsNotMapped_thenHandlerIsNullExceptionIsThrown() {
+        assertThrows(HandlerIsNullException.class,
+                () -> securityPolicyTable.getPolicy(exchange(MockServerHttpRequest.get("/api/gateway/unknown"))));
+        assertThrows(HandlerIsNullException.class,
+                () -> securityPolicyTable.getPolicy(exchange(MockServerHttpRequest.delete("/api/gateway/vets"))));
+    }
+
+    @Test
+    void whenHeadRequest_thenThePolicyOfTheGetMappingIsUsed() {
+        assertTrue(securityPolicyTable.getPolicy(exchange(MockServerHttpRequest.head("/api/gateway/vets"))).isAnonymous());
+    }
+
+    @Test
+    void whenMappingsOfTheSameRouteHaveDifferentPolicies_thenTheHandlerMappingDecidesOncePerExchange() throws NoSuchMethodException {
+        when(utility.getHandler(any())).thenReturn(new HandlerMethod(controller, TestController.class.getMethod("streamVisits")));
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/gateway/visits")
+                .accept(MediaType.TEXT_EVENT_STREAM));
+
+        assertEquals(List.of(Roles.ADMIN), securityPolicyTable.getPolicy(exchange).getAllowedRoles());
+        assertEquals(List.of(Roles.ADMIN), securityPolicyTable.getPolicy(exchange).getAllowedRoles());
+
+        verify(utility, times(1)).getHandler(exchange);
+    }
+
+    @Test
+    void whenRouteIsLookedUpTwice_thenTheHandlerMappingIsNotUsed() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/gateway/vets"));
+
+        securityPolicyTable.getPolicy(exchange);
+        securityPolicyTable.getPolicy(exchange);
+
+        verifyNoInteractions(utility);
+    }
+
+
+    private void map(RequestMappingInfo.Builder info, String methodName) throws NoSuchMethodException {
+        handlerMethods.put(info.build(), new HandlerMethod(controller, TestController.class.getMethod(methodName)));
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        return MockServerWebExchange.from(request);
+    }
+
+
+    static class TestController {
+
+        @SecuredEndpoint(allowedRoles = {Roles.ANONYMOUS})
+        public void getVets() {
+        }
+
+        @SecuredEndpoint(allowedRoles = {Roles.ADMIN, Roles.VET})
+        public void addVet() {
+        }
+
+        @IsUserSpecific(idToMatch = {"ownerId"}, bypassRoles = {Roles.ADMIN})
+        public void getOwner() {
+        }
+
+        public void getCurrentOwner() {
+        }
+
+        @SecuredEndpoint(allowedRoles = {Roles.ADMIN})
+        public void handleBills() {
+        }
+
+        @SecuredEndpoint(allowedRoles = {Roles.ANONYMOUS})
+        public void getBills() {
+        }
+
+        @SecuredEndpoint(allowedRoles = {Roles.ALL})
+        public void getVisits() {
+        }
+
+        @SecuredEndpoint(allowedRoles = {Roles.ADMIN})
+        public void streamVisits() {
+        }
+    }
+}
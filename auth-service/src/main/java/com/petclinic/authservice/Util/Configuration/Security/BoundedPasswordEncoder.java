@@ -0,0 +1,89 @@
+package com.petclinic.authservice.Util.Configuration.Security;
+
+import com.petclinic.authservice.Util.Exceptions.TooManyRequestsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashes and checks the passwords on its own fixed pool of threads, one per core by default, in front of a bounded
+ * queue. A login storm then uses at most these threads for BCrypt instead of every request thread, and the other
+ * requests keep the rest of the CPU. A password that cannot be queued is refused with TooManyRequestsException.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor hashers;
+
+    /**
+     * @param threads The number of passwords hashed at once, the number of cores when 0 or less
+     * @param queueSize The number of passwords waiting to be hashed
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicLong count = new AtomicLong();
+        this.delegate = delegate;
+        this.hashers = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * @return The number of passwords waiting for a hasher thread
+     */
+    public int getQueued() {
+        return hashers.getQueue().size();
+    }
+
+    public void shutdown() {
+        hashers.shutdown();
+    }
+
+    private <T> T hash(Callable<T> hashing) {
+        Future<T> future;
+        try {
+            future = hashers.submit(hashing);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many passwords are being checked, try again later");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Could not hash a password", e.getCause());
+        }
+    }
+}
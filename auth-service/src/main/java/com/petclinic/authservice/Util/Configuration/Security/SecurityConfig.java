@@ -4,6 +4,7 @@ package com.petclinic.authservice.Util.Configuration.Security;
 import com.petclinic.authservice.security.JwtTokenFilter;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -43,10 +44,10 @@ public class SecurityConfig {
     }
 
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(PasswordEncoder encoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailService);
-        authProvider.setPasswordEncoder(encoder());
+        authProvider.setPasswordEncoder(encoder);
         return new ProviderManager(authProvider);
     }
 
@@ -110,7 +111,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder encoder(@Value("${password-hashing.threads:0}") int threads,
+                                   @Value("${password-hashing.queue-size:100}") int queueSize) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueSize);
     }
 }
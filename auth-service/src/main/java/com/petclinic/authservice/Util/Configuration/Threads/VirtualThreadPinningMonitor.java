@@ -0,0 +1,83 @@
+package com.petclinic.authservice.Util.Configuration.Threads;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Logs the virtual threads pinned to their carrier thread for longer than threads.pinned-threshold, which happens when
+ * they block inside a synchronized block, as in some JPA, Hikari and MySQL driver paths. Pinned threads hold a carrier,
+ * so a few of them can stall every request. Their number is published as the auth.threads.pinned meter.
+ * Reads the jdk.VirtualThreadPinned events of Java Flight Recorder, only when the virtual threads are enabled.
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final VirtualThreads virtualThreads;
+    private final Duration threshold;
+    private final Counter pinned;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(VirtualThreads virtualThreads,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${threads.pinned-threshold:PT0.02S}") Duration threshold) {
+        this.virtualThreads = virtualThreads;
+        this.threshold = threshold;
+        this.pinned = meterRegistry.counter("auth.threads.pinned");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!virtualThreads.isEnabled()) {
+            return;
+        }
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+        } catch (RuntimeException e) {
+            log.warn("Could not monitor the pinned virtual threads: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        log.warn("A virtual thread was pinned for {} ms at {}", event.getDuration().toMillis(), frames(event));
+    }
+
+    private static String frames(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "an unknown frame";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::frame)
+                .collect(Collectors.joining(" <- "));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
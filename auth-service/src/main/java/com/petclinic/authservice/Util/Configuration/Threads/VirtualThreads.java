@@ -0,0 +1,75 @@
+package com.petclinic.authservice.Util.Configuration.Threads;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes the threads of the requests, of the mail dispatch and of the blocking calls of auth-service.
+ * With threads.virtual they are virtual threads, so a login blocked on MySQL, cart-service or mailer-service does not
+ * hold one of the few platform threads. Virtual threads need a Java 21 runtime, they are made by reflection so the
+ * service still builds on Java 17; on an older runtime platform threads are used and a warning is logged.
+ */
+@Component
+@Slf4j
+public class VirtualThreads {
+
+    private static final int VIRTUAL_THREADS_VERSION = 21;
+
+    private final boolean enabled;
+
+    public VirtualThreads(@Value("${threads.virtual:false}") boolean virtual) {
+        this.enabled = virtual && isSupported();
+        if (virtual && !enabled) {
+            log.warn("Virtual threads need Java {}, running on Java {} with platform threads",
+                    VIRTUAL_THREADS_VERSION, Runtime.version().feature());
+        }
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= VIRTUAL_THREADS_VERSION;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param prefix The name of the threads, followed by their number
+     */
+    public ThreadFactory threadFactory(String prefix) {
+        if (!enabled) {
+            AtomicLong count = new AtomicLong();
+            return runnable -> new Thread(runnable, prefix + count.getAndIncrement());
+        }
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread factory", e);
+        }
+    }
+
+    /**
+     * An executor running every task on a new virtual thread, or on a cached pool of platform threads
+     */
+    public ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory threadFactory = threadFactory(prefix);
+        if (!enabled) {
+            return Executors.newCachedThreadPool(threadFactory);
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.petclinic.authservice.Util.Configuration.Threads;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class VirtualThreadsConfig {
+
+    /**
+     * With virtual threads every request runs on its own virtual thread instead of the pool of server.tomcat.threads.max.
+     * The connections are still bounded by server.tomcat.max-connections and the database by the Hikari pool.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer(VirtualThreads virtualThreads) {
+        return protocolHandler -> {
+            if (virtualThreads.isEnabled()) {
+                log.info("Handling the requests on virtual threads");
+                protocolHandler.setExecutor(virtualThreads.newThreadPerTaskExecutor("tomcat-handler-"));
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package com.petclinic.authservice.Util.Exceptions;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -89,6 +89,13 @@ public class GlobalControllerExceptionHandlerConfig {
         return new HTTPErrorMessage(UNAUTHORIZED.value(), ex.getMessage());
     }
 
+    @ExceptionHandler(value = TooManyRequestsException.class)
+    @ResponseStatus(value = TOO_MANY_REQUESTS)
+    public HTTPErrorMessage tooManyRequestsException(TooManyRequestsException ex, WebRequest request) {
+
+        return new HTTPErrorMessage(TOO_MANY_REQUESTS.value(), ex.getMessage());
+    }
+
     @ExceptionHandler(value = IllegalArgumentException.class)
     @ResponseStatus(value = BAD_REQUEST)
     public HTTPErrorMessage illegalArgumentException(IllegalArgumentException ex) {
@@ -0,0 +1,188 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.Util.Exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts the failed logins of every account and of every client address over a sliding window. Once an account or an
+ * address has too many failures in the window its logins are refused until the oldest failures leave the window.
+ * login checks it before reading the user or hashing the password, so a brute force or a credential stuffing costs no
+ * BCrypt work once throttled. A successful login clears the failures of its account.
+ * At most max-keys accounts and addresses are tracked. When a new one comes in, the one whose last failure is the
+ * oldest is forgotten, so failures on made-up emails can't stop the failures of a real account being counted.
+ * The refused logins are published as the auth.login.throttled meter.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final String ACCOUNT = "account:";
+    private static final String ADDRESS = "address:";
+
+    private final Duration window;
+    private final int maxAccountFailures;
+    private final int maxAddressFailures;
+    private final int maxKeys;
+    private final Clock clock;
+    private final Counter throttled;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    //the times of the last failures of every key, at most the max failures of the key are kept
+    private final Map<String, Deque<Instant>> failures;
+
+    @Autowired
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${login-throttle.window:PT15M}") Duration window,
+                         @Value("${login-throttle.max-account-failures:5}") int maxAccountFailures,
+                         @Value("${login-throttle.max-address-failures:50}") int maxAddressFailures,
+                         @Value("${login-throttle.max-keys:100000}") int maxKeys) {
+        this(meterRegistry, window, maxAccountFailures, maxAddressFailures, maxKeys, Clock.systemUTC());
+    }
+
+    LoginThrottle(MeterRegistry meterRegistry, Duration window, int maxAccountFailures, int maxAddressFailures,
+                  int maxKeys, Clock clock) {
+        this.window = window;
+        this.maxAccountFailures = maxAccountFailures;
+        this.maxAddressFailures = maxAddressFailures;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+        this.throttled = meterRegistry.counter("auth.login.throttled");
+        //kept in the order of their last failure, the eldest is the key that failed the longest ago
+        this.failures = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Deque<Instant>> eldest) {
+                return size() > LoginThrottle.this.maxKeys;
+            }
+        };
+    }
+
+    /**
+     * @param clientIp The address of the client, null when it is not known
+     * @throws TooManyRequestsException When the account or the address has too many failed logins in the window
+     */
+    public void check(String email, String clientIp) {
+        Instant now = clock.instant();
+        if (isThrottled(accountKey(email), maxAccountFailures, now)
+                || isThrottled(addressKey(clientIp), maxAddressFailures, now)) {
+            throttled.increment();
+            throw new TooManyRequestsException("Too many failed logins, try again later");
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        Instant now = clock.instant();
+        record(accountKey(email), maxAccountFailures, now);
+        record(addressKey(clientIp), maxAddressFailures, now);
+    }
+
+    public void recordSuccess(String email) {
+        String key = accountKey(email);
+        if (key == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            failures.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the keys whose failures all left the window
+     */
+    @Scheduled(fixedDelayString = "${login-throttle.purge-interval:PT1M}")
+    public void purge() {
+        Instant now = clock.instant();
+        lock.lock();
+        try {
+            failures.values().removeIf(times -> prune(times, now));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return failures.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isThrottled(String key, int maxFailures, Instant now) {
+        if (key == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Deque<Instant> times = failures.get(key);
+            if (times == null) {
+                return false;
+            }
+            if (prune(times, now)) {
+                failures.remove(key);
+                return false;
+            }
+            return times.size() >= maxFailures;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(String key, int maxFailures, Instant now) {
+        if (key == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            //put again to move the key to the end of the order, a new key evicts the eldest one when full
+            Deque<Instant> times = failures.remove(key);
+            if (times == null) {
+                times = new ArrayDeque<>();
+            }
+            times.addLast(now);
+            while (times.size() > maxFailures) {
+                times.pollFirst();
+            }
+            failures.put(key, times);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the failures out of the window
+     * @return Whether no failure is left
+     */
+    private boolean prune(Deque<Instant> times, Instant now) {
+        Instant windowStart = now.minus(window);
+        while (!times.isEmpty() && !times.peekFirst().isAfter(windowStart)) {
+            times.pollFirst();
+        }
+        return times.isEmpty();
+    }
+
+    private static String accountKey(String email) {
+        return email == null ? null : ACCOUNT + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String addressKey(String clientIp) {
+        return clientIp == null || clientIp.isBlank() ? null : ADDRESS + clientIp;
+    }
+}
@@ -0,0 +1,190 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.Util.Configuration.Threads.VirtualThreads;
+import com.petclinic.authservice.datalayer.mail.OutboxMail;
+import com.petclinic.authservice.datalayer.mail.OutboxMailRepo;
+import com.petclinic.authservice.datalayer.mail.OutboxStatus;
+import com.petclinic.authservice.domainclientlayer.Mail.Mail;
+import com.petclinic.authservice.domainclientlayer.Mail.MailService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the mail_outbox table from a @Scheduled poll with a fixed delay, so polls never overlap.
+ * A poll reads the ids of a batch of due rows, claims each of them with a conditional UPDATE (a row is only sent by
+ * the instance whose update changed it) and sends the batch on the sender pool, waiting for all of it before the next
+ * batch. An unsent row is released with its next attempt pushed back exponentially; a 4xx from mailer-service, or the
+ * last of maxAttempts, leaves it FAILED. Published as the auth.mail.outbox.* meters.
+ */
+@Component
+@Slf4j
+public class MailOutboxDispatcher {
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OutboxMailRepo outboxMailRepo;
+    private final MailService mailService;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration lease;
+    private final ExecutorService senders;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Timer sendTimer;
+    private final Timer delayTimer;
+    private final Counter retried;
+    private final Counter givenUp;
+
+    public MailOutboxDispatcher(OutboxMailRepo outboxMailRepo,
+                                MailService mailService,
+                                MeterRegistry meterRegistry,
+                                VirtualThreads virtualThreads,
+                                @Value("${mail-outbox.batch-size:50}") int batchSize,
+                                @Value("${mail-outbox.concurrency:4}") int concurrency,
+                                @Value("${mail-outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${mail-outbox.initial-backoff:PT30S}") Duration initialBackoff,
+                                @Value("${mail-outbox.lease:PT5M}") Duration lease) {
+        this.outboxMailRepo = outboxMailRepo;
+        this.mailService = mailService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.lease = lease;
+        this.senders = Executors.newFixedThreadPool(concurrency, virtualThreads.threadFactory("mail-outbox-sender-"));
+
+        meterRegistry.gauge("auth.mail.outbox.size", Tags.of("status", "pending"), pending);
+        meterRegistry.gauge("auth.mail.outbox.size", Tags.of("status", "failed"), failed);
+        this.sendTimer = meterRegistry.timer("auth.mail.outbox.send");
+        this.delayTimer = meterRegistry.timer("auth.mail.outbox.delay");
+        this.retried = meterRegistry.counter("auth.mail.outbox.attempts", "result", "retry");
+        this.givenUp = meterRegistry.counter("auth.mail.outbox.attempts", "result", "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${mail-outbox.poll-interval:PT5S}")
+    public void poll() {
+        try {
+            dispatchAll();
+        } catch (RuntimeException e) {
+            log.warn("Could not dispatch the outbox mails: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    /**
+     * Sends batches of due mails until a batch is not full, then refreshes the size of the outbox
+     * @return The number of mails claimed
+     */
+    public int dispatchAll() {
+        int total = 0;
+        int claimed;
+        do {
+            claimed = dispatchBatch();
+            total += claimed;
+        } while (claimed == batchSize);
+
+        pending.set(outboxMailRepo.countByStatus(OutboxStatus.PENDING));
+        failed.set(outboxMailRepo.countByStatus(OutboxStatus.FAILED));
+        return total;
+    }
+
+    /**
+     * Claims up to batchSize due mails and sends them on the sender threads
+     * @return The number of mails claimed
+     */
+    public int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime leaseExpiredBefore = now.minus(lease);
+
+        List<Long> claimedIds = outboxMailRepo.findDueIds(now, leaseExpiredBefore, OutboxStatus.PENDING, OutboxStatus.SENDING,
+                        PageRequest.of(0, batchSize))
+                .stream()
+                .filter(id -> outboxMailRepo.claim(id, now, leaseExpiredBefore, OutboxStatus.PENDING, OutboxStatus.SENDING) == 1)
+                .toList();
+        if (claimedIds.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxMail> claimed = outboxMailRepo.findAllById(claimedIds);
+        CompletableFuture.allOf(claimed.stream()
+                        .map(mail -> CompletableFuture.runAsync(() -> send(mail), senders))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+        return claimed.size();
+    }
+
+    private void send(OutboxMail claimed) {
+        Mail mail = Mail.builder()
+                .to(claimed.getRecipient())
+                .subject(claimed.getSubject())
+                .message(claimed.getMessage())
+                .build();
+
+        Timer.Sample sample = Timer.start();
+        try {
+            mailService.sendMail(mail);
+        } catch (RuntimeException e) {
+            sample.stop(sendTimer);
+            giveBack(claimed, e);
+            return;
+        }
+        sample.stop(sendTimer);
+
+        if (claimed.getCreatedAt() != null) {
+            delayTimer.record(Duration.between(claimed.getCreatedAt(), LocalDateTime.now()));
+        }
+        outboxMailRepo.deleteClaimed(claimed.getId(), claimed.getClaimedAt());
+    }
+
+    private void giveBack(OutboxMail claimed, RuntimeException error) {
+        String lastError = error.getMessage() == null || error.getMessage().length() <= MAX_ERROR_LENGTH
+                ? error.getMessage()
+                : error.getMessage().substring(0, MAX_ERROR_LENGTH);
+
+        boolean refused = error instanceof HttpClientErrorException clientError && clientError.getStatusCode().is4xxClientError();
+        if (refused || claimed.getAttempts() >= maxAttempts) {
+            log.warn("Gave up sending the mail {} after {} attempts: {}", claimed.getId(), claimed.getAttempts(), error.getMessage());
+            givenUp.increment();
+            outboxMailRepo.release(claimed.getId(), claimed.getClaimedAt(), OutboxStatus.FAILED, null, lastError);
+            return;
+        }
+
+        log.debug("Could not send the mail {}, attempt {}: {}", claimed.getId(), claimed.getAttempts(), error.getMessage());
+        retried.increment();
+        outboxMailRepo.release(claimed.getId(), claimed.getClaimedAt(), OutboxStatus.PENDING,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).plus(backoff(claimed.getAttempts())), lastError);
+    }
+
+    /**
+     * initialBackoff doubled after each attempt, up to MAX_BACKOFF
+     */
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+}
@@ -0,0 +1,37 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.datalayer.mail.OutboxMail;
+import com.petclinic.authservice.datalayer.mail.OutboxMailRepo;
+import com.petclinic.authservice.datalayer.mail.OutboxStatus;
+import com.petclinic.authservice.domainclientlayer.Mail.Mail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Queues the mails in the outbox instead of calling mailer-service in the request, see MailOutboxDispatcher.
+ * The mail joins the transaction of the caller, so it is only sent if the change that triggers it is committed.
+ */
+@Service
+@RequiredArgsConstructor
+public class MailOutboxService {
+
+    private final OutboxMailRepo outboxMailRepo;
+
+    @Transactional
+    public OutboxMail enqueue(Mail mail) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return outboxMailRepo.save(OutboxMail.builder()
+                .recipient(mail.getTo())
+                .subject(mail.getSubject())
+                .message(mail.getMessage())
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+}
@@ -46,13 +46,23 @@ public interface UserService {
 
     HashMap<String, Object> login(UserIDLessUsernameLessDTO user) throws IncorrectPasswordException;
 
+    HashMap<String, Object> login(UserIDLessUsernameLessDTO user, String clientIp) throws IncorrectPasswordException;
+
     User getUserByEmail(String email) throws NotFoundException;
 
     User getUserByUserId(String userId);
 
     void deleteUser(String userId);
 
-    List<UserDetails> getUsersByUsernameContaining(String username);
+    /**
+     * @param usernamePrefix The start of the usernames, all of them when null
+     * @param emailPrefix The start of the emails, all of them when null
+     * @param afterUsername The last username of the previous page, the first page when null
+     * @param size The number of users, all of them when null
+     */
+    List<UserDetails> getUsers(String usernamePrefix, String emailPrefix, String afterUsername, Integer size);
+
+    UserPageResponseDTO getUsersPage(String usernamePrefix, String emailPrefix, int page, int size);
 
     void processForgotPassword(UserResetPwdRequestModel userResetPwdWithTokenRequestModel);
 
@@ -13,26 +13,31 @@ import com.petclinic.authservice.datalayer.roles.Role;
 import com.petclinic.authservice.datalayer.roles.RoleRepo;
 import com.petclinic.authservice.datamapperlayer.UserMapper;
 import com.petclinic.authservice.domainclientlayer.Mail.Mail;
-import com.petclinic.authservice.domainclientlayer.Mail.MailService;
 import com.petclinic.authservice.domainclientlayer.cart.CartRequest;
 import com.petclinic.authservice.domainclientlayer.cart.CartResponse;
 import com.petclinic.authservice.domainclientlayer.cart.CartService;
 import com.petclinic.authservice.presentationlayer.User.*;
 import com.petclinic.authservice.security.JwtTokenUtil;
 import com.petclinic.authservice.security.SecurityConst;
+import com.petclinic.authservice.security.PrincipalCache;
+import com.petclinic.authservice.security.ResetTokenHasher;
 import com.petclinic.authservice.datalayer.user.*;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseCookie;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
@@ -45,17 +50,21 @@ import static java.lang.String.format;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final SecurityConst securityConst;
     private final ResetPasswordTokenRepository tokenRepository;
     private final UserRepo userRepo;
     private final RoleRepo roleRepo;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
-    private final MailService mailService;
+    private final MailOutboxService mailOutboxService;
     private final JwtTokenUtil jwtService;
     private final AuthenticationManager authenticationManager;
     private final CartService cartService;
-    private final String salt = BCrypt.gensalt(10);
+    private final PrincipalCache principalCache;
+    private final LoginThrottle loginThrottle;
+    private final ResetTokenHasher resetTokenHasher;
 
 
     @Value("${gateway.origin}")
@@ -65,12 +74,14 @@ public class UserServiceImpl implements UserService {
     @Value("${gateway.protocol}")
     private String gatewayProtocol;
 
+    //read in two queries, the users then their roles, instead of a query for the roles of every user
     @Override
     public List<UserDetails> findAllWithoutPage() {
-        return userMapper.modelToDetailsList(userRepo.findAll());
+        return toUserDetails(userRepo.findAllSummaries(), userRepo.findAllRoleSummaries());
     }
 
     @Override
+    @Transactional
     public User createUser(@Valid UserIDLessRoleLessDTO userIDLessDTO) {
 
             final Optional<User> byEmail = userRepo.findByEmail(userIDLessDTO.getEmail());
@@ -106,11 +117,11 @@ public class UserServiceImpl implements UserService {
             user.setUserIdentifier(new UserIdentifier(userIDLessDTO.getUserId()));
             user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-            log.info("Sending email to {}...", userIDLessDTO.getEmail());
-            log.info(mailService.sendMail(generateVerificationMail(user)));
-            log.info("Email sent to {}", userIDLessDTO.getEmail());
-
             User savedUser = userRepo.save(user);
+
+            //sent by the MailOutboxDispatcher once the user is committed
+            log.info("Queueing the verification email of {}", userIDLessDTO.getEmail());
+            mailOutboxService.enqueue(generateVerificationMail(user));
             CartResponse cartResponse = cartService.createCart(new CartRequest(savedUser.getUserIdentifier().getUserId()));
 
             return savedUser;
@@ -201,13 +212,28 @@ public class UserServiceImpl implements UserService {
         }
         decryptUser.get().setVerified(true);
         final User save = userRepo.save(decryptUser.get());
+        principalCache.invalidate(decryptUser.get().getUserIdentifier().getUserId());
         return userMapper.modelToPasswordLessDTO(save);
     }
 
 
     @Override
     public HashMap<String,Object> login(UserIDLessUsernameLessDTO login) throws IncorrectPasswordException {
-        User loggedInUser = getUserByEmail(login.getEmail());
+        return login(login, null);
+    }
+
+    @Override
+    public HashMap<String,Object> login(UserIDLessUsernameLessDTO login, String clientIp) throws IncorrectPasswordException {
+        //refused before the user is read and the password hashed
+        loginThrottle.check(login.getEmail(), clientIp);
+
+        User loggedInUser;
+        try {
+            loggedInUser = getUserByEmail(login.getEmail());
+        } catch (NotFoundException e) {
+            loginThrottle.recordFailure(login.getEmail(), clientIp);
+            throw e;
+        }
 
         if (loggedInUser == null) {
             throw new NotFoundException("User not found");
@@ -221,9 +247,10 @@ public class UserServiceImpl implements UserService {
                                     login.getEmail(), login.getPassword()
                             )
                     );
+            loginThrottle.recordSuccess(login.getEmail());
 
             if (!loggedInUser.isVerified()) {
-                mailService.sendMail(generateVerificationMail(loggedInUser));
+                mailOutboxService.enqueue(generateVerificationMail(loggedInUser));
                 throw new UnverifiedUserException("Your account is not verified ! A link has been sent to verify the account !");
             }
 
@@ -243,12 +270,14 @@ public class UserServiceImpl implements UserService {
             }};
         }
         catch (BadCredentialsException e){
+            loginThrottle.recordFailure(login.getEmail(), clientIp);
             throw new IncorrectPasswordException("Incorrect password for user with email: " + login.getEmail());
         }
     }
 
 
     @Override
+    @Transactional
     public void processForgotPassword(UserResetPwdRequestModel userResetPwdRequestModel) {
         String email = userResetPwdRequestModel.getEmail();
         String token = UUID.randomUUID().toString();
@@ -279,7 +308,7 @@ public class UserServiceImpl implements UserService {
             }
 
             //Hash the tokens
-            ResetPasswordToken resetPasswordToken = new ResetPasswordToken(user.get().getId(), BCrypt.hashpw(token,salt));
+            ResetPasswordToken resetPasswordToken = new ResetPasswordToken(user.get().getId(), resetTokenHasher.hash(token));
             tokenRepository.save(resetPasswordToken);
         } else {
             throw new IllegalArgumentException("Could not find any customer with the email " + email);
@@ -288,7 +317,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserPasswordLessDTO getByResetPasswordToken(String token) {
-        String hashedToken = BCrypt.hashpw(token, salt);
+        String hashedToken = resetTokenHasher.hash(token);
         ResetPasswordToken resetPasswordToken = tokenRepository.findResetPasswordTokenByToken(hashedToken);
         if (resetPasswordToken == null) {
             throw new InvalidBearerTokenException("Token not found");
@@ -307,12 +336,12 @@ public class UserServiceImpl implements UserService {
     public void updatePassword(String newPassword, String token) {
 
         final Calendar cal = Calendar.getInstance();
-        ResetPasswordToken resetPasswordToken = tokenRepository.findResetPasswordTokenByToken(BCrypt.hashpw(token, salt));
+        ResetPasswordToken resetPasswordToken = tokenRepository.findResetPasswordTokenByToken(resetTokenHasher.hash(token));
         if(resetPasswordToken.getExpiryDate().before(cal.getTime())){
             throw new IllegalArgumentException("Token expired");
         }
 
-        String encodedPassword = BCrypt.hashpw(newPassword, BCrypt.gensalt(10));
+        String encodedPassword = passwordEncoder.encode(newPassword);
         Optional<User> user = userRepo.findById(resetPasswordToken.getUserIdentifier());
 
 
@@ -321,6 +350,7 @@ public class UserServiceImpl implements UserService {
             user.get().setPassword(encodedPassword);
 
             userRepo.save(user.get());
+            principalCache.invalidate(user.get().getUserIdentifier().getUserId());
             tokenRepository.delete(resetPasswordToken);
         }else
             throw new NotFoundException("Could not find any customer with the token " + token);
@@ -404,7 +434,7 @@ public class UserServiceImpl implements UserService {
                 .to(recipientEmail)
                 .build();
 
-        mailService.sendMail(mail);
+        mailOutboxService.enqueue(mail);
     }
 
 
@@ -443,7 +473,9 @@ public class UserServiceImpl implements UserService {
 
         existingUser.setRoles(newRoles);
 
-        return userMapper.modelToPasswordLessDTO(userRepo.save(existingUser));
+        final User save = userRepo.save(existingUser);
+        principalCache.invalidate(userId);
+        return userMapper.modelToPasswordLessDTO(save);
     }
     public User getUserByUserId(String userId) {
         return userRepo.findOptionalUserByUserIdentifier_UserId(userId)
@@ -455,6 +487,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepo.findUserByUserIdentifier_UserId(userId);
         if (user != null) {
             userRepo.delete(user);
+            principalCache.invalidate(userId);
         } else {
             throw new NotFoundException("No user with userId: " + userId);
         }
@@ -462,8 +495,70 @@ public class UserServiceImpl implements UserService {
 
 
     @Override
-    public List<UserDetails> getUsersByUsernameContaining(String username) {
-        return userMapper.modelToDetailsList(userRepo.findByUsernameContaining(username));
+    public List<UserDetails> getUsers(String usernamePrefix, String emailPrefix, String afterUsername, Integer size) {
+        if (size != null) {
+            validatePageSize(size);
+        }
+        List<UserSummary> users = userRepo.findSummariesAfterUsername(afterUsername == null ? "" : afterUsername,
+                likePrefix(usernamePrefix), likePrefix(emailPrefix),
+                size == null ? Pageable.unpaged() : PageRequest.of(0, size));
+        return toUserDetails(users);
+    }
+
+    @Override
+    public UserPageResponseDTO getUsersPage(String usernamePrefix, String emailPrefix, int page, int size) {
+        validatePageSize(size);
+        if (page < 0) {
+            throw new InvalidInputException("The page can't be negative");
+        }
+        Page<UserSummary> users = userRepo.findSummaries(likePrefix(usernamePrefix), likePrefix(emailPrefix),
+                PageRequest.of(page, size, Sort.by("username")));
+
+        return UserPageResponseDTO.builder()
+                .users(toUserDetails(users.getContent()))
+                .page(users.getNumber())
+                .size(users.getSize())
+                .totalElements(users.getTotalElements())
+                .totalPages(users.getTotalPages())
+                .build();
+    }
+
+    private void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidInputException("The size of a page must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    //a LIKE pattern of the values starting with the prefix, ! escapes the wildcards of the prefix
+    private static String likePrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return "%";
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private List<UserDetails> toUserDetails(List<UserSummary> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        return toUserDetails(users, userRepo.findRoleSummaries(users.stream().map(UserSummary::id).toList()));
+    }
+
+    private static List<UserDetails> toUserDetails(List<UserSummary> users, List<UserRoleSummary> roles) {
+        Map<Long, Set<Role>> rolesByUser = new HashMap<>();
+        for (UserRoleSummary role : roles) {
+            rolesByUser.computeIfAbsent(role.userId(), userId -> new HashSet<>())
+                    .add(Role.builder().id(role.roleId()).name(role.roleName()).build());
+        }
+
+        return users.stream()
+                .map(user -> UserDetails.builder()
+                        .userId(user.userId())
+                        .username(user.username())
+                        .email(user.email())
+                        .roles(rolesByUser.getOrDefault(user.id(), new HashSet<>()))
+                        .build())
+                .toList();
     }
 
 }
@@ -0,0 +1,46 @@
+package com.petclinic.authservice.datalayer.mail;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A mail waiting to be sent to mailer-service, saved with the user change that triggers it.
+ * Sent and removed by the MailOutboxDispatcher.
+ */
+@Entity
+@Table(name = "mail_outbox", indexes = @Index(name = "idx_mail_outbox_status_next_attempt", columnList = "status, next_attempt_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class OutboxMail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String recipient;
+
+    private String subject;
+
+    @Lob
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status;
+
+    //number of times the mail was handed to a dispatcher
+    private int attempts;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime nextAttemptAt;
+
+    //when a dispatcher took the mail, another one can take it back once the lease is over
+    private LocalDateTime claimedAt;
+
+    private String lastError;
+}
@@ -0,0 +1,67 @@
+package com.petclinic.authservice.datalayer.mail;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMailRepo extends JpaRepository<OutboxMail, Long> {
+
+    long countByStatus(OutboxStatus status);
+
+    /**
+     * The mails that are due, and the ones taken by a dispatcher whose lease is over, oldest first
+     */
+    @Query("select m.id from OutboxMail m " +
+            "where (m.status = :pending and m.nextAttemptAt <= :now) " +
+            "or (m.status = :sending and m.claimedAt < :leaseExpiredBefore) " +
+            "order by m.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now,
+                          @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore,
+                          @Param("pending") OutboxStatus pending,
+                          @Param("sending") OutboxStatus sending,
+                          Pageable pageable);
+
+    /**
+     * Marks the mail SENDING if it is still due, so two dispatchers never send the same mail
+     * @return 1 when the mail was claimed, 0 when another dispatcher got it first
+     */
+    @Transactional
+    @Modifying
+    @Query("update OutboxMail m set m.status = :sending, m.claimedAt = :now, m.attempts = m.attempts + 1 " +
+            "where m.id = :id and ((m.status = :pending and m.nextAttemptAt <= :now) " +
+            "or (m.status = :sending and m.claimedAt < :leaseExpiredBefore))")
+    int claim(@Param("id") Long id,
+              @Param("now") LocalDateTime now,
+              @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore,
+              @Param("pending") OutboxStatus pending,
+              @Param("sending") OutboxStatus sending);
+
+    /**
+     * Removes a sent mail, unless another dispatcher took it back in between
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMail m where m.id = :id and m.claimedAt = :claimedAt")
+    int deleteClaimed(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Gives back a mail the dispatcher could not send, unless another dispatcher took it back in between
+     */
+    @Transactional
+    @Modifying
+    @Query("update OutboxMail m set m.status = :status, m.nextAttemptAt = :nextAttemptAt, m.lastError = :lastError, m.claimedAt = null " +
+            "where m.id = :id and m.claimedAt = :claimedAt")
+    int release(@Param("id") Long id,
+                @Param("claimedAt") LocalDateTime claimedAt,
+                @Param("status") OutboxStatus status,
+                @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                @Param("lastError") String lastError);
+}
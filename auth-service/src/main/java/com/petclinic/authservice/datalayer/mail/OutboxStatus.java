@@ -0,0 +1,7 @@
+package com.petclinic.authservice.datalayer.mail;
+
+public enum OutboxStatus {
+    PENDING,
+    SENDING,
+    FAILED
+}
@@ -7,7 +7,7 @@ import java.util.Calendar;
 import java.util.Date;
 
 @Entity
-@Table(name="reset_password_token")
+@Table(name="reset_password_token", indexes = @Index(name = "idx_reset_password_token_token", columnList = "token", unique = true))
 @Data
 public class ResetPasswordToken {
     private static final int EXPIRATION = 15;
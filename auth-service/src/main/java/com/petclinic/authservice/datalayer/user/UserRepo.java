@@ -16,9 +16,14 @@
 
 package com.petclinic.authservice.datalayer.user;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,7 +40,36 @@ public interface UserRepo extends JpaRepository<User, Long> {
 
     User findUserByUserIdentifier_UserId(String userId);
 
-    List<User> findByUsernameContaining(String username);
+    String SELECT_SUMMARY = "select new com.petclinic.authservice.datalayer.user.UserSummary("
+            + "u.id, u.userIdentifier.userId, u.username, u.email) from User u";
+    String SELECT_ROLES = "select new com.petclinic.authservice.datalayer.user.UserRoleSummary(u.id, r.id, r.name) "
+            + "from User u join u.roles r";
+    //the prefixes are LIKE patterns ending with %, so the unique indexes on username and email can be used
+    String PREFIXES = "u.username like :usernamePrefix escape '!' and u.email like :emailPrefix escape '!'";
+
+    @Query(SELECT_SUMMARY)
+    List<UserSummary> findAllSummaries();
+
+    @Query(value = SELECT_SUMMARY + " where " + PREFIXES,
+            countQuery = "select count(u) from User u where " + PREFIXES)
+    Page<UserSummary> findSummaries(@Param("usernamePrefix") String usernamePrefix,
+                                    @Param("emailPrefix") String emailPrefix,
+                                    Pageable pageable);
+
+    /**
+     * The users after a username, in the order of their usernames, a page costs the same wherever it is in the list
+     */
+    @Query(SELECT_SUMMARY + " where u.username > :afterUsername and " + PREFIXES + " order by u.username")
+    List<UserSummary> findSummariesAfterUsername(@Param("afterUsername") String afterUsername,
+                                                 @Param("usernamePrefix") String usernamePrefix,
+                                                 @Param("emailPrefix") String emailPrefix,
+                                                 Pageable limit);
+
+    @Query(SELECT_ROLES)
+    List<UserRoleSummary> findAllRoleSummaries();
+
+    @Query(SELECT_ROLES + " where u.id in :userIds")
+    List<UserRoleSummary> findRoleSummaries(@Param("userIds") Collection<Long> userIds);
 
 
 }
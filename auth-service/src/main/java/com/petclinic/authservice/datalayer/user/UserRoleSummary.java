@@ -0,0 +1,7 @@
+package com.petclinic.authservice.datalayer.user;
+
+/**
+ * A role of a user, read with the roles of the other users of a list in a single query
+ */
+public record UserRoleSummary(long userId, long roleId, String roleName) {
+}
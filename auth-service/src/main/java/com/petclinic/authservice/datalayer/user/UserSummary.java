@@ -0,0 +1,7 @@
+package com.petclinic.authservice.datalayer.user;
+
+/**
+ * The columns of a user shown in the admin list, read without its password and its roles
+ */
+public record UserSummary(long id, String userId, String username, String email) {
+}
@@ -3,8 +3,10 @@ package com.petclinic.authservice.domainclientlayer.Mail;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import retrofit2.Response;
 
 import java.io.IOException;
@@ -25,6 +27,14 @@ public class MailServiceImpl implements MailService {
                 log.error(execute.errorBody().string());
                 throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, execute.errorBody().string());
             }
+            if (HttpStatusCode.valueOf(execute.code()).is4xxClientError()) {
+                log.error("Mail service refused the mail with {} status code", execute.code());
+                throw new HttpClientErrorException(HttpStatusCode.valueOf(execute.code()), "The mail was refused");
+            }
+            if (!execute.isSuccessful()) {
+                log.error("Mail service returned {} status code", execute.code());
+                throw new HttpServerErrorException(HttpStatusCode.valueOf(execute.code()), "Unable to send mail");
+            }
             log.info("Mail service returned {} status code", execute.code());
             return execute.body();
         } catch (IOException e) {
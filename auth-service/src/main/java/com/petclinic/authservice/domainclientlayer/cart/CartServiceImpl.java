@@ -3,6 +3,9 @@ package com.petclinic.authservice.domainclientlayer.cart;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
 @Service
 public class CartServiceImpl implements CartService{
 
@@ -10,8 +13,13 @@ public class CartServiceImpl implements CartService{
 
     private String cartServiceBaseURL;
 
+    //the signup thread waits for the cart, it is not held longer than this when cart-service is slow
+    private final Duration timeout;
+
     public CartServiceImpl(@Value("${cart-service.host}") String cartServiceHost,
-                           @Value("${cart-service.port}") String cartServicePort) {
+                           @Value("${cart-service.port}") String cartServicePort,
+                           @Value("${cart-service.timeout:PT5S}") Duration timeout) {
+        this.timeout = timeout;
         cartServiceBaseURL  = "http://" + cartServiceHost + ":" + cartServicePort + "/api/v1/carts";
 
         this.webClient = WebClient.builder()
@@ -25,7 +33,7 @@ public class CartServiceImpl implements CartService{
                 .bodyValue(cartRequest)
                 .retrieve()
                 .bodyToMono(CartResponse.class)
-                .block();
+                .block(timeout);
     }
 
 
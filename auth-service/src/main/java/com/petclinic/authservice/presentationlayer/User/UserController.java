@@ -21,8 +21,11 @@ import com.petclinic.authservice.businesslayer.UserService;
 import com.petclinic.authservice.datalayer.user.User;
 import com.petclinic.authservice.datamapperlayer.UserMapper;
 
+import com.petclinic.authservice.security.ClientAddressResolver;
 import com.petclinic.authservice.security.JwtTokenUtil;
 import com.petclinic.authservice.security.SecurityConst;
+import com.petclinic.authservice.security.TokenClaims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -59,6 +62,8 @@ public class UserController {
 
     private final JwtTokenUtil jwtService;
 
+    private final ClientAddressResolver clientAddressResolver;
+
     @GetMapping("/withoutPages")
     public List<UserDetails> getUserWithoutPage() {
         return userService.findAllWithoutPage();
@@ -70,13 +75,20 @@ public class UserController {
         return ResponseEntity.ok(userMapper.modelToDetails(user));
     }
 
-    //add pagination to this method later
+    /**
+     * The users whose username and email start with the given prefixes, in the order of their usernames.
+     * With a size, a page of users after afterUsername, the last username of the previous page
+     */
     @GetMapping("/")
-    public ResponseEntity<List<UserDetails>> getAllUsers(@RequestParam Optional<String> username) {
+    public ResponseEntity<List<UserDetails>> getAllUsers(@RequestParam Optional<String> username,
+                                                         @RequestParam Optional<String> email,
+                                                         @RequestParam Optional<String> afterUsername,
+                                                         @RequestParam Optional<Integer> size) {
         List<UserDetails> users;
 
-        if(username.isPresent()) {
-            users = userService.getUsersByUsernameContaining(username.get());
+        if(username.isPresent() || email.isPresent() || afterUsername.isPresent() || size.isPresent()) {
+            users = userService.getUsers(username.orElse(null), email.orElse(null),
+                    afterUsername.orElse(null), size.orElse(null));
         }
         else {
             users = userService.findAllWithoutPage();
@@ -85,6 +97,14 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<UserPageResponseDTO> getUsersPage(@RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "20") int size,
+                                                            @RequestParam Optional<String> username,
+                                                            @RequestParam Optional<String> email) {
+        return ResponseEntity.ok(userService.getUsersPage(username.orElse(null), email.orElse(null), page, size));
+    }
+
     @PostMapping
     public ResponseEntity<UserPasswordLessDTO> createUser(@RequestBody @Valid UserIDLessRoleLessDTO dto){
         final User saved = userService.createUser(dto);
@@ -131,10 +151,11 @@ public class UserController {
 
     @PostMapping("/login")
     public ResponseEntity<UserPasswordLessDTO> login(@RequestBody UserIDLessUsernameLessDTO login,
+                                                     HttpServletRequest request,
                                                      HttpServletResponse response) throws IncorrectPasswordException {
         try {
 
-            HashMap<String, Object> userAndToken = userService.login(login);
+            HashMap<String, Object> userAndToken = userService.login(login, clientIp(request));
             ResponseCookie token = (ResponseCookie) userAndToken.get("token");
             User loggedInUser = (User) userAndToken.get("user");
             response.setHeader(HttpHeaders.SET_COOKIE, token.toString());
@@ -147,13 +168,17 @@ public class UserController {
     }
 
     @PostMapping("/validate-token")
-    public ResponseEntity<TokenResponseDTO> validateToken(@CookieValue("Bearer") String token) {
+    public ResponseEntity<TokenResponseDTO> validateToken(@CookieValue("Bearer") String token,
+                                                         @RequestAttribute(name = TokenClaims.TOKEN_CLAIMS_ATTRIBUTE, required = false) TokenClaims tokenClaims) {
+
+        //already parsed by JwtTokenFilter
+        TokenClaims claims = tokenClaims != null ? tokenClaims : jwtService.parseToken(token).orElse(null);
 
         TokenResponseDTO tokenResponseDTO = TokenResponseDTO.builder()
                 .token(token)
-                .userId(jwtService.getIdFromToken(token))
-                .email(jwtService.getUsernameFromToken(token))
-                .roles(jwtService.getRolesFromToken(token))
+                .userId(claims == null ? null : claims.userId())
+                .email(claims == null ? null : claims.email())
+                .roles(claims == null ? null : claims.roles())
                 .build();
 
         return ResponseEntity.ok(tokenResponseDTO);
@@ -196,4 +221,9 @@ public class UserController {
         }
     }
 
+    //the address of the client as forwarded by the gateway, or the address of the caller
+    private String clientIp(HttpServletRequest request) {
+        return clientAddressResolver.resolve(request.getRemoteAddr(), request.getHeader("X-Forwarded-For"));
+    }
+
 }
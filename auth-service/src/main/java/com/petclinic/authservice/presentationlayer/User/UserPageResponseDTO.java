@@ -0,0 +1,21 @@
+package com.petclinic.authservice.presentationlayer.User;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class UserPageResponseDTO {
+
+    private List<UserDetails> users;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
@@ -0,0 +1,62 @@
+package com.petclinic.authservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The address a login is throttled by. X-Forwarded-For is set by whoever sends the request, so it is only read when
+ * the caller is one of the trusted proxies (the api-gateway in docker), and then only the address the proxy added.
+ * Any other caller is known by its own address, whatever header it sends.
+ */
+@Component
+@Slf4j
+public class ClientAddressResolver {
+
+    private final List<String> trustedProxies;
+
+    /**
+     * @param trustedProxies The addresses or host names of the proxies allowed to forward the address of the client
+     */
+    public ClientAddressResolver(@Value("${login-throttle.trusted-proxies:}") List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .toList();
+    }
+
+    /**
+     * @param remoteAddress The address of the caller
+     * @param forwardedFor The X-Forwarded-For header, null when there is none
+     */
+    public String resolve(String remoteAddress, String forwardedFor) {
+        if (forwardedFor == null || forwardedFor.isBlank() || !isTrusted(remoteAddress)) {
+            return remoteAddress;
+        }
+        //the proxy appends the address it received the request from, the entries before it come from the client
+        String[] addresses = forwardedFor.split(",");
+        return addresses[addresses.length - 1].trim();
+    }
+
+    private boolean isTrusted(String address) {
+        if (address == null) {
+            return false;
+        }
+        for (String proxy : trustedProxies) {
+            try {
+                if (Arrays.stream(InetAddress.getAllByName(proxy))
+                        .anyMatch(proxyAddress -> proxyAddress.getHostAddress().equals(address))) {
+                    return true;
+                }
+            } catch (UnknownHostException e) {
+                log.debug("Could not resolve the trusted proxy {}", proxy);
+            }
+        }
+        return false;
+    }
+}
@@ -12,6 +12,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -39,12 +40,20 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
     private final UserRepo userRepo;
 
+    private final PrincipalCache principalCache;
+
+    //the principal is built from the token alone, without the user as it is in the database
+    private final boolean principalFromToken;
+
 
     public JwtTokenFilter(SecurityConst securityConst, JwtTokenUtil jwtTokenUtil
-            , UserRepo userRepo) {
+            , UserRepo userRepo, PrincipalCache principalCache
+            , @Value("${principal-cache.from-token:false}") boolean principalFromToken) {
         this.securityConst = securityConst;
         this.jwtTokenUtil = jwtTokenUtil;
         this.userRepo = userRepo;
+        this.principalCache = principalCache;
+        this.principalFromToken = principalFromToken;
     }
 
     @Override
@@ -83,7 +92,9 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
         try {
 
-            if (!jwtTokenUtil.validateToken(token)) {
+            //parsed once, the controllers read the claims from the request
+            Optional<TokenClaims> tokenClaims = jwtTokenUtil.parseToken(token);
+            if (tokenClaims.isEmpty()) {
                 log.info("Token is invalid");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 resolver.resolveException(request, response, null, new InvalidBearerTokenException("Token is expired"));
@@ -91,10 +102,8 @@ public class JwtTokenFilter extends OncePerRequestFilter {
             }
 
             log.info("Token is valid");
-            Optional<User> userResponseModel = userRepo
-                    .findByEmail(jwtTokenUtil.getUsernameFromToken(token));
-
-            UserDetails userDetails = new UserPrincipalImpl(userResponseModel);
+            request.setAttribute(TokenClaims.TOKEN_CLAIMS_ATTRIBUTE, tokenClaims.get());
+            UserDetails userDetails = loadPrincipal(tokenClaims.get());
 
 
             UsernamePasswordAuthenticationToken
@@ -116,4 +125,14 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         }
     }
 
+    private UserPrincipalImpl loadPrincipal(TokenClaims tokenClaims) {
+        if (principalFromToken) {
+            return UserPrincipalImpl.fromClaims(tokenClaims);
+        }
+        return principalCache.get(tokenClaims.userId(), () -> {
+            Optional<User> user = userRepo.findByEmail(tokenClaims.email());
+            return new UserPrincipalImpl(user);
+        });
+    }
+
 }
@@ -3,26 +3,30 @@ package com.petclinic.authservice.security;
 import com.petclinic.authservice.datalayer.roles.Role;
 import com.petclinic.authservice.datalayer.user.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
+import java.security.Key;
 import java.time.ZonedDateTime;
 import java.util.*;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtTokenUtil implements Serializable {
 
 
 
     private final SecurityConst securityConst;
 
+    //built once, the key and the parser are immutable and thread-safe
+    private final transient Key signingKey;
+    private final transient JwtParser jwtParser;
+
 
     private static final String CLAIM_KEY_USERNAME = "sub";
     private static final String CLAIM_KEY_CREATED = "created";
@@ -30,39 +34,47 @@ public class JwtTokenUtil implements Serializable {
     private static final String CLAIM_KEY_ID = "id";
 
 
+    public JwtTokenUtil(SecurityConst securityConst) {
+        this.securityConst = securityConst;
+        this.signingKey = Keys.hmacShaKeyFor(securityConst.getSECRET().getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
 
 
-    public String getUsernameFromToken(String token) {
-        String username;
-        try {
-            final Claims claims = getClaimsFromToken(token);
-            username = claims.getSubject();
+    /**
+     * Checks the signature and the expiry of the token and reads all its values in one parse.
+     * @return The values of the token, empty when the token is invalid, expired or has no expiry
+     */
+    public Optional<TokenClaims> parseToken(String token) {
+        final Claims claims = getClaimsFromToken(token);
+        if (claims == null || claims.getSubject() == null || claims.getExpiration() == null
+                || claims.getExpiration().before(new Date())) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new TokenClaims(
+                claims.get(CLAIM_KEY_ID) == null ? null : claims.get(CLAIM_KEY_ID).toString(),
+                claims.getSubject(),
+                getRoles(claims),
+                claims.getExpiration()));
+    }
 
 
-        } catch (Exception e) {
-            username = null;
-        }
-        return username;
+    public String getUsernameFromToken(String token) {
+        return parseToken(token).map(TokenClaims::email).orElse(null);
     }
 
 
     public Date getExpirationDateFromToken(String token) {
-        Date expiration;
-        try {
-            final Claims claims = getClaimsFromToken(token);
-            expiration = claims.getExpiration();
-        } catch (Exception e) {
-            expiration = null;
-        }
-        return expiration;
+        return parseToken(token).map(TokenClaims::expiration).orElse(null);
     }
 
     private Claims getClaimsFromToken(String token) {
         Claims claims;
         try {
-            claims = Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(securityConst.getSECRET().getBytes()))
-                    .build().parseClaimsJws(token).getBody();
+            claims = jwtParser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             claims = null;
         }
@@ -72,7 +84,7 @@ public class JwtTokenUtil implements Serializable {
 
     public Boolean isTokenExpired(String token) {
         final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return expiration == null || expiration.before(new Date());
     }
 
 
@@ -97,40 +109,34 @@ public class JwtTokenUtil implements Serializable {
         return Jwts.builder()
                 .setClaims(claims)
                 .setExpiration(expirationDate)
-                .signWith(Keys.hmacShaKeyFor(securityConst.getSECRET().getBytes()))
+                .signWith(signingKey)
                 .compact();
     }
 
 
     public Boolean validateToken(String token) {
-        final String username = getUsernameFromToken(token);
-        if (username == null) return false;
-
-
-        return (!isTokenExpired(token));
+        return parseToken(token).isPresent();
     }
 
     public String getIdFromToken(String token) {
-        String id;
-        try {
-            final Claims claims = getClaimsFromToken(token);
-            id = claims.get("id").toString();
-        } catch (Exception e) {
-            id = null;
-        }
-        return id;
+        return parseToken(token).map(TokenClaims::userId).orElse(null);
     }
 
 
     public List<String> getRolesFromToken(String token) {
-        List<String> roles;
-        try {
-            final Claims claims = getClaimsFromToken(token);
+        return parseToken(token).map(TokenClaims::roles).orElse(null);
+    }
 
-            roles = Arrays.asList(claims.get(CLAIM_KEY_ROLES).toString().split(","));
-        } catch (Exception e) {
-            roles = null;
+    //the roles are written as an array, older tokens may hold them as a comma separated string
+    private List<String> getRoles(Claims claims) {
+        Object roles = claims.get(CLAIM_KEY_ROLES);
+
+        if (roles instanceof Collection<?> collection) {
+            return collection.stream().map(String::valueOf).toList();
+        }
+        if (roles != null) {
+            return Arrays.asList(roles.toString().split(","));
         }
-        return roles;
+        return null;
     }
 }
@@ -0,0 +1,136 @@
+package com.petclinic.authservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * The principals of the users built by JwtTokenFilter, by user id, so an authenticated request does not read its user
+ * and roles from the database every time.
+ * A principal is kept for ttl at most and at most maxSize principals are kept, the oldest one is dropped first.
+ * UserServiceImpl invalidates the principal of a user when its roles, password, verification or account change.
+ * The hits and misses are published as the auth.principal.cache meter.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Duration ttl;
+    private final int maxSize;
+    private final Clock clock;
+    private final Map<String, CachedPrincipal> principals;
+    //not synchronized, a virtual thread waiting on a monitor pins its carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //a principal loaded while its user was invalidated is not kept, it may have been read before the change
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${principal-cache.ttl:PT1M}") Duration ttl,
+                          @Value("${principal-cache.max-size:10000}") int maxSize) {
+        this(meterRegistry, ttl, maxSize, Clock.systemUTC());
+    }
+
+    PrincipalCache(MeterRegistry meterRegistry, Duration ttl, int maxSize, Clock clock) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+        //kept in insertion order, which is also the order they expire in
+        this.principals = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > PrincipalCache.this.maxSize;
+            }
+        };
+        this.hitCounter = meterRegistry.counter("auth.principal.cache", "result", "hit");
+        this.missCounter = meterRegistry.counter("auth.principal.cache", "result", "miss");
+    }
+
+    /**
+     * @param loader Reads the principal from the database when it is not cached
+     * @return The cached principal of the user, or the one read by the loader
+     */
+    public UserPrincipalImpl get(String userId, Supplier<UserPrincipalImpl> loader) {
+        if (userId == null || maxSize <= 0 || ttl.isZero()) {
+            return loader.get();
+        }
+
+        Instant now = clock.instant();
+        lock.lock();
+        try {
+            CachedPrincipal cached = principals.get(userId);
+            if (cached != null && cached.expiry().isAfter(now)) {
+                hits.incrementAndGet();
+                hitCounter.increment();
+                return cached.principal();
+            }
+            if (cached != null) {
+                principals.remove(userId);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.incrementAndGet();
+        missCounter.increment();
+        long invalidationsBefore = invalidations.get();
+        UserPrincipalImpl principal = loader.get();
+        if (principal.user.isPresent()) {
+            lock.lock();
+            try {
+                if (invalidations.get() == invalidationsBefore) {
+                    principals.put(userId, new CachedPrincipal(principal, now.plus(ttl)));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return principal;
+    }
+
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            principals.remove(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return principals.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record CachedPrincipal(UserPrincipalImpl principal, Instant expiry) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.petclinic.authservice.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+/**
+ * The hash of a reset password token kept in reset_password_token, an HMAC-SHA256 of the token with a server key.
+ * The tokens are random UUIDs, so a fast keyed hash is enough to keep them secret if the table leaks, and the same
+ * token always has the same hash, which is looked up with the unique index on the column.
+ */
+@Component
+public class ResetTokenHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public ResetTokenHasher(@Value("${reset-token.hmac-key:${SECRET_KEY}}") String key) {
+        this.key = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * @return The hash as 64 hexadecimal characters
+     */
+    public String hash(String token) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return HexFormat.of().formatHex(mac.doFinal(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not hash the reset password token", e);
+        }
+    }
+}
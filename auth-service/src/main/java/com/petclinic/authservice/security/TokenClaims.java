@@ -0,0 +1,13 @@
+package com.petclinic.authservice.security;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The values of a valid token, read by JwtTokenUtil.parseToken with a single parse of the token.
+ * JwtTokenFilter puts them in the request under TOKEN_CLAIMS_ATTRIBUTE so the controllers do not parse the token again.
+ */
+public record TokenClaims(String userId, String email, List<String> roles, Date expiration) {
+
+    public static final String TOKEN_CLAIMS_ATTRIBUTE = "tokenClaims";
+}
@@ -1,6 +1,7 @@
 package com.petclinic.authservice.security;
 
 import com.petclinic.authservice.datalayer.user.User;
+import com.petclinic.authservice.datalayer.user.UserIdentifier;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -15,6 +16,17 @@ public class UserPrincipalImpl implements UserDetails {
         this.user = user;
     }
 
+    /**
+     * The principal of the user of a token, without reading the user from the database.
+     * It has no password and its user is as it was when the token was created.
+     */
+    public static UserPrincipalImpl fromClaims(TokenClaims tokenClaims) {
+        return new UserPrincipalImpl(Optional.of(User.builder()
+                .userIdentifier(new UserIdentifier(tokenClaims.userId()))
+                .email(tokenClaims.email())
+                .build()));
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.emptyList();
@@ -33,5 +33,20 @@ create table if not exists reset_password_token (
         token VARCHAR(100),
         user_identifier INT UNIQUE,
         expiry_date DATETIME,
-        FOREIGN KEY(user_identifier) REFERENCES users(id)
-);
\ No newline at end of file
+        FOREIGN KEY(user_identifier) REFERENCES users(id),
+        UNIQUE INDEX idx_reset_password_token_token (token)
+);
+
+create table if not exists mail_outbox (
+        id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+        recipient VARCHAR(2048),
+        subject VARCHAR(255),
+        message LONGTEXT,
+        status VARCHAR(20) NOT NULL,
+        attempts INT NOT NULL DEFAULT 0,
+        created_at DATETIME(3),
+        next_attempt_at DATETIME(3),
+        claimed_at DATETIME(3),
+        last_error VARCHAR(255),
+        INDEX idx_mail_outbox_status_next_attempt (status, next_attempt_at)
+);
@@ -0,0 +1,73 @@
+package com.petclinic.authservice.Util.Configuration.Security;
+
+import com.petclinic.authservice.Util.Exceptions.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTests {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void matches_ShouldCheckThePasswordOnTheHasherThreads() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1);
+
+        String encoded = encoder.encode("pas$word123");
+
+        assertTrue(encoder.matches("pas$word123", encoded));
+        assertFalse(encoder.matches("wrong", encoded));
+    }
+
+    @Test
+    void encode_ShouldRefuseThePassword_WhenTheQueueIsFull() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(hashing, release), 1, 1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("queued"));
+        //waits for the queued password to take the only place of the queue
+        while (encoder.getQueued() == 0) {
+            Thread.sleep(10);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> encoder.encode("refused"));
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private record BlockingEncoder(CountDownLatch hashing, CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
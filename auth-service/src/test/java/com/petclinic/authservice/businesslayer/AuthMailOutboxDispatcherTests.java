@@ -0,0 +1,252 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.Util.Configuration.Threads.VirtualThreads;
+import com.petclinic.authservice.datalayer.mail.OutboxMail;
+import com.petclinic.authservice.datalayer.mail.OutboxMailRepo;
+import com.petclinic.authservice.datalayer.mail.OutboxStatus;
+import com.petclinic.authservice.domainclientlayer.Mail.Mail;
+import com.petclinic.authservice.domainclientlayer.Mail.MailService;
+import com.petclinic.authservice.domainclientlayer.Mail.MailServiceCall;
+import com.petclinic.authservice.domainclientlayer.Mail.MailServiceImpl;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the dispatcher against a local stub of mailer-service, through the same Retrofit client as the service
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+//the mails are sent on the dispatcher threads, they must see what the test committed
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AuthMailOutboxDispatcherTests {
+
+    private static final long SLOW_MAILER_MILLIS = 200;
+
+    @Autowired
+    private OutboxMailRepo outboxMailRepo;
+
+    private HttpServer stubMailer;
+    private ExecutorService stubExecutor;
+    //the status codes the stub answers with, in order, 200 once they are used up
+    private final Queue<Integer> stubResponses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger stubRequests = new AtomicInteger();
+    private volatile long stubDelayMillis;
+
+    private final List<String> senderThreads = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private MailOutboxService mailOutboxService;
+    private MailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubMailer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubMailer.createContext("/mail", exchange -> {
+            stubRequests.incrementAndGet();
+            try {
+                Thread.sleep(stubDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Integer status = stubResponses.poll();
+            byte[] body = (status == null ? "\"Message sent\"" : "\"Unable to send\"").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status == null ? 200 : status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        //the stub answers several mails at a time, like mailer-service
+        stubExecutor = Executors.newCachedThreadPool();
+        stubMailer.setExecutor(stubExecutor);
+        stubMailer.start();
+
+        MailServiceCall mailServiceCall = new Retrofit.Builder()
+                .baseUrl("http://localhost:" + stubMailer.getAddress().getPort())
+                .addConverterFactory(JacksonConverterFactory.create())
+                .build()
+                .create(MailServiceCall.class);
+        MailService mailer = new MailServiceImpl(mailServiceCall);
+        MailService recordingMailer = mail -> {
+            senderThreads.add(Thread.currentThread().getName());
+            return mailer.sendMail(mail);
+        };
+
+        meterRegistry = new SimpleMeterRegistry();
+        mailOutboxService = new MailOutboxService(outboxMailRepo);
+        dispatcher = new MailOutboxDispatcher(outboxMailRepo, recordingMailer, meterRegistry, new VirtualThreads(false),
+                2, 2, 3, Duration.ofMinutes(1), Duration.ofMinutes(5));
+
+        outboxMailRepo.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+        stubMailer.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("A slow mailer is called from the sender threads, two mails at a time")
+    void dispatchAll_SlowMailer_SendsEveryMailFromTheSenderThreads() {
+        stubDelayMillis = SLOW_MAILER_MILLIS;
+        for (int i = 0; i < 4; i++) {
+            mailOutboxService.enqueue(buildMail("owner" + i + "@email.com"));
+        }
+
+        long start = System.nanoTime();
+        assertEquals(4, dispatcher.dispatchAll());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(4, stubRequests.get());
+        assertEquals(0, outboxMailRepo.count());
+        assertEquals(4, senderThreads.size());
+        assertFalse(senderThreads.contains(Thread.currentThread().getName()));
+        //two batches of two mails sent side by side
+        assertTrue(elapsedMillis < 4 * SLOW_MAILER_MILLIS, "took " + elapsedMillis + "ms");
+
+        assertEquals(4, meterRegistry.get("auth.mail.outbox.send").timer().count());
+        assertTrue(meterRegistry.get("auth.mail.outbox.send").timer().totalTime(TimeUnit.MILLISECONDS) >= 4 * SLOW_MAILER_MILLIS);
+        assertEquals(0, meterRegistry.get("auth.mail.outbox.size").tag("status", "pending").gauge().value());
+    }
+
+    @Test
+    @DisplayName("A mail the mailer failed to send is sent again after the backoff")
+    void dispatchAll_FailingMailer_RetriesTheMailAfterTheBackoff() {
+        stubResponses.add(500);
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("owner@email.com"));
+
+        assertEquals(1, dispatcher.dispatchAll());
+
+        OutboxMail retried = outboxMailRepo.findById(queued.getId()).orElseThrow();
+        assertEquals(OutboxStatus.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertNotNull(retried.getLastError());
+        assertTrue(retried.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+        assertEquals(1, meterRegistry.get("auth.mail.outbox.size").tag("status", "pending").gauge().value());
+        assertEquals(1, meterRegistry.get("auth.mail.outbox.attempts").tag("result", "retry").counter().count());
+
+        //not due yet
+        assertEquals(0, dispatcher.dispatchAll());
+        assertEquals(1, stubRequests.get());
+
+        //the backoff is over
+        retried.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxMailRepo.save(retried);
+        assertEquals(1, dispatcher.dispatchAll());
+
+        assertEquals(2, stubRequests.get());
+        assertEquals(0, outboxMailRepo.count());
+    }
+
+    @Test
+    @DisplayName("A mail is marked FAILED once the mailer failed maxAttempts times")
+    void dispatchAll_MailerKeepsFailing_MarksTheMailFailedAfterMaxAttempts() {
+        stubResponses.addAll(List.of(503, 503, 503));
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("owner@email.com"));
+
+        for (int i = 0; i < 3; i++) {
+            OutboxMail mail = outboxMailRepo.findById(queued.getId()).orElseThrow();
+            mail.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+            outboxMailRepo.save(mail);
+            assertEquals(1, dispatcher.dispatchAll());
+        }
+
+        OutboxMail failed = outboxMailRepo.findById(queued.getId()).orElseThrow();
+        assertEquals(OutboxStatus.FAILED, failed.getStatus());
+        assertEquals(3, failed.getAttempts());
+        assertEquals(1, meterRegistry.get("auth.mail.outbox.size").tag("status", "failed").gauge().value());
+
+        //a failed mail is not sent again
+        assertEquals(0, dispatcher.dispatchAll());
+        assertEquals(3, stubRequests.get());
+    }
+
+    @Test
+    @DisplayName("A mail refused by the mailer is not sent again")
+    void dispatchAll_MailRefusedByTheMailer_IsNotRetried() {
+        stubResponses.add(400);
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("not an email"));
+
+        assertEquals(1, dispatcher.dispatchAll());
+
+        assertEquals(OutboxStatus.FAILED, outboxMailRepo.findById(queued.getId()).orElseThrow().getStatus());
+        assertEquals(1, stubRequests.get());
+    }
+
+    @Test
+    @DisplayName("A mail refused with any 4xx is not sent again")
+    void dispatchAll_MailRefusedWithAnother4xx_IsNotRetried() {
+        stubResponses.add(422);
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("owner@email.com"));
+
+        assertEquals(1, dispatcher.dispatchAll());
+
+        assertEquals(OutboxStatus.FAILED, outboxMailRepo.findById(queued.getId()).orElseThrow().getStatus());
+        assertEquals(1, meterRegistry.get("auth.mail.outbox.attempts").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("A mail taken by a dispatcher that stopped is sent once the lease is over")
+    void dispatchAll_MailOfAStoppedDispatcher_IsSentOnceTheLeaseIsOver() {
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(10).withNano(0);
+        outboxMailRepo.save(OutboxMail.builder()
+                .recipient("owner@email.com")
+                .subject("subject")
+                .message("message")
+                .status(OutboxStatus.SENDING)
+                .attempts(1)
+                .createdAt(claimedAt)
+                .nextAttemptAt(claimedAt)
+                .claimedAt(claimedAt)
+                .build());
+
+        assertEquals(1, dispatcher.dispatchAll());
+
+        assertEquals(1, stubRequests.get());
+        assertEquals(0, outboxMailRepo.count());
+    }
+
+    @Test
+    void backoff_DoublesAfterEachAttempt() {
+        assertEquals(Duration.ofMinutes(1), dispatcher.backoff(1));
+        assertEquals(Duration.ofMinutes(4), dispatcher.backoff(3));
+        assertEquals(Duration.ofHours(1), dispatcher.backoff(30));
+    }
+
+    private Mail buildMail(String to) {
+        return Mail.builder()
+                .to(to)
+                .subject("PetClinic e-mail verification")
+                .message("message")
+                .build();
+    }
+}
@@ -1,15 +1,20 @@
 package com.petclinic.authservice.businesslayer;
 
 import com.petclinic.authservice.Util.Exceptions.IncorrectPasswordException;
+import com.petclinic.authservice.Util.Exceptions.InvalidInputException;
 import com.petclinic.authservice.Util.Exceptions.NotFoundException;
+import com.petclinic.authservice.Util.Exceptions.TooManyRequestsException;
 import com.petclinic.authservice.Util.Exceptions.UnverifiedUserException;
 import com.petclinic.authservice.datalayer.roles.Role;
 import com.petclinic.authservice.datalayer.user.*;
 import com.petclinic.authservice.datamapperlayer.UserMapper;
 import com.petclinic.authservice.domainclientlayer.Mail.MailService;
+import com.petclinic.authservice.presentationlayer.User.UserDetails;
 import com.petclinic.authservice.presentationlayer.User.UserIDLessUsernameLessDTO;
 import com.petclinic.authservice.presentationlayer.User.UserResetPwdRequestModel;
 import com.petclinic.authservice.security.JwtTokenUtil;
+import com.petclinic.authservice.security.PrincipalCache;
+import com.petclinic.authservice.security.UserPrincipalImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,6 +28,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -56,11 +62,17 @@ public class AuthServiceUserServiceTests {
     @MockBean
     private MailService mailService;
 
+    @MockBean
+    private MailOutboxService mailOutboxService;
+
 
 
     @MockBean
     private JwtTokenUtil jwtService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     public AuthServiceUserServiceTests() {
     }
 
@@ -121,7 +133,9 @@ public class AuthServiceUserServiceTests {
         userService.processForgotPassword(userResetPwdRequestModel);
 
 
-        verify(mailService,times(1)).sendMail(any());
+        //queued, sent later by the MailOutboxDispatcher
+        verify(mailOutboxService,times(1)).enqueue(any());
+        verify(mailService,never()).sendMail(any());
 
     }
     @Test
@@ -159,6 +173,7 @@ public class AuthServiceUserServiceTests {
                 .thenReturn(Optional.of(user));
 
         assertThrows(UnverifiedUserException.class, () -> userService.login(user2));
+        verify(mailOutboxService, times(1)).enqueue(any());
     }
 
 
@@ -184,10 +199,62 @@ public class AuthServiceUserServiceTests {
                 .build();
         userRepo.save(user2);
 
-        when(userRepo.findAll())
-                .thenReturn(List.of(user,user2));
+        when(userRepo.findAllSummaries())
+                .thenReturn(List.of(summary(1L, user), summary(2L, user2)));
+        when(userRepo.findAllRoleSummaries())
+                .thenReturn(List.of(new UserRoleSummary(1L, 3L, "OWNER"), new UserRoleSummary(2L, 1L, "ADMIN"),
+                        new UserRoleSummary(2L, 3L, "OWNER")));
+
+        List<UserDetails> users = userService.findAllWithoutPage();
 
-        assertEquals(2,userService.findAllWithoutPage().size());
+        assertEquals(2,users.size());
+        assertEquals(USER, users.get(0).getUsername());
+        assertEquals(1, users.get(0).getRoles().size());
+        assertEquals(2, users.get(1).getRoles().size());
+        verify(userRepo, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Get users after a username, should read a page of users and their roles")
+    void getUsers_ShouldReadTheUsersAfterTheUsername() {
+        User user = User.builder()
+                .username(USER)
+                .userIdentifier(new UserIdentifier())
+                .email(EMAIL)
+                .build();
+
+        when(userRepo.findSummariesAfterUsername(eq("owner"), eq("us%"), eq("%"), any()))
+                .thenReturn(List.of(summary(1L, user)));
+        when(userRepo.findRoleSummaries(List.of(1L)))
+                .thenReturn(List.of(new UserRoleSummary(1L, 3L, "OWNER")));
+
+        List<UserDetails> users = userService.getUsers("us", null, "owner", 10);
+
+        assertEquals(1, users.size());
+        assertEquals(user.getUserIdentifier().getUserId(), users.get(0).getUserId());
+        assertEquals("OWNER", users.get(0).getRoles().iterator().next().getName());
+    }
+
+    @Test
+    @DisplayName("Get users, should escape the wildcards of the prefix")
+    void getUsers_ShouldEscapeTheWildcardsOfThePrefix() {
+        when(userRepo.findSummariesAfterUsername(any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        assertTrue(userService.getUsers("a_b%c!", null, null, null).isEmpty());
+
+        verify(userRepo).findSummariesAfterUsername(eq(""), eq("a!_b!%c!!%"), eq("%"), any());
+        verify(userRepo, never()).findRoleSummaries(any());
+    }
+
+    @Test
+    @DisplayName("Get a page of users, should throw InvalidInputException for a page too large")
+    void getUsersPage_ShouldThrowInvalidInputException_ForATooLargePage() {
+        assertThrows(InvalidInputException.class, () -> userService.getUsersPage(null, null, 0, 101));
+    }
+
+    private UserSummary summary(long id, User user) {
+        return new UserSummary(id, user.getUserIdentifier().getUserId(), user.getUsername(), user.getEmail());
     }
 
     @Test
@@ -283,6 +350,21 @@ public class AuthServiceUserServiceTests {
         verify(userRepo).findById(validToken.getUserIdentifier());
     }
 
+    @Test
+    @DisplayName("login should refuse the account before reading it after too many failures")
+    void login_ShouldThrowTooManyRequestsException_AfterTooManyFailures() {
+        String email = "throttled@gmail.com";
+        UserIDLessUsernameLessDTO login = UserIDLessUsernameLessDTO.builder().email(email).password(PASS).build();
+        when(userRepo.findByEmail(email)).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(NotFoundException.class, () -> userService.login(login, "10.0.0.1"));
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> userService.login(login, "10.0.0.1"));
+        verify(userRepo, times(5)).findByEmail(email);
+    }
+
     @Test
     @DisplayName("Delete user, should succeed")
     void deleteUser_ShouldSucceed() {
@@ -306,6 +388,30 @@ public class AuthServiceUserServiceTests {
         verify(userRepo, times(1)).delete(user);
     }
 
+    @Test
+    @DisplayName("Delete user, should invalidate the cached principal of the user")
+    void deleteUser_ShouldInvalidateTheCachedPrincipal() {
+        // Arrange
+        User user = User.builder()
+                .username(USER)
+                .userIdentifier(new UserIdentifier())
+                .email(EMAIL)
+                .verified(true)
+                .build();
+        String userId = user.getUserIdentifier().getUserId();
+        principalCache.get(userId, () -> new UserPrincipalImpl(Optional.of(user)));
+
+        when(userRepo.findUserByUserIdentifier_UserId(userId))
+                .thenReturn(user);
+
+        // Act
+        userService.deleteUser(userId);
+
+        // Assert
+        UserPrincipalImpl principal = principalCache.get(userId, () -> new UserPrincipalImpl(Optional.empty()));
+        assertThrows(NoSuchElementException.class, principal::getUsername);
+    }
+
     @Test
     @DisplayName("Delete user, should throw NotFoundException")
     void deleteUser_ShouldThrowNotFoundException() {
@@ -0,0 +1,89 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.Util.Exceptions.TooManyRequestsException;
+import com.petclinic.authservice.security.ResetTokenHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CPU time per request of attack-like traffic, measured on the thread running it:
+ * a brute force of 1000 wrong passwords on one account from 20 addresses, with every attempt checked by BCrypt as
+ * before and with the attempts refused by LoginThrottle, and 1000 reset token lookups, with the token hashed by BCrypt
+ * as before and by ResetTokenHasher.
+ * Run it with AUTH_LOGIN_ATTACK_BENCHMARK=true
+ */
+@EnabledIfEnvironmentVariable(named = "AUTH_LOGIN_ATTACK_BENCHMARK", matches = "true")
+class LoginAttackBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginAttackBenchmarkTests.class);
+
+    private static final int ATTEMPTS = 1000;
+    private static final int ADDRESSES = 20;
+    private static final String EMAIL = "owner@email.com";
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final String encodedPassword = encoder.encode("pas$word123");
+
+    @Test
+    void login_ThrottledBruteForceUsesLessCpu() {
+        double unthrottled = cpuMicrosPerRequest("brute force, every password checked",
+                i -> encoder.matches("wrong" + i, encodedPassword));
+
+        LoginThrottle loginThrottle = new LoginThrottle(new SimpleMeterRegistry(), Duration.ofMinutes(15), 5, 50, 100_000);
+        double throttled = cpuMicrosPerRequest("brute force, throttled", i -> {
+            String address = "10.0.0." + i % ADDRESSES;
+            try {
+                loginThrottle.check(EMAIL, address);
+            } catch (TooManyRequestsException e) {
+                return;
+            }
+            if (!encoder.matches("wrong" + i, encodedPassword)) {
+                loginThrottle.recordFailure(EMAIL, address);
+            }
+        });
+
+        log.info("Throttled brute force: {}x less CPU per login", String.format("%.0f", unthrottled / throttled));
+        assertTrue(throttled < unthrottled);
+    }
+
+    @Test
+    void resetTokenLookup_HmacUsesLessCpuThanBCrypt() {
+        String salt = BCrypt.gensalt(10);
+        ResetTokenHasher resetTokenHasher = new ResetTokenHasher("a-reset-token-key");
+
+        double bcrypt = cpuMicrosPerRequest("reset token lookup, BCrypt",
+                i -> BCrypt.hashpw(UUID.randomUUID().toString(), salt));
+        double hmac = cpuMicrosPerRequest("reset token lookup, HMAC-SHA256",
+                i -> resetTokenHasher.hash(UUID.randomUUID().toString()));
+
+        log.info("HMAC-SHA256 reset token lookup: {}x less CPU", String.format("%.0f", bcrypt / hmac));
+        assertTrue(hmac < bcrypt);
+    }
+
+    private double cpuMicrosPerRequest(String name, Request request) {
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            request.run(i);
+        }
+        double micros = (threads.getCurrentThreadCpuTime() - start) / 1000.0 / ATTEMPTS;
+        log.info("{}: {} µs of CPU per request", name, String.format("%.1f", micros));
+        return micros;
+    }
+
+    private interface Request {
+        void run(int i);
+    }
+}
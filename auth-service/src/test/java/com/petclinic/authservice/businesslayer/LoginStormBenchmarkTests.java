@@ -0,0 +1,140 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.Util.Configuration.Threads.VirtualThreads;
+import com.petclinic.authservice.Util.Exceptions.IncorrectPasswordException;
+import com.petclinic.authservice.datalayer.user.User;
+import com.petclinic.authservice.datalayer.user.UserIdentifier;
+import com.petclinic.authservice.datalayer.user.UserRepo;
+import com.petclinic.authservice.domainclientlayer.Mail.MailService;
+import com.petclinic.authservice.domainclientlayer.cart.CartService;
+import com.petclinic.authservice.presentationlayer.User.UserIDLessUsernameLessDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Throughput and p99 latency of 2000 logins started at once, each on a thread of a pool of 200 platform threads, the
+ * default size of the Tomcat pool, then each on its own virtual thread. The latency of a login counts from the start
+ * of the storm, so it includes the time it waited for a thread.
+ * Run it with AUTH_LOGIN_STORM_BENCHMARK=true, the virtual threads need a Java 21 runtime.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfEnvironmentVariable(named = "AUTH_LOGIN_STORM_BENCHMARK", matches = "true")
+class LoginStormBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginStormBenchmarkTests.class);
+
+    private static final int USERS = 100;
+    private static final int LOGINS = 2000;
+    private static final int TOMCAT_THREADS = 200;
+    private static final String PASSWORD = "pas$word123";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private MailService mailService;
+
+    @MockBean
+    private CartService cartService;
+
+    private List<User> users;
+
+    @BeforeEach
+    void setup() {
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        users = userRepo.saveAll(IntStream.range(0, USERS)
+                .mapToObj(i -> User.builder()
+                        .username("storm" + i)
+                        .email("storm" + i + "@email.com")
+                        .password(encodedPassword)
+                        .userIdentifier(new UserIdentifier())
+                        .roles(new HashSet<>())
+                        .verified(true)
+                        .build())
+                .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepo.deleteAll(users);
+    }
+
+    @Test
+    void login_StormOnPlatformThreads() {
+        ExecutorService executor = Executors.newFixedThreadPool(TOMCAT_THREADS);
+        try {
+            storm("platform threads", executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void login_StormOnVirtualThreads() {
+        assumeTrue(VirtualThreads.isSupported(), "Virtual threads need Java 21");
+
+        ExecutorService executor = new VirtualThreads(true).newThreadPerTaskExecutor("login-");
+        try {
+            storm("virtual threads", executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void storm(String name, ExecutorService executor) {
+        //warms up the encoder, the queries and the token
+        login(0);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> logins = IntStream.range(0, LOGINS)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                    login(i);
+                    return System.nanoTime() - start;
+                }, executor))
+                .toList();
+
+        long[] latencies = logins.stream().mapToLong(CompletableFuture::join).sorted().toArray();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        assertEquals(LOGINS, latencies.length);
+        log.info("{}: {} logins per second, p50 {} ms, p99 {} ms", name,
+                String.format("%.0f", LOGINS / seconds),
+                latencies[latencies.length / 2] / 1_000_000,
+                latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1_000_000);
+    }
+
+    private void login(int i) {
+        try {
+            userService.login(new UserIDLessUsernameLessDTO("storm" + i % USERS + "@email.com", PASSWORD));
+        } catch (IncorrectPasswordException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
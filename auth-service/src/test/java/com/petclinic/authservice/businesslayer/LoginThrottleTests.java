@@ -0,0 +1,133 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.Util.Exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTests {
+
+    private final Duration WINDOW = Duration.ofMinutes(15);
+    private final String EMAIL = "email@gmail.com", IP = "10.0.0.1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        loginThrottle = new LoginThrottle(meterRegistry, WINDOW, 3, 5, 100, clock);
+    }
+
+    @Test
+    void check_ShouldThrottleTheAccount_AfterTooManyFailures() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.check(EMAIL, null);
+            loginThrottle.recordFailure(EMAIL, null);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> loginThrottle.check("Email@Gmail.com", null));
+        loginThrottle.check("other@gmail.com", null);
+        assertEquals(1, meterRegistry.counter("auth.login.throttled").count());
+    }
+
+    @Test
+    void check_ShouldThrottleTheAddress_AfterTooManyFailuresOnAnyAccount() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.recordFailure("user" + i + "@gmail.com", IP);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> loginThrottle.check("new@gmail.com", IP));
+        loginThrottle.check("new@gmail.com", "10.0.0.2");
+    }
+
+    @Test
+    void check_ShouldLetTheAccountIn_OnceItsFailuresLeaveTheWindow() {
+        loginThrottle.recordFailure(EMAIL, IP);
+        clock.advance(Duration.ofMinutes(10));
+        loginThrottle.recordFailure(EMAIL, IP);
+        loginThrottle.recordFailure(EMAIL, IP);
+        assertThrows(TooManyRequestsException.class, () -> loginThrottle.check(EMAIL, IP));
+
+        //the first failure left the window
+        clock.advance(Duration.ofMinutes(6));
+        loginThrottle.check(EMAIL, IP);
+    }
+
+    @Test
+    void recordSuccess_ShouldClearTheFailuresOfTheAccount() {
+        loginThrottle.recordFailure(EMAIL, IP);
+        loginThrottle.recordFailure(EMAIL, IP);
+        loginThrottle.recordSuccess(EMAIL);
+        loginThrottle.recordFailure(EMAIL, IP);
+        loginThrottle.recordFailure(EMAIL, IP);
+
+        loginThrottle.check(EMAIL, IP);
+    }
+
+    @Test
+    void purge_ShouldForgetTheKeysOutOfTheWindow() {
+        loginThrottle.recordFailure(EMAIL, IP);
+        assertEquals(2, loginThrottle.size());
+
+        clock.advance(WINDOW);
+        loginThrottle.purge();
+
+        assertEquals(0, loginThrottle.size());
+    }
+
+    @Test
+    void recordFailure_ShouldForgetTheOldestKey_WhenFull() {
+        loginThrottle = new LoginThrottle(meterRegistry, WINDOW, 3, 1000, 4, clock);
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.recordFailure(EMAIL, null);
+        }
+
+        //made-up emails fill the throttle, the account that failed last is still counted
+        for (int i = 0; i < 10; i++) {
+            loginThrottle.recordFailure("junk" + i + "@gmail.com", null);
+            loginThrottle.recordFailure(EMAIL, null);
+        }
+
+        assertEquals(4, loginThrottle.size());
+        assertThrows(TooManyRequestsException.class, () -> loginThrottle.check(EMAIL, null));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.petclinic.authservice.businesslayer;
+
+import com.petclinic.authservice.datalayer.roles.RoleRepo;
+import com.petclinic.authservice.domainclientlayer.Mail.MailService;
+import com.petclinic.authservice.domainclientlayer.cart.CartService;
+import com.petclinic.authservice.presentationlayer.User.UserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Time to read a page of 20 users of the admin list, with their roles, among 100k users: the first page and a page at
+ * the end of the list, by page number and after a username.
+ * Run it with AUTH_USER_LIST_BENCHMARK=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfEnvironmentVariable(named = "AUTH_USER_LIST_BENCHMARK", matches = "true")
+class UserListBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(UserListBenchmarkTests.class);
+
+    private static final int USERS = 100_000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int PAGE_SIZE = 20;
+    private static final int RUNS = 20;
+    private static final String PREFIX = "bench";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RoleRepo roleRepo;
+
+    @MockBean
+    private MailService mailService;
+
+    @MockBean
+    private CartService cartService;
+
+    @BeforeEach
+    void setup() {
+        long ownerRoleId = roleRepo.findRoleByName("OWNER").getId();
+        for (int start = 0; start < USERS; start += BATCH_SIZE) {
+            List<Object[]> users = new ArrayList<>();
+            for (int i = start; i < start + BATCH_SIZE; i++) {
+                users.add(new Object[]{UUID.randomUUID().toString(), String.format("%s%06d", PREFIX, i),
+                        String.format("%s%06d@email.com", PREFIX, i), "pwd", true});
+            }
+            jdbcTemplate.batchUpdate("insert into users (user_id, username, email, password, verified) values (?, ?, ?, ?, ?)", users);
+        }
+        jdbcTemplate.update("insert into users_roles (user_id, role_id) select id, ? from users where username like ?",
+                ownerRoleId, PREFIX + "%");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from users_roles where user_id in (select id from users where username like ?)", PREFIX + "%");
+        jdbcTemplate.update("delete from users where username like ?", PREFIX + "%");
+    }
+
+    @Test
+    void getUsers_PagesAtTheEndOfTheList() {
+        String lastPageUsername = String.format("%s%06d", PREFIX, USERS - PAGE_SIZE - 1);
+        int lastPage = USERS / PAGE_SIZE - 1;
+
+        time("first page by number", () -> userService.getUsersPage(PREFIX, null, 0, PAGE_SIZE).getUsers());
+        time("last page by number", () -> userService.getUsersPage(PREFIX, null, lastPage, PAGE_SIZE).getUsers());
+        time("first page after a username", () -> userService.getUsers(PREFIX, null, null, PAGE_SIZE));
+        time("last page after a username", () -> userService.getUsers(PREFIX, null, lastPageUsername, PAGE_SIZE));
+    }
+
+    private void time(String name, Supplier<List<UserDetails>> page) {
+        //warms up the queries
+        assertEquals(PAGE_SIZE, page.get().size());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            assertEquals(PAGE_SIZE, page.get().size());
+        }
+        log.info("{}: {} ms per page", name, String.format("%.2f", (System.nanoTime() - start) / 1_000_000.0 / RUNS));
+    }
+}
@@ -89,6 +89,31 @@ class UserControllerIntegrationTest {
 
 
 
+    @Test
+    void validateToken_ShouldReturnTheClaimsOfTheToken() {
+        User user = userRepo.findAll().get(0);
+
+        String token = jwtTokenUtil.generateToken(user);
+
+        webTestClient.post()
+                .uri("/users/validate-token")
+                .accept(MediaType.APPLICATION_JSON)
+                .cookie("Bearer", token)
+                .bodyValue(token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TokenResponseDTO.class)
+                .value(tokenResponseDTO -> {
+                    assertEquals(token, tokenResponseDTO.getToken());
+                    assertEquals(user.getUserIdentifier().getUserId(), tokenResponseDTO.getUserId());
+                    assertEquals(user.getUsername(), tokenResponseDTO.getEmail());
+                    assertEquals(user.getRoles().stream().map(Role::getName).sorted().toList(),
+                            tokenResponseDTO.getRoles().stream().sorted().toList());
+                });
+    }
+
+
+
     @Test
     void validateTokenWithInvalidToken_ShouldReturnUnauthorized() {
         String token = "invalidToken";
@@ -617,6 +642,67 @@ class UserControllerIntegrationTest {
                 });
     }
 
+    @Test
+    public void getUsersPage_ShouldReturnAPageOfUsersWithTheirRoles() {
+        String token = jwtTokenUtil.generateToken(userRepo.findAll().get(0));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/users/page")
+                        .queryParam("page", 0)
+                        .queryParam("size", 5)
+                        .build()
+                )
+                .accept(MediaType.APPLICATION_JSON)
+                .cookie("Bearer",token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UserPageResponseDTO.class)
+                .value(page -> {
+                    assertEquals(5, page.getUsers().size());
+                    assertEquals(userRepo.count(), page.getTotalElements());
+                    assertTrue(page.getUsers().stream().allMatch(user -> user.getRoles().size() == 1));
+                });
+    }
+
+    @Test
+    public void getAllUsersAfterUsername_ShouldReturnTheNextUsers() {
+        String token = jwtTokenUtil.generateToken(userRepo.findAll().get(0));
+
+        List<UserDetails> firstPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/users/")
+                        .queryParam("size", 3)
+                        .build()
+                )
+                .accept(MediaType.APPLICATION_JSON)
+                .cookie("Bearer",token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserDetails.class)
+                .returnResult().getResponseBody();
+
+        assertEquals(3, firstPage.size());
+        String lastUsername = firstPage.get(2).getUsername();
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/users/")
+                        .queryParam("afterUsername", lastUsername)
+                        .queryParam("size", 3)
+                        .build()
+                )
+                .accept(MediaType.APPLICATION_JSON)
+                .cookie("Bearer",token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserDetails.class)
+                .value(users -> {
+                    assertEquals(3, users.size());
+                    assertTrue(users.stream().allMatch(user -> user.getUsername().compareTo(lastUsername) > 0));
+                });
+    }
+
     @Test
     void deleteUser_ShouldSucceed(){
         String token = jwtTokenUtil.generateToken(userRepo.findAll().get(0));
@@ -0,0 +1,28 @@
+package com.petclinic.authservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientAddressResolverTests {
+
+    private final ClientAddressResolver clientAddressResolver = new ClientAddressResolver(List.of("127.0.0.1", " "));
+
+    @Test
+    void resolve_ShouldUseTheForwardedAddress_OfATrustedProxy() {
+        assertEquals("203.0.113.7", clientAddressResolver.resolve("127.0.0.1", "203.0.113.7"));
+    }
+
+    @Test
+    void resolve_ShouldOnlyUseTheAddressAddedByTheProxy() {
+        assertEquals("203.0.113.7", clientAddressResolver.resolve("127.0.0.1", "10.9.9.9, 203.0.113.7"));
+    }
+
+    @Test
+    void resolve_ShouldIgnoreTheForwardedAddress_OfAnyOtherCaller() {
+        assertEquals("198.51.100.4", clientAddressResolver.resolve("198.51.100.4", "203.0.113.7"));
+        assertEquals("198.51.100.4", new ClientAddressResolver(List.of()).resolve("198.51.100.4", "203.0.113.7"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.petclinic.authservice.security;
+
+import com.petclinic.authservice.datalayer.roles.Role;
+import com.petclinic.authservice.datalayer.user.User;
+import com.petclinic.authservice.datalayer.user.UserIdentifier;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validations per second of /users/validate-token: the token parsed six times with a new key and parser each time, as
+ * the filter and the controller did, against one parse with the parser of JwtTokenUtil.
+ * Run it with AUTH_TOKEN_BENCHMARK=true
+ */
+@EnabledIfEnvironmentVariable(named = "AUTH_TOKEN_BENCHMARK", matches = "true")
+class JwtTokenUtilBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenUtilBenchmarkTests.class);
+
+    private static final String SECRET = "mkcyetrmjcqLjOkwM08M676tl8LPnkgKHD2HlIpsYcSI8zGIiobE7yZ4N5JElvYMlTE8qqjTJ09JcqAsKdNxVA";
+    private static final int WARMUP_VALIDATIONS = 20_000;
+    private static final int VALIDATIONS = 100_000;
+
+    private final JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(new SecurityConst(60, SECRET, "Bearer"));
+
+    @Test
+    void validateToken_SingleParseIsFasterThanTheRepeatedParses() {
+        String token = jwtTokenUtil.generateToken(User.builder()
+                .username("owner@email.com")
+                .userIdentifier(new UserIdentifier("userId_1"))
+                .roles(Set.of(Role.builder().id(1).name("OWNER").build()))
+                .build());
+
+        double before = validationsPerSecond("repeated parses", token, JwtTokenUtilBenchmarkTests::validateWithRepeatedParses);
+        double after = validationsPerSecond("single parse", token, t -> jwtTokenUtil.parseToken(t).isPresent());
+
+        log.info("Single parse: {}x the validations per second", String.format("%.1f", after / before));
+        assertTrue(after > before);
+    }
+
+    private double validationsPerSecond(String name, String token, Predicate<String> validation) {
+        for (int i = 0; i < WARMUP_VALIDATIONS; i++) {
+            validation.test(token);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < VALIDATIONS; i++) {
+            assertTrue(validation.test(token));
+        }
+        double perSecond = VALIDATIONS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        log.info("{}: {} validations per second", name, String.format("%.0f", perSecond));
+        return perSecond;
+    }
+
+    /**
+     * The filter read the subject and the expiry, then the subject again, and the controller read the id, the subject
+     * and the roles, each with a key and a parser built for the call
+     */
+    private static boolean validateWithRepeatedParses(String token) {
+        boolean valid = parse(token).getSubject() != null && parse(token).getExpiration() != null;
+        parse(token).getSubject();
+        parse(token).get("id");
+        parse(token).getSubject();
+        parse(token).get("roles");
+        return valid;
+    }
+
+    private static Claims parse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build().parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,86 @@
+package com.petclinic.authservice.security;
+
+import com.petclinic.authservice.datalayer.roles.Role;
+import com.petclinic.authservice.datalayer.user.User;
+import com.petclinic.authservice.datalayer.user.UserIdentifier;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenUtilTests {
+
+    private static final String SECRET = "mkcyetrmjcqLjOkwM08M676tl8LPnkgKHD2HlIpsYcSI8zGIiobE7yZ4N5JElvYMlTE8qqjTJ09JcqAsKdNxVA";
+
+    private final JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(new SecurityConst(60, SECRET, "Bearer"));
+
+    private final User user = User.builder()
+            .username("owner@email.com")
+            .email("owner@email.com")
+            .userIdentifier(new UserIdentifier("userId_1"))
+            .roles(Set.of(Role.builder().id(1).name("OWNER").build()))
+            .build();
+
+    @Test
+    void parseToken_WithValidToken_ShouldReturnAllTheClaims() {
+        String token = jwtTokenUtil.generateToken(user);
+
+        Optional<TokenClaims> claims = jwtTokenUtil.parseToken(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals("userId_1", claims.get().userId());
+        assertEquals("owner@email.com", claims.get().email());
+        assertEquals(List.of("OWNER"), claims.get().roles());
+        assertTrue(claims.get().expiration().after(new Date()));
+
+        assertTrue(jwtTokenUtil.validateToken(token));
+        assertEquals("userId_1", jwtTokenUtil.getIdFromToken(token));
+        assertEquals("owner@email.com", jwtTokenUtil.getUsernameFromToken(token));
+        assertEquals(List.of("OWNER"), jwtTokenUtil.getRolesFromToken(token));
+    }
+
+    @Test
+    void parseToken_WithExpiredToken_ShouldReturnEmpty() {
+        String token = Jwts.builder()
+                .setClaims(Map.of("sub", "owner@email.com", "id", "userId_1"))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+
+        assertTrue(jwtTokenUtil.parseToken(token).isEmpty());
+        assertFalse(jwtTokenUtil.validateToken(token));
+        assertTrue(jwtTokenUtil.isTokenExpired(token));
+    }
+
+    @Test
+    void parseToken_WithTokenSignedByAnotherKey_ShouldReturnEmpty() {
+        String token = Jwts.builder()
+                .setClaims(Map.of("sub", "owner@email.com"))
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(new StringBuilder(SECRET).reverse().toString().getBytes()))
+                .compact();
+
+        assertTrue(jwtTokenUtil.parseToken(token).isEmpty());
+        assertNull(jwtTokenUtil.getUsernameFromToken(token));
+    }
+
+    @Test
+    void parseToken_WithMalformedToken_ShouldReturnEmpty() {
+        assertTrue(jwtTokenUtil.parseToken("invalidToken").isEmpty());
+        assertTrue(jwtTokenUtil.parseToken(null).isEmpty());
+    }
+
+    @Test
+    void parseToken_WithRolesAsAString_ShouldSplitThem() {
+        String token = jwtTokenUtil.generateToken(Map.of("sub", "admin@email.com", "roles", "ADMIN,OWNER"));
+
+        assertEquals(List.of("ADMIN", "OWNER"), jwtTokenUtil.getRolesFromToken(token));
+    }
+}
@@ -0,0 +1,180 @@
+package com.petclinic.authservice.security;
+
+import com.petclinic.authservice.datalayer.user.User;
+import com.petclinic.authservice.datalayer.user.UserIdentifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class PrincipalCacheTests {
+
+    private final Duration TTL = Duration.ofMinutes(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private AtomicInteger queries;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        queries = new AtomicInteger();
+    }
+
+    @Test
+    void get_ShouldReadTheUserOnce_UntilItExpires() {
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, TTL, 10, clock);
+
+        UserPrincipalImpl first = principalCache.get("userId", () -> load("userId"));
+        UserPrincipalImpl second = principalCache.get("userId", () -> load("userId"));
+
+        assertSame(first, second);
+        assertEquals(1, queries.get());
+        assertEquals(1, principalCache.getHits());
+        assertEquals(1, principalCache.getMisses());
+        assertEquals(1, meterRegistry.counter("auth.principal.cache", "result", "hit").count());
+
+        clock.advance(TTL);
+        principalCache.get("userId", () -> load("userId"));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void invalidate_ShouldReadTheUserAgain() {
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, TTL, 10, clock);
+        principalCache.get("userId", () -> load("userId"));
+
+        principalCache.invalidate("userId");
+        principalCache.get("userId", () -> load("userId"));
+
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void get_ShouldNotKeepAPrincipalLoadedWhileItsUserWasInvalidated() {
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, TTL, 10, clock);
+
+        principalCache.get("userId", () -> {
+            principalCache.invalidate("userId");
+            return load("userId");
+        });
+
+        assertEquals(0, principalCache.size());
+    }
+
+    @Test
+    void get_ShouldNotKeepAMissingUser() {
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, TTL, 10, clock);
+
+        principalCache.get("userId", () -> new UserPrincipalImpl(Optional.empty()));
+
+        assertEquals(0, principalCache.size());
+    }
+
+    @Test
+    void get_ShouldDropTheOldestPrincipal_WhenFull() {
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, TTL, 2, clock);
+
+        for (String userId : List.of("user1", "user2", "user3")) {
+            principalCache.get(userId, () -> load(userId));
+        }
+        principalCache.get("user1", () -> load("user1"));
+
+        assertEquals(2, principalCache.size());
+        assertEquals(4, queries.get());
+    }
+
+    @Test
+    void get_ShouldReadTheUserOfEveryRequest_WhenDisabled() {
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, Duration.ZERO, 10, clock);
+
+        principalCache.get("userId", () -> load("userId"));
+        principalCache.get("userId", () -> load("userId"));
+
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void get_ShouldReduceTheQueries_OfALoginAndBrowseWorkload() {
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, TTL, 1000, clock);
+        int users = 200, pagesPerSession = 20;
+
+        //every user logs in then browses a page every 5 seconds, without the cache every page reads the user
+        for (int page = 0; page < pagesPerSession; page++) {
+            for (int user = 0; user < users; user++) {
+                String userId = "user" + user;
+                principalCache.get(userId, () -> load(userId));
+            }
+            clock.advance(Duration.ofSeconds(5));
+        }
+
+        int requests = users * pagesPerSession;
+        double reduction = 1 - (double) queries.get() / requests;
+        log.info("{} requests, {} queries, {} hits, {}% fewer queries",
+                requests, queries.get(), principalCache.getHits(), Math.round(reduction * 100));
+
+        assertEquals(requests, principalCache.getHits() + principalCache.getMisses());
+        //read again once a minute, a session of 100 seconds reads its user twice
+        assertEquals(users * 2, queries.get());
+        assertTrue(reduction > 0.8);
+    }
+
+    @Test
+    void fromClaims_ShouldBuildThePrincipalWithoutTheDatabase() {
+        UserPrincipalImpl principal = UserPrincipalImpl.fromClaims(
+                new TokenClaims("userId", "email@gmail.com", List.of("ADMIN"), new Date()));
+
+        assertEquals("email@gmail.com", principal.getUsername());
+        assertEquals("userId", principal.user.get().getUserIdentifier().getUserId());
+    }
+
+    private UserPrincipalImpl load(String userId) {
+        queries.incrementAndGet();
+        return new UserPrincipalImpl(Optional.of(User.builder()
+                .userIdentifier(new UserIdentifier(userId))
+                .email(userId + "@gmail.com")
+                .build()));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.petclinic.authservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResetTokenHasherTests {
+
+    private final ResetTokenHasher resetTokenHasher = new ResetTokenHasher("a-reset-token-key");
+
+    @Test
+    void hash_ShouldAlwaysGiveTheSameHash_ForTheSameToken() {
+        String hash = resetTokenHasher.hash("3f1b5c0e-9a7d-4c2e-8b6f-1d2e3f4a5b6c");
+
+        assertEquals(64, hash.length());
+        assertTrue(hash.matches("[0-9a-f]+"));
+        assertEquals(hash, resetTokenHasher.hash("3f1b5c0e-9a7d-4c2e-8b6f-1d2e3f4a5b6c"));
+        assertNotEquals(hash, resetTokenHasher.hash("3f1b5c0e-9a7d-4c2e-8b6f-1d2e3f4a5b6d"));
+    }
+
+    @Test
+    void hash_ShouldDependOnTheKey() {
+        String token = "3f1b5c0e-9a7d-4c2e-8b6f-1d2e3f4a5b6c";
+
+        assertNotEquals(resetTokenHasher.hash(token), new ResetTokenHasher("another-key").hash(token));
+    }
+}
@@ -20,7 +20,6 @@ public interface BillService {
 
     Flux<BillResponseDTO> GetAllBills();
 
-    //to be changed
     Flux<BillResponseDTO> getAllBillsByPage(Pageable pageable,
                                             String billId,
                                             String customerId,
@@ -31,7 +30,17 @@ public interface BillService {
                                             String vetFirstName,
                                             String vetLastName);
 
-    //to be changed
+    Flux<BillResponseDTO> getAllBillsAfter(String afterBillId,
+                                           int size,
+                                           String billId,
+                                           String customerId,
+                                           String ownerFirstName,
+                                           String ownerLastName,
+                                           String visitType,
+                                           String vetId,
+                                           String vetFirstName,
+                                           String vetLastName);
+
     Mono<Long> getNumberOfBillsWithFilters(String billId,
                                            String customerId,
                                            String ownerFirstName,
@@ -14,7 +14,6 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
-import java.util.function.Predicate;
 
 
 @Service
@@ -48,49 +47,31 @@ public class BillServiceImpl implements BillService{
     public Flux<BillResponseDTO> getAllBillsByPage(Pageable pageable, String billId, String customerId,
                                                    String ownerFirstName, String ownerLastName, String visitType,
                                                    String vetId, String vetFirstName, String vetLastName) {
-        Predicate<Bill> filterCriteria = bill ->
-                (billId == null || bill.getBillId().equals(billId)) &&
-                        (customerId == null || bill.getCustomerId().equals(customerId)) &&
-                        (ownerFirstName == null || bill.getOwnerFirstName().equals(ownerFirstName)) &&
-                        (ownerLastName == null || bill.getOwnerLastName().equals(ownerLastName)) &&
-                        (visitType == null || bill.getVisitType().equals(visitType)) &&
-                        (vetId == null || bill.getVetId().equals(vetId)) &&
-                        (vetFirstName == null || bill.getVetFirstName().equals(vetFirstName)) &&
-                        (vetLastName == null || bill.getVetLastName().equals(vetLastName));
-
-
-        if(billId == null && customerId == null && ownerFirstName == null && ownerLastName == null && visitType == null
-                && vetId == null && vetFirstName == null && vetLastName == null){
-            return billRepository.findAll()
-                    .map(EntityDtoUtil::toBillResponseDto)
-                    .skip(pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize());
-        } else {
-            return billRepository.findAll()
-                    .filter(filterCriteria)
-                    .map(EntityDtoUtil::toBillResponseDto)
-                    .skip(pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize());
-        }
+        BillFilter filter = new BillFilter(billId, customerId, ownerFirstName, ownerLastName, visitType, vetId,
+                vetFirstName, vetLastName);
+
+        return billRepository.findAllBillsByFilters(filter, pageable)
+                .map(EntityDtoUtil::toBillResponseDto);
+    }
+
+    @Override
+    public Flux<BillResponseDTO> getAllBillsAfter(String afterBillId, int size, String billId, String customerId,
+                                                  String ownerFirstName, String ownerLastName, String visitType,
+                                                  String vetId, String vetFirstName, String vetLastName) {
+        BillFilter filter = new BillFilter(billId, customerId, ownerFirstName, ownerLastName, visitType, vetId,
+                vetFirstName, vetLastName);
+
+        return billRepository.findAllBillsByFiltersAfter(filter, afterBillId, size)
+                .map(EntityDtoUtil::toBillResponseDto);
     }
 
     @Override
     public Mono<Long> getNumberOfBillsWithFilters(String billId, String customerId, String ownerFirstName, String ownerLastName,
                                                   String visitType, String vetId, String vetFirstName, String vetLastName) {
-        Predicate<Bill> filterCriteria = bill ->
-                (billId == null || bill.getBillId().equals(billId)) &&
-                        (customerId == null || bill.getCustomerId().equals(customerId)) &&
-                        (ownerFirstName == null || bill.getOwnerFirstName().equals(ownerFirstName)) &&
-                        (ownerLastName == null || bill.getOwnerLastName().equals(ownerLastName)) &&
-                        (visitType == null || bill.getVisitType().equals(visitType)) &&
-                        (vetId == null || bill.getVetId().equals(vetId)) &&
-                        (vetFirstName == null || bill.getVetFirstName().equals(vetFirstName)) &&
-                        (vetLastName == null || bill.getVetLastName().equals(vetLastName));
+        BillFilter filter = new BillFilter(billId, customerId, ownerFirstName, ownerLastName, visitType, vetId,
+                vetFirstName, vetLastName);
 
-        return billRepository.findAll()
-                .filter(filterCriteria)
-                .map(EntityDtoUtil::toBillResponseDto)
-                .count();
+        return billRepository.countBillsByFilters(filter);
     }
 
 
@@ -2,6 +2,10 @@ package com.petclinic.billing.datalayer;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
 
@@ -10,10 +14,17 @@ import java.time.LocalDate;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@Document
+@CompoundIndexes({
+        @CompoundIndex(name = "customerId_id", def = "{'customerId': 1, '_id': 1}"),
+        @CompoundIndex(name = "vetId_id", def = "{'vetId': 1, '_id': 1}"),
+        @CompoundIndex(name = "billStatus_date", def = "{'billStatus': 1, 'date': -1}")
+})
 public class Bill {
 
     @Id
     private String id;
+    @Indexed
     private String billId;              // Should be renamed to BillUUID
     private String customerId;
     private String ownerFirstName;
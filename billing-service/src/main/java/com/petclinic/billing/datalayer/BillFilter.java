@@ -0,0 +1,22 @@
+package com.petclinic.billing.datalayer;
+
+import lombok.*;
+
+/**
+ * The optional filters of the bills pagination, a null field is not filtered on
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillFilter {
+
+    private String billId;
+    private String customerId;
+    private String ownerFirstName;
+    private String ownerLastName;
+    private String visitType;
+    private String vetId;
+    private String vetFirstName;
+    private String vetLastName;
+}
@@ -11,7 +11,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface BillRepository extends ReactiveMongoRepository<Bill, String> {
+public interface BillRepository extends ReactiveMongoRepository<Bill, String>, BillRepositoryCustom {
 
     @Transactional(readOnly = true)
     Mono<Bill> findByBillId(String billId);
@@ -0,0 +1,22 @@
+package com.petclinic.billing.datalayer;
+
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The bills pages of the admin panel. Every filter is an exact match, and the bills come in the order they were
+ * created (_id), which is also what the afterBillId keyset walks.
+ */
+public interface BillRepositoryCustom {
+
+    Flux<Bill> findAllBillsByFilters(BillFilter filter, Pageable pageable);
+
+    /**
+     * The next size bills created after the bill afterBillId, read from the _id index rather than skipped over.
+     * Fails with a BadRequestException when afterBillId is blank or is not the billId of a bill.
+     */
+    Flux<Bill> findAllBillsByFiltersAfter(BillFilter filter, String afterBillId, int size);
+
+    Mono<Long> countBillsByFilters(BillFilter filter);
+}
@@ -0,0 +1,80 @@
+package com.petclinic.billing.datalayer;
+
+import com.petclinic.billing.exceptions.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class BillRepositoryCustomImpl implements BillRepositoryCustom {
+
+    private static final Sort INSERTION_ORDER = Sort.by(Sort.Direction.ASC, "_id");
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Bill> findAllBillsByFilters(BillFilter filter, Pageable pageable) {
+        Query query = new Query(toCriteria(filter, null))
+                .with(INSERTION_ORDER)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        return mongoTemplate.find(query, Bill.class);
+    }
+
+    @Override
+    public Flux<Bill> findAllBillsByFiltersAfter(BillFilter filter, String afterBillId, int size) {
+        if (!StringUtils.hasText(afterBillId)) {
+            return Flux.error(new BadRequestException("afterBillId must not be blank"));
+        }
+
+        Query lastBill = new Query(Criteria.where("billId").is(afterBillId));
+        lastBill.fields().include("_id");
+
+        return mongoTemplate.findOne(lastBill, Bill.class)
+                .switchIfEmpty(Mono.error(new BadRequestException("No bill with the afterBillId: " + afterBillId)))
+                .flatMapMany(bill -> mongoTemplate.find(new Query(toCriteria(filter, bill.getId()))
+                        .with(INSERTION_ORDER)
+                        .limit(size), Bill.class));
+    }
+
+    @Override
+    public Mono<Long> countBillsByFilters(BillFilter filter) {
+        return mongoTemplate.count(new Query(toCriteria(filter, null)), Bill.class);
+    }
+
+
+    private static Criteria toCriteria(BillFilter filter, String afterId) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        addIfPresent(criteria, "billId", filter.getBillId());
+        addIfPresent(criteria, "customerId", filter.getCustomerId());
+        addIfPresent(criteria, "ownerFirstName", filter.getOwnerFirstName());
+        addIfPresent(criteria, "ownerLastName", filter.getOwnerLastName());
+        addIfPresent(criteria, "visitType", filter.getVisitType());
+        addIfPresent(criteria, "vetId", filter.getVetId());
+        addIfPresent(criteria, "vetFirstName", filter.getVetFirstName());
+        addIfPresent(criteria, "vetLastName", filter.getVetLastName());
+
+        if (afterId != null) {
+            criteria.add(Criteria.where("_id").gt(afterId));
+        }
+
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+
+    private static void addIfPresent(List<Criteria> criteria, String field, String value) {
+        if (value != null) {
+            criteria.add(Criteria.where(field).is(value));
+        }
+    }
+}
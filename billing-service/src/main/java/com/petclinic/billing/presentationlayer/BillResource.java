@@ -71,8 +71,15 @@ public class BillResource {
             @RequestParam(required = false) String visitType,
             @RequestParam(required = false) String vetId,
             @RequestParam(required = false) String vetFirstName,
-            @RequestParam(required = false) String vetLastName
+            @RequestParam(required = false) String vetLastName,
+            @RequestParam(required = false) String afterBillId
     ){
+        //afterBillId is the last bill the admin panel shows, it replaces the page number (400 when it is not a bill)
+        if (afterBillId != null) {
+            return SERVICE.getAllBillsAfter(afterBillId, size.orElse(5), billId, customerId, ownerFirstName,
+                    ownerLastName, visitType, vetId, vetFirstName, vetLastName);
+        }
+
         return SERVICE.getAllBillsByPage(
                 PageRequest.of(page.orElse(0),size.orElse(5)), billId, customerId, ownerFirstName, ownerLastName,
                 visitType, vetId, vetFirstName, vetLastName);
@@ -113,8 +113,8 @@ public class BillServiceImplTest {
 
         Pageable pageable = PageRequest.of(0, 2);
 
-        // Mock the repository to return a Flux of owners
-        when(repo.findAll()).thenReturn(Flux.just(bill1, bill2, bill3));
+        // Mock the repository to return the first page of bills
+        when(repo.findAllBillsByFilters(any(BillFilter.class), eq(pageable))).thenReturn(Flux.just(bill1, bill2));
 
         // Call the method under test
         Flux<BillResponseDTO> bills = billService.getAllBillsByPage(pageable,null,null,
@@ -129,6 +129,35 @@ public class BillServiceImplTest {
 
     }
 
+    @Test
+    void getBillsAfter_ShouldSucceed(){
+        Bill bill = buildBill();
+
+        when(repo.findAllBillsByFiltersAfter(any(BillFilter.class), eq("billId-1"), eq(2))).thenReturn(Flux.just(bill));
+
+        Flux<BillResponseDTO> bills = billService.getAllBillsAfter("billId-1", 2, null, "1",
+                null, null, null, null, null, null);
+
+        StepVerifier.create(bills)
+                .expectNextMatches(billDto -> billDto.getBillId().equals(bill.getBillId()))
+                .verifyComplete();
+
+        verify(repo).findAllBillsByFiltersAfter(argThat(filter -> "1".equals(filter.getCustomerId()) && filter.getVetId() == null),
+                eq("billId-1"), eq(2));
+    }
+
+    @Test
+    void getNumberOfBillsWithFilters_ShouldSucceed(){
+        when(repo.countBillsByFilters(any(BillFilter.class))).thenReturn(Mono.just(3L));
+
+        StepVerifier.create(billService.getNumberOfBillsWithFilters(null, null, null, null,
+                        "operation", null, null, null))
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(repo).countBillsByFilters(argThat(filter -> "operation".equals(filter.getVisitType())));
+    }
+
     @Test
     public void test_GetAllBillsByPaidStatus() {
         BillStatus status = BillStatus.PAID; // Change this to the desired status
@@ -1,9 +1,11 @@
 package com.petclinic.billing.datalayer;
 
+import com.petclinic.billing.exceptions.BadRequestException;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -11,6 +13,7 @@ import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -198,6 +201,82 @@ public class BillServicePersistenceTests {
     }
 
 
+    @Test
+    void shouldFindBillsByFiltersAndPage(){
+
+        Publisher<Bill> setup = repo.deleteAll().thenMany(repo.saveAll(Arrays.asList(
+                buildBill("BillUUID1", "1"), buildBill("BillUUID2", "2"), buildBill("BillUUID3", "1"),
+                buildBill("BillUUID4", "1"))));
+
+        StepVerifier
+                .create(setup)
+                .expectNextCount(4)
+                .verifyComplete();
+
+        BillFilter filter = BillFilter.builder().customerId("1").build();
+
+        StepVerifier
+                .create(repo.findAllBillsByFilters(filter, PageRequest.of(1, 2)))
+                .expectNextMatches(bill -> bill.getBillId().equals("BillUUID4"))
+                .verifyComplete();
+
+        StepVerifier
+                .create(repo.countBillsByFilters(filter))
+                .expectNext(3L)
+                .verifyComplete();
+
+        StepVerifier
+                .create(repo.countBillsByFilters(new BillFilter()))
+                .expectNext(4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFindBillsAfterBill(){
+
+        Publisher<Bill> setup = repo.deleteAll().thenMany(repo.saveAll(Arrays.asList(
+                buildBill("BillUUID1", "1"), buildBill("BillUUID2", "2"), buildBill("BillUUID3", "1"),
+                buildBill("BillUUID4", "1"))));
+
+        StepVerifier
+                .create(setup)
+                .expectNextCount(4)
+                .verifyComplete();
+
+        BillFilter filter = BillFilter.builder().customerId("1").build();
+
+        StepVerifier
+                .create(repo.findAllBillsByFiltersAfter(filter, "BillUUID1", 5))
+                .expectNextMatches(bill -> bill.getBillId().equals("BillUUID3"))
+                .expectNextMatches(bill -> bill.getBillId().equals("BillUUID4"))
+                .verifyComplete();
+
+        StepVerifier
+                .create(repo.findAllBillsByFiltersAfter(filter, "BillUUID3", 1))
+                .expectNextMatches(bill -> bill.getBillId().equals("BillUUID4"))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldNotFindBillsAfterUnknownBill(){
+
+        StepVerifier
+                .create(repo.deleteAll().thenMany(repo.findAllBillsByFiltersAfter(new BillFilter(), "BillUUID9", 5)))
+                .expectError(BadRequestException.class)
+                .verify();
+
+        StepVerifier
+                .create(repo.findAllBillsByFiltersAfter(new BillFilter(), " ", 5))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+
+    private Bill buildBill(String billId, String customerId){
+        //no id so mongo generates the ObjectId the bills are ordered by
+        return Bill.builder().billId(billId).customerId(customerId).vetId("1").visitType("Test Type").amount(13.37).build();
+    }
+
     private Bill buildBill(){
 
         Calendar calendar = Calendar.getInstance();
@@ -0,0 +1,245 @@
+package com.petclinic.cartsservice.businesslayer;
+
+import com.petclinic.cartsservice.dataaccesslayer.Cart;
+import com.petclinic.cartsservice.dataaccesslayer.CartItem;
+import com.petclinic.cartsservice.domainclientlayer.ProductClient;
+import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import com.petclinic.cartsservice.presentationlayer.CartLineResponseModel;
+import com.petclinic.cartsservice.presentationlayer.CartResponseModel;
+import com.petclinic.cartsservice.utils.EntityModelUtil;
+import com.petclinic.cartsservice.utils.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prices carts from as few products-service calls as possible.
+ * The prices of all the products of a cart (or of a batch of carts) are resolved with one batched request,
+ * and the products are cached for a short time so carts priced together or back to back share the lookup.
+ */
+@Component
+public class CartPricingEngine {
+
+    static final double TVQ_RATE = 0.09975; // 9.975%
+    static final double TVC_RATE = 0.05; // 5%
+
+    //carts priced with the same product lookup by priceCarts
+    static final int CARTS_PER_BATCH = 100;
+
+    private static final int MAX_CACHED_PRODUCTS = 10_000;
+
+    private final ProductClient productClient;
+    private final long cacheTtlMillis;
+    private final Map<String, CachedProduct> productCache = new ConcurrentHashMap<>();
+
+    public CartPricingEngine(ProductClient productClient,
+                             @Value("${cart.pricing.product-cache-ttl:30s}") Duration productCacheTtl) {
+        this.productClient = productClient;
+        this.cacheTtlMillis = productCacheTtl.toMillis();
+    }
+
+    public Mono<CartResponseModel> priceCart(Cart cart) {
+        return getProducts(getProductIds(cart))
+                .map(products -> toCartResponseModel(cart, products));
+    }
+
+    /**
+     * Prices the carts in batches of CARTS_PER_BATCH, resolving the products of each batch together. A product that
+     * no longer exists does not fail the batch, it is left out of the carts that have it and listed as unavailable
+     */
+    public Flux<CartResponseModel> priceCarts(Flux<Cart> carts) {
+        return carts
+                .buffer(CARTS_PER_BATCH)
+                .concatMap(batch -> {
+                    Set<String> productIds = new LinkedHashSet<>();
+                    batch.forEach(cart -> productIds.addAll(getProductIds(cart)));
+
+                    return findProducts(productIds)
+                            .flatMapIterable(products -> batch.stream()
+                                    .map(cart -> toCartResponseModel(cart, products))
+                                    .toList());
+                });
+    }
+
+    /**
+     * One line per product of the cart, in the order they were added, with its quantity
+     */
+    public Flux<ProductResponseModel> getCartLines(Cart cart) {
+        List<CartItem> items = cart.getItems();
+        return getProducts(getProductIds(cart))
+                .flatMapIterable(products -> toCartLines(items, products));
+    }
+
+    /**
+     * Prices the line of a product and the totals of the cart after a change of the line, the other lines are priced
+     * from the cached products
+     */
+    public Mono<CartLineResponseModel> priceCartLine(Cart cart, String productId) {
+        Set<String> productIds = getProductIds(cart);
+        productIds.add(productId);
+
+        return getProducts(productIds)
+                .map(products -> {
+                    List<ProductResponseModel> lines = toCartLines(cart.getItems(), products);
+                    ProductResponseModel line = lines.stream()
+                            .filter(cartLine -> cartLine.getProductId().equals(productId))
+                            .findFirst()
+                            //removed from the cart
+                            .orElseGet(() -> toCartLine(products.get(productId), 0));
+
+                    double subtotal = getSubtotal(lines);
+                    return CartLineResponseModel.builder()
+                            .cartId(cart.getCartId())
+                            .version(cart.getVersion())
+                            .item(line)
+                            .itemCount(lines.stream().mapToInt(ProductResponseModel::getQuantity).sum())
+                            .subtotal(subtotal)
+                            .tvq(subtotal * TVQ_RATE)
+                            .tvc(subtotal * TVC_RATE)
+                            .total(subtotal + subtotal * TVQ_RATE + subtotal * TVC_RATE)
+                            .build();
+                });
+    }
+
+    /**
+     * The product from the cache when it is there, errors with a NotFoundException when the product does not exist
+     */
+    public Mono<ProductResponseModel> getProduct(String productId) {
+        return getProducts(Set.of(productId))
+                .map(products -> products.get(productId));
+    }
+
+    /**
+     * Errors with a NotFoundException when one of the products does not exist
+     */
+    private Mono<Map<String, ProductResponseModel>> getProducts(Collection<String> productIds) {
+        return findProducts(productIds)
+                .<Map<String, ProductResponseModel>>handle((products, sink) -> {
+                    for (String productId : productIds) {
+                        if (!products.containsKey(productId)) {
+                            sink.error(new NotFoundException("ProductId not found: " + productId));
+                            return;
+                        }
+                    }
+                    sink.next(products);
+                });
+    }
+
+    /**
+     * The products that exist, by productId
+     */
+    private Mono<Map<String, ProductResponseModel>> findProducts(Collection<String> productIds) {
+        //the cache is read when subscribed to, not when assembled
+        return Mono.<Map<String, ProductResponseModel>>defer(() -> {
+            if (productIds.isEmpty()) {
+                return Mono.just(Map.<String, ProductResponseModel>of());
+            }
+
+            long now = System.currentTimeMillis();
+            Map<String, ProductResponseModel> products = new HashMap<>();
+            List<String> missingIds = new ArrayList<>();
+            for (String productId : productIds) {
+                CachedProduct cached = productCache.get(productId);
+                if (cached != null && cached.expiresAt() > now) {
+                    products.put(productId, cached.product());
+                } else {
+                    missingIds.add(productId);
+                }
+            }
+
+            if (missingIds.isEmpty()) {
+                return Mono.just(products);
+            }
+
+            return productClient.getProductsByProductIds(missingIds)
+                    .doOnNext(product -> cacheProduct(product, now))
+                    .collectMap(ProductResponseModel::getProductId)
+                    .map(fetched -> {
+                        products.putAll(fetched);
+                        return products;
+                    });
+        });
+    }
+
+    private void cacheProduct(ProductResponseModel product, long now) {
+        if (cacheTtlMillis <= 0) {
+            return;
+        }
+        if (productCache.size() >= MAX_CACHED_PRODUCTS) {
+            productCache.values().removeIf(cached -> cached.expiresAt() <= now);
+            if (productCache.size() >= MAX_CACHED_PRODUCTS) {
+                productCache.clear();
+            }
+        }
+        productCache.put(product.getProductId(), new CachedProduct(product, now + cacheTtlMillis));
+    }
+
+    private CartResponseModel toCartResponseModel(Cart cart, Map<String, ProductResponseModel> products) {
+        List<ProductResponseModel> lines = toCartLines(cart.getItems(), products);
+
+        double subtotal = getSubtotal(lines);
+        double tvq = subtotal * TVQ_RATE;
+        double tvc = subtotal * TVC_RATE;
+        double total = subtotal + tvq + tvc;
+
+        CartResponseModel cartResponseModel = EntityModelUtil.toCartResponseModel(cart, lines, subtotal, tvq, tvc, total);
+        if (cart.getItems() != null && lines.size() < cart.getItems().size()) {
+            cartResponseModel.setUnavailableProductIds(cart.getItems().stream()
+                    .map(CartItem::getProductId)
+                    .filter(productId -> !products.containsKey(productId))
+                    .toList());
+        }
+        return cartResponseModel;
+    }
+
+    private double getSubtotal(List<ProductResponseModel> lines) {
+        return lines.stream()
+                .mapToDouble(line -> line.getProductSalePrice() * line.getQuantity())
+                .sum();
+    }
+
+    private List<ProductResponseModel> toCartLines(List<CartItem> items, Map<String, ProductResponseModel> products) {
+        if (items == null) {
+            return new ArrayList<>();
+        }
+
+        //a product that no longer exists has no line
+        List<ProductResponseModel> lines = new ArrayList<>(items.size());
+        items.stream()
+                .filter(item -> products.containsKey(item.getProductId()))
+                .forEach(item -> lines.add(toCartLine(products.get(item.getProductId()), item.getQuantity())));
+        return lines;
+    }
+
+    private ProductResponseModel toCartLine(ProductResponseModel product, int quantity) {
+        return ProductResponseModel.builder()
+                .productId(product.getProductId())
+                .productName(product.getProductName())
+                .productDescription(product.getProductDescription())
+                .productSalePrice(product.getProductSalePrice())
+                .quantity(quantity)
+                .build();
+    }
+
+    private Set<String> getProductIds(Cart cart) {
+        Set<String> productIds = new LinkedHashSet<>();
+        if (cart.getItems() != null) {
+            cart.getItems().forEach(item -> productIds.add(item.getProductId()));
+        }
+        return productIds;
+    }
+
+    private record CachedProduct(ProductResponseModel product, long expiresAt) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.petclinic.cartsservice.businesslayer;
 
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import com.petclinic.cartsservice.presentationlayer.CartItemRequestModel;
+import com.petclinic.cartsservice.presentationlayer.CartLineResponseModel;
 import com.petclinic.cartsservice.presentationlayer.CartRequestModel;
 import com.petclinic.cartsservice.presentationlayer.CartResponseModel;
 import reactor.core.publisher.Flux;
@@ -14,8 +16,11 @@ public interface CartService {
     Mono<CartResponseModel> createNewCart(CartRequestModel cartRequestModel);
     Mono<Integer> getCartItemCount(String cartId);
     // Combining both features: clearCart and updateCartByCartId
-    Flux<ProductResponseModel> clearCart(String cartId);  // From feat/CART-CPC-1144_clear_cart_feature
+    Flux<ProductResponseModel> clearCart(String cartId, Long version);  // From feat/CART-CPC-1144_clear_cart_feature
     Mono<CartResponseModel> deleteCartByCartId(String cartId);
+    Mono<CartLineResponseModel> addItemToCart(String cartId, Mono<CartItemRequestModel> cartItemRequestModel);
+    Mono<CartLineResponseModel> updateItemQuantity(String cartId, String productId, Mono<CartItemRequestModel> cartItemRequestModel);
+    Mono<CartLineResponseModel> removeItemFromCart(String cartId, String productId, Long version);
 
 
 }
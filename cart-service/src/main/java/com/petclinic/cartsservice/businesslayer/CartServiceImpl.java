@@ -1,31 +1,36 @@
 package com.petclinic.cartsservice.businesslayer;
 
 import com.petclinic.cartsservice.dataaccesslayer.Cart;
+import com.petclinic.cartsservice.dataaccesslayer.CartItem;
 import com.petclinic.cartsservice.dataaccesslayer.CartRepository;
-import com.petclinic.cartsservice.domainclientlayer.ProductClient;
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import com.petclinic.cartsservice.presentationlayer.CartItemRequestModel;
+import com.petclinic.cartsservice.presentationlayer.CartLineResponseModel;
 import com.petclinic.cartsservice.presentationlayer.CartRequestModel;
 import com.petclinic.cartsservice.presentationlayer.CartResponseModel;
 import com.petclinic.cartsservice.utils.EntityModelUtil;
+import com.petclinic.cartsservice.utils.exceptions.InvalidInputException;
 import com.petclinic.cartsservice.utils.exceptions.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 @Service
 @Slf4j
 public class CartServiceImpl implements CartService {
+
     private final CartRepository cartRepository;
-    private final ProductClient productClient;
+    private final CartPricingEngine cartPricingEngine;
 
-    public CartServiceImpl(CartRepository cartRepository, ProductClient productClient) {
+    public CartServiceImpl(CartRepository cartRepository, CartPricingEngine cartPricingEngine) {
         this.cartRepository = cartRepository;
-        this.productClient = productClient;
+        this.cartPricingEngine = cartPricingEngine;
     }
 
     @Override
@@ -33,54 +38,24 @@ public class CartServiceImpl implements CartService {
         return cartRepository.findCartByCartId(cartId)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Cart id was not found: " + cartId))))
                 .doOnNext(e -> log.debug("The cart response entity is: " + e.toString()))
-                .flatMap(cart -> {
-                    List<String> productIds = cart.getProductIds();
-                    return productIds
-                            .stream().map(productId -> productClient.getProductByProductId(productId).flux())
-                            .reduce(Flux.empty(), Flux::merge)
-                            .collectList()
-                            .map(products -> {
-                                // Calculate subtotal, tvq, tvc, and total
-                                double subtotal = products.stream()
-                                        .mapToDouble(product -> product.getProductSalePrice() * (product.getQuantity() != null ? product.getQuantity() : 1))
-                                        .sum();
-                                double tvq = subtotal * 0.09975; // 9.975%
-                                double tvc = subtotal * 0.05; // 5%
-                                double total = subtotal + tvq + tvc;
-
-                                return EntityModelUtil.toCartResponseModel(cart, products, subtotal, tvq, tvc, total);
-                            });
-                });
+                .flatMap(cartPricingEngine::priceCart);
     }
 
     @Override
     public Flux<CartResponseModel> getAllCarts() {
-        return cartRepository.findAll()
-                .flatMap(cart -> {
-                    List<String> productIds = cart.getProductIds();
-                    return productIds.stream()
-                            .map(productId -> productClient.getProductByProductId(productId).flux()) // fetch products for each cart
-                            .reduce(Flux.empty(), Flux::merge) // merge product streams
-                            .collectList() // collect all products into a list
-                            .map(products -> EntityModelUtil.toCartResponseModel(cart, products)); // map the cart and products to CartResponseModel
-                })
+        return cartPricingEngine.priceCarts(cartRepository.findAll())
                 .doOnNext(cartResponseModel -> log.debug("Cart: " + cartResponseModel));
     }
 
 
-    public Flux<ProductResponseModel> clearCart(String cartId) {
-        return cartRepository.findCartByCartId(cartId)
-                .switchIfEmpty(Mono.error(new NotFoundException("Cart not found: " + cartId)))
-                .flatMapMany(cart -> {
-                    // Retrieve products based on productIds and clear the cart simultaneously
-                    Flux<ProductResponseModel> productsFlux = Flux.fromIterable(cart.getProductIds())
-                            .flatMap(productClient::getProductByProductId);
-
-                    // Clear cart and save it
-                    cart.setProductIds(Collections.emptyList());
-                    return cartRepository.save(cart)
-                            .thenMany(productsFlux);  // Ensure cart is saved before returning the products
-                });
+    /**
+     * Empties the cart with one atomic update and returns the lines it had
+     */
+    @Override
+    public Flux<ProductResponseModel> clearCart(String cartId, Long version) {
+        return cartRepository.clearItems(cartId, version)
+                .switchIfEmpty(Mono.defer(() -> rejectCartChange(cartId, version)))
+                .flatMapMany(cartPricingEngine::getCartLines);
     }
 
     @Override
@@ -89,48 +64,31 @@ public class CartServiceImpl implements CartService {
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Cart id was not found: " + cartId))))
                 .flatMap(found -> cartRepository.delete(found)
                     .then(Mono.just(found)))
-                .flatMap(cart -> {
-                    List<String> productIds = cart.getProductIds();
-                    return productIds
-                            .stream().map(productId -> productClient.getProductByProductId(productId).flux())
-                            .reduce(Flux.empty(), Flux::merge)
-                            .collectList()
-                            .map(products -> EntityModelUtil.toCartResponseModel(cart, products));
-                });
+                .flatMap(cartPricingEngine::priceCart);
     }
 
+    /**
+     * Replaces the lines of the cart with one atomic update, a product listed more than once gets the number of times
+     * it is listed as its quantity
+     */
     @Override
-
     public Mono<CartResponseModel> updateCartByCartId(Mono<CartRequestModel> cartRequestModel, String cartId) {
-        return cartRepository.findCartByCartId(cartId)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Cart id was not found: " + cartId))))
-                .flatMap(foundCart -> cartRequestModel
-                        .flatMap(request -> {
-                            List<String> productIds = request.getProductIds();
-
-                            Cart cartEntity = EntityModelUtil.toCartEntity(request);
-                            cartEntity.setProductIds(productIds);
-                            cartEntity.setId(foundCart.getId());
-                            cartEntity.setCartId(foundCart.getCartId());
-                            return cartRepository.save(cartEntity);
-
-                        })
-                )
-
-                .flatMap(cart -> {
-                    List<String> productIds = cart.getProductIds();
-                    return productIds
-                            .stream().map(productId -> productClient.getProductByProductId(productId).flux())
-                            .reduce(Flux.empty(), Flux::merge)
-                            .collectList()
-                            .map(products -> EntityModelUtil.toCartResponseModel(cart, products));
-                });
+        return cartRequestModel
+                .flatMap(request -> {
+                    List<CartItem> items = EntityModelUtil.toCartItems(request.getProductIds());
+                    if (items.stream().anyMatch(item -> item.getQuantity() > CartItem.MAX_QUANTITY)) {
+                        return Mono.error(new InvalidInputException("The quantity of a product can't be more than " + CartItem.MAX_QUANTITY));
+                    }
+                    return cartRepository.replaceItems(cartId, request.getCustomerId(), items, request.getVersion())
+                            .switchIfEmpty(Mono.defer(() -> rejectCartChange(cartId, request.getVersion())));
+                })
+                .flatMap(cartPricingEngine::priceCart);
     }
 
     @Override
     public Mono<Integer> getCartItemCount(String cartId) {
         return cartRepository.findCartByCartId(cartId)
-                .map(cart -> cart.getProductIds().size())
+                .map(cart -> cart.getItems() == null ? 0 : cart.getItems().stream().mapToInt(CartItem::getQuantity).sum())
                 .switchIfEmpty(Mono.error(new NotFoundException("Cart not found: " + cartId)));
     }
 
@@ -140,6 +98,7 @@ public class CartServiceImpl implements CartService {
         Cart cart = new Cart();
         cart.setCustomerId(cartRequestModel.getCustomerId());
         cart.setCartId(UUID.randomUUID().toString());
+        cart.setItems(new ArrayList<>());
         Mono<CartResponseModel> cartRequestModelMono = cartRepository.save(cart)
                 .map(savedCart -> {
                     CartResponseModel cartResponseModel = new CartResponseModel();
@@ -150,6 +109,89 @@ public class CartServiceImpl implements CartService {
         return cartRequestModelMono;
     }
 
+    /**
+     * Adds units of a product to the cart with one atomic update, the product must exist
+     */
+    @Override
+    public Mono<CartLineResponseModel> addItemToCart(String cartId, Mono<CartItemRequestModel> cartItemRequestModel) {
+        return cartItemRequestModel
+                .flatMap(request -> {
+                    String productId = request.getProductId();
+                    int quantity = request.getQuantity() == null ? 1 : request.getQuantity();
+                    if (productId == null || productId.isBlank()) {
+                        return Mono.error(new InvalidInputException("A product id is required"));
+                    } else if (quantity < 1 || quantity > CartItem.MAX_QUANTITY) {
+                        return Mono.error(new InvalidInputException("The quantity must be between 1 and " + CartItem.MAX_QUANTITY));
+                    }
+
+                    return cartPricingEngine.getProduct(productId)
+                            .then(Mono.defer(() -> cartRepository.addItem(cartId, productId, quantity, request.getVersion())))
+                            .switchIfEmpty(Mono.defer(() -> rejectChange(cartId, productId, request.getVersion(), quantity)))
+                            .flatMap(cart -> cartPricingEngine.priceCartLine(cart, productId));
+                });
+    }
+
+    /**
+     * Sets the quantity of a product already in the cart with one atomic update, a quantity of 0 removes the product
+     */
+    @Override
+    public Mono<CartLineResponseModel> updateItemQuantity(String cartId, String productId, Mono<CartItemRequestModel> cartItemRequestModel) {
+        return cartItemRequestModel
+                .flatMap(request -> {
+                    Integer quantity = request.getQuantity();
+                    if (quantity == null || quantity < 0 || quantity > CartItem.MAX_QUANTITY) {
+                        return Mono.error(new InvalidInputException("The quantity must be between 0 and " + CartItem.MAX_QUANTITY));
+                    } else if (quantity == 0) {
+                        return removeItemFromCart(cartId, productId, request.getVersion());
+                    }
+
+                    return cartRepository.setItemQuantity(cartId, productId, quantity, request.getVersion())
+                            .switchIfEmpty(Mono.defer(() -> rejectChange(cartId, productId, request.getVersion(), 0)))
+                            .flatMap(cart -> cartPricingEngine.priceCartLine(cart, productId));
+                });
+    }
 
+    @Override
+    public Mono<CartLineResponseModel> removeItemFromCart(String cartId, String productId, Long version) {
+        return cartRepository.removeItem(cartId, productId, version)
+                .switchIfEmpty(Mono.defer(() -> rejectChange(cartId, productId, version, 0)))
+                .flatMap(cart -> cartPricingEngine.priceCartLine(cart, productId));
+    }
 
+    /**
+     * The error for a change of the whole cart that matched no cart: the cart does not exist or it changed since the
+     * expected version
+     */
+    private Mono<Cart> rejectCartChange(String cartId, Long expectedVersion) {
+        return cartRepository.findCartByCartId(cartId)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Cart id was not found: " + cartId))))
+                //the cart was only looked up by its id and version, so it changed even if it is back at that version now
+                .flatMap(cart -> Mono.error(changedSince(cartId, expectedVersion, cart)));
+    }
+
+    /**
+     * The error for a change of a line that matched no cart: the cart does not exist, it changed since the expected
+     * version, it does not have the product or the units added would take the line past CartItem.MAX_QUANTITY
+     */
+    private Mono<Cart> rejectChange(String cartId, String productId, Long expectedVersion, int addedQuantity) {
+        return cartRepository.findCartByCartId(cartId)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Cart id was not found: " + cartId))))
+                .flatMap(cart -> {
+                    if (expectedVersion != null && !expectedVersion.equals(cart.getVersion())) {
+                        return Mono.error(changedSince(cartId, expectedVersion, cart));
+                    }
+                    boolean hasLine = cart.getItems() != null
+                            && cart.getItems().stream().anyMatch(item -> item.getProductId().equals(productId));
+                    if (addedQuantity > 0 && hasLine) {
+                        return Mono.error(new InvalidInputException(
+                                "The quantity of a product can't be more than " + CartItem.MAX_QUANTITY + ": " + productId));
+                    }
+                    return Mono.error(new NotFoundException("Product id was not found in the cart: " + productId));
+                });
+    }
+
+    private static OptimisticLockingFailureException changedSince(String cartId, Long expectedVersion, Cart cart) {
+        return new OptimisticLockingFailureException(
+                "Cart " + cartId + " was changed since version " + expectedVersion + ", it is now at version " + cart.getVersion());
+    }
 }
@@ -1,12 +1,13 @@
 package com.petclinic.cartsservice.dataaccesslayer;
 
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -21,7 +22,12 @@ public class Cart {
     @Id
     private String id;
 
+    @Indexed
     private String cartId;
-    private List<String> productIds;
+    //changed line by line with $push, $pull and positional updates, see CartRepositoryCustom
+    private List<CartItem> items;
     private String customerId;
+    //incremented by every change of the cart, so a client can tell whether the cart changed since it read it
+    @Version
+    private Long version;
 }
@@ -0,0 +1,22 @@
+package com.petclinic.cartsservice.dataaccesslayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a cart, a product with the number of units of it in the cart
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItem {
+
+    //units of a product one line of a cart can hold, also enforced by the updates of CartRepositoryCustom
+    public static final int MAX_QUANTITY = 100;
+
+    private String productId;
+    private Integer quantity;
+}
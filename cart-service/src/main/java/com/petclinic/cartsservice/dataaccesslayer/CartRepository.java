@@ -4,6 +4,6 @@ package com.petclinic.cartsservice.dataaccesslayer;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Mono;
 
-public interface CartRepository extends ReactiveMongoRepository<Cart, String> {
+public interface CartRepository extends ReactiveMongoRepository<Cart, String>, CartRepositoryCustom {
     public Mono<Cart> findCartByCartId(String cartId);
 }
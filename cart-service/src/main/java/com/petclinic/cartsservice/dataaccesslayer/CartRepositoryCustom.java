@@ -0,0 +1,51 @@
+package com.petclinic.cartsservice.dataaccesslayer;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Changes to one line of a cart, each made with a single atomic update instead of saving the whole cart, so concurrent
+ * changes to a cart never overwrite each other. Every change increments the version of the cart, and when an expected
+ * version is given the change is only made if the cart is still at that version. Implemented in CartRepositoryCustomImpl
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * Adds units of a product, to its line when the cart already has the product or as a new line at the end.
+     * A line is never taken past CartItem.MAX_QUANTITY, however many adds are made
+     * @param expectedVersion The version the cart must be at, not checked when null
+     * @return The cart after the change, empty when the cart does not exist, is not at the expected version or its
+     * line would go past CartItem.MAX_QUANTITY
+     */
+    Mono<Cart> addItem(String cartId, String productId, int quantity, Long expectedVersion);
+
+    /**
+     * @param expectedVersion The version the cart must be at, not checked when null
+     * @return The cart after the change, empty when the cart does not exist, does not have the product or is not at
+     * the expected version
+     */
+    Mono<Cart> setItemQuantity(String cartId, String productId, int quantity, Long expectedVersion);
+
+    /**
+     * @param expectedVersion The version the cart must be at, not checked when null
+     * @return The cart after the change, empty when the cart does not exist, does not have the product or is not at
+     * the expected version
+     */
+    Mono<Cart> removeItem(String cartId, String productId, Long expectedVersion);
+
+    /**
+     * Replaces the customer and all the lines of the cart
+     * @param expectedVersion The version the cart must be at, not checked when null
+     * @return The cart after the change, empty when the cart does not exist or is not at the expected version
+     */
+    Mono<Cart> replaceItems(String cartId, String customerId, List<CartItem> items, Long expectedVersion);
+
+    /**
+     * Removes all the lines of the cart
+     * @param expectedVersion The version the cart must be at, not checked when null
+     * @return The cart before the change, with the lines that were removed, empty when the cart does not exist or is
+     * not at the expected version
+     */
+    Mono<Cart> clearItems(String cartId, Long expectedVersion);
+}
@@ -0,0 +1,77 @@
+package com.petclinic.cartsservice.dataaccesslayer;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Cart> addItem(String cartId, String productId, int quantity, Long expectedVersion) {
+        //the cap is part of the filter, so concurrent adds can't take the line past it between a check and the update
+        Mono<Cart> incrementLine = Mono.defer(() -> modify(
+                cart(cartId, expectedVersion).and("items").elemMatch(Criteria.where("productId").is(productId)
+                        .and("quantity").lte(CartItem.MAX_QUANTITY - quantity)),
+                new Update().inc("items.$.quantity", quantity)));
+        //only pushed when the cart still has no line for the product
+        Mono<Cart> pushLine = Mono.defer(() -> modify(
+                cart(cartId, expectedVersion).and("items.productId").ne(productId),
+                new Update().push("items", new CartItem(productId, quantity))));
+
+        return incrementLine
+                .switchIfEmpty(pushLine)
+                //the line was pushed by another request between the two updates
+                .switchIfEmpty(incrementLine);
+    }
+
+    @Override
+    public Mono<Cart> setItemQuantity(String cartId, String productId, int quantity, Long expectedVersion) {
+        return modify(lineOf(cartId, productId, expectedVersion), new Update().set("items.$.quantity", quantity));
+    }
+
+    @Override
+    public Mono<Cart> removeItem(String cartId, String productId, Long expectedVersion) {
+        return modify(lineOf(cartId, productId, expectedVersion), new Update().pull("items", new Document("productId", productId)));
+    }
+
+    @Override
+    public Mono<Cart> replaceItems(String cartId, String customerId, List<CartItem> items, Long expectedVersion) {
+        return modify(cart(cartId, expectedVersion), new Update().set("customerId", customerId).set("items", items));
+    }
+
+    @Override
+    public Mono<Cart> clearItems(String cartId, Long expectedVersion) {
+        return modify(cart(cartId, expectedVersion), new Update().set("items", List.of()), false);
+    }
+
+    private Mono<Cart> modify(Criteria criteria, Update update) {
+        return modify(criteria, update, true);
+    }
+
+    private Mono<Cart> modify(Criteria criteria, Update update, boolean returnNew) {
+        return mongoTemplate.findAndModify(
+                new Query(criteria),
+                update.inc("version", 1),
+                FindAndModifyOptions.options().returnNew(returnNew),
+                Cart.class);
+    }
+
+    private Criteria cart(String cartId, Long expectedVersion) {
+        Criteria criteria = Criteria.where("cartId").is(cartId);
+        return expectedVersion == null ? criteria : criteria.and("version").is(expectedVersion);
+    }
+
+    private Criteria lineOf(String cartId, String productId, Long expectedVersion) {
+        return cart(cartId, expectedVersion).and("items.productId").is(productId);
+    }
+}
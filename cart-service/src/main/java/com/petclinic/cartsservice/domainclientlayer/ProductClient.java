@@ -4,13 +4,20 @@ import com.petclinic.cartsservice.utils.exceptions.InvalidInputException;
 import com.petclinic.cartsservice.utils.exceptions.NotFoundException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Service
 public class ProductClient {
 
+    //keeps the query string of a batch request well under the usual URL length limits
+    private static final int MAX_IDS_PER_REQUEST = 50;
+
     private final WebClient webClient;
 
     private final String productsBaseURL;
@@ -36,4 +43,22 @@ public class ProductClient {
                         })
                 .bodyToMono(ProductResponseModel.class);
     }
+
+    /**
+     * Fetches the given products with one request per MAX_IDS_PER_REQUEST ids, ids that do not exist are skipped
+     */
+    public Flux<ProductResponseModel> getProductsByProductIds(Collection<String> productIds) {
+        return Flux.fromIterable(productIds)
+                .buffer(MAX_IDS_PER_REQUEST)
+                .concatMap(ids -> webClient.get()
+                        .uri(uriBuilder -> uriBuilder.queryParam("ids", ids).build())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError,
+                                error -> switch (error.statusCode().value()) {
+                                case 422 -> Mono.error(new InvalidInputException("ProductIds invalid: " + ids));
+                                default -> Mono.error(new IllegalArgumentException("Something went wrong"));
+                                })
+                        .bodyToFlux(ProductResponseModel.class));
+    }
 }
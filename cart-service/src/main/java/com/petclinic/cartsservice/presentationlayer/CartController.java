@@ -40,8 +40,8 @@ public class CartController {
 
     // Adding the clearCart method from feat/CART-CPC-1144_clear_cart_feature
     @DeleteMapping("/{cartId}/clear")
-    public Flux<ProductResponseModel> clearCart(@PathVariable String cartId) {
-        return cartService.clearCart(cartId)
+    public Flux<ProductResponseModel> clearCart(@PathVariable String cartId, @RequestParam(required = false) Long version) {
+        return cartService.clearCart(cartId, version)
                 .switchIfEmpty(Mono.error(new NotFoundException("Cart not found")));
     }
 
@@ -82,4 +82,34 @@ public class CartController {
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
 
     }
+
+    @PostMapping(value = "/{cartId}/items", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<CartLineResponseModel>> addItemToCart(@PathVariable String cartId,
+                                                                     @RequestBody Mono<CartItemRequestModel> cartItemRequestModel) {
+        return Mono.just(cartId)
+                .filter(id -> id.length() == 36)
+                .switchIfEmpty(Mono.error(new InvalidInputException("Provided cart id is invalid: " + cartId)))
+                .flatMap(id -> cartService.addItemToCart(id, cartItemRequestModel))
+                .map(ResponseEntity::ok);
+    }
+
+    @PatchMapping(value = "/{cartId}/items/{productId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<CartLineResponseModel>> updateItemQuantity(@PathVariable String cartId, @PathVariable String productId,
+                                                                          @RequestBody Mono<CartItemRequestModel> cartItemRequestModel) {
+        return Mono.just(cartId)
+                .filter(id -> id.length() == 36)
+                .switchIfEmpty(Mono.error(new InvalidInputException("Provided cart id is invalid: " + cartId)))
+                .flatMap(id -> cartService.updateItemQuantity(id, productId, cartItemRequestModel))
+                .map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping(value = "/{cartId}/items/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<CartLineResponseModel>> removeItemFromCart(@PathVariable String cartId, @PathVariable String productId,
+                                                                          @RequestParam(required = false) Long version) {
+        return Mono.just(cartId)
+                .filter(id -> id.length() == 36)
+                .switchIfEmpty(Mono.error(new InvalidInputException("Provided cart id is invalid: " + cartId)))
+                .flatMap(id -> cartService.removeItemFromCart(id, productId, version))
+                .map(ResponseEntity::ok);
+    }
 }
@@ -0,0 +1,18 @@
+package com.petclinic.cartsservice.presentationlayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemRequestModel {
+    //not needed when the product is in the path
+    private String productId;
+    private Integer quantity;
+    //the version of the cart the client last read, the change is refused if the cart changed since. Optional
+    private Long version;
+}
@@ -0,0 +1,27 @@
+package com.petclinic.cartsservice.presentationlayer;
+
+import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The answer to a change of one line of a cart, only the changed line and the new totals of the cart
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineResponseModel {
+
+    private String cartId;
+    private Long version;
+    //the line after the change, with a quantity of 0 when it was removed
+    private ProductResponseModel item;
+    private int itemCount;
+    private double subtotal;
+    private double tvq;
+    private double tvc;
+    private double total;
+}
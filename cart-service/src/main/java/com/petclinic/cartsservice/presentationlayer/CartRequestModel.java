@@ -16,4 +16,6 @@ import java.util.List;
 public class CartRequestModel {
     private String customerId;
     private List<String> productIds;
+    //the version of the cart the client last read, the change is refused if the cart changed since. Optional
+    private Long version;
 }
@@ -5,7 +5,6 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -22,4 +21,8 @@ public class CartResponseModel {
     private double tvq;
     private double tvc;
     private double total;
+    //sent back with a change of a line to refuse it if the cart changed in between
+    private Long version;
+    //the products of the cart that products-service no longer has, left out of the lines and the totals
+    private List<String> unavailableProductIds;
 }
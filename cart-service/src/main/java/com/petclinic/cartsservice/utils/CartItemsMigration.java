@@ -0,0 +1,95 @@
+package com.petclinic.cartsservice.utils;
+
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carts saved before they had lines and a version still keep their products in productIds and have no version.
+ * When the service starts, their productIds are turned into lines with a quantity, merged with any lines they already
+ * have, and they get version 0. It runs once the beans are created and before the web server is started, so no request
+ * reaches a cart that is not migrated yet.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartItemsMigration implements SmartInitializingSingleton {
+
+    private static final String CARTS = "cart";
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrateCarts()
+                .doOnNext(migrated -> {
+                    if (migrated > 0) {
+                        log.info("Migrated {} carts to lines with a quantity", migrated);
+                    }
+                })
+                .timeout(TIMEOUT)
+                .onErrorResume(error -> {
+                    log.warn("Could not migrate the carts: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+
+    /**
+     * @return The number of carts that were migrated
+     */
+    public Mono<Long> migrateCarts() {
+        Query oldCarts = new Query(new Criteria().orOperator(
+                Criteria.where("productIds").exists(true),
+                Criteria.where("version").exists(false)));
+
+        return mongoTemplate.find(oldCarts, Document.class, CARTS)
+                .concatMap(this::migrate)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> migrate(Document cart) {
+        Update update = new Update().set("items", toItems(cart));
+        if (cart.containsKey("productIds")) {
+            update.unset("productIds");
+        }
+        Object version = cart.get("version");
+        update.set("version", version == null ? 0L : version);
+
+        //only the cart as it was read, a cart changed in the meantime is migrated on the next start
+        Criteria unchanged = Criteria.where("_id").is(cart.get("_id"));
+        unchanged = version == null ? unchanged.and("version").exists(false) : unchanged.and("version").is(version);
+
+        return mongoTemplate.updateFirst(new Query(unchanged), update, CARTS)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    private List<Document> toItems(Document cart) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (Document item : cart.getList("items", Document.class, List.of())) {
+            quantities.merge(item.getString("productId"), item.getInteger("quantity", 1), Integer::sum);
+        }
+        for (String productId : cart.getList("productIds", String.class, List.of())) {
+            quantities.merge(productId, 1, Integer::sum);
+        }
+
+        List<Document> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> items.add(new Document("productId", productId).append("quantity", quantity)));
+        return items;
+    }
+}
@@ -24,13 +24,13 @@ public class DataLoaderService implements CommandLineRunner {
 
         Cart cart1 = Cart.builder()
                 .cartId("98f7b33a-d62a-420a-a84a-05a27c85fc91")
-                .productIds(productIds)
+                .items(EntityModelUtil.toCartItems(productIds))
                 .customerId("f470653d-05c5-4c45-b7a0-7d70f003d2ac")
                 .build();
 
         Cart cart2 = Cart.builder()
                 .cartId("34f7b33a-d62a-420a-a84a-05a27c85fc91")
-                .productIds(productIds)
+                .items(EntityModelUtil.toCartItems(productIds))
                 .customerId("c6a0fb9d-fc6f-4c21-95fc-4f5e7311d0e2")
                 .build();
 
@@ -2,12 +2,16 @@ package com.petclinic.cartsservice.utils;
 
 
 import com.petclinic.cartsservice.dataaccesslayer.Cart;
+import com.petclinic.cartsservice.dataaccesslayer.CartItem;
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
 import com.petclinic.cartsservice.presentationlayer.CartRequestModel;
 import com.petclinic.cartsservice.presentationlayer.CartResponseModel;
 import org.springframework.beans.BeanUtils;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class EntityModelUtil {
@@ -43,6 +47,21 @@ public class EntityModelUtil {
                 .build();
     }
 
+    /**
+     * One line per product in the order they first appear, a product listed more than once gets the number of times
+     * it is listed as its quantity
+     */
+    public static List<CartItem> toCartItems(List<String> productIds) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        if (productIds != null) {
+            productIds.forEach(productId -> quantities.merge(productId, 1, Integer::sum));
+        }
+
+        List<CartItem> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> items.add(new CartItem(productId, quantity)));
+        return items;
+    }
+
     public static String generateUUIDString() {
         return UUID.randomUUID().toString();
     }
@@ -42,6 +42,22 @@ public class MockServerConfigProductService {
                                         "\"Dog Food\",\"productDescription\":\"Dog Food\",\"productSalePrice\":10.0}"));
     }
 
+    public void registerGetProduct1ByProductIdsEndpoint() {
+        mockServerClient
+                .when(
+                        request()
+                                .withMethod("GET")
+                                .withPath("/api/v1/products")
+                                .withQueryStringParameter("ids", "06a7d573-bcab-4db3-956f-773324b92a88")
+                )
+                .respond(
+                        response()
+                                .withStatusCode(200)
+                                .withHeader("Content-Type", "application/json")
+                                .withBody("[{\"productId\":\"06a7d573-bcab-4db3-956f-773324b92a88\",\"productName\":" +
+                                        "\"Dog Food\",\"productDescription\":\"Dog Food\",\"productSalePrice\":10.0}]"));
+    }
+
     public void registerGetProduct_NonExisting_ByProductIdEndpoint() {
         mockServerClient
                 .when(
@@ -0,0 +1,150 @@
+package com.petclinic.cartsservice.businesslayer;
+
+import com.petclinic.cartsservice.dataaccesslayer.Cart;
+import com.petclinic.cartsservice.domainclientlayer.ProductClient;
+import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import com.petclinic.cartsservice.utils.EntityModelUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartPricingEngineUnitTest {
+
+    @Mock
+    private ProductClient productClient;
+
+    private final ProductResponseModel product1 = new ProductResponseModel("prod1", "Product1", "Desc1", 100.0);
+    private final ProductResponseModel product2 = new ProductResponseModel("prod2", "Product2", "Desc2", 50.0);
+
+    private final Cart cart = Cart.builder()
+            .cartId("cart1")
+            .customerId("1")
+            .items(EntityModelUtil.toCartItems(List.of("prod1", "prod2")))
+            .build();
+
+    @Test
+    void priceCart_Twice_FetchesTheProductsOnlyOnce() {
+        CartPricingEngine cartPricingEngine = new CartPricingEngine(productClient, Duration.ofSeconds(30));
+        when(productClient.getProductsByProductIds(List.of("prod1", "prod2"))).thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartPricingEngine.priceCart(cart).then(cartPricingEngine.priceCart(cart)))
+                .assertNext(cartResponseModel -> assertEquals(150.0, cartResponseModel.getSubtotal(), 0.001))
+                .verifyComplete();
+
+        verify(productClient, times(1)).getProductsByProductIds(anyCollection());
+    }
+
+    @Test
+    void priceCart_OnlyFetchesTheProductsThatAreNotCached() {
+        CartPricingEngine cartPricingEngine = new CartPricingEngine(productClient, Duration.ofSeconds(30));
+        Cart otherCart = Cart.builder().cartId("cart2").customerId("2").items(EntityModelUtil.toCartItems(List.of("prod1"))).build();
+        when(productClient.getProductsByProductIds(List.of("prod1"))).thenReturn(Flux.just(product1));
+        when(productClient.getProductsByProductIds(List.of("prod2"))).thenReturn(Flux.just(product2));
+
+        StepVerifier.create(cartPricingEngine.priceCart(otherCart).then(cartPricingEngine.priceCart(cart)))
+                .assertNext(cartResponseModel -> assertEquals(2, cartResponseModel.getProducts().size()))
+                .verifyComplete();
+
+        verify(productClient, times(1)).getProductsByProductIds(List.of("prod1"));
+        verify(productClient, times(1)).getProductsByProductIds(List.of("prod2"));
+    }
+
+    @Test
+    void priceCarts_WithAProductThatNoLongerExists_PricesEveryCart() {
+        CartPricingEngine cartPricingEngine = new CartPricingEngine(productClient, Duration.ofSeconds(30));
+        Cart otherCart = Cart.builder().cartId("cart2").customerId("2").items(EntityModelUtil.toCartItems(List.of("prod1"))).build();
+        when(productClient.getProductsByProductIds(List.of("prod1", "prod2"))).thenReturn(Flux.just(product1));
+
+        StepVerifier.create(cartPricingEngine.priceCarts(Flux.just(cart, otherCart)))
+                .assertNext(cartResponseModel -> {
+                    assertEquals(1, cartResponseModel.getProducts().size());
+                    assertEquals(100.0, cartResponseModel.getSubtotal(), 0.001);
+                    assertEquals(List.of("prod2"), cartResponseModel.getUnavailableProductIds());
+                })
+                .assertNext(cartResponseModel -> {
+                    assertEquals(100.0, cartResponseModel.getSubtotal(), 0.001);
+                    assertNull(cartResponseModel.getUnavailableProductIds());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void priceCart_WithoutCache_FetchesTheProductsEveryTime() {
+        CartPricingEngine cartPricingEngine = new CartPricingEngine(productClient, Duration.ZERO);
+        when(productClient.getProductsByProductIds(List.of("prod1", "prod2"))).thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartPricingEngine.priceCart(cart).then(cartPricingEngine.priceCart(cart)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(productClient, times(2)).getProductsByProductIds(anyCollection());
+    }
+
+    @Test
+    void priceCart_WithEmptyCart_DoesNotCallProductsService() {
+        CartPricingEngine cartPricingEngine = new CartPricingEngine(productClient, Duration.ofSeconds(30));
+        Cart emptyCart = Cart.builder().cartId("cart3").customerId("3").items(EntityModelUtil.toCartItems(List.of())).build();
+
+        StepVerifier.create(cartPricingEngine.priceCart(emptyCart))
+                .assertNext(cartResponseModel -> {
+                    assertEquals(0, cartResponseModel.getProducts().size());
+                    assertEquals(0.0, cartResponseModel.getTotal());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(productClient);
+    }
+
+    @Test
+    void priceCartLine_ReturnsTheChangedLineAndTheTotalsOfTheCart() {
+        CartPricingEngine cartPricingEngine = new CartPricingEngine(productClient, Duration.ofSeconds(30));
+        Cart changedCart = Cart.builder()
+                .cartId("cart4")
+                .customerId("4")
+                .items(EntityModelUtil.toCartItems(List.of("prod1", "prod2", "prod2")))
+                .version(3L)
+                .build();
+        when(productClient.getProductsByProductIds(List.of("prod1", "prod2"))).thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartPricingEngine.priceCartLine(changedCart, "prod2"))
+                .assertNext(cartLine -> {
+                    assertEquals(3L, cartLine.getVersion());
+                    assertEquals("prod2", cartLine.getItem().getProductId());
+                    assertEquals(2, cartLine.getItem().getQuantity());
+                    assertEquals(3, cartLine.getItemCount());
+                    assertEquals(200.0, cartLine.getSubtotal(), 0.001);
+                    assertEquals(200.0 * 1.14975, cartLine.getTotal(), 0.001);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void priceCartLine_WithARemovedProduct_ReturnsTheLineWithNoUnit() {
+        CartPricingEngine cartPricingEngine = new CartPricingEngine(productClient, Duration.ofSeconds(30));
+        when(productClient.getProductsByProductIds(List.of("prod1", "prod2"))).thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartPricingEngine.priceCart(cart)
+                        .then(cartPricingEngine.priceCartLine(Cart.builder().cartId("cart1").items(EntityModelUtil.toCartItems(List.of("prod1"))).build(), "prod2")))
+                .assertNext(cartLine -> {
+                    assertEquals(0, cartLine.getItem().getQuantity());
+                    assertEquals(1, cartLine.getItemCount());
+                    assertEquals(100.0, cartLine.getSubtotal(), 0.001);
+                })
+                .verifyComplete();
+
+        //the line is priced from the products cached when the cart was priced
+        verify(productClient, times(1)).getProductsByProductIds(anyCollection());
+    }
+}
@@ -1,34 +1,43 @@
 package com.petclinic.cartsservice.businesslayer;
 
 import com.petclinic.cartsservice.dataaccesslayer.Cart;
+import com.petclinic.cartsservice.dataaccesslayer.CartItem;
 import com.petclinic.cartsservice.dataaccesslayer.CartRepository;
 import com.petclinic.cartsservice.domainclientlayer.ProductClient;
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import com.petclinic.cartsservice.presentationlayer.CartItemRequestModel;
 import com.petclinic.cartsservice.presentationlayer.CartRequestModel;
 import com.petclinic.cartsservice.presentationlayer.CartResponseModel;
+import com.petclinic.cartsservice.utils.EntityModelUtil;
+import com.petclinic.cartsservice.utils.exceptions.InvalidInputException;
 import com.petclinic.cartsservice.utils.exceptions.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.beans.BeanUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
+@Slf4j
 class CartServiceUnitTest {
 
-    @InjectMocks
     private CartServiceImpl cartService;
 
     @Mock
@@ -37,6 +46,11 @@ class CartServiceUnitTest {
     @Mock
     private ProductClient productClient;
 
+    @BeforeEach
+    void setUp() {
+        cartService = new CartServiceImpl(cartRepository, new CartPricingEngine(productClient, Duration.ofSeconds(30)));
+    }
+
     private final ProductResponseModel product1 = ProductResponseModel.builder()
             .productId("9a29fff7-564a-4cc9-8fe1-36f6ca9bc223")
             .productName("Web Services")
@@ -62,7 +76,7 @@ class CartServiceUnitTest {
 
     private final Cart cart1 = Cart.builder()
             .cartId("98f7b33a-d62a-420a-a84a-05a27c85fc91")
-            .productIds(productIds)
+            .items(EntityModelUtil.toCartItems(productIds))
             .customerId("1")
             .build();
 
@@ -77,17 +91,15 @@ class CartServiceUnitTest {
                 .id(cart1.getId())
                 .cartId(cart1.getCartId())
                 .customerId(cart1.getCustomerId())
-                .productIds(productIds)
+                .items(EntityModelUtil.toCartItems(productIds))
                 .build();
 
-        CartRequestModel cartRequestModel = new CartRequestModel();
-        BeanUtils.copyProperties(updatedCart, cartRequestModel);
+        CartRequestModel cartRequestModel = new CartRequestModel(cart1.getCustomerId(), productIds, null);
 
-        when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(cart1));
-        when(productClient.getProductByProductId("9a29fff7-564a-4cc9-8fe1-36f6ca9bc223")).thenReturn(Mono.just(product1));
-        when(productClient.getProductByProductId("d819e4f4-25af-4d33-91e9-2c45f0071606")).thenReturn(Mono.just(product2));
-        when(productClient.getProductByProductId("132d3c5e-dcaa-4a4f-a35e-b8acc37c51c1")).thenReturn(Mono.just(product3));
-        when(cartRepository.save(any(Cart.class))).thenReturn(Mono.just(updatedCart));
+        when(cartRepository.replaceItems(cart1.getCartId(), cart1.getCustomerId(), EntityModelUtil.toCartItems(productIds), null))
+                .thenReturn(Mono.just(updatedCart));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId(), product3.getProductId())))
+                .thenReturn(Flux.just(product1, product2, product3));
 
         Mono<CartResponseModel> result = cartService.updateCartByCartId(Mono.just(cartRequestModel), cart1.getCartId());
         StepVerifier.create(result)
@@ -95,26 +107,20 @@ class CartServiceUnitTest {
                     assertNotNull(cartResponseModel);
                     assertNotNull(cartResponseModel.getCartId());
                     assertEquals(updatedCart.getCartId(), cartResponseModel.getCartId());
-                    assertEquals(updatedCart.getProductIds().size(), cartResponseModel.getProducts().size());
+                    assertEquals(updatedCart.getItems().size(), cartResponseModel.getProducts().size());
                 })
                 .verifyComplete();
 
-        verify(cartRepository).findCartByCartId(cart1.getCartId());
-        verify(cartRepository).save(any(Cart.class));
+        verify(cartRepository, never()).save(any(Cart.class));
     }
 
     @Test
     void whenUpdateCartById_withNonExistentCartId_thenThrowNotFoundException() {
+        when(cartRepository.replaceItems(nonExistentCartId, cart1.getCustomerId(), EntityModelUtil.toCartItems(productIds), null))
+                .thenReturn(Mono.empty());
         when(cartRepository.findCartByCartId(nonExistentCartId)).thenReturn(Mono.empty());
-        Cart updatedCart = Cart.builder()
-                .id(cart1.getId())
-                .cartId(cart1.getCartId())
-                .customerId(cart1.getCustomerId())
-                .productIds(productIds)
-                .build();
 
-        CartRequestModel cartRequestModel = new CartRequestModel();
-        BeanUtils.copyProperties(updatedCart, cartRequestModel);
+        CartRequestModel cartRequestModel = new CartRequestModel(cart1.getCustomerId(), productIds, null);
 
         Mono<CartResponseModel> result = cartService.updateCartByCartId(Mono.just(cartRequestModel), nonExistentCartId);
         StepVerifier.create(result)
@@ -123,11 +129,38 @@ class CartServiceUnitTest {
                 .verify();
     }
 
+    @Test
+    void whenUpdateCartById_withTooManyUnitsOfAProduct_thenThrowInvalidInputException() {
+        List<String> tooManyUnits = new ArrayList<>();
+        for (int i = 0; i <= CartItem.MAX_QUANTITY; i++) {
+            tooManyUnits.add(product1.getProductId());
+        }
+
+        StepVerifier.create(cartService.updateCartByCartId(Mono.just(new CartRequestModel(cart1.getCustomerId(), tooManyUnits, null)), cart1.getCartId()))
+                .expectError(InvalidInputException.class)
+                .verify();
+
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void whenUpdateCartById_withOutdatedVersion_thenThrowOptimisticLockingFailureException() {
+        when(cartRepository.replaceItems(cart1.getCartId(), cart1.getCustomerId(), EntityModelUtil.toCartItems(productIds), 3L))
+                .thenReturn(Mono.empty());
+        when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(changedCart(cart1.getItems(), 5L)));
+
+        StepVerifier.create(cartService.updateCartByCartId(Mono.just(new CartRequestModel(cart1.getCustomerId(), productIds, 3L)), cart1.getCartId()))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        verifyNoInteractions(productClient);
+    }
+
     @Test
     public void whenGetCartById_thenReturnCartResponseModel() {
         when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(cart1));
-        when(productClient.getProductByProductId("9a29fff7-564a-4cc9-8fe1-36f6ca9bc223")).thenReturn(Mono.just(product1));
-        when(productClient.getProductByProductId("d819e4f4-25af-4d33-91e9-2c45f0071606")).thenReturn(Mono.just(product2));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1, product2));
 
         Mono<CartResponseModel> result = cartService.getCartByCartId(cart1.getCartId());
 
@@ -136,6 +169,46 @@ class CartServiceUnitTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void whenGetCartById_withRepeatedProductIds_thenPriceEachProductOnceWithItsQuantity() {
+        Cart cart = Cart.builder()
+                .cartId(cart1.getCartId())
+                .items(EntityModelUtil.toCartItems(List.of(product1.getProductId(), product2.getProductId(), product1.getProductId())))
+                .customerId("1")
+                .build();
+
+        when(cartRepository.findCartByCartId(cart.getCartId())).thenReturn(Mono.just(cart));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartService.getCartByCartId(cart.getCartId()))
+                .assertNext(cartResponseModel -> {
+                    assertEquals(2, cartResponseModel.getProducts().size());
+                    assertEquals(product1.getProductId(), cartResponseModel.getProducts().get(0).getProductId());
+                    assertEquals(2, cartResponseModel.getProducts().get(0).getQuantity());
+                    assertEquals(1, cartResponseModel.getProducts().get(1).getQuantity());
+                    assertEquals(250.00, cartResponseModel.getSubtotal(), 0.001);
+                    assertEquals(250.00 * 0.09975, cartResponseModel.getTvq(), 0.001);
+                    assertEquals(250.00 * 0.05, cartResponseModel.getTvc(), 0.001);
+                    assertEquals(250.00 * 1.14975, cartResponseModel.getTotal(), 0.001);
+                })
+                .verifyComplete();
+
+        verify(productClient, times(1)).getProductsByProductIds(anyCollection());
+    }
+
+    @Test
+    public void whenGetCartById_withUnknownProduct_thenThrowNotFoundException() {
+        when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(cart1));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1));
+
+        StepVerifier.create(cartService.getCartByCartId(cart1.getCartId()))
+                .expectErrorMatches(throwable -> throwable instanceof NotFoundException
+                        && throwable.getMessage().equals("ProductId not found: " + product2.getProductId()))
+                .verify();
+    }
+
     @Test
     public void whenGetCartByCartId_withNonExistentCartId_thenThrowNotFoundException() {
         when(cartRepository.findCartByCartId(nonExistentCartId)).thenReturn(Mono.empty());
@@ -150,7 +223,7 @@ class CartServiceUnitTest {
     @Test
     public void getCartItemCount_Success() {
         Cart cart = new Cart();
-        cart.setProductIds(Arrays.asList("prod1", "prod2", "prod3"));
+        cart.setItems(EntityModelUtil.toCartItems(Arrays.asList("prod1", "prod2", "prod3")));
 
         when(cartRepository.findCartByCartId("cart1")).thenReturn(Mono.just(cart));
 
@@ -172,7 +245,7 @@ class CartServiceUnitTest {
     public void whenCreateCart_thenReturnCartResponse() {
 
         // arrange
-        CartRequestModel cartRequest = new CartRequestModel("123", null);
+        CartRequestModel cartRequest = new CartRequestModel("123", null, null);
         Cart expectedCart = new Cart();
         expectedCart.setCartId("abc-123-xyz");
         expectedCart.setCustomerId("123");
@@ -195,50 +268,68 @@ class CartServiceUnitTest {
 
     @Test
     public void clearCart_Success() {
-        Cart mockCart = new Cart("1", "cart1", Arrays.asList("prod1", "prod2"), "customer1");
+        Cart mockCart = new Cart("1", "cart1", EntityModelUtil.toCartItems(Arrays.asList("prod1", "prod2")), "customer1", 0L);
 
-        when(cartRepository.findCartByCartId("cart1")).thenReturn(Mono.just(mockCart));
+        when(cartRepository.clearItems("cart1", null)).thenReturn(Mono.just(mockCart));
 
         ProductResponseModel product1 = new ProductResponseModel("prod1", "Product1", "Desc1", 100.0);
         ProductResponseModel product2 = new ProductResponseModel("prod2", "Product2", "Desc2", 200.0);
 
-        when(productClient.getProductByProductId("prod1")).thenReturn(Mono.just(product1));
-        when(productClient.getProductByProductId("prod2")).thenReturn(Mono.just(product2));
+        when(productClient.getProductsByProductIds(List.of("prod1", "prod2"))).thenReturn(Flux.just(product1, product2));
 
-        when(cartRepository.save(any(Cart.class))).thenReturn(Mono.just(mockCart));
-
-        StepVerifier.create(cartService.clearCart("cart1"))
-                .expectNext(product1)
-                .expectNext(product2)
+        StepVerifier.create(cartService.clearCart("cart1", null))
+                .expectNextMatches(product -> product.getProductId().equals("prod1") && product.getQuantity() == 1)
+                .expectNextMatches(product -> product.getProductId().equals("prod2") && product.getQuantity() == 1)
                 .verifyComplete();
 
-        verify(cartRepository, times(1)).save(mockCart);
-        assertTrue(mockCart.getProductIds().isEmpty());
+        verify(cartRepository, times(1)).clearItems("cart1", null);
+        verify(cartRepository, never()).save(any(Cart.class));
     }
 
     @Test
     public void clearCart_ReturnsProducts() {
         Cart cart = Cart.builder()
                 .cartId("cartId1")
-                .productIds(List.of("prod1", "prod2"))
+                .items(EntityModelUtil.toCartItems(List.of("prod1", "prod2")))
                 .customerId("customerId1")
                 .build();
 
         ProductResponseModel product1 = new ProductResponseModel("prod1", "Product1", "Description1", 100.0);
         ProductResponseModel product2 = new ProductResponseModel("prod2", "Product2", "Description2", 200.0);
 
-        when(cartRepository.findCartByCartId("cartId1")).thenReturn(Mono.just(cart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(Mono.just(cart));
-        when(productClient.getProductByProductId("prod1")).thenReturn(Mono.just(product1));
-        when(productClient.getProductByProductId("prod2")).thenReturn(Mono.just(product2));
+        when(cartRepository.clearItems("cartId1", null)).thenReturn(Mono.just(cart));
+        when(productClient.getProductsByProductIds(List.of("prod1", "prod2"))).thenReturn(Flux.just(product1, product2));
 
-        StepVerifier.create(cartService.clearCart("cartId1"))
-                .expectNext(product1)
-                .expectNext(product2)
+        StepVerifier.create(cartService.clearCart("cartId1", null))
+                .expectNextMatches(product -> product.getProductId().equals("prod1")
+                        && product.getProductSalePrice().equals(product1.getProductSalePrice()))
+                .expectNextMatches(product -> product.getProductId().equals("prod2")
+                        && product.getProductSalePrice().equals(product2.getProductSalePrice()))
                 .verifyComplete();
+    }
+
+    @Test
+    public void clearCart_withNonExistentCartId_thenThrowNotFoundException() {
+        when(cartRepository.clearItems(nonExistentCartId, null)).thenReturn(Mono.empty());
+        when(cartRepository.findCartByCartId(nonExistentCartId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.clearCart(nonExistentCartId, null))
+                .expectError(NotFoundException.class)
+                .verify();
 
-        verify(cartRepository, times(1)).save(cart);
-        assertTrue(cart.getProductIds().isEmpty());
+        verifyNoInteractions(productClient);
+    }
+
+    @Test
+    public void clearCart_withOutdatedVersion_thenThrowOptimisticLockingFailureException() {
+        when(cartRepository.clearItems(cart1.getCartId(), 3L)).thenReturn(Mono.empty());
+        when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(changedCart(cart1.getItems(), 5L)));
+
+        StepVerifier.create(cartService.clearCart(cart1.getCartId(), 3L))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        verifyNoInteractions(productClient);
     }
 
     @Test
@@ -248,8 +339,8 @@ class CartServiceUnitTest {
         String cartId = cart1.getCartId();
         when(cartRepository.findCartByCartId(cartId)).thenReturn(Mono.just(cart1));
         when(cartRepository.delete(cart1)).thenReturn(Mono.empty());
-        when(productClient.getProductByProductId("9a29fff7-564a-4cc9-8fe1-36f6ca9bc223")).thenReturn(Mono.just(product1));
-        when(productClient.getProductByProductId("d819e4f4-25af-4d33-91e9-2c45f0071606")).thenReturn(Mono.just(product2));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1, product2));
 
         // Act
         Mono<CartResponseModel> result = cartService.deleteCartByCartId(cartId);
@@ -288,8 +379,8 @@ class CartServiceUnitTest {
         when(cartRepository.findAll()).thenReturn(Flux.just(cart1));
 
         //mocking product retrieval
-        when(productClient.getProductByProductId(product1.getProductId())).thenReturn(Mono.just(product1));
-        when(productClient.getProductByProductId(product2.getProductId())).thenReturn(Mono.just(product2));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1, product2));
 
         //run the test
         StepVerifier.create(cartService.getAllCarts())
@@ -303,8 +394,7 @@ class CartServiceUnitTest {
 
         // Verify interactions
         verify(cartRepository, times(1)).findAll();
-        verify(productClient, times(1)).getProductByProductId(product1.getProductId());
-        verify(productClient, times(1)).getProductByProductId(product2.getProductId());
+        verify(productClient, times(1)).getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId()));
     }
 
     @Test
@@ -313,7 +403,7 @@ class CartServiceUnitTest {
         Cart cartWithNoProducts = Cart.builder()
                 .cartId("123")
                 .customerId("2")
-                .productIds(new ArrayList<>()) //no product IDs
+                .items(EntityModelUtil.toCartItems(new ArrayList<>())) //no product IDs
                 .build();
 
         when(cartRepository.findAll()).thenReturn(Flux.just(cartWithNoProducts));
@@ -336,13 +426,13 @@ class CartServiceUnitTest {
         Cart cart2 = Cart.builder()
                 .cartId("456")
                 .customerId("3")
-                .productIds(List.of(product3.getProductId())) //another cart with 1 product
+                .items(EntityModelUtil.toCartItems(List.of(product3.getProductId()))) //another cart with 1 product
                 .build();
 
+        List<String> allProductIds = List.of(product1.getProductId(), product2.getProductId(), product3.getProductId());
+
         when(cartRepository.findAll()).thenReturn(Flux.just(cart1, cart2));
-        when(productClient.getProductByProductId(product1.getProductId())).thenReturn(Mono.just(product1));
-        when(productClient.getProductByProductId(product2.getProductId())).thenReturn(Mono.just(product2));
-        when(productClient.getProductByProductId(product3.getProductId())).thenReturn(Mono.just(product3));
+        when(productClient.getProductsByProductIds(allProductIds)).thenReturn(Flux.just(product1, product2, product3));
 
         //run the test
         StepVerifier.create(cartService.getAllCarts())
@@ -350,11 +440,39 @@ class CartServiceUnitTest {
                 .expectNextMatches(cartResponseModel -> cartResponseModel.getCustomerId().equals("3"))
                 .verifyComplete();
 
-        //verify interactions
+        //verify interactions, the products of both carts are fetched together
         verify(cartRepository, times(1)).findAll();
-        verify(productClient, times(1)).getProductByProductId(product1.getProductId());
-        verify(productClient, times(1)).getProductByProductId(product2.getProductId());
-        verify(productClient, times(1)).getProductByProductId(product3.getProductId());
+        verify(productClient, times(1)).getProductsByProductIds(allProductIds);
+    }
+
+    @Test
+    void getAllCarts_With1000CartsOf20Products_FetchesTheProductsOnce() {
+        //1000 carts of 20 items drawn from a catalog of 200 products, the first 10 carts hold every product
+        List<ProductResponseModel> catalog = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            catalog.add(new ProductResponseModel("product-" + i, "Product " + i, "Description " + i, 10.0));
+        }
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            List<String> cartProductIds = new ArrayList<>();
+            for (int j = 0; j < 20; j++) {
+                cartProductIds.add(catalog.get((i * 20 + j) % catalog.size()).getProductId());
+            }
+            carts.add(Cart.builder().cartId("cart-" + i).customerId(String.valueOf(i)).items(EntityModelUtil.toCartItems(cartProductIds)).build());
+        }
+
+        when(cartRepository.findAll()).thenReturn(Flux.fromIterable(carts));
+        when(productClient.getProductsByProductIds(anyCollection())).thenReturn(Flux.fromIterable(catalog));
+
+        long start = System.nanoTime();
+        StepVerifier.create(cartService.getAllCarts())
+                .thenConsumeWhile(cartResponseModel -> cartResponseModel.getProducts().size() == 20
+                        && cartResponseModel.getSubtotal() == 200.0)
+                .verifyComplete();
+        log.info("Priced 1000 carts of 20 products in {} ms", (System.nanoTime() - start) / 1_000_000);
+
+        //the later batches of carts are priced from the product cache
+        verify(productClient, times(1)).getProductsByProductIds(anyCollection());
     }
 
     @Test
@@ -372,4 +490,138 @@ class CartServiceUnitTest {
         verifyNoInteractions(productClient); //no carts, so productClient shouldn't be called
     }
 
+    @Test
+    void whenAddItemToCart_thenReturnTheLineAndTheTotals() {
+        Cart changedCart = changedCart(EntityModelUtil.toCartItems(List.of(product1.getProductId(), product2.getProductId(),
+                product3.getProductId(), product3.getProductId())), 4L);
+
+        when(productClient.getProductsByProductIds(List.of(product3.getProductId()))).thenReturn(Flux.just(product3));
+        when(cartRepository.addItem(cart1.getCartId(), product3.getProductId(), 2, 3L)).thenReturn(Mono.just(changedCart));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartService.addItemToCart(cart1.getCartId(), Mono.just(new CartItemRequestModel(product3.getProductId(), 2, 3L))))
+                .assertNext(cartLine -> {
+                    assertEquals(4L, cartLine.getVersion());
+                    assertEquals(product3.getProductId(), cartLine.getItem().getProductId());
+                    assertEquals(2, cartLine.getItem().getQuantity());
+                    assertEquals(4, cartLine.getItemCount());
+                    assertEquals(190.00, cartLine.getSubtotal(), 0.001);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenAddItemToCart_withUnknownProduct_thenThrowNotFoundException() {
+        when(productClient.getProductsByProductIds(List.of(product3.getProductId()))).thenReturn(Flux.empty());
+
+        StepVerifier.create(cartService.addItemToCart(cart1.getCartId(), Mono.just(new CartItemRequestModel(product3.getProductId(), 1, null))))
+                .expectError(NotFoundException.class)
+                .verify();
+
+        verify(cartRepository, never()).addItem(anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void whenAddItemToCart_withInvalidQuantity_thenThrowInvalidInputException() {
+        StepVerifier.create(cartService.addItemToCart(cart1.getCartId(),
+                        Mono.just(new CartItemRequestModel(product3.getProductId(), CartItem.MAX_QUANTITY + 1, null))))
+                .expectError(InvalidInputException.class)
+                .verify();
+
+        verifyNoInteractions(cartRepository, productClient);
+    }
+
+    @Test
+    void whenAddItemToCart_withOutdatedVersion_thenThrowOptimisticLockingFailureException() {
+        Cart changedCart = changedCart(cart1.getItems(), 5L);
+
+        when(productClient.getProductsByProductIds(List.of(product3.getProductId()))).thenReturn(Flux.just(product3));
+        when(cartRepository.addItem(cart1.getCartId(), product3.getProductId(), 1, 3L)).thenReturn(Mono.empty());
+        when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(changedCart));
+
+        StepVerifier.create(cartService.addItemToCart(cart1.getCartId(), Mono.just(new CartItemRequestModel(product3.getProductId(), null, 3L))))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    void whenAddItemToCart_pastTheMaxQuantityOfTheLine_thenThrowInvalidInputException() {
+        Cart fullCart = changedCart(List.of(new CartItem(product3.getProductId(), CartItem.MAX_QUANTITY)), 3L);
+
+        when(productClient.getProductsByProductIds(List.of(product3.getProductId()))).thenReturn(Flux.just(product3));
+        when(cartRepository.addItem(cart1.getCartId(), product3.getProductId(), 1, null)).thenReturn(Mono.empty());
+        when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(fullCart));
+
+        StepVerifier.create(cartService.addItemToCart(cart1.getCartId(), Mono.just(new CartItemRequestModel(product3.getProductId(), 1, null))))
+                .expectError(InvalidInputException.class)
+                .verify();
+    }
+
+    @Test
+    void whenUpdateItemQuantity_thenReturnTheLineAndTheTotals() {
+        Cart changedCart = changedCart(List.of(new CartItem(product1.getProductId(), 1), new CartItem(product2.getProductId(), 3)), 3L);
+
+        when(cartRepository.setItemQuantity(cart1.getCartId(), product2.getProductId(), 3, null)).thenReturn(Mono.just(changedCart));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartService.updateItemQuantity(cart1.getCartId(), product2.getProductId(), Mono.just(new CartItemRequestModel(null, 3, null))))
+                .assertNext(cartLine -> {
+                    assertEquals(3, cartLine.getItem().getQuantity());
+                    assertEquals(250.00, cartLine.getSubtotal(), 0.001);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenUpdateItemQuantity_toZero_thenRemoveTheLine() {
+        Cart changedCart = changedCart(List.of(new CartItem(product1.getProductId(), 1)), 3L);
+
+        when(cartRepository.removeItem(cart1.getCartId(), product2.getProductId(), 2L)).thenReturn(Mono.just(changedCart));
+        when(productClient.getProductsByProductIds(List.of(product1.getProductId(), product2.getProductId())))
+                .thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(cartService.updateItemQuantity(cart1.getCartId(), product2.getProductId(), Mono.just(new CartItemRequestModel(null, 0, 2L))))
+                .assertNext(cartLine -> {
+                    assertEquals(0, cartLine.getItem().getQuantity());
+                    assertEquals(1, cartLine.getItemCount());
+                    assertEquals(100.00, cartLine.getSubtotal(), 0.001);
+                })
+                .verifyComplete();
+
+        verify(cartRepository, never()).setItemQuantity(anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void whenRemoveItemFromCart_withProductNotInTheCart_thenThrowNotFoundException() {
+        when(cartRepository.removeItem(cart1.getCartId(), product3.getProductId(), null)).thenReturn(Mono.empty());
+        when(cartRepository.findCartByCartId(cart1.getCartId())).thenReturn(Mono.just(cart1));
+
+        StepVerifier.create(cartService.removeItemFromCart(cart1.getCartId(), product3.getProductId(), null))
+                .expectErrorMatches(throwable -> throwable instanceof NotFoundException
+                        && throwable.getMessage().equals("Product id was not found in the cart: " + product3.getProductId()))
+                .verify();
+    }
+
+    @Test
+    void whenRemoveItemFromCart_withNonExistentCartId_thenThrowNotFoundException() {
+        when(cartRepository.removeItem(nonExistentCartId, product1.getProductId(), null)).thenReturn(Mono.empty());
+        when(cartRepository.findCartByCartId(nonExistentCartId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.removeItemFromCart(nonExistentCartId, product1.getProductId(), null))
+                .expectErrorMatches(throwable -> throwable instanceof NotFoundException
+                        && throwable.getMessage().equals("Cart id was not found: " + nonExistentCartId))
+                .verify();
+    }
+
+    private Cart changedCart(List<CartItem> items, Long version) {
+        return Cart.builder()
+                .cartId(cart1.getCartId())
+                .customerId(cart1.getCustomerId())
+                .items(items)
+                .version(version)
+                .build();
+    }
+
 }
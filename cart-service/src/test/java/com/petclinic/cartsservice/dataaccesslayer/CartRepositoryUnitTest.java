@@ -1,15 +1,16 @@
 package com.petclinic.cartsservice.dataaccesslayer;
 
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
-import com.petclinic.cartsservice.presentationlayer.CartRequestModel;
+import com.petclinic.cartsservice.utils.EntityModelUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,7 +48,7 @@ class CartRepositoryUnitTest {
     private final Cart cart1 = Cart.builder()
             .cartId("98f7b33a-d62a-420a-a84a-05a27c85fc91")
             .customerId("1")
-            .productIds(productIds)
+            .items(EntityModelUtil.toCartItems(productIds))
             .build();
 
     @BeforeEach
@@ -75,19 +76,13 @@ class CartRepositoryUnitTest {
                 .expectNextCount(1)
                 .verifyComplete();
 
-        CartRequestModel cartRequestModel = CartRequestModel.builder()
-                .customerId("1")
-                .productIds(new ArrayList<>(cart1.getProductIds()))
-                .build();
-        cartRequestModel.getProductIds().add(product3.getProductId());
-
         StepVerifier
                 .create(cartRepository.findCartByCartId(cart1.getCartId()))
                 .assertNext(foundCart -> {
                     assertNotNull(foundCart);
                     assertEquals(cart1.getCartId(), foundCart.getCartId());
 
-                    foundCart.getProductIds().add(product3.getProductId());
+                    foundCart.getItems().add(new CartItem(product3.getProductId(), 1));
                     cartRepository.save(foundCart).subscribe();
                 })
                 .verifyComplete();
@@ -98,7 +93,7 @@ class CartRepositoryUnitTest {
                     assertNotNull(updatedCart);
                     assertEquals(cart1.getCartId(), updatedCart.getCartId());
 
-                    assertTrue(updatedCart.getProductIds().contains(product3.getProductId()));
+                    assertTrue(updatedCart.getItems().contains(new CartItem(product3.getProductId(), 1)));
                 })
                 .verifyComplete();
 
@@ -176,4 +171,140 @@ class CartRepositoryUnitTest {
         ;
     }
 
-}
\ No newline at end of file
+    @Test
+    void addItem_ManyConcurrentAdds_KeepsEveryUnitInOneLine() {
+        StepVerifier.create(cartRepository.save(cart1))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        int adds = 100;
+        StepVerifier.create(Flux.range(0, adds)
+                        .flatMap(i -> cartRepository.addItem(cart1.getCartId(), product3.getProductId(), 1, null)
+                                        .subscribeOn(Schedulers.parallel()),
+                                adds)
+                        .count())
+                .expectNext((long) adds)
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findCartByCartId(cart1.getCartId()))
+                .assertNext(foundCart -> {
+                    assertEquals(3, foundCart.getItems().size());
+                    assertEquals(new CartItem(product3.getProductId(), adds), foundCart.getItems().get(2));
+                    assertEquals(Long.valueOf(adds), foundCart.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void addItem_ThenSetItemQuantity_ThenRemoveItem_ChangesOnlyTheLine() {
+        StepVerifier.create(cartRepository.save(cart1)
+                        .then(cartRepository.addItem(cart1.getCartId(), product1.getProductId(), 2, 0L)))
+                .assertNext(cart -> {
+                    assertEquals(new CartItem(product1.getProductId(), 3), cart.getItems().get(0));
+                    assertEquals(1L, cart.getVersion());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.setItemQuantity(cart1.getCartId(), product2.getProductId(), 5, 1L))
+                .assertNext(cart -> assertEquals(new CartItem(product2.getProductId(), 5), cart.getItems().get(1)))
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.removeItem(cart1.getCartId(), product1.getProductId(), 2L))
+                .assertNext(cart -> {
+                    assertEquals(List.of(new CartItem(product2.getProductId(), 5)), cart.getItems());
+                    assertEquals(3L, cart.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void addItem_ManyConcurrentAdds_NeverTakeTheLinePastTheMaxQuantity() {
+        StepVerifier.create(cartRepository.save(cart1))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        int adds = 30;
+        int quantity = 5;
+        StepVerifier.create(Flux.range(0, adds)
+                        .flatMap(i -> cartRepository.addItem(cart1.getCartId(), product3.getProductId(), quantity, null)
+                                        .subscribeOn(Schedulers.parallel()),
+                                adds)
+                        .count())
+                .expectNext((long) CartItem.MAX_QUANTITY / quantity)
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findCartByCartId(cart1.getCartId()))
+                .assertNext(foundCart -> assertEquals(new CartItem(product3.getProductId(), CartItem.MAX_QUANTITY), foundCart.getItems().get(2)))
+                .verifyComplete();
+    }
+
+    @Test
+    void replaceItems_ThenClearItems_ChangeAllTheLinesAtOnce() {
+        List<CartItem> items = List.of(new CartItem(product3.getProductId(), 2));
+
+        StepVerifier.create(cartRepository.save(cart1)
+                        .then(cartRepository.replaceItems(cart1.getCartId(), "2", items, null)))
+                .assertNext(cart -> {
+                    assertEquals(items, cart.getItems());
+                    assertEquals("2", cart.getCustomerId());
+                    assertEquals(1L, cart.getVersion());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.clearItems(cart1.getCartId(), 1L))
+                .assertNext(cart -> assertEquals(items, cart.getItems()))
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findCartByCartId(cart1.getCartId()))
+                .assertNext(foundCart -> {
+                    assertTrue(foundCart.getItems().isEmpty());
+                    assertEquals(2L, foundCart.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void clearItems_withNonExistingId_thenReturnEmpty() {
+        StepVerifier.create(cartRepository.clearItems(nonExistentCartId, null))
+                .verifyComplete();
+    }
+
+    @Test
+    void replaceItems_ThenClearItems_WithAnOutdatedVersion_ThenReturnEmpty() {
+        StepVerifier.create(cartRepository.save(cart1)
+                        .then(cartRepository.addItem(cart1.getCartId(), product3.getProductId(), 1, null))
+                        .then(cartRepository.replaceItems(cart1.getCartId(), "2", List.of(), 0L)))
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.clearItems(cart1.getCartId(), 0L))
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findCartByCartId(cart1.getCartId()))
+                .assertNext(foundCart -> {
+                    assertEquals(cart1.getCustomerId(), foundCart.getCustomerId());
+                    assertEquals(3, foundCart.getItems().size());
+                    assertEquals(1L, foundCart.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void setItemQuantity_WithAnOutdatedVersion_ThenReturnEmpty() {
+        StepVerifier.create(cartRepository.save(cart1)
+                        .then(cartRepository.addItem(cart1.getCartId(), product3.getProductId(), 1, null))
+                        .then(cartRepository.setItemQuantity(cart1.getCartId(), product1.getProductId(), 4, 0L)))
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findCartByCartId(cart1.getCartId()))
+                .assertNext(foundCart -> assertEquals(1, foundCart.getItems().get(0).getQuantity()))
+                .verifyComplete();
+    }
+
+    @Test
+    void removeItem_WithAProductNotInTheCart_ThenReturnEmpty() {
+        StepVerifier.create(cartRepository.save(cart1)
+                        .then(cartRepository.removeItem(cart1.getCartId(), product3.getProductId(), null)))
+                .verifyComplete();
+    }
+
+}
@@ -6,8 +6,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockserver.integration.ClientAndServer;
+import org.mockserver.verify.VerificationTimes;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
 import static org.mockserver.model.HttpRequest.request;
 import static org.mockserver.model.HttpResponse.response;
 
@@ -92,4 +98,46 @@ public class ProductClientTest {
                         && throwable.getMessage().equals("ProductId invalid: " + INVALID_PRODUCT_ID))
                 .verify();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getProductsByProductIds_Success() {
+        // Mocking a batch retrieval where only one of the two ids exists
+        mockServer
+                .when(request()
+                        .withMethod("GET")
+                        .withPath("/api/v1/products")
+                        .withQueryStringParameter("ids", EXISTING_PRODUCT_ID, NON_EXISTING_PRODUCT_ID))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("[{\"productId\":\"06a7d573-bcab-4db3-956f-773324b92a88\",\"productName\":\"Dog Food\"," +
+                                "\"productDescription\":\"Dog Food\",\"productSalePrice\":10.0}]"));
+
+        Flux<ProductResponseModel> products = productClient.getProductsByProductIds(List.of(EXISTING_PRODUCT_ID, NON_EXISTING_PRODUCT_ID));
+
+        StepVerifier.create(products)
+                .expectNextMatches(response -> response.getProductId().equals(EXISTING_PRODUCT_ID))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getProductsByProductIds_WithMoreThan50Ids_SplitsTheRequests() {
+        mockServer
+                .when(request()
+                        .withMethod("GET")
+                        .withPath("/api/v1/products"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("[]"));
+
+        List<String> productIds = IntStream.range(0, 120)
+                .mapToObj(i -> "product-" + i)
+                .toList();
+
+        StepVerifier.create(productClient.getProductsByProductIds(productIds))
+                .verifyComplete();
+
+        mockServer.verify(request().withMethod("GET").withPath("/api/v1/products"), VerificationTimes.exactly(3));
+    }
+}
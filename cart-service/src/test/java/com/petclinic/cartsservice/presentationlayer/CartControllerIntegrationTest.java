@@ -4,6 +4,7 @@ import com.petclinic.cartsservice.MockServerConfigProductService;
 import com.petclinic.cartsservice.dataaccesslayer.Cart;
 import com.petclinic.cartsservice.dataaccesslayer.CartRepository;
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import com.petclinic.cartsservice.utils.EntityModelUtil;
 import org.junit.jupiter.api.*;
 import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,7 +54,7 @@ class CartControllerIntegrationTest {
 
     private final Cart cart1 = Cart.builder()
             .cartId("98f7b33a-d62a-420a-a84a-05a27c85fc91")
-            .productIds(productIds)
+            .items(EntityModelUtil.toCartItems(productIds))
             .customerId("1")
             .build();
 
@@ -72,6 +73,7 @@ class CartControllerIntegrationTest {
     public void startServer(){
         mockServerConfigProductService = new MockServerConfigProductService();
         mockServerConfigProductService.registerGetProduct1ByProductIdEndpoint();
+        mockServerConfigProductService.registerGetProduct1ByProductIdsEndpoint();
     }
 
     @AfterAll
@@ -81,6 +83,8 @@ class CartControllerIntegrationTest {
 
     @BeforeEach
     public void setup(){
+        //inserted again after the delete, not updated at the version of the previous test
+        cart1.setVersion(null);
         Publisher<Cart> setupDB = cartRepository.deleteAll()
                 .thenMany(Flux.just(cart1))
                 .flatMap(cartRepository::save);
@@ -117,8 +121,8 @@ class CartControllerIntegrationTest {
                     assertNotNull(cartResponseModel);
                     assertEquals(cart1.getCartId(), result.getCartId());
                     assertEquals(cart1.getCustomerId(), result.getCustomerId());
-                    assertEquals(cart1.getProductIds().size(), result.getProducts().size());
-                    assertEquals(cart1.getProductIds().get(0), result.getProducts().get(0).getProductId());
+                    assertEquals(cart1.getItems().size(), result.getProducts().size());
+                    assertEquals(cart1.getItems().get(0).getProductId(), result.getProducts().get(0).getProductId());
                 });
     }
 
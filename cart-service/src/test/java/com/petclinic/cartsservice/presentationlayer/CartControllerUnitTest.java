@@ -3,19 +3,23 @@ package com.petclinic.cartsservice.presentationlayer;
 import com.petclinic.cartsservice.businesslayer.CartService;
 import com.petclinic.cartsservice.dataaccesslayer.Cart;
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
+import com.petclinic.cartsservice.utils.EntityModelUtil;
 import com.petclinic.cartsservice.utils.exceptions.NotFoundException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @WebFluxTest(controllers = CartController.class)
@@ -38,7 +42,7 @@ class CartControllerUnitTest {
 
           Cart cart = Cart.builder()
                 .cartId("98f7b33a-d62a-420a-a84a-05a27c85fc91")
-                .productIds(productIds)
+                .items(EntityModelUtil.toCartItems(productIds))
                 .customerId("1")
                 .build();
 
@@ -71,7 +75,7 @@ class CartControllerUnitTest {
                 .value(result -> {
                     assertEquals(cart.getCartId(), result.getCartId());
                     assertEquals(cart.getCustomerId(), result.getCustomerId());
-                    assertEquals(cart.getProductIds(), result.getProducts().stream().map(ProductResponseModel::getProductId).toList());
+                    assertEquals(productIds, result.getProducts().stream().map(ProductResponseModel::getProductId).toList());
                 });
     }
 
@@ -155,7 +159,7 @@ class CartControllerUnitTest {
 
         Cart cart = Cart.builder()
                 .cartId("98f7b33a-d62a-420a-a84a-05a27c85fc91")
-                .productIds(productIds)
+                .items(EntityModelUtil.toCartItems(productIds))
                 .customerId("1")
                 .build();
 
@@ -206,5 +210,84 @@ class CartControllerUnitTest {
         verify(cartService, times(0)).deleteCartByCartId(cartId);
     }
 
+    @Test
+    void whenAddItemToCart_thenReturnCartLineResponseModel() {
+        String cartId = "98f7b33a-d62a-420a-a84a-05a27c85fc91";
+        ProductResponseModel line = new ProductResponseModel("9a29fff7-564a-4cc9-8fe1-36f6ca9bc223", "Web Services",
+                "Learn how to create web services", 100.00);
+        line.setQuantity(2);
+        CartLineResponseModel cartLine = CartLineResponseModel.builder()
+                .cartId(cartId)
+                .version(1L)
+                .item(line)
+                .itemCount(2)
+                .subtotal(200.00)
+                .build();
+
+        when(cartService.addItemToCart(eq(cartId), any())).thenReturn(Mono.just(cartLine));
+
+        webTestClient
+                .post()
+                .uri("/api/v1/carts/" + cartId + "/items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CartItemRequestModel(line.getProductId(), 2, 0L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CartLineResponseModel.class)
+                .isEqualTo(cartLine);
+    }
+
+    @Test
+    void whenUpdateItemQuantity_withOutdatedVersion_thenReturnConflict() {
+        String cartId = "98f7b33a-d62a-420a-a84a-05a27c85fc91";
+        when(cartService.updateItemQuantity(eq(cartId), eq("productId"), any()))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("Cart " + cartId + " was changed since version 0")));
+
+        webTestClient
+                .patch()
+                .uri("/api/v1/carts/" + cartId + "/items/productId")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CartItemRequestModel(null, 3, 0L))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void whenRemoveItemFromCart_withInvalidCartId_thenReturnUnprocessableEntity() {
+        webTestClient
+                .delete()
+                .uri("/api/v1/carts/98f7b33a/items/productId")
+                .exchange()
+                .expectStatus().isEqualTo(422);
+
+        verifyNoInteractions(cartService);
+    }
+
+    @Test
+    void whenRemoveItemFromCart_thenPassTheVersion() {
+        String cartId = "98f7b33a-d62a-420a-a84a-05a27c85fc91";
+        when(cartService.removeItemFromCart(cartId, "productId", 4L))
+                .thenReturn(Mono.just(CartLineResponseModel.builder().cartId(cartId).version(5L).build()));
+
+        webTestClient
+                .delete()
+                .uri("/api/v1/carts/" + cartId + "/items/productId?version=4")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(5);
+    }
+
+    @Test
+    void whenClearCart_withOutdatedVersion_thenReturnConflict() {
+        String cartId = "98f7b33a-d62a-420a-a84a-05a27c85fc91";
+        when(cartService.clearCart(cartId, 4L))
+                .thenReturn(Flux.error(new OptimisticLockingFailureException("Cart " + cartId + " was changed since version 4")));
 
-}
\ No newline at end of file
+        webTestClient
+                .delete()
+                .uri("/api/v1/carts/" + cartId + "/clear?version=4")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+}
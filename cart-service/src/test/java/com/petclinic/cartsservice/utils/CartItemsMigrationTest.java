@@ -0,0 +1,73 @@
+package com.petclinic.cartsservice.utils;
+
+import com.petclinic.cartsservice.dataaccesslayer.CartItem;
+import com.petclinic.cartsservice.dataaccesslayer.CartRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("test")
+class CartItemsMigrationTest {
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    private CartItemsMigration cartItemsMigration;
+
+    @BeforeEach
+    void setUp() {
+        cartItemsMigration = new CartItemsMigration(mongoTemplate);
+        StepVerifier.create(cartRepository.deleteAll())
+                .verifyComplete();
+    }
+
+    @Test
+    void migrateCarts_ShouldTurnTheProductIdsIntoLinesWithAVersion() {
+        Document oldCart = new Document("cartId", "98f7b33a-d62a-420a-a84a-05a27c85fc91")
+                .append("customerId", "1")
+                .append("productIds", List.of("prod1", "prod2", "prod1"));
+
+        StepVerifier.create(mongoTemplate.insert(oldCart, "cart")
+                        .then(cartItemsMigration.migrateCarts()))
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findCartByCartId("98f7b33a-d62a-420a-a84a-05a27c85fc91"))
+                .assertNext(cart -> {
+                    assertEquals(List.of(new CartItem("prod1", 2), new CartItem("prod2", 1)), cart.getItems());
+                    assertEquals(0L, cart.getVersion());
+                })
+                .verifyComplete();
+
+        //a migrated cart is changed by the atomic updates
+        StepVerifier.create(cartRepository.addItem("98f7b33a-d62a-420a-a84a-05a27c85fc91", "prod2", 1, 0L))
+                .assertNext(cart -> assertEquals(new CartItem("prod2", 2), cart.getItems().get(1)))
+                .verifyComplete();
+    }
+
+    @Test
+    void migrateCarts_ShouldLeaveTheMigratedCartsAsTheyAre() {
+        Document oldCart = new Document("cartId", "34f7b33a-d62a-420a-a84a-05a27c85fc91")
+                .append("customerId", "2")
+                .append("productIds", List.of("prod1"));
+
+        StepVerifier.create(mongoTemplate.insert(oldCart, "cart")
+                        .then(cartItemsMigration.migrateCarts())
+                        .then(cartItemsMigration.migrateCarts()))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+}
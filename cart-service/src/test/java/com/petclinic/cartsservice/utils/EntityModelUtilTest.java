@@ -1,6 +1,7 @@
 package com.petclinic.cartsservice.utils;
 
 import com.petclinic.cartsservice.dataaccesslayer.Cart;
+import com.petclinic.cartsservice.dataaccesslayer.CartItem;
 import com.petclinic.cartsservice.domainclientlayer.ProductResponseModel;
 import com.petclinic.cartsservice.presentationlayer.CartRequestModel;
 import com.petclinic.cartsservice.presentationlayer.CartResponseModel;
@@ -51,6 +52,16 @@ class EntityModelUtilTest {
         assertEquals("customer-456", cart.getCustomerId());
     }
 
+    @Test
+    void testToCartItems() {
+        // Act
+        List<CartItem> items = EntityModelUtil.toCartItems(List.of("prod-1", "prod-2", "prod-1"));
+
+        // Assert
+        assertEquals(List.of(new CartItem("prod-1", 2), new CartItem("prod-2", 1)), items);
+        assertTrue(EntityModelUtil.toCartItems(null).isEmpty());
+    }
+
     @Test
     void testGenerateUUIDString() {
         // Act
@@ -21,6 +21,17 @@ public interface OwnerService {
                                                   String phoneNumber,
                                                   String city);
 
+    /**
+     * Cursor pagination, the page token is the ownerId of the last owner of the previous page
+     */
+    Flux<OwnerResponseDTO> getAllOwnersAfter(String pageToken,
+                                             int size,
+                                             String ownerId,
+                                             String firstName,
+                                             String lastName,
+                                             String phoneNumber,
+                                             String city);
+
     Mono<Owner> insertOwner(Mono<Owner> ownerMono);
 
     // getOwnerByOwnerId is now returning a OwnerResponseDTO
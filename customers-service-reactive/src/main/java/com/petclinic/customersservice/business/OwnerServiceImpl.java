@@ -2,6 +2,7 @@ package com.petclinic.customersservice.business;
 
 import com.petclinic.customersservice.customersExceptions.exceptions.NotFoundException;
 import com.petclinic.customersservice.data.Owner;
+import com.petclinic.customersservice.data.OwnerFilter;
 import com.petclinic.customersservice.data.OwnerRepo;
 import com.petclinic.customersservice.presentationlayer.OwnerRequestDTO;
 import com.petclinic.customersservice.presentationlayer.OwnerResponseDTO;
@@ -14,7 +15,6 @@ import reactor.core.publisher.Mono;
 import org.springframework.data.domain.Pageable;
 
 import java.util.UUID;
-import java.util.function.Predicate;
 
 @Slf4j
 @Service
@@ -80,17 +80,7 @@ public class OwnerServiceImpl implements OwnerService {
 
     @Override
     public Mono<Long> getTotalNumberOfOwnersWithFilters(String ownerId, String firstName, String lastName, String phoneNumber, String city) {
-         Predicate<Owner> filterCriteria = owner ->
-                (ownerId == null || owner.getOwnerId().equals(ownerId)) &&
-                (firstName == null || owner.getFirstName().equals(firstName)) &&
-                (lastName == null || owner.getLastName().equals(lastName)) &&
-                (phoneNumber == null || owner.getTelephone().equals(phoneNumber)) &&
-                (city == null || owner.getCity().equals(city));
-
-        return ownerRepo.findAll()
-                .filter(filterCriteria) // Apply filtering
-                .map(EntityDTOUtil::toOwnerResponseDTO)
-                .count();
+        return ownerRepo.countOwnersByFilters(new OwnerFilter(ownerId, firstName, lastName, phoneNumber, city));
     }
 
     @Override
@@ -101,25 +91,21 @@ public class OwnerServiceImpl implements OwnerService {
                                                          String phoneNumber,
                                                          String city){
 
-        Predicate<Owner> filterCriteria = owner ->
-                (ownerId == null || owner.getOwnerId().equals(ownerId)) &&
-                (firstName == null || owner.getFirstName().equals(firstName)) &&
-                (lastName == null || owner.getLastName().equals(lastName)) &&
-                (phoneNumber == null || owner.getTelephone().equals(phoneNumber)) &&
-                (city == null || owner.getCity().equals(city));
-
-        if(ownerId == null && firstName == null && lastName == null && phoneNumber == null && city == null){
-            return ownerRepo.findAll()
-                    .map(EntityDTOUtil::toOwnerResponseDTO)
-                    .skip(pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize());
-        } else {
-            return ownerRepo.findAll()
-                    .filter(filterCriteria)
-                    .map(EntityDTOUtil::toOwnerResponseDTO)
-                    .skip(pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize());
-        }
+        return ownerRepo.findAllOwnersByFilters(new OwnerFilter(ownerId, firstName, lastName, phoneNumber, city), pageable)
+                .map(EntityDTOUtil::toOwnerResponseDTO);
+    }
+
+    @Override
+    public Flux<OwnerResponseDTO> getAllOwnersAfter(String pageToken,
+                                                    int size,
+                                                    String ownerId,
+                                                    String firstName,
+                                                    String lastName,
+                                                    String phoneNumber,
+                                                    String city){
+
+        return ownerRepo.findAllOwnersByFiltersAfter(new OwnerFilter(ownerId, firstName, lastName, phoneNumber, city), pageToken, size)
+                .map(EntityDTOUtil::toOwnerResponseDTO);
     }
 
 
@@ -6,10 +6,13 @@ import com.petclinic.customersservice.presentationlayer.PetResponseDTO;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface PetService {
 
     Mono<Pet> insertPet(Mono<Pet> petMono);
     Mono<Pet> getPetById(String Id);
+    Flux<Pet> getPetsByPetIds(List<String> petIds);
     Flux<PetResponseDTO> getPetsByOwnerId(String ownerId);
     Mono<Pet> updatePetByPetId(String petId, Mono<Pet> petMono);
     Mono<Void> deletePetByPetId(String petId);
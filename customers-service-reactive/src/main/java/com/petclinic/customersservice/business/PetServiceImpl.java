@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Service
 public class PetServiceImpl implements PetService {
 
@@ -32,6 +34,11 @@ public class PetServiceImpl implements PetService {
         return petRepo.findPetByPetId(Id);
     }
 
+    @Override
+    public Flux<Pet> getPetsByPetIds(List<String> petIds) {
+        return petRepo.findAllPetByPetIdIn(petIds);
+    }
+
     @Override
     public Flux<PetResponseDTO> getPetsByOwnerId(String ownerId) {
         return petRepo.findAllPetByOwnerId(ownerId)
@@ -0,0 +1,15 @@
+package com.petclinic.customersservice.customersExceptions.exceptions;
+
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException() {}
+
+    public BadRequestException(String message) { super(message); }
+
+    public BadRequestException(Throwable cause) { super(cause); }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
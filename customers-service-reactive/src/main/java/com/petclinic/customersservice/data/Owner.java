@@ -3,6 +3,8 @@ package com.petclinic.customersservice.data;
 import com.petclinic.customersservice.presentationlayer.PetResponseDTO;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
@@ -11,18 +13,32 @@ import java.util.List;
 @Builder
 @Getter
 @AllArgsConstructor
+@Document
 public class Owner {
 
     @Id
     private String id;
+    @Indexed
     private String ownerId; // public id
     private String firstName;
     private String lastName;
     private String address;
+    @Indexed
     private String city;
     private String province;
+    @Indexed
     private String telephone;
     private List<PetResponseDTO> pets;
     //private String photoId;
+    //lowercase firstName and lastName, set on save (see OwnerSearchKeyCallback)
+    @Indexed
+    private String firstNameKey;
+    @Indexed
+    private String lastNameKey;
+
+    public Owner(String id, String ownerId, String firstName, String lastName, String address, String city,
+                 String province, String telephone, List<PetResponseDTO> pets) {
+        this(id, ownerId, firstName, lastName, address, city, province, telephone, pets, null, null);
+    }
 
 }
@@ -0,0 +1,21 @@
+package com.petclinic.customersservice.data;
+
+import lombok.*;
+
+/**
+ * The optional filters of the owners pagination, a null field is not filtered on.
+ * firstName and lastName match any owner whose name starts with them, ignoring case (see SearchKeys).
+ */
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class OwnerFilter {
+
+    private String ownerId;
+    private String firstName;
+    private String lastName;
+    private String telephone;
+    private String city;
+
+}
@@ -0,0 +1,23 @@
+package com.petclinic.customersservice.data;
+
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The owners search of the owners list, see OwnerFilter for how each filter matches.
+ * The owners are sorted by _id whatever the filters, so a pageToken taken from a page keeps its place.
+ */
+public interface OwnerRepoCustom {
+
+    Flux<Owner> findAllOwnersByFilters(OwnerFilter filter, Pageable pageable);
+
+    /**
+     * @param afterOwnerId The pageToken, the ownerId of the last owner of the previous page
+     * @return Up to size owners sorted after that owner, or a BadRequestException when no owner has that ownerId
+     */
+    Flux<Owner> findAllOwnersByFiltersAfter(OwnerFilter filter, String afterOwnerId, int size);
+
+    Mono<Long> countOwnersByFilters(OwnerFilter filter);
+
+}
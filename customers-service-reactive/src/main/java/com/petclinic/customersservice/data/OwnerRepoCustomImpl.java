@@ -0,0 +1,88 @@
+package com.petclinic.customersservice.data;
+
+import com.petclinic.customersservice.customersExceptions.exceptions.BadRequestException;
+import com.petclinic.customersservice.util.SearchKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class OwnerRepoCustomImpl implements OwnerRepoCustom {
+
+    private static final Sort INSERTION_ORDER = Sort.by(Sort.Direction.ASC, "_id");
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Owner> findAllOwnersByFilters(OwnerFilter filter, Pageable pageable) {
+        Query query = new Query(toCriteria(filter, null))
+                .with(INSERTION_ORDER)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        return mongoTemplate.find(query, Owner.class);
+    }
+
+    @Override
+    public Flux<Owner> findAllOwnersByFiltersAfter(OwnerFilter filter, String afterOwnerId, int size) {
+        if (!StringUtils.hasText(afterOwnerId)) {
+            return Flux.error(new BadRequestException("The pageToken is blank"));
+        }
+
+        Query lastOwner = new Query(Criteria.where("ownerId").is(afterOwnerId));
+        lastOwner.fields().include("_id");
+
+        //an empty page would look like the last one, an unknown token is the caller's mistake
+        return mongoTemplate.findOne(lastOwner, Owner.class)
+                .switchIfEmpty(Mono.error(new BadRequestException("Invalid pageToken: " + afterOwnerId)))
+                .flatMapMany(owner -> mongoTemplate.find(new Query(toCriteria(filter, owner.getId()))
+                        .with(INSERTION_ORDER)
+                        .limit(size), Owner.class));
+    }
+
+    @Override
+    public Mono<Long> countOwnersByFilters(OwnerFilter filter) {
+        return mongoTemplate.count(new Query(toCriteria(filter, null)), Owner.class);
+    }
+
+
+    private static Criteria toCriteria(OwnerFilter filter, String afterId) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        if (filter.getOwnerId() != null) {
+            criteria.add(Criteria.where("ownerId").is(filter.getOwnerId()));
+        }
+        if (filter.getFirstName() != null) {
+            criteria.add(startsWith("firstNameKey", filter.getFirstName()));
+        }
+        if (filter.getLastName() != null) {
+            criteria.add(startsWith("lastNameKey", filter.getLastName()));
+        }
+        if (filter.getTelephone() != null) {
+            criteria.add(Criteria.where("telephone").is(filter.getTelephone()));
+        }
+        if (filter.getCity() != null) {
+            criteria.add(Criteria.where("city").is(filter.getCity()));
+        }
+        if (afterId != null) {
+            criteria.add(Criteria.where("_id").gt(afterId));
+        }
+
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+
+    //the lowercase keys starting with the prefix, an index range instead of a case-insensitive regex scan
+    private static Criteria startsWith(String key, String prefix) {
+        return Criteria.where(key).gte(SearchKeys.lowerBound(prefix)).lt(SearchKeys.upperBound(prefix));
+    }
+
+}
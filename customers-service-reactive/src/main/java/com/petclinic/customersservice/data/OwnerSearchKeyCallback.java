@@ -0,0 +1,21 @@
+package com.petclinic.customersservice.data;
+
+import com.petclinic.customersservice.util.SearchKeys;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the search keys of an owner in step with its first and last names each time the owner is saved
+ */
+@Component
+public class OwnerSearchKeyCallback implements ReactiveBeforeConvertCallback<Owner> {
+
+    @Override
+    public Publisher<Owner> onBeforeConvert(Owner owner, String collection) {
+        owner.setFirstNameKey(SearchKeys.toKey(owner.getFirstName()));
+        owner.setLastNameKey(SearchKeys.toKey(owner.getLastName()));
+        return Mono.just(owner);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +14,5 @@ public interface PetRepo extends ReactiveMongoRepository<Pet, String> {
 
     Flux<Pet> findAllPetByOwnerId(String ownerId);
     Mono<Pet> findPetByPetId(String Id);
+    Flux<Pet> findAllPetByPetIdIn(Collection<String> petIds);
 }
\ No newline at end of file
@@ -44,8 +44,14 @@ public class OwnerController {
             @RequestParam(required = false) String firstName,
             @RequestParam(required = false) String lastName,
             @RequestParam(required = false) String phoneNumber,
-            @RequestParam(required = false) String city
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String pageToken
     ){
+        //a pageToken wins over page, an unknown one is answered with a 400
+        if (pageToken != null) {
+            return ownerService.getAllOwnersAfter(pageToken, size.orElse(5), ownerId, firstName, lastName, phoneNumber, city);
+        }
+
         return ownerService.getAllOwnersPagination(
                 PageRequest.of(page.orElse(0),size.orElse(5)),ownerId,firstName,lastName,phoneNumber,city);
     }
@@ -58,6 +64,7 @@ public class OwnerController {
             @RequestParam(required = false) String phoneNumber,
             @RequestParam(required = false) String city) {
 
+        //counted with the same filters as the pages, so firstName and lastName are case-insensitive prefixes and no longer exact matches
         return ownerService.getTotalNumberOfOwnersWithFilters(ownerId,firstName,lastName,phoneNumber,city);
     }
 
@@ -11,6 +11,8 @@ import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/pet")
 public class PetController {
@@ -24,6 +26,12 @@ public class PetController {
                 .map(EntityDTOUtil::toPetResponseDTO);
     }
 
+    @GetMapping(params = "ids")
+    public Flux<PetResponseDTO> getPetsByPetIds(@RequestParam List<String> ids) {
+        return petService.getPetsByPetIds(ids)
+                .map(EntityDTOUtil::toPetResponseDTO);
+    }
+
     @GetMapping("/owner/{ownerId}/pets")
     public Flux<PetResponseDTO> getPetsByOwnerId(@PathVariable String ownerId) {
         return petService.getPetsByOwnerId(ownerId);
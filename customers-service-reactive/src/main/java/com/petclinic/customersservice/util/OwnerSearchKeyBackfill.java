@@ -0,0 +1,76 @@
+package com.petclinic.customersservice.util;
+
+import com.petclinic.customersservice.data.Owner;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Gives the owners saved before they had search keys their lowercase first and last name keys, computed here rather
+ * than with $toLower so they match the keys set on save. Runs at startup and only reads the owners without keys.
+ */
+@Service
+@Slf4j
+public class OwnerSearchKeyBackfill implements CommandLineRunner {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+    private static final int BATCH_SIZE = 1000;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public OwnerSearchKeyBackfill(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        backfillSearchKeys()
+                .doOnNext(count -> {
+                    if (count > 0) {
+                        log.info("Backfilled the search keys of {} owners", count);
+                    }
+                })
+                .timeout(TIMEOUT)
+                .onErrorResume(error -> {
+                    log.warn("Could not backfill the search keys of the owners: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+
+    /**
+     * @return The number of owners given search keys
+     */
+    public Mono<Long> backfillSearchKeys() {
+        String collection = mongoTemplate.getCollectionName(Owner.class);
+
+        Query missingKeys = new Query(Criteria.where("lastNameKey").exists(false));
+        missingKeys.fields().include("firstName").include("lastName");
+
+        return mongoTemplate.find(missingKeys, Document.class, collection)
+                .buffer(BATCH_SIZE)
+                .concatMap(owners -> update(owners, collection))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> update(List<Document> owners, String collection) {
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        owners.forEach(owner -> bulkOperations.updateOne(new Query(Criteria.where("_id").is(owner.get("_id"))), new Update()
+                .set("firstNameKey", SearchKeys.toKey(owner.getString("firstName")))
+                .set("lastNameKey", SearchKeys.toKey(owner.getString("lastName")))));
+
+        return bulkOperations.execute()
+                .map(result -> (long) result.getModifiedCount());
+    }
+}
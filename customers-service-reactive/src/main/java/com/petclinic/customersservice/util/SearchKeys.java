@@ -0,0 +1,44 @@
+package com.petclinic.customersservice.util;
+
+import java.util.Locale;
+
+/**
+ * The lowercase search keys kept next to the first and last names of the owners.
+ * A case-insensitive regex cannot use an index, so the name prefix filters are done on the keys with an index range:
+ * every key starting with a prefix is between lowerBound(prefix), inclusive, and upperBound(prefix), exclusive.
+ */
+public final class SearchKeys {
+
+    private SearchKeys() {
+    }
+
+    public static String toKey(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    public static String lowerBound(String prefix) {
+        return toKey(prefix);
+    }
+
+    /**
+     * The prefix with its last character replaced by the next one. Mongo compares the strings by their UTF-8 bytes,
+     * which keeps the order of the code points, so no key starting with the prefix is at or after it
+     */
+    public static String upperBound(String prefix) {
+        String key = toKey(prefix);
+        while (!key.isEmpty()) {
+            int last = key.codePointBefore(key.length());
+            String start = key.substring(0, key.length() - Character.charCount(last));
+            if (last < Character.MAX_CODE_POINT) {
+                int next = last + 1;
+                //surrogates are not characters on their own
+                if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+                    next = Character.MAX_SURROGATE + 1;
+                }
+                return start + new String(Character.toChars(next));
+            }
+            key = start;
+        }
+        return new String(Character.toChars(Character.MAX_CODE_POINT));
+    }
+}
@@ -1,6 +1,7 @@
 package com.petclinic.customersservice.business;
 
 import com.petclinic.customersservice.data.Owner;
+import com.petclinic.customersservice.data.OwnerFilter;
 import com.petclinic.customersservice.data.OwnerRepo;
 import com.petclinic.customersservice.presentationlayer.OwnerRequestDTO;
 import com.petclinic.customersservice.presentationlayer.OwnerResponseDTO;
@@ -95,8 +96,8 @@ class OwnerServiceImplTest {
         // Create a Pageable object for the first page with 2 items per page
         Pageable pageable = PageRequest.of(0, 2);
 
-        // Mock the repository to return a Flux of owners
-        when(repo.findAll()).thenReturn(Flux.just(owner1, owner2, owner3));
+        // Mock the repository to return the first page of owners
+        when(repo.findAllOwnersByFilters(any(OwnerFilter.class), eq(pageable))).thenReturn(Flux.just(owner1, owner2));
 
         // Call the method under test
         Flux<OwnerResponseDTO> owners = ownerService.getAllOwnersPagination(pageable,null,null,null,null,null);
@@ -127,8 +128,8 @@ class OwnerServiceImplTest {
         Pageable pageable = PageRequest.of(0, 2);
         String city = "test city1";
         String ownerId = "ownerId-11";
-        // Mock the repository to return a Flux of owners
-        when(repo.findAll()).thenReturn(Flux.just(owner1));
+        // Mock the repository to return the filtered owners
+        when(repo.findAllOwnersByFilters(any(OwnerFilter.class), eq(pageable))).thenReturn(Flux.just(owner1));
 
         // Call the method under test
         Flux<OwnerResponseDTO> owners = ownerService.getAllOwnersPagination(pageable,ownerId,null,null,null,city);
@@ -163,8 +164,8 @@ class OwnerServiceImplTest {
         String firstName = "FirstName2";
         String phoneNumber = "telephone2";
 
-        // Mock the repository to return a Flux of owners
-        when(repo.findAll()).thenReturn(Flux.just(owner1));
+        // Mock the repository to return the filtered owners
+        when(repo.findAllOwnersByFilters(any(OwnerFilter.class), eq(pageable))).thenReturn(Flux.just(owner1));
 
         // Call the method under test
         Flux<OwnerResponseDTO> owners = ownerService.getAllOwnersPagination(pageable,ownerId,firstName,lastName,phoneNumber,city);
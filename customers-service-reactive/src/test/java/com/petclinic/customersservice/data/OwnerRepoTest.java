@@ -1,8 +1,11 @@
 package com.petclinic.customersservice.data;
 
+import com.petclinic.customersservice.customersExceptions.exceptions.BadRequestException;
 import com.petclinic.customersservice.presentationlayer.OwnerResponseDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -10,7 +13,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.reactivestreams.Publisher;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 @DataMongoTest
+@Import(OwnerSearchKeyCallback.class)
 class OwnerRepoTest {
 
     @Autowired
@@ -67,6 +73,90 @@ class OwnerRepoTest {
                 .verifyComplete();
     }
 
+    @Test
+    void findAllOwnersByFilters_shouldMatchNamePrefixIgnoringCase() {
+        Publisher<Owner> setup = repo.deleteAll().thenMany(repo.saveAll(Arrays.asList(
+                buildOwner("ownerId-1", "Labrie", "Saint-Lambert"),
+                buildOwner("ownerId-2", "Lachance", "Montreal"),
+                buildOwner("ownerId-3", "Labelle", "Saint-Lambert"),
+                buildOwner("ownerId-4", "Tremblay", "Saint-Lambert"))));
+
+        StepVerifier
+                .create(setup)
+                .expectNextCount(4)
+                .verifyComplete();
+
+        OwnerFilter filter = OwnerFilter.builder().lastName("lab").city("Saint-Lambert").build();
+
+        StepVerifier
+                .create(repo.findAllOwnersByFilters(filter, PageRequest.of(0, 5)))
+                .expectNextMatches(owner -> owner.getOwnerId().equals("ownerId-1"))
+                .expectNextMatches(owner -> owner.getOwnerId().equals("ownerId-3"))
+                .verifyComplete();
+
+        StepVerifier
+                .create(repo.findAllOwnersByFilters(filter, PageRequest.of(1, 1)))
+                .expectNextMatches(owner -> owner.getOwnerId().equals("ownerId-3"))
+                .verifyComplete();
+
+        StepVerifier
+                .create(repo.countOwnersByFilters(filter))
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllOwnersByFiltersAfter_shouldReturnOwnersAfterPageToken() {
+        Publisher<Owner> setup = repo.deleteAll().thenMany(repo.saveAll(Arrays.asList(
+                buildOwner("ownerId-1", "Labrie", "Saint-Lambert"),
+                buildOwner("ownerId-2", "Lachance", "Montreal"),
+                buildOwner("ownerId-3", "Labelle", "Saint-Lambert"),
+                buildOwner("ownerId-4", "Tremblay", "Saint-Lambert"))));
+
+        StepVerifier
+                .create(setup)
+                .expectNextCount(4)
+                .verifyComplete();
+
+        OwnerFilter filter = OwnerFilter.builder().city("Saint-Lambert").build();
+
+        StepVerifier
+                .create(repo.findAllOwnersByFiltersAfter(filter, "ownerId-1", 1))
+                .expectNextMatches(owner -> owner.getOwnerId().equals("ownerId-3"))
+                .verifyComplete();
+
+        StepVerifier
+                .create(repo.findAllOwnersByFiltersAfter(filter, "ownerId-3", 5))
+                .expectNextMatches(owner -> owner.getOwnerId().equals("ownerId-4"))
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllOwnersByFiltersAfter_unknownPageToken_shouldFail() {
+        StepVerifier
+                .create(repo.deleteAll().thenMany(repo.findAllOwnersByFiltersAfter(new OwnerFilter(), "ownerId-9", 5)))
+                .expectError(BadRequestException.class)
+                .verify();
+
+        StepVerifier
+                .create(repo.findAllOwnersByFiltersAfter(new OwnerFilter(), "", 5))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    private Owner buildOwner(String ownerId, String lastName, String city) {
+        //no id so mongo generates the ObjectId the owners are ordered by
+        return Owner.builder()
+                .ownerId(ownerId)
+                .firstName("Felix")
+                .lastName(lastName)
+                .address("308 ave de Stanley")
+                .city(city)
+                .province("Quebec")
+                .telephone("514-516-1191")
+                .build();
+    }
+
     private Owner buildOwner() {
         return Owner.builder()
                 .id("55")
@@ -87,6 +87,25 @@ class PetControllerIntegrationTest {
                 .jsonPath("$.petId").isEqualTo(validPetId);
     }
 
+    @Test
+    void getPetsByPetIds() {
+        Publisher<Pet> setup = repo.deleteAll().thenMany(repo.save(petEntity));
+        StepVerifier.create(setup).expectNextCount(1).verifyComplete();
+        client
+                .get()
+                .uri(uriBuilder -> uriBuilder.path("/pet").queryParam("ids", PET_ID, "unknownPetId").build())
+                .accept(MediaType.valueOf(MediaType.TEXT_EVENT_STREAM_VALUE))
+                .acceptCharset(StandardCharsets.UTF_8)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PetResponseDTO.class)
+                .value((list) -> {
+                    assertNotNull(list);
+                    assertEquals(1, list.size());
+                    assertEquals(PET_ID, list.get(0).getPetId());
+                });
+    }
+
     @Test
     void updatePetByPetId() {
         Publisher<Pet> setup = repo.deleteAll().thenMany(repo.save(petEntity));
@@ -0,0 +1,80 @@
+package com.petclinic.customersservice.util;
+
+import com.petclinic.customersservice.data.Owner;
+import com.petclinic.customersservice.data.OwnerFilter;
+import com.petclinic.customersservice.data.OwnerRepo;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+class OwnerSearchKeyBackfillTest {
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private OwnerRepo ownerRepo;
+
+    private OwnerSearchKeyBackfill ownerSearchKeyBackfill;
+
+    @BeforeEach
+    void setUp() {
+        ownerSearchKeyBackfill = new OwnerSearchKeyBackfill(mongoTemplate);
+        StepVerifier.create(ownerRepo.deleteAll())
+                .verifyComplete();
+    }
+
+    @Test
+    void backfillSearchKeys_ShouldGiveTheOldOwnersLowercaseKeys() {
+        Document oldOwner = new Document("ownerId", "ownerId-1")
+                .append("firstName", "Émile")
+                .append("lastName", "LABRIE")
+                .append("city", "Saint-Lambert");
+
+        StepVerifier.create(mongoTemplate.insert(oldOwner, mongoTemplate.getCollectionName(Owner.class))
+                        .then(ownerSearchKeyBackfill.backfillSearchKeys()))
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(ownerRepo.findOwnerByOwnerId("ownerId-1"))
+                .assertNext(owner -> {
+                    assertEquals("émile", owner.getFirstNameKey());
+                    assertEquals("labrie", owner.getLastNameKey());
+                })
+                .verifyComplete();
+
+        //the backfilled owner is found by the name prefix filters
+        OwnerFilter filter = OwnerFilter.builder().firstName("ÉM").lastName("lab").build();
+        StepVerifier.create(ownerRepo.findAllOwnersByFilters(filter, PageRequest.of(0, 5)))
+                .expectNextMatches(owner -> owner.getOwnerId().equals("ownerId-1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void backfillSearchKeys_ShouldLeaveTheOwnersWithKeysAsTheyAre() {
+        Document oldOwner = new Document("ownerId", "ownerId-2")
+                .append("firstName", "Felix")
+                .append("lastName", "Labrie");
+
+        StepVerifier.create(mongoTemplate.insert(oldOwner, mongoTemplate.getCollectionName(Owner.class))
+                        .then(ownerSearchKeyBackfill.backfillSearchKeys())
+                        .then(ownerSearchKeyBackfill.backfillSearchKeys()))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void upperBound_ShouldBeAfterEveryKeyStartingWithThePrefix() {
+        assertEquals("lac", SearchKeys.upperBound("Lab"));
+        assertTrue("labrie".compareTo(SearchKeys.upperBound("lab")) < 0);
+        assertTrue("lac".compareTo(SearchKeys.upperBound("lab")) >= 0);
+    }
+}
@@ -15,7 +15,9 @@ public interface ProductInventoryService {
     Mono<ProductResponseDTO> updateProductInInventory(Mono<ProductRequestDTO> productRequestDTOMono, String inventoryId, String productId);
     Mono<Void> deleteProductInInventory(String inventoryId, String productId);
     Flux<ProductResponseDTO> getProductsInInventoryByInventoryIdAndProductsField(String inventoryId, String productName, Double productPrice, Integer productQuantity, Double productSalePrice);
-    Flux<ProductResponseDTO> getProductsInInventoryByInventoryIdAndProductsFieldsPagination(String inventoryId, String productName, Double productPrice, Integer productQuantity, Pageable pageable);
+    Flux<ProductResponseDTO> getProductsInInventoryByInventoryIdAndProductsFieldsPagination(String inventoryId, String productName, Double productPrice, Integer productQuantity, Double minPrice, Double maxPrice, Integer quantityBelow, Pageable pageable);
+    Mono<ProductPageResponseDTO> getProductPageInInventory(String inventoryId, String productName, Double productPrice, Integer productQuantity, Double minPrice, Double maxPrice, Integer quantityBelow, Pageable pageable);
+    Mono<Long> getTotalNumberOfProducts(String inventoryId, String productName, Double productPrice, Integer productQuantity, Double productSalePrice);
 
     Mono<Void> deleteInventoryByInventoryId(String inventoryId);
 
@@ -24,15 +26,12 @@ public interface ProductInventoryService {
     Mono<InventoryTypeResponseDTO> addInventoryType(Mono<InventoryTypeRequestDTO> inventoryTypeRequestDTO);
 
     Flux<InventoryResponseDTO> searchInventories(Pageable page, String inventoryName, String inventoryType, String inventoryDescription);
+    Flux<InventoryResponseDTO> searchInventoriesByDescriptionText(Pageable page, String text);
     Flux<InventoryTypeResponseDTO> getAllInventoryTypes();
     Flux<InventoryNameResponseDTO> getAllInventoryNames();
 
     Mono<ProductResponseDTO> getProductByProductIdInInventory(String inventoryId, String productId);
 
-    Mono<InventoryResponseDTO> addSupplyToInventoryByInventoryName(String inventoryName, Mono<SupplyRequestDTO> supplyRequestDTOMono);
-
-    Flux<SupplyResponseDTO> getSuppliesByInventoryName(String inventoryName);
-  
     Flux<ProductResponseDTO> getLowStockProducts(String inventoryId, int stockThreshold);
 
 
@@ -4,13 +4,14 @@ import com.petclinic.inventoryservice.datalayer.Inventory.InventoryNameRepositor
 import com.petclinic.inventoryservice.datalayer.Inventory.InventoryRepository;
 import com.petclinic.inventoryservice.datalayer.Inventory.InventoryTypeRepository;
 import com.petclinic.inventoryservice.datalayer.Product.Product;
+import com.petclinic.inventoryservice.datalayer.Product.ProductFilter;
 import com.petclinic.inventoryservice.datalayer.Product.ProductRepository;
 import com.petclinic.inventoryservice.datalayer.Supply.Status;
-import com.petclinic.inventoryservice.datalayer.Supply.Supply;
+import com.petclinic.inventoryservice.datalayer.Supply.SupplyRepository;
 import com.petclinic.inventoryservice.presentationlayer.*;
 import com.petclinic.inventoryservice.utils.EntityDTOUtil;
+import com.petclinic.inventoryservice.utils.SearchKeys;
 import com.petclinic.inventoryservice.utils.exceptions.InvalidInputException;
-import com.petclinic.inventoryservice.utils.exceptions.InventoryNotFoundException;
 import com.petclinic.inventoryservice.utils.exceptions.NotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -18,23 +19,26 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Set;
 
-import static com.petclinic.inventoryservice.utils.EntityDTOUtil.toSupplyEntity;
 
 
 @Service
 @RequiredArgsConstructor
 public class ProductInventoryServiceImpl implements ProductInventoryService {
 
+    private static final Set<String> SORTABLE_PRODUCT_FIELDS = new LinkedHashSet<>(List.of("productName", "productPrice", "productQuantity", "productSalePrice"));
+
     private final InventoryRepository inventoryRepository;
     private final ProductRepository productRepository;
     private final InventoryTypeRepository inventoryTypeRepository;
     private final InventoryNameRepository inventoryNameRepository;
+    private final SupplyRepository supplyRepository;
 
     @Override
     public Mono<ProductResponseDTO> addProductToInventory(Mono<ProductRequestDTO> productRequestDTOMono, String inventoryId) {
@@ -215,19 +219,19 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
 
 
         if (productName != null) {
-            String escapedInventoryName = Pattern.quote(productName);
-
-            String regexPattern = "(?i)^" + escapedInventoryName + ".*";
+            //the lowercase keys starting with the name, read from the index instead of a case-insensitive regex scan
+            String lowerBound = SearchKeys.lowerBound(productName);
+            String upperBound = SearchKeys.upperBound(productName);
 
             if (productName.length() == 1) {
                 return productRepository
-                        .findAllProductsByInventoryIdAndProductNameRegex(inventoryId, regexPattern)
+                        .findAllProductsByInventoryIdAndProductNameKeyRange(inventoryId, lowerBound, upperBound)
                         .map(EntityDTOUtil::toProductResponseDTO)
                         .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with InventoryId: " + inventoryId +
                                 "\nOr ProductName: " + productName)));
             } else {
                 return productRepository
-                        .findAllProductsByInventoryIdAndProductNameRegex(inventoryId,regexPattern)
+                        .findAllProductsByInventoryIdAndProductNameKeyRange(inventoryId, lowerBound, upperBound)
                         .map(EntityDTOUtil::toProductResponseDTO)
                         .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with Name starting with or matching: " + productName)));
             }
@@ -241,63 +245,67 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
     }
 
     @Override
-    public Flux<ProductResponseDTO> getProductsInInventoryByInventoryIdAndProductsFieldsPagination(String inventoryId, String productName, Double productPrice, Integer productQuantity, Pageable pageable) {
-
-        if (productName != null && productPrice != null && productQuantity != null){
-            return  productRepository
-                    .findAllProductsByInventoryIdAndProductNameAndProductPriceAndProductQuantity(inventoryId,
-                            productName, productPrice, productQuantity)
-                    .map(EntityDTOUtil::toProductResponseDTO)
-                    .skip((long) pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize())
-                    .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with InventoryId: " + inventoryId +
-                            "\nOr ProductName: " + productName + "\nOr ProductPrice: " + productPrice + "\nOr ProductQuantity: " + productQuantity)));
-        }
-        if (productPrice != null && productQuantity != null){
-            return productRepository
-                    .findAllProductsByInventoryIdAndProductPriceAndProductQuantity(inventoryId, productPrice, productQuantity)
-                    .map(EntityDTOUtil::toProductResponseDTO)
-                    .skip((long) pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize())
-                    .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with InventoryId: " + inventoryId +
-                            "\nOr ProductPrice: " + productPrice + "\nOr ProductQuantity: " + productQuantity)));
-        }
-        if (productPrice != null){
-            return productRepository
-                    .findAllProductsByInventoryIdAndProductPrice(inventoryId, productPrice)
-                    .map(EntityDTOUtil::toProductResponseDTO)
-                    .skip((long) pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize())
-                    .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with InventoryId: " + inventoryId +
-                            "\nOr ProductPrice: " + productPrice)));
-        }
-        if (productQuantity != null){
-            return productRepository
-                    .findAllProductsByInventoryIdAndProductQuantity(inventoryId, productQuantity)
-                    .map(EntityDTOUtil::toProductResponseDTO)
-                    .skip((long) pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize())
-                    .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with InventoryId: " + inventoryId +
-                            "\nOr ProductQuantity: " + productQuantity)));
-        }
-        if (productName != null){
-            return productRepository
-                    .findAllProductsByInventoryIdAndProductName(inventoryId, productName)
-                    .map(EntityDTOUtil::toProductResponseDTO)
-                    .skip((long) pageable.getPageNumber() * pageable.getPageSize())
-                    .take(pageable.getPageSize())
-                    .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with InventoryId: " + inventoryId +
-                            "\nOr ProductName: " + productName)));
-        }
+    public Flux<ProductResponseDTO> getProductsInInventoryByInventoryIdAndProductsFieldsPagination(String inventoryId, String productName, Double productPrice, Integer productQuantity, Double minPrice, Double maxPrice, Integer quantityBelow, Pageable pageable) {
+        ProductFilter filter = ProductFilter.builder()
+                .inventoryId(inventoryId)
+                .productName(productName)
+                .productPrice(productPrice)
+                .productQuantity(productQuantity)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .quantityBelow(quantityBelow)
+                .build();
+
+        //one query with all the conditions, paged and sorted by Mongo
+        return validateProductSearch(filter, pageable)
+                .thenMany(Flux.defer(() -> productRepository.findProducts(filter, pageable)))
+                .map(EntityDTOUtil::toProductResponseDTO)
+                //an inventory without products is not an error, a search without matches is
+                .switchIfEmpty(filter.hasConditions()
+                        ? Mono.<ProductResponseDTO>error(new NotFoundException("No products of the inventory " + inventoryId + " match the search"))
+                        : Mono.<ProductResponseDTO>empty());
+    }
 
+    @Override
+    public Mono<ProductPageResponseDTO> getProductPageInInventory(String inventoryId, String productName, Double productPrice, Integer productQuantity, Double minPrice, Double maxPrice, Integer quantityBelow, Pageable pageable) {
+        ProductFilter filter = ProductFilter.builder()
+                .inventoryId(inventoryId)
+                .productName(productName)
+                .productPrice(productPrice)
+                .productQuantity(productQuantity)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .quantityBelow(quantityBelow)
+                .build();
+
+        return validateProductSearch(filter, pageable)
+                .then(Mono.defer(() -> productRepository.findProductPage(filter, pageable)))
+                .map(EntityDTOUtil::toProductPageResponseDTO);
+    }
 
-        return productRepository
-                .findAllProductsByInventoryId(inventoryId)
-                .map(EntityDTOUtil::toProductResponseDTO)
-                .skip((long) pageable.getPageNumber() * pageable.getPageSize())
-                .take(pageable.getPageSize());
-        //where the 404 not found issue lies if we switchIfEmpty
+    @Override
+    public Mono<Long> getTotalNumberOfProducts(String inventoryId, String productName, Double productPrice, Integer productQuantity, Double productSalePrice) {
+        //same conditions as getProductsInInventoryByInventoryIdAndProductsField, counted by Mongo without reading the products.
+        //every filter given applies, and an inventory with no matching product counts 0 instead of answering 404
+        return productRepository.countProducts(ProductFilter.builder()
+                .inventoryId(inventoryId)
+                .productNamePrefix(productName)
+                .productPrice(productPrice)
+                .productQuantity(productQuantity)
+                .productSalePrice(productSalePrice)
+                .build());
+    }
 
+    private Mono<Void> validateProductSearch(ProductFilter filter, Pageable pageable) {
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null && filter.getMinPrice() > filter.getMaxPrice()) {
+            return Mono.error(new InvalidInputException("The minimum price cannot be greater than the maximum price."));
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PRODUCT_FIELDS.contains(order.getProperty())) {
+                return Mono.error(new InvalidInputException("Products can only be sorted by " + String.join(", ", SORTABLE_PRODUCT_FIELDS) + "."));
+            }
+        }
+        return Mono.empty();
     }
 
 
@@ -314,8 +322,9 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
     public Mono<Void> deleteInventoryByInventoryId(String inventoryId) {
         return inventoryRepository.findInventoryByInventoryId(inventoryId)
                 .switchIfEmpty(Mono.error(new NotFoundException("The Inventory with the inventoryId: " + inventoryId + " is invalid. Please enter a valid inventory id.")))
-                .flatMapMany(inventoryRepository::delete)
-                .then();
+                //the supplies of the inventory are in their own collection
+                .flatMap(inventory -> supplyRepository.deleteSuppliesByInventoryId(inventory.getInventoryId())
+                        .then(inventoryRepository.delete(inventory)));
     }
 
     @Override
@@ -342,27 +351,22 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
         }
 
         if (inventoryName != null){
-            String escapedInventoryName = Pattern.quote(inventoryName); // escape any special characters
-
-            // Regex pattern for partial or full name match
-            String regexPattern = "(?i)^" + escapedInventoryName + ".*";
+            // Range of the lowercase names starting with the given name, read from the index
+            String lowerBound = SearchKeys.lowerBound(inventoryName);
+            String upperBound = SearchKeys.upperBound(inventoryName);
 
             // If only one character is provided, match all that starts with that character
             if (inventoryName.length() == 1) {
                 return inventoryRepository
-                        .findByInventoryNameRegex(regexPattern)
+                        .findByInventoryNameKeyRange(lowerBound, upperBound, page)
                         .map(EntityDTOUtil::toInventoryResponseDTO)
-                        .skip(page.getPageNumber() * page.getPageSize())
-                        .take(page.getPageSize())
                         .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found starting with: " + inventoryName)));
             }
             // For any other input, match starting characters or the exact name
             else {
                 return inventoryRepository
-                        .findByInventoryNameRegex(regexPattern)
+                        .findByInventoryNameKeyRange(lowerBound, upperBound, page)
                         .map(EntityDTOUtil::toInventoryResponseDTO)
-                        .skip(page.getPageNumber() * page.getPageSize())
-                        .take(page.getPageSize())
                         .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with Name starting with or matching: " + inventoryName)));
             }
         }
@@ -379,22 +383,18 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
 
         if (inventoryDescription != null) {
 
-            String escapedInventoryDescription = Pattern.quote(inventoryDescription);
-            String regexPattern = "(?i)^" + escapedInventoryDescription + ".*";
+            String lowerBound = SearchKeys.lowerBound(inventoryDescription);
+            String upperBound = SearchKeys.upperBound(inventoryDescription);
 
             if (inventoryDescription.length() == 1) {
                 return inventoryRepository
-                        .findByInventoryDescriptionRegex(regexPattern)
+                        .findByInventoryDescriptionKeyRange(lowerBound, upperBound, page)
                         .map(EntityDTOUtil::toInventoryResponseDTO)
-                        .skip(page.getPageNumber() * page.getPageSize())
-                        .take(page.getPageSize())
                         .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with Description: " + inventoryDescription)));
             } else {
                 return inventoryRepository
-                        .findByInventoryDescriptionRegex(regexPattern)
+                        .findByInventoryDescriptionKeyRange(lowerBound, upperBound, page)
                         .map(EntityDTOUtil::toInventoryResponseDTO)
-                        .skip(page.getPageNumber() * page.getPageSize())
-                        .take(page.getPageSize())
                         .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with Name starting with or matching: " + inventoryName)));
             }
         }
@@ -408,6 +408,14 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
     }
 
 
+    @Override
+    public Flux<InventoryResponseDTO> searchInventoriesByDescriptionText(Pageable page, String text) {
+        return inventoryRepository
+                .findAllBy(TextCriteria.forDefaultLanguage().matching(text), page)
+                .map(EntityDTOUtil::toInventoryResponseDTO)
+                .switchIfEmpty(Mono.error(new NotFoundException("Inventory not found with Description containing: " + text)));
+    }
+
     @Override
     public Mono<ProductResponseDTO> getProductByProductIdInInventory(String inventoryId, String productId) {
         return productRepository
@@ -416,36 +424,6 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
                 .switchIfEmpty(Mono.error(new NotFoundException("Inventory id:" + inventoryId + "and product:" + productId + "are not found")));
     }
 
-    public Mono<InventoryResponseDTO> addSupplyToInventoryByInventoryName(String inventoryName, Mono<SupplyRequestDTO> supplyRequestDTOMono) {
-        return supplyRequestDTOMono
-                .flatMap(supplyRequestDTO ->
-                        inventoryRepository.findByInventoryName(inventoryName)
-                                .switchIfEmpty(Mono.error(new InventoryNotFoundException("No inventory found for name: " + inventoryName)))
-                                .flatMap(inventory -> {
-                                    Supply supply = toSupplyEntity(supplyRequestDTO);
-                                    supply.setSupplyId(UUID.randomUUID().toString());
-                                    supply.setInventoryId(inventory.getInventoryId());
-
-                                    inventory.addSupply(supply);
-                                    return inventoryRepository.save(inventory);
-                                })
-                                .map(updatedInventory -> {
-
-                                    List<SupplyResponseDTO> supplyResponseDTOs = updatedInventory.getSupplies().stream()
-                                            .map(EntityDTOUtil::toSupplyResponseDTO)
-                                            .collect(Collectors.toList());
-
-                                    return new InventoryResponseDTO(
-                                            updatedInventory.getInventoryId(),
-                                            updatedInventory.getInventoryName(),
-                                            updatedInventory.getInventoryType(),
-                                            updatedInventory.getInventoryDescription(),
-                                            supplyResponseDTOs
-                                    );
-                                })
-                );
-    }
-
     //delete all products and delete all inventory
     @Override
     public Mono<Void> deleteAllProductInventory (String inventoryId){
@@ -457,7 +435,8 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
 
     @Override
     public Mono<Void> deleteAllInventory () {
-        return inventoryRepository.deleteAll();
+        return supplyRepository.deleteAll()
+                .then(inventoryRepository.deleteAll());
 
     }
 
@@ -484,12 +463,6 @@ public class ProductInventoryServiceImpl implements ProductInventoryService {
                 .map(EntityDTOUtil::toInventoryNameResponseDTO);
     }
 
-    @Override
-    public Flux<SupplyResponseDTO> getSuppliesByInventoryName(String inventoryName) {
-        return inventoryRepository.findByInventoryName(inventoryName)
-                .flatMapMany(inventory -> Flux.fromIterable(inventory.getSupplies()))
-                .map(EntityDTOUtil::toSupplyResponseDTO);
-    }
   
   @Override
     public Flux<ProductResponseDTO> getLowStockProducts(String inventoryId, int stockThreshold) {
@@ -33,4 +33,6 @@ public interface SupplyInventoryService {
 
     Flux<SupplyResponseDTO> getSuppliesByInventoryName(String inventoryName);
 
+    Flux<SupplyResponseDTO> getSuppliesByInventoryName(String inventoryName, Pageable pageable);
+
 }
@@ -21,7 +21,6 @@ import org.springframework.data.domain.Pageable;
 import java.util.List;
 import java.util.UUID;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 
 @Service
@@ -414,6 +413,10 @@ public class SupplyInventoryServiceImpl implements SupplyInventoryService {
 //                .switchIfEmpty(Mono.error(new NotFoundException("Inventory id:" + inventoryId + "and supply:" + supplyId + "are not found")));
 //    }
 
+    /**
+     * Inserts the supply in the supplies collection, the inventory document is only read. The response has the inventory
+     * with the added supply only, the other supplies are read with getSuppliesByInventoryName
+     */
     @Override
     public Mono<InventoryResponseDTO> addSupplyToInventoryByInventoryName(String inventoryName, Mono<SupplyRequestDTO> supplyRequestDTOMono) {
 
@@ -433,38 +436,28 @@ public class SupplyInventoryServiceImpl implements SupplyInventoryService {
                                             Status.AVAILABLE
                                     );
 
-                                    inventory.addSupply(supply);
-                                    return inventoryRepository.save(inventory);
-                                })
-                                .map(updatedInventory -> {
-                                    List<SupplyResponseDTO> supplyResponseDTOs = updatedInventory.getSupplies().stream()
-                                            .map(supply -> new SupplyResponseDTO(
-                                                    supply.getSupplyId(),
-                                                    supply.getInventoryId(),
-                                                    supply.getSupplyName(),
-                                                    supply.getSupplyDescription(),
-                                                    supply.getSupplyPrice(),
-                                                    supply.getSupplyQuantity(),
-                                                    supply.getSupplySalePrice(),
-                                                    supply.getStatus()
-                                            ))
-                                            .collect(Collectors.toList());
-
-                                    return new InventoryResponseDTO(
-                                            updatedInventory.getInventoryId(),
-                                            updatedInventory.getInventoryName(),
-                                            updatedInventory.getInventoryType(),
-                                            updatedInventory.getInventoryDescription(),
-                                            supplyResponseDTOs
-                                    );
+                                    return supplyRepository.insert(supply)
+                                            .map(addedSupply -> {
+                                                InventoryResponseDTO inventoryResponseDTO = EntityDTOUtil.toInventoryResponseDTO(inventory);
+                                                inventoryResponseDTO.setSupplies(List.of(EntityDTOUtil.toSupplyResponseDTO(addedSupply)));
+                                                return inventoryResponseDTO;
+                                            });
                                 })
                 );
     }
 
     @Override
     public Flux<SupplyResponseDTO> getSuppliesByInventoryName(String inventoryName) {
+        return getSuppliesByInventoryName(inventoryName, Pageable.unpaged());
+    }
+
+    /**
+     * Streams the supplies of the inventory from the supplies collection, one page of them when the pageable is paged
+     */
+    @Override
+    public Flux<SupplyResponseDTO> getSuppliesByInventoryName(String inventoryName, Pageable pageable) {
         return inventoryRepository.findByInventoryName(inventoryName)
-                .flatMapMany(inventory -> Flux.fromIterable(inventory.getSupplies()))
+                .flatMapMany(inventory -> supplyRepository.findAllSuppliesByInventoryIdOrderBySupplyNameAsc(inventory.getInventoryId(), pageable))
                 .map(EntityDTOUtil::toSupplyResponseDTO);
     }
 
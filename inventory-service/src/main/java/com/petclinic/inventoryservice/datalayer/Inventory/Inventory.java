@@ -1,13 +1,11 @@
 package com.petclinic.inventoryservice.datalayer.Inventory;
 
-import com.petclinic.inventoryservice.datalayer.Supply.Supply;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.ArrayList;
-import java.util.List;
-
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -21,17 +19,11 @@ public class Inventory {
     private String inventoryId;
     private String inventoryName;
     private String inventoryType;
+    @TextIndexed
     private String inventoryDescription;
-
-
-    @Builder.Default
-    private List<Supply> supplies = new ArrayList<>();
-
-
-    public void addSupply(Supply supply) {
-        if (this.supplies == null) {
-            this.supplies = new ArrayList<>();
-        }
-        this.supplies.add(supply);
-    }
-}
\ No newline at end of file
+    //lowercase inventoryName and inventoryDescription, set on save (see InventorySearchKeyCallback)
+    @Indexed
+    private String inventoryNameKey;
+    @Indexed
+    private String inventoryDescriptionKey;
+}
@@ -1,5 +1,8 @@
 package com.petclinic.inventoryservice.datalayer.Inventory;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -24,6 +27,16 @@ public interface InventoryRepository extends ReactiveMongoRepository<Inventory,
 
     Flux<Inventory> findByInventoryDescriptionRegex(String regex);
 
+    //prefix search on the lowercase name and description, a range of their index (see SearchKeys)
+    @Query("{ 'inventoryNameKey': { $gte: ?0, $lt: ?1 } }")
+    Flux<Inventory> findByInventoryNameKeyRange(String lowerBound, String upperBound, Pageable pageable);
+
+    @Query("{ 'inventoryDescriptionKey': { $gte: ?0, $lt: ?1 } }")
+    Flux<Inventory> findByInventoryDescriptionKeyRange(String lowerBound, String upperBound, Pageable pageable);
+
+    //words of the description, through the text index
+    Flux<Inventory> findAllBy(TextCriteria criteria, Pageable pageable);
+
     Mono<Inventory> findByInventoryType(String inventoryType);
     Mono<Inventory> findByInventoryName(String inventoryName);
 }
@@ -0,0 +1,21 @@
+package com.petclinic.inventoryservice.datalayer.Inventory;
+
+import com.petclinic.inventoryservice.utils.SearchKeys;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the search keys of an inventory in step with its name and description each time the inventory is saved
+ */
+@Component
+public class InventorySearchKeyCallback implements ReactiveBeforeConvertCallback<Inventory> {
+
+    @Override
+    public Publisher<Inventory> onBeforeConvert(Inventory inventory, String collection) {
+        inventory.setInventoryNameKey(SearchKeys.toKey(inventory.getInventoryName()));
+        inventory.setInventoryDescriptionKey(SearchKeys.toKey(inventory.getInventoryDescription()));
+        return Mono.just(inventory);
+    }
+}
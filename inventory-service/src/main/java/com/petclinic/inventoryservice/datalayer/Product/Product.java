@@ -3,18 +3,30 @@ package com.petclinic.inventoryservice.datalayer.Product;
 import com.petclinic.inventoryservice.datalayer.Supply.Status;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @EqualsAndHashCode
+@Document(collection = "product")
+//the products are always read by inventory, the searches by name and the price and quantity ranges are ranges of these indexes
+@CompoundIndexes({
+        @CompoundIndex(name = "inventory_product_name_key", def = "{'inventoryId': 1, 'productNameKey': 1}"),
+        @CompoundIndex(name = "inventory_product_price", def = "{'inventoryId': 1, 'productPrice': 1}"),
+        @CompoundIndex(name = "inventory_product_quantity", def = "{'inventoryId': 1, 'productQuantity': 1}")
+})
 public class Product {
     @Id
     private String id;
     private String productId;
     private String inventoryId;
     private String productName;
+    //lowercase productName, set on save (see ProductSearchKeyCallback)
+    private String productNameKey;
     private String productDescription;
     private Integer productQuantity;
     private Double productPrice;
@@ -0,0 +1,29 @@
+package com.petclinic.inventoryservice.datalayer.Product;
+
+import lombok.*;
+
+/**
+ * The conditions a product of an inventory must meet to be returned by ProductRepositoryCustom, the null ones are not applied
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductFilter {
+    private String inventoryId;
+    private String productName;
+    //names starting with it, any case (see SearchKeys)
+    private String productNamePrefix;
+    private Double productPrice;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer productQuantity;
+    //quantity strictly below it
+    private Integer quantityBelow;
+    private Double productSalePrice;
+
+    public boolean hasConditions() {
+        return productName != null || productNamePrefix != null || productPrice != null || minPrice != null
+                || maxPrice != null || productQuantity != null || quantityBelow != null || productSalePrice != null;
+    }
+}
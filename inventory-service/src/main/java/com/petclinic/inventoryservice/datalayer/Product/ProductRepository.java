@@ -1,10 +1,11 @@
 package com.petclinic.inventoryservice.datalayer.Product;
 
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface ProductRepository extends ReactiveMongoRepository<Product, String> {
+public interface ProductRepository extends ReactiveMongoRepository<Product, String>, ProductRepositoryCustom {
     Mono<Boolean> existsByProductId(String productId);
 
     Mono<Product> findProductByProductId(String productId);
@@ -23,5 +24,9 @@ public interface ProductRepository extends ReactiveMongoRepository<Product, Stri
    //Regex
     Flux<Product> findAllProductsByInventoryIdAndProductNameRegex(String inventoryId, String regex);
 
+    //prefix search on the lowercase name, a range of the inventory_product_name_key index (see SearchKeys)
+    @Query("{ 'inventoryId': ?0, 'productNameKey': { $gte: ?1, $lt: ?2 } }")
+    Flux<Product> findAllProductsByInventoryIdAndProductNameKeyRange(String inventoryId, String lowerBound, String upperBound);
+
     Flux<Product> findAllByInventoryIdAndProductQuantityLessThan(String inventoryId, int productQuantity);
 }
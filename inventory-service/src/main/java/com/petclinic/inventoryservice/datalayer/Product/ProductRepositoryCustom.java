@@ -0,0 +1,27 @@
+package com.petclinic.inventoryservice.datalayer.Product;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Queries of the products built from a ProductFilter with the ReactiveMongoTemplate. Implemented in ProductRepositoryCustomImpl
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * The page and sort are applied by Mongo, only the products of the page are read
+     */
+    Flux<Product> findProducts(ProductFilter filter, Pageable pageable);
+
+    /**
+     * Counted by Mongo, the products are not read
+     */
+    Mono<Long> countProducts(ProductFilter filter);
+
+    /**
+     * The products of the page and the total number of products matching the filter, from one $facet aggregation
+     */
+    Mono<Page<Product>> findProductPage(ProductFilter filter, Pageable pageable);
+}
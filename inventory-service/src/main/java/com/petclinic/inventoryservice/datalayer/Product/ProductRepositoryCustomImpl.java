@@ -0,0 +1,114 @@
+package com.petclinic.inventoryservice.datalayer.Product;
+
+import com.petclinic.inventoryservice.utils.SearchKeys;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Product> findProducts(ProductFilter filter, Pageable pageable) {
+        Query query = new Query(toCriteria(filter)).with(pageable);
+        //ties are broken by id so the pages do not overlap
+        if (pageable.getSort().isSorted()) {
+            query.with(Sort.by("id"));
+        }
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Mono<Long> countProducts(ProductFilter filter) {
+        return mongoTemplate.count(new Query(toCriteria(filter)), Product.class);
+    }
+
+    @Override
+    public Mono<Page<Product>> findProductPage(ProductFilter filter, Pageable pageable) {
+        //the match and the sort come before the facet so Mongo can serve them from the indexes of Product,
+        //inside a facet every stage works on the documents already read
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(toCriteria(filter)));
+        if (pageable.getSort().isSorted()) {
+            operations.add(Aggregation.sort(pageable.getSort().and(Sort.by("id"))));
+        }
+
+        List<AggregationOperation> page = new ArrayList<>();
+        if (pageable.isPaged()) {
+            page.add(Aggregation.skip(pageable.getOffset()));
+            page.add(Aggregation.limit(pageable.getPageSize()));
+        }
+        //a facet cannot be an empty pipeline
+        if (page.isEmpty()) {
+            page.add(Aggregation.skip(0L));
+        }
+
+        operations.add(Aggregation.facet(page.toArray(AggregationOperation[]::new)).as("products")
+                .and(Aggregation.count().as("total")).as("total"));
+        Aggregation aggregation = Aggregation.newAggregation(operations);
+
+        return mongoTemplate.aggregate(aggregation, Product.class, Document.class)
+                .next()
+                .map(result -> {
+                    List<Product> products = result.getList("products", Document.class).stream()
+                            .map(product -> mongoTemplate.getConverter().read(Product.class, product))
+                            .toList();
+                    //no count document when nothing matches
+                    List<Document> total = result.getList("total", Document.class);
+                    long totalElements = total.isEmpty() ? 0 : ((Number) total.get(0).get("total")).longValue();
+                    return new PageImpl<>(products, pageable, totalElements);
+                });
+    }
+
+    /**
+     * The conditions are all on the inventoryId first, so they are served by the compound indexes of Product
+     */
+    private Criteria toCriteria(ProductFilter filter) {
+        List<Criteria> conditions = new ArrayList<>();
+        conditions.add(Criteria.where("inventoryId").is(filter.getInventoryId()));
+
+        if (filter.getProductName() != null) {
+            conditions.add(Criteria.where("productName").is(filter.getProductName()));
+        }
+        if (filter.getProductNamePrefix() != null) {
+            conditions.add(Criteria.where("productNameKey")
+                    .gte(SearchKeys.lowerBound(filter.getProductNamePrefix()))
+                    .lt(SearchKeys.upperBound(filter.getProductNamePrefix())));
+        }
+        if (filter.getProductPrice() != null) {
+            conditions.add(Criteria.where("productPrice").is(filter.getProductPrice()));
+        }
+        if (filter.getMinPrice() != null) {
+            conditions.add(Criteria.where("productPrice").gte(filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add(Criteria.where("productPrice").lte(filter.getMaxPrice()));
+        }
+        if (filter.getProductQuantity() != null) {
+            conditions.add(Criteria.where("productQuantity").is(filter.getProductQuantity()));
+        }
+        if (filter.getQuantityBelow() != null) {
+            conditions.add(Criteria.where("productQuantity").lt(filter.getQuantityBelow()));
+        }
+        if (filter.getProductSalePrice() != null) {
+            conditions.add(Criteria.where("productSalePrice").is(filter.getProductSalePrice()));
+        }
+
+        return conditions.size() == 1 ? conditions.get(0) : new Criteria().andOperator(conditions);
+    }
+}
@@ -0,0 +1,20 @@
+package com.petclinic.inventoryservice.datalayer.Product;
+
+import com.petclinic.inventoryservice.utils.SearchKeys;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the search key of a product in step with its name each time the product is saved
+ */
+@Component
+public class ProductSearchKeyCallback implements ReactiveBeforeConvertCallback<Product> {
+
+    @Override
+    public Publisher<Product> onBeforeConvert(Product product, String collection) {
+        product.setProductNameKey(SearchKeys.toKey(product.getProductName()));
+        return Mono.just(product);
+    }
+}
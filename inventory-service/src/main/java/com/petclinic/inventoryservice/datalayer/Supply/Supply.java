@@ -2,6 +2,7 @@ package com.petclinic.inventoryservice.datalayer.Supply;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -10,6 +11,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Builder
 @EqualsAndHashCode
 @Document(collection = "supplies")
+//the supplies of an inventory are read through this index, ordered by name
+@CompoundIndex(name = "inventory_supply_name", def = "{'inventoryId': 1, 'supplyName': 1}")
 public class Supply {
 
     @Id
@@ -1,5 +1,6 @@
 package com.petclinic.inventoryservice.datalayer.Supply;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -12,6 +13,8 @@ public interface SupplyRepository extends ReactiveMongoRepository<Supply, String
     Mono<Supply> findSupplyByInventoryIdAndSupplyId(String inventoryId, String supplyId);
     Mono<Void> deleteBySupplyId(String supplyId);
     Flux<Supply> findAllSuppliesByInventoryId(String inventoryId);
+    //served by the inventoryId/supplyName index, pass Pageable.unpaged() to stream them all
+    Flux<Supply> findAllSuppliesByInventoryIdOrderBySupplyNameAsc(String inventoryId, Pageable pageable);
     Flux<Supply> findAllSuppliesByInventoryIdAndSupplyNameAndSupplyPriceAndSupplyQuantityAndSupplySalePrice(String inventoryId, String supplyName, Double supplyPrice, Integer supplyQuantity,Double supplySalePrice);
     Flux<Supply> findAllSuppliesByInventoryIdAndSupplyPriceAndSupplyQuantity(String inventoryId, Double supplyPrice, Integer supplyQuantity);
     Flux<Supply> findAllSuppliesByInventoryIdAndSupplyPrice(String inventoryId, Double supplyPrice);
@@ -20,6 +23,7 @@ public interface SupplyRepository extends ReactiveMongoRepository<Supply, String
     Flux<Supply> findAllSuppliesByInventoryIdAndSupplySalePrice(String inventoryId, Double supplySalePrice);
 
     Mono<Boolean> deleteByInventoryId(String inventoryId);
+    Mono<Long> deleteSuppliesByInventoryId(String inventoryId);
     Flux<Supply> findAllSuppliesByInventoryIdAndSupplyNameAndSupplyPriceAndSupplyQuantity(String inventoryId, String supplyName, Double supplyPrice, Integer supplyQuantity);
     //Regex
     Flux<Supply> findAllSuppliesByInventoryIdAndSupplyNameRegex(String inventoryId, String regex);
@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 import java.util.Optional;
@@ -59,9 +61,29 @@ public class InventoryController {
                                                                                                  @RequestParam(required = false) String productName,
                                                                                                  @RequestParam(required = false) Double productPrice,
                                                                                                  @RequestParam(required = false) Integer productQuantity,
+                                                                                                 @RequestParam(required = false) Double minPrice,
+                                                                                                 @RequestParam(required = false) Double maxPrice,
+                                                                                                 @RequestParam(required = false) Integer quantityBelow,
                                                                                                  @RequestParam Optional<Integer> page,
-                                                                                                 @RequestParam Optional<Integer> size){
-        return productInventoryService.getProductsInInventoryByInventoryIdAndProductsFieldsPagination(inventoryId, productName, productPrice, productQuantity, PageRequest.of(page.orElse(0),size.orElse(5)));
+                                                                                                 @RequestParam Optional<Integer> size,
+                                                                                                 @RequestParam Optional<String> sort){
+        return productInventoryService.getProductsInInventoryByInventoryIdAndProductsFieldsPagination(inventoryId, productName, productPrice, productQuantity, minPrice, maxPrice, quantityBelow, PageRequest.of(page.orElse(0),size.orElse(5), toSort(sort)));
+    }
+
+    //the page of products and the total number of products of the search, in one response
+    @GetMapping("/{inventoryId}/products-page")
+    public Mono<ResponseEntity<ProductPageResponseDTO>> getProductPageInInventory(@PathVariable String inventoryId,
+                                                                                 @RequestParam(required = false) String productName,
+                                                                                 @RequestParam(required = false) Double productPrice,
+                                                                                 @RequestParam(required = false) Integer productQuantity,
+                                                                                 @RequestParam(required = false) Double minPrice,
+                                                                                 @RequestParam(required = false) Double maxPrice,
+                                                                                 @RequestParam(required = false) Integer quantityBelow,
+                                                                                 @RequestParam Optional<Integer> page,
+                                                                                 @RequestParam Optional<Integer> size,
+                                                                                 @RequestParam Optional<String> sort){
+        return productInventoryService.getProductPageInInventory(inventoryId, productName, productPrice, productQuantity, minPrice, maxPrice, quantityBelow, PageRequest.of(page.orElse(0),size.orElse(5), toSort(sort)))
+                .map(response -> ResponseEntity.status(HttpStatus.OK).body(response));
     }
 
     @GetMapping("/{inventoryId}/products-count")
@@ -70,7 +92,7 @@ public class InventoryController {
                                                                                @RequestParam(required = false) Double productPrice,
                                                                                @RequestParam(required = false) Integer productQuantity,
                                                                                 @RequestParam(required = false) Double productSalePrice){
-        return productInventoryService.getProductsInInventoryByInventoryIdAndProductsField(inventoryId, productName, productPrice, productQuantity, productSalePrice).count()
+        return productInventoryService.getTotalNumberOfProducts(inventoryId, productName, productPrice, productQuantity, productSalePrice)
                 .map(response -> ResponseEntity.status(HttpStatus.OK).body(response));
     }
 
@@ -87,8 +109,13 @@ public Flux<InventoryResponseDTO> searchInventories(
         @RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size,
         @RequestParam(name = "inventoryName", required = false) String inventoryName,
         @RequestParam(name = "inventoryType", required = false) String inventoryType,
-        @RequestParam(name = "inventoryDescription", required = false) String inventoryDescription) {
+        @RequestParam(name = "inventoryDescription", required = false) String inventoryDescription,
+        @RequestParam Optional<Boolean> textSearch) {
 
+    //textSearch looks for the words of the description anywhere in it instead of its start
+    if (textSearch.orElse(false) && inventoryDescription != null) {
+        return productInventoryService.searchInventoriesByDescriptionText(PageRequest.of(page.orElse(0),size.orElse(10)), inventoryDescription);
+    }
     return productInventoryService.searchInventories(PageRequest.of(page.orElse(0),size.orElse(10)), inventoryName, inventoryType, inventoryDescription);
 }
 
@@ -170,15 +197,21 @@ public Flux<InventoryResponseDTO> searchInventories(
     public Mono<ResponseEntity<InventoryResponseDTO>> addSupplyToInventoryByName(
             @PathVariable String inventoryName,
             @RequestBody Mono<SupplyRequestDTO> supplyRequestDTO) {
-        return productInventoryService.addSupplyToInventoryByInventoryName(inventoryName, supplyRequestDTO)
+        return supplyInventoryService.addSupplyToInventoryByInventoryName(inventoryName, supplyRequestDTO)
                 .map(inventoryResponseDTO -> ResponseEntity.status(HttpStatus.CREATED).body(inventoryResponseDTO))
                 .onErrorResume(e -> Mono.just(ResponseEntity.notFound().build()));
     }
 
 
     @GetMapping("/{inventoryName}/supplies")
-    public Mono<ResponseEntity<List<SupplyResponseDTO>>> getSuppliesByInventoryName(@PathVariable String inventoryName) {
-        return supplyInventoryService.getSuppliesByInventoryName(inventoryName)
+    public Mono<ResponseEntity<List<SupplyResponseDTO>>> getSuppliesByInventoryName(@PathVariable String inventoryName,
+                                                                                    @RequestParam Optional<Integer> page,
+                                                                                    @RequestParam Optional<Integer> size) {
+        //all the supplies unless a page is asked for
+        Pageable pageable = page.isPresent() || size.isPresent()
+                ? PageRequest.of(page.orElse(0), size.orElse(10))
+                : Pageable.unpaged();
+        return supplyInventoryService.getSuppliesByInventoryName(inventoryName, pageable)
                 .collectList()
                 .map(supplies -> supplies.isEmpty()
                         ? ResponseEntity.notFound().build()
@@ -192,4 +225,14 @@ public Flux<InventoryResponseDTO> searchInventories(
         return productInventoryService.getLowStockProducts(inventoryId, stockThreshold);
 
 }
+
+    //sort=productPrice or sort=productPrice,desc
+    private static Sort toSort(Optional<String> sort) {
+        if (sort.isEmpty() || sort.get().isBlank()) {
+            return Sort.unsorted();
+        }
+        String[] parts = sort.get().split(",");
+        Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, parts[0].trim());
+    }
 }
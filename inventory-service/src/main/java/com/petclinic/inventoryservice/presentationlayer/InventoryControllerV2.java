@@ -4,6 +4,7 @@ import com.petclinic.inventoryservice.businesslayer.SupplyInventoryService;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -173,8 +174,14 @@ public class InventoryControllerV2 {
     }
 
     @GetMapping("/{inventoryName}/supplies")
-    public Mono<ResponseEntity<List<SupplyResponseDTO>>> getSuppliesByInventoryName(@PathVariable String inventoryName) {
-        return supplyInventoryService.getSuppliesByInventoryName(inventoryName)
+    public Mono<ResponseEntity<List<SupplyResponseDTO>>> getSuppliesByInventoryName(@PathVariable String inventoryName,
+                                                                                    @RequestParam Optional<Integer> page,
+                                                                                    @RequestParam Optional<Integer> size) {
+        //all the supplies unless a page is asked for
+        Pageable pageable = page.isPresent() || size.isPresent()
+                ? PageRequest.of(page.orElse(0), size.orElse(10))
+                : Pageable.unpaged();
+        return supplyInventoryService.getSuppliesByInventoryName(inventoryName, pageable)
                 .collectList()
                 .map(supplies -> supplies.isEmpty()
                         ? ResponseEntity.notFound().build()
@@ -0,0 +1,18 @@
+package com.petclinic.inventoryservice.presentationlayer;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class ProductPageResponseDTO {
+    private List<ProductResponseDTO> products;
+    private Integer page;
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+}
@@ -803,62 +803,6 @@ public class DataBaseLoaderService  implements CommandLineRunner {
                 .build();
 
 
-        //Inventory1 ---------------------------------------------------
-        inventory1.addSupply(Supply9);
-        inventory1.addSupply(Supply10);
-        //--------------------------------------------------------------
-
-        //Inventory2 ---------------------------------------------------
-        inventory2.addSupply(Supply4);
-        inventory2.addSupply(Supply5);
-        inventory2.addSupply(Supply6);
-        //--------------------------------------------------------------
-
-        //Inventory3 ---------------------------------------------------
-        inventory3.addSupply(Supply8);
-        //--------------------------------------------------------------
-
-        //Inventory4 ---------------------------------------------------
-        inventory4.addSupply(Supply1);
-        inventory4.addSupply(Supply2);
-        inventory4.addSupply(Supply3);
-        //--------------------------------------------------------------
-
-        //Inventory5 ---------------------------------------------------
-        inventory5.addSupply(Supply26);
-        inventory5.addSupply(Supply27);
-        inventory5.addSupply(Supply28);
-        //--------------------------------------------------------------
-
-        //Inventory6 ---------------------------------------------------
-        inventory6.addSupply(Supply17);
-        inventory6.addSupply(Supply18);
-        //--------------------------------------------------------------
-
-        //Inventory7 ---------------------------------------------------
-        inventory7.addSupply(Supply23);
-        inventory7.addSupply(Supply24);
-        inventory7.addSupply(Supply25);
-        //--------------------------------------------------------------
-
-        //Inventory8 ---------------------------------------------------
-        inventory8.addSupply(Supply21);
-        inventory8.addSupply(Supply22);
-        //--------------------------------------------------------------
-
-        //Inventory9 ---------------------------------------------------
-        inventory9.addSupply(Supply19);
-        inventory9.addSupply(Supply20);
-        //--------------------------------------------------------------
-
-        //Inventory10 ---------------------------------------------------
-        inventory10.addSupply(Supply29);
-        inventory10.addSupply(Supply30);
-        inventory10.addSupply(Supply31);
-        //--------------------------------------------------------------
-
-
-
         Flux.just(supply1, supply2, supply3, supply4, supply5, supply6, supply7, supply8, supply9,
                         supply10, supply11, supply12, supply13, supply14, supply15,
                         supply16, supply17, supply18, supply19, supply20, supply21, supply22,
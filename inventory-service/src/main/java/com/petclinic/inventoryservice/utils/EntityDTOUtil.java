@@ -8,10 +8,9 @@ import com.petclinic.inventoryservice.datalayer.Supply.Status;
 import com.petclinic.inventoryservice.datalayer.Supply.Supply;
 import com.petclinic.inventoryservice.presentationlayer.*;
 import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Page;
 
-import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class EntityDTOUtil {
 
@@ -81,25 +80,25 @@ public class EntityDTOUtil {
                 .build();
     }
 
+    /**
+     * The header of the inventory, its supplies are in their own collection and are not loaded with it
+     */
     public static InventoryResponseDTO toInventoryResponseDTO(Inventory inventory){
         InventoryResponseDTO inventoryResponseDTO = new InventoryResponseDTO();
         BeanUtils.copyProperties(inventory, inventoryResponseDTO);
-        List<SupplyResponseDTO> supplyResponseDTOs = inventory.getSupplies().stream()
-                .map(supply -> new SupplyResponseDTO(
-                        supply.getSupplyId(),
-                        supply.getInventoryId(),
-                        supply.getSupplyName(),
-                        supply.getSupplyDescription(),
-                        supply.getSupplyPrice(),
-                        supply.getSupplyQuantity(),
-                        supply.getSupplySalePrice(),
-                        supply.getStatus()
-                ))
-                .collect(Collectors.toList());
-        inventoryResponseDTO.setSupplies(supplyResponseDTOs);
         return inventoryResponseDTO;
     }
 
+    public static ProductPageResponseDTO toProductPageResponseDTO(Page<Product> page){
+        return ProductPageResponseDTO.builder()
+                .products(page.getContent().stream().map(EntityDTOUtil::toProductResponseDTO).toList())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .build();
+    }
+
     public static Inventory toInventoryEntity(InventoryRequestDTO inventoryResponseDTO){
         Inventory inventory = new Inventory();
         BeanUtils.copyProperties(inventoryResponseDTO, inventory);
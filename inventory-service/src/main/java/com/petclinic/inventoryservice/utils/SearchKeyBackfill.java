@@ -0,0 +1,92 @@
+package com.petclinic.inventoryservice.utils;
+
+import com.petclinic.inventoryservice.datalayer.Inventory.Inventory;
+import com.petclinic.inventoryservice.datalayer.Product.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives the products and inventories saved before they had search keys their lowercase name and description keys.
+ * The keys are computed here rather than with $toLower, which only lowercases ASCII, so they match the keys set on save.
+ * Runs at startup, only the documents without keys are read so it does nothing after the first run.
+ */
+@Service
+@Slf4j
+public class SearchKeyBackfill implements CommandLineRunner {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+    private static final int BATCH_SIZE = 1000;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public SearchKeyBackfill(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        backfillSearchKeys()
+                .doOnNext(count -> {
+                    if (count > 0) {
+                        log.info("Backfilled the search keys of {} products and inventories", count);
+                    }
+                })
+                .timeout(TIMEOUT)
+                .onErrorResume(error -> {
+                    log.warn("Could not backfill the search keys of the products and inventories: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+
+    /**
+     * @return The number of products and inventories given search keys
+     */
+    public Mono<Long> backfillSearchKeys() {
+        return backfill(Product.class, Map.of("productName", "productNameKey"))
+                .zipWith(backfill(Inventory.class, Map.of(
+                        "inventoryName", "inventoryNameKey",
+                        "inventoryDescription", "inventoryDescriptionKey")), Long::sum);
+    }
+
+    /**
+     * @param keys The key of each field, they are set together so the documents missing one of them are backfilled
+     */
+    private Mono<Long> backfill(Class<?> entityClass, Map<String, String> keys) {
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        String anyKey = keys.values().iterator().next();
+
+        Query missingKeys = new Query(Criteria.where(anyKey).exists(false));
+        keys.keySet().forEach(field -> missingKeys.fields().include(field));
+
+        return mongoTemplate.find(missingKeys, Document.class, collection)
+                .buffer(BATCH_SIZE)
+                .concatMap(documents -> update(documents, keys, collection))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> update(List<Document> documents, Map<String, String> keys, String collection) {
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        documents.forEach(document -> {
+            Update update = new Update();
+            keys.forEach((field, key) -> update.set(key, SearchKeys.toKey(document.getString(field))));
+            bulkOperations.updateOne(new Query(Criteria.where("_id").is(document.get("_id"))), update);
+        });
+
+        return bulkOperations.execute()
+                .map(result -> (long) result.getModifiedCount());
+    }
+}
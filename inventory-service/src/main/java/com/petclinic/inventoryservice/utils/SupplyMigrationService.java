@@ -0,0 +1,88 @@
+package com.petclinic.inventoryservice.utils;
+
+import com.petclinic.inventoryservice.datalayer.Inventory.Inventory;
+import com.petclinic.inventoryservice.datalayer.Supply.Supply;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves the supplies embedded in the inventories saved before supplies had their own collection to the supplies
+ * collection, then removes them from the inventory documents.
+ * Runs at startup, only the inventories that still have embedded supplies are read so it does nothing after the first run.
+ */
+@Service
+@Slf4j
+public class SupplyMigrationService implements CommandLineRunner {
+
+    static final String EMBEDDED_SUPPLIES = "supplies";
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public SupplyMigrationService(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        splitInventories()
+                .doOnNext(count -> {
+                    if (count > 0) {
+                        log.info("Moved the supplies of {} inventories to the supplies collection", count);
+                    }
+                })
+                .timeout(TIMEOUT)
+                .onErrorResume(error -> {
+                    log.warn("Could not move the embedded supplies of the inventories: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+
+    /**
+     * @return The number of inventories whose supplies were moved
+     */
+    public Mono<Long> splitInventories() {
+        String inventories = mongoTemplate.getCollectionName(Inventory.class);
+        return mongoTemplate.find(new Query(Criteria.where(EMBEDDED_SUPPLIES).exists(true)), Document.class, inventories)
+                .concatMap(inventory -> splitInventory(inventory, inventories))
+                .count();
+    }
+
+    private Mono<Void> splitInventory(Document inventory, String inventories) {
+        String inventoryId = inventory.getString("inventoryId");
+        List<Document> supplies = inventory.getList(EMBEDDED_SUPPLIES, Document.class, List.of());
+
+        return Flux.fromIterable(supplies)
+                .map(embeddedSupply -> {
+                    Supply supply = mongoTemplate.getConverter().read(Supply.class, embeddedSupply);
+                    if (supply.getSupplyId() == null) {
+                        supply.setSupplyId(UUID.randomUUID().toString());
+                    }
+                    if (supply.getInventoryId() == null) {
+                        supply.setInventoryId(inventoryId);
+                    }
+                    return supply;
+                })
+                //saved by id, so the supplies moved by a run that stopped before the unset are not duplicated
+                .concatMap(mongoTemplate::save)
+                .then(mongoTemplate.updateFirst(
+                        new Query(Criteria.where("_id").is(inventory.get("_id"))),
+                        new Update().unset(EMBEDDED_SUPPLIES),
+                        inventories))
+                .then();
+    }
+}
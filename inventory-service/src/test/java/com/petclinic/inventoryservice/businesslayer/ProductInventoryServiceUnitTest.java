@@ -4,6 +4,7 @@ import com.petclinic.inventoryservice.datalayer.Inventory.InventoryRepository;
 import com.petclinic.inventoryservice.datalayer.Inventory.InventoryType;
 import com.petclinic.inventoryservice.datalayer.Inventory.InventoryTypeRepository;
 import com.petclinic.inventoryservice.datalayer.Product.Product;
+import com.petclinic.inventoryservice.datalayer.Product.ProductFilter;
 import com.petclinic.inventoryservice.datalayer.Product.ProductRepository;
 import com.petclinic.inventoryservice.presentationlayer.*;
 import com.petclinic.inventoryservice.utils.exceptions.InvalidInputException;
@@ -13,15 +14,18 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -109,12 +113,12 @@ class ProductInventoryServiceUnitTest {
     void getProductsInInventoryByInventoryIdAndProductFieldPagination_ShouldSucceed(){
         Pageable pageable = PageRequest.of(0, 2);
 
-        when(productRepository.findAllProductsByInventoryId(product.getInventoryId()))
-                .thenReturn(Flux.just(product, product2, product1));
+        when(productRepository.findProducts(ProductFilter.builder().inventoryId(product.getInventoryId()).build(), pageable))
+                .thenReturn(Flux.just(product, product2));
 
         Flux<ProductResponseDTO> productResponseDTOMono = productInventoryService
                 .getProductsInInventoryByInventoryIdAndProductsFieldsPagination(product.getInventoryId(), null,null, null,
-                        pageable);
+                        null, null, null, pageable);
         StepVerifier.create(productResponseDTOMono)
                 .expectNextMatches(prod -> prod.getProductId().equals(product.getProductId()))
                 .expectNextMatches(prod -> prod.getProductId().equals(product2.getProductId()))
@@ -125,13 +129,13 @@ class ProductInventoryServiceUnitTest {
     @Test
     void getProductsInInventoryByInventoryIdAndProductFieldsPagination_WithPriceAndQuantity_ShouldSucceed() {
         Pageable pageable = PageRequest.of(0, 2);
-        when(productRepository.findAllProductsByInventoryIdAndProductPriceAndProductQuantity(
-                product.getInventoryId(), 10.00, 5))
+        when(productRepository.findProducts(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).productPrice(10.00).productQuantity(5).build(), pageable))
                 .thenReturn(Flux.just(product, product2));
 
         Flux<ProductResponseDTO> productResponseDTOMono = productInventoryService
                 .getProductsInInventoryByInventoryIdAndProductsFieldsPagination(
-                        product.getInventoryId(), null, 10.00, 5, pageable);
+                        product.getInventoryId(), null, 10.00, 5, null, null, null, pageable);
 
         StepVerifier.create(productResponseDTOMono)
                 .expectNextMatches(prod -> prod.getProductId().equals(product.getProductId()))
@@ -143,13 +147,13 @@ class ProductInventoryServiceUnitTest {
     @Test
     void getProductsInInventoryByInventoryIdAndProductFieldsPagination_WithPriceOnly_ShouldSucceed() {
         Pageable pageable = PageRequest.of(0, 2);
-        when(productRepository.findAllProductsByInventoryIdAndProductPrice(
-                product.getInventoryId(), 10.00))
+        when(productRepository.findProducts(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).productPrice(10.00).build(), pageable))
                 .thenReturn(Flux.just(product, product2));
 
         Flux<ProductResponseDTO> productResponseDTOMono = productInventoryService
                 .getProductsInInventoryByInventoryIdAndProductsFieldsPagination(
-                        product.getInventoryId(), null, 10.00, null, pageable);
+                        product.getInventoryId(), null, 10.00, null, null, null, null, pageable);
 
         StepVerifier.create(productResponseDTOMono)
                 .expectNextMatches(prod -> prod.getProductId().equals(product.getProductId()))
@@ -161,13 +165,13 @@ class ProductInventoryServiceUnitTest {
     @Test
     void getProductsInInventoryByInventoryIdAndProductFieldsPagination_WithQuantityOnly_ShouldSucceed() {
         Pageable pageable = PageRequest.of(0, 2);
-        when(productRepository.findAllProductsByInventoryIdAndProductQuantity(
-                product.getInventoryId(), 5))
+        when(productRepository.findProducts(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).productQuantity(5).build(), pageable))
                 .thenReturn(Flux.just(product, product2));
 
         Flux<ProductResponseDTO> productResponseDTOMono = productInventoryService
                 .getProductsInInventoryByInventoryIdAndProductsFieldsPagination(
-                        product.getInventoryId(), null, null, 5, pageable);
+                        product.getInventoryId(), null, null, 5, null, null, null, pageable);
 
         StepVerifier.create(productResponseDTOMono)
                 .expectNextMatches(prod -> prod.getProductId().equals(product.getProductId()))
@@ -179,13 +183,13 @@ class ProductInventoryServiceUnitTest {
     @Test
     void getProductsInInventoryByInventoryIdAndProductFieldsPagination_WithNameOnly_ShouldSucceed() {
         Pageable pageable = PageRequest.of(0, 2);
-        when(productRepository.findAllProductsByInventoryIdAndProductName(
-                product.getInventoryId(), "name"))
+        when(productRepository.findProducts(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).productName("name").build(), pageable))
                 .thenReturn(Flux.just(product, product2));
 
         Flux<ProductResponseDTO> productResponseDTOMono = productInventoryService
                 .getProductsInInventoryByInventoryIdAndProductsFieldsPagination(
-                        product.getInventoryId(), "name", null, null, pageable);
+                        product.getInventoryId(), "name", null, null, null, null, null, pageable);
 
         StepVerifier.create(productResponseDTOMono)
                 .expectNextMatches(prod -> prod.getProductId().equals(product.getProductId()))
@@ -194,6 +198,78 @@ class ProductInventoryServiceUnitTest {
                 .verify();
     }
 
+    @Test
+    void getProductsInInventoryByInventoryIdAndProductFieldsPagination_WithRangesAndNoMatch_ShouldThrowNotFound() {
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("productPrice"));
+        when(productRepository.findProducts(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).minPrice(10.00).maxPrice(20.00).quantityBelow(5).build(), pageable))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(productInventoryService.getProductsInInventoryByInventoryIdAndProductsFieldsPagination(
+                        product.getInventoryId(), null, null, null, 10.00, 20.00, 5, pageable))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getProductsInInventoryByInventoryIdAndProductFieldsPagination_WithMinPriceAboveMaxPrice_ShouldThrowInvalidInput() {
+        StepVerifier.create(productInventoryService.getProductsInInventoryByInventoryIdAndProductsFieldsPagination(
+                        product.getInventoryId(), null, null, null, 20.00, 10.00, null, PageRequest.of(0, 2)))
+                .expectError(InvalidInputException.class)
+                .verify();
+    }
+
+    @Test
+    void getProductsInInventoryByInventoryIdAndProductFieldsPagination_WithUnknownSortField_ShouldThrowInvalidInput() {
+        StepVerifier.create(productInventoryService.getProductsInInventoryByInventoryIdAndProductsFieldsPagination(
+                        product.getInventoryId(), null, null, null, null, null, null, PageRequest.of(0, 2, Sort.by("productDescription"))))
+                .expectError(InvalidInputException.class)
+                .verify();
+
+        verify(productRepository, never()).findProducts(any(), any());
+    }
+
+    @Test
+    void getProductPageInInventory_ShouldReturnThePageAndTheTotal() {
+        Pageable pageable = PageRequest.of(1, 2);
+        when(productRepository.findProductPage(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).quantityBelow(20).build(), pageable))
+                .thenReturn(Mono.just(new PageImpl<>(List.of(product, product2), pageable, 5)));
+
+        StepVerifier.create(productInventoryService.getProductPageInInventory(
+                        product.getInventoryId(), null, null, null, null, null, 20, pageable))
+                .assertNext(page -> {
+                    assertEquals(2, page.getProducts().size());
+                    assertEquals(1, page.getPage());
+                    assertEquals(2, page.getSize());
+                    assertEquals(5L, page.getTotalElements());
+                    assertEquals(3, page.getTotalPages());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getTotalNumberOfProducts_ShouldCountTheProductsStartingWithTheName() {
+        when(productRepository.countProducts(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).productNamePrefix("Ben").build()))
+                .thenReturn(Mono.just(3L));
+
+        StepVerifier.create(productInventoryService.getTotalNumberOfProducts(product.getInventoryId(), "Ben", null, null, null))
+                .expectNext(3L)
+                .verifyComplete();
+    }
+
+    @Test
+    void getTotalNumberOfProducts_WithoutMatchingProduct_ShouldCountZero() {
+        when(productRepository.countProducts(ProductFilter.builder()
+                .inventoryId(product.getInventoryId()).productNamePrefix("Ben").productPrice(10.00).build()))
+                .thenReturn(Mono.just(0L));
+
+        StepVerifier.create(productInventoryService.getTotalNumberOfProducts(product.getInventoryId(), "Ben", 10.00, null, null))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
     @Test
     void getAllProductsByInventoryId_andProductName_andProductPrice_andProductQuantity_withValidFields_shouldSucceed(){
         String inventoryId = "1";
@@ -1133,7 +1209,7 @@ class ProductInventoryServiceUnitTest {
         Pageable page = PageRequest.of(0, 5);
         String description = "NonExistingDescription";
 
-        when(inventoryRepository.findByInventoryDescriptionRegex(anyString()))
+        when(inventoryRepository.findByInventoryDescriptionKeyRange(anyString(), anyString(), any(Pageable.class)))
                 .thenReturn(Flux.empty());  // No inventory found
 
         Flux<InventoryResponseDTO> result =productInventoryService.searchInventories(page, null, null, description);
@@ -1142,16 +1218,56 @@ class ProductInventoryServiceUnitTest {
                 .expectError(NotFoundException.class)
                 .verify();
     }
+    @Test
+    void searchInventories_withName_shouldReadTheRangeOfTheLowercaseName() {
+        Pageable page = PageRequest.of(1, 5);
+
+        when(inventoryRepository.findByInventoryNameKeyRange("med", "mee", page))
+                .thenReturn(Flux.just(inventory));
+
+        Flux<InventoryResponseDTO> result = productInventoryService.searchInventories(page, "Med", null, null);
+
+        StepVerifier.create(result)
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void searchInventoriesByDescriptionText_shouldSearchTheWordsOfTheDescription() {
+        Pageable page = PageRequest.of(0, 5);
+
+        when(inventoryRepository.findAllBy(any(TextCriteria.class), eq(page)))
+                .thenReturn(Flux.just(inventory));
+
+        Flux<InventoryResponseDTO> result = productInventoryService.searchInventoriesByDescriptionText(page, "procedures");
+
+        StepVerifier.create(result)
+                .expectNextMatches(inventoryResponseDTO -> inventoryResponseDTO.getInventoryDescription().equals("Medication for procedures"))
+                .verifyComplete();
+    }
+
+    @Test
+    void searchInventoriesByDescriptionText_withNoMatch_shouldThrowNotFound() {
+        Pageable page = PageRequest.of(0, 5);
+
+        when(inventoryRepository.findAllBy(any(TextCriteria.class), eq(page)))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(productInventoryService.searchInventoriesByDescriptionText(page, "unknown"))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
     @Test
     void getProductsByInventoryIdAndProductName_withValidFields_shouldSucceed(){
         String inventoryId = "1";
         String productName = "B";
-        String regexPattern = "(?i)^" + Pattern.quote(productName) + ".*";
 
         when(productRepository
-                .findAllProductsByInventoryIdAndProductNameRegex(
+                .findAllProductsByInventoryIdAndProductNameKeyRange(
                         inventoryId,
-                        regexPattern))
+                        "b",
+                        "c"))
                 .thenReturn(Flux.just(product));
 
         Flux<ProductResponseDTO> productResponseDTOMono = productInventoryService
@@ -4,6 +4,7 @@ import com.petclinic.inventoryservice.datalayer.Inventory.Inventory;
 import com.petclinic.inventoryservice.datalayer.Inventory.InventoryRepository;
 import com.petclinic.inventoryservice.datalayer.Supply.Status;
 import com.petclinic.inventoryservice.datalayer.Supply.Supply;
+import com.petclinic.inventoryservice.datalayer.Supply.SupplyRepository;
 import com.petclinic.inventoryservice.presentationlayer.InventoryResponseDTO;
 import com.petclinic.inventoryservice.presentationlayer.SupplyRequestDTO;
 import com.petclinic.inventoryservice.presentationlayer.SupplyResponseDTO;
@@ -13,19 +14,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 import java.util.UUID;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +35,9 @@ public class SupplyInventoryServiceUnitTest {
     @Mock
     private InventoryRepository inventoryRepository;
 
+    @Mock
+    private SupplyRepository supplyRepository;
+
     @InjectMocks
     private SupplyInventoryServiceImpl supplyInventoryService;
 
@@ -49,8 +53,6 @@ public class SupplyInventoryServiceUnitTest {
                 .inventoryName("TestInventory")
                 .build();
 
-        testInventory.setSupplies(new ArrayList<>());
-
         testSupplyRequestDTO = new SupplyRequestDTO(
                 "TestSupply",
                 "TestDescription",
@@ -77,42 +79,27 @@ public class SupplyInventoryServiceUnitTest {
 
         Mono<SupplyRequestDTO> supplyMono = Mono.just(testSupplyRequestDTO);
 
-        System.out.println("Initial Inventory Supplies: " + testInventory.getSupplies());
-
         when(inventoryRepository.findByInventoryName("TestInventory"))
                 .thenReturn(Mono.just(testInventory));
 
-        when(inventoryRepository.save(any(Inventory.class)))
-                .thenAnswer(invocation -> {
-                    Inventory inventoryToSave = invocation.getArgument(0);
-                    if (inventoryToSave.getSupplies().isEmpty()) {
-                        Supply supplyToAdd = new Supply(
-                                UUID.randomUUID().toString(),
-                                inventoryToSave.getInventoryId(),
-                                testSupplyRequestDTO.getSupplyName(),
-                                testSupplyRequestDTO.getSupplyDescription(),
-                                testSupplyRequestDTO.getSupplyQuantity(),
-                                testSupplyRequestDTO.getSupplyPrice(),
-                                testSupplyRequestDTO.getSupplySalePrice(),
-                                Status.AVAILABLE
-                        );
-                        inventoryToSave.addSupply(supplyToAdd);
-                    }
-                    return Mono.just(inventoryToSave);
-                });
+        when(supplyRepository.insert(any(Supply.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         Mono<InventoryResponseDTO> result = supplyInventoryService
                 .addSupplyToInventoryByInventoryName("TestInventory", supplyMono);
 
         StepVerifier.create(result)
                 .consumeNextWith(inventoryResponseDTO -> {
-                    System.out.println("Final Inventory Supplies: " + inventoryResponseDTO.getSupplies());
+                    assertEquals("TestInventory", inventoryResponseDTO.getInventoryName());
                     assertEquals(1, inventoryResponseDTO.getSupplies().size());
                     assertEquals("TestSupply", inventoryResponseDTO.getSupplies().get(0).getSupplyName());
+                    assertEquals("test-inventory-id", inventoryResponseDTO.getSupplies().get(0).getInventoryId());
                 })
                 .verifyComplete();
 
-        verify(inventoryRepository, times(1)).save(any(Inventory.class));
+        //the supply goes to its own collection, the inventory document is not rewritten
+        verify(supplyRepository, times(1)).insert(any(Supply.class));
+        verify(inventoryRepository, never()).save(any(Inventory.class));
     }
 
     @Test
@@ -157,10 +144,10 @@ public class SupplyInventoryServiceUnitTest {
                 Status.OUT_OF_STOCK
         );
 
-        testInventory.setSupplies(new ArrayList<>(Arrays.asList(supply1, supply2)));
-
         when(inventoryRepository.findByInventoryName("TestInventory"))
                 .thenReturn(Mono.just(testInventory));
+        when(supplyRepository.findAllSuppliesByInventoryIdOrderBySupplyNameAsc("test-inventory-id", Pageable.unpaged()))
+                .thenReturn(Flux.just(supply1, supply2));
 
         Flux<SupplyResponseDTO> result = supplyInventoryService.getSuppliesByInventoryName("TestInventory");
 
@@ -183,5 +170,28 @@ public class SupplyInventoryServiceUnitTest {
                 .verify();
     }
 
+    @Test
+    public void testGetSuppliesByInventoryName_WithPage_ReadsOnlyThePage() {
+        Supply supply3 = new Supply(
+                "id3",
+                "test-inventory-id",
+                "Supply3",
+                "Description3",
+                5,
+                30.0,
+                35.0,
+                Status.RE_ORDER
+        );
+        Pageable secondPage = PageRequest.of(1, 2);
+
+        when(inventoryRepository.findByInventoryName("TestInventory"))
+                .thenReturn(Mono.just(testInventory));
+        when(supplyRepository.findAllSuppliesByInventoryIdOrderBySupplyNameAsc("test-inventory-id", secondPage))
+                .thenReturn(Flux.just(supply3));
+
+        StepVerifier.create(supplyInventoryService.getSuppliesByInventoryName("TestInventory", secondPage))
+                .expectNextMatches(supply -> supply.getSupplyId().equals("id3"))
+                .verifyComplete();
+    }
 
 }
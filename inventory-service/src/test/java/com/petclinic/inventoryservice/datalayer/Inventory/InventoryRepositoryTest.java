@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
@@ -13,6 +16,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataMongoTest
+@Import(InventorySearchKeyCallback.class)
 class InventoryRepositoryTest {
     @Autowired
     InventoryRepository inventoryRepository;
@@ -135,6 +139,63 @@ class InventoryRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void save_ShouldSetTheLowercaseSearchKeys() {
+        Inventory inventory = buildInventory("inventoryId_6", "Surgical Tools", "Internal", "Scalpels AND Forceps");
+
+        StepVerifier
+                .create(inventoryRepository.save(inventory))
+                .assertNext(saved -> {
+                    assertThat(saved.getInventoryNameKey()).isEqualTo("surgical tools");
+                    assertThat(saved.getInventoryDescriptionKey()).isEqualTo("scalpels and forceps");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindInventoriesByNameKeyRange_InNameOrder() {
+        inventoryRepository.saveAll(Flux.just(
+                        buildInventory("inventoryId_7", "Qwerty Syringes", "Internal", "Description"),
+                        buildInventory("inventoryId_8", "QWERTY Gloves", "Internal", "Description"),
+                        buildInventory("inventoryId_9", "Qwertz Masks", "Internal", "Description")))
+                .blockLast();
+
+        StepVerifier
+                .create(inventoryRepository.findByInventoryNameKeyRange("qwerty", "qwertz", PageRequest.of(0, 10))
+                        .map(Inventory::getInventoryId))
+                .expectNext("inventoryId_8", "inventoryId_7")
+                .verifyComplete();
+
+        //the page is applied by the query
+        StepVerifier
+                .create(inventoryRepository.findByInventoryNameKeyRange("qwerty", "qwertz", PageRequest.of(1, 1))
+                        .map(Inventory::getInventoryId))
+                .expectNext("inventoryId_7")
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindInventoriesByDescriptionKeyRange() {
+        Inventory inventory = buildInventory("inventoryId_10", "SomeName", "Internal", "Xylitol free treats");
+        inventoryRepository.save(inventory).block();
+
+        StepVerifier
+                .create(inventoryRepository.findByInventoryDescriptionKeyRange("xylitol", "xylitom", PageRequest.of(0, 10)))
+                .expectNextMatches(result -> result.getInventoryId().equals("inventoryId_10"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindInventoriesByTheWordsOfTheirDescription() {
+        Inventory inventory = buildInventory("inventoryId_11", "SomeName", "Internal", "Bandages and zygomatic splints");
+        inventoryRepository.save(inventory).block();
+
+        StepVerifier
+                .create(inventoryRepository.findAllBy(TextCriteria.forDefaultLanguage().matching("zygomatic"), PageRequest.of(0, 10)))
+                .expectNextMatches(result -> result.getInventoryId().equals("inventoryId_11"))
+                .verifyComplete();
+    }
+
     private Inventory buildInventory(String inventoryId, String inventoryName, String inventoryType, String inventoryDescription) {
         return Inventory.builder()
                 .inventoryName(inventoryName)
@@ -5,12 +5,17 @@ import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataMongoTest
+@Import(ProductSearchKeyCallback.class)
 class ProductRepositoryTest {
     @Autowired
     ProductRepository productRepository;
@@ -217,6 +222,95 @@ class ProductRepositoryTest {
                 .expectNextMatches(result -> result.getProductId().equals("productId_2"))
                 .verifyComplete();
     }
+    @Test
+    public void shouldFindProductsByInventoryIdAndNameKeyRange() {
+        productRepository.saveAll(Flux.just(
+                        buildProduct("inventoryId_5", "productId_5", "Name", "Desc", 100.00, 10, 15.99),
+                        buildProduct("inventoryId_5", "productId_6", "NAMES", "Desc", 100.00, 10, 15.99),
+                        buildProduct("inventoryId_5", "productId_7", "Nano", "Desc", 100.00, 10, 15.99),
+                        buildProduct("inventoryId_6", "productId_8", "name", "Desc", 100.00, 10, 15.99)))
+                .blockLast();
+
+        StepVerifier
+                .create(productRepository.findAllProductsByInventoryIdAndProductNameKeyRange("inventoryId_5", "name", "namf")
+                        .map(Product::getProductId))
+                .expectNext("productId_5", "productId_6")
+                .verifyComplete();
+    }
+
+    @Test
+    public void findProducts_ShouldApplyTheRangesTheSortAndThePageInTheQuery() {
+        productRepository.saveAll(Flux.just(
+                        buildProduct("inventoryId_7", "productId_1", "Gauze", "Desc", 12.00, 4, 15.99),
+                        buildProduct("inventoryId_7", "productId_2", "Tape", "Desc", 25.00, 2, 15.99),
+                        buildProduct("inventoryId_7", "productId_3", "Scissors", "Desc", 18.00, 1, 15.99),
+                        buildProduct("inventoryId_7", "productId_4", "Gloves", "Desc", 15.00, 40, 15.99),
+                        buildProduct("inventoryId_7", "productId_5", "Syringes", "Desc", 5.00, 3, 15.99),
+                        buildProduct("inventoryId_8", "productId_6", "Gauze", "Desc", 12.00, 4, 15.99)))
+                .blockLast();
+        ProductFilter filter = ProductFilter.builder()
+                .inventoryId("inventoryId_7")
+                .minPrice(10.00)
+                .maxPrice(25.00)
+                .quantityBelow(5)
+                .build();
+
+        StepVerifier
+                .create(productRepository.findProducts(filter, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "productPrice")))
+                        .map(Product::getProductId))
+                .expectNext("productId_2", "productId_3")
+                .verifyComplete();
+        StepVerifier
+                .create(productRepository.findProducts(filter, PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "productPrice")))
+                        .map(Product::getProductId))
+                .expectNext("productId_1")
+                .verifyComplete();
+        StepVerifier
+                .create(productRepository.countProducts(filter))
+                .expectNext(3L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void findProductPage_ShouldReturnThePageAndTheTotalInOneQuery() {
+        productRepository.saveAll(Flux.just(
+                        buildProduct("inventoryId_9", "productId_1", "Benzodiazepines", "Desc", 100.00, 10, 15.99),
+                        buildProduct("inventoryId_9", "productId_2", "Bandages", "Desc", 20.00, 10, 15.99),
+                        buildProduct("inventoryId_9", "productId_3", "benadryl", "Desc", 30.00, 10, 15.99),
+                        buildProduct("inventoryId_9", "productId_4", "Carprofen", "Desc", 40.00, 10, 15.99)))
+                .blockLast();
+        ProductFilter filter = ProductFilter.builder()
+                .inventoryId("inventoryId_9")
+                .productNamePrefix("BEN")
+                .build();
+
+        StepVerifier
+                .create(productRepository.findProductPage(filter, PageRequest.of(0, 1, Sort.by("productPrice"))))
+                .assertNext(page -> {
+                    assertEquals(2, page.getTotalElements());
+                    assertEquals(2, page.getTotalPages());
+                    assertEquals(1, page.getContent().size());
+                    assertEquals("benadryl", page.getContent().get(0).getProductName());
+                })
+                .verifyComplete();
+
+        StepVerifier
+                .create(productRepository.findProductPage(filter, PageRequest.of(1, 1, Sort.by("productPrice"))))
+                .assertNext(page -> {
+                    assertEquals(2, page.getTotalElements());
+                    assertEquals("Benzodiazepines", page.getContent().get(0).getProductName());
+                })
+                .verifyComplete();
+
+        StepVerifier
+                .create(productRepository.findProductPage(ProductFilter.builder().inventoryId("inventoryId_10").build(), PageRequest.of(0, 5)))
+                .assertNext(page -> {
+                    assertEquals(0, page.getTotalElements());
+                    assertTrue(page.getContent().isEmpty());
+                })
+                .verifyComplete();
+    }
+
     @Test
     public void shouldFindProductByInventoryId() {
         // Arrange
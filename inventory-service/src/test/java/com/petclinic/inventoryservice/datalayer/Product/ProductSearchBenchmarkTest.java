@@ -0,0 +1,119 @@
+package com.petclinic.inventoryservice.datalayer.Product;
+
+import com.petclinic.inventoryservice.utils.SearchKeys;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the prefix search on the indexed search key with the case-insensitive regex it replaced, on 1M products.
+ * Takes a few minutes, run it with INVENTORY_SEARCH_BENCHMARK=true
+ */
+@DataMongoTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "INVENTORY_SEARCH_BENCHMARK", matches = "true")
+class ProductSearchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchBenchmarkTest.class);
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int INVENTORIES = 10;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int RUNS = 20;
+    private static final String INVENTORY_ID = "inventoryId_0";
+    private static final String PREFIX = "Ben";
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeAll
+    void seedProducts() {
+        Random random = new Random(42);
+        String collection = mongoTemplate.getCollectionName(Product.class);
+
+        productRepository.deleteAll()
+                .thenMany(Flux.range(0, PRODUCTS / BATCH_SIZE))
+                .concatMap(batch -> {
+                    List<Document> products = new ArrayList<>(BATCH_SIZE);
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        String productName = randomName(random);
+                        products.add(new Document("productId", batch + "_" + i)
+                                .append("inventoryId", "inventoryId_" + random.nextInt(INVENTORIES))
+                                .append("productName", productName)
+                                .append("productNameKey", SearchKeys.toKey(productName))
+                                .append("productQuantity", random.nextInt(100))
+                                .append("productPrice", 10.0));
+                    }
+                    return mongoTemplate.insert(products, collection).then();
+                })
+                .blockLast();
+    }
+
+    @Test
+    void searchByNameKeyRange_IsAnIndexRangeScan() {
+        String regex = "(?i)^" + Pattern.quote(PREFIX) + ".*";
+        String lowerBound = SearchKeys.lowerBound(PREFIX);
+        String upperBound = SearchKeys.upperBound(PREFIX);
+
+        long regexMatches = time("regex", () -> productRepository.findAllProductsByInventoryIdAndProductNameRegex(INVENTORY_ID, regex).count());
+        long rangeMatches = time("key range", () -> productRepository.findAllProductsByInventoryIdAndProductNameKeyRange(INVENTORY_ID, lowerBound, upperBound).count());
+        assertEquals(regexMatches, rangeMatches);
+
+        Document filter = new Document("inventoryId", INVENTORY_ID)
+                .append("productNameKey", new Document("$gte", lowerBound).append("$lt", upperBound));
+        Document explain = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                .flatMap(collection -> Mono.from(collection.find(filter).explain()))
+                .block();
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        log.info("Winning plan of the key range search: {}", winningPlan.toJson());
+        assertTrue(winningPlan.toJson().contains("IXSCAN"));
+        assertTrue(winningPlan.toJson().contains("inventory_product_name_key"));
+    }
+
+    /**
+     * @return The number of products found by the search
+     */
+    private long time(String search, Supplier<Mono<Long>> query) {
+        //warm up
+        long matches = query.get().block();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            query.get().block();
+        }
+        double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+        log.info("Search by {} over {} products: {} matches in {} ms on average", search, PRODUCTS, matches, String.format("%.2f", averageMillis));
+        return matches;
+    }
+
+    private static String randomName(Random random) {
+        int length = 4 + random.nextInt(12);
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char letter = (char) ('a' + random.nextInt(26));
+            name.append(i == 0 || random.nextBoolean() ? Character.toUpperCase(letter) : letter);
+        }
+        return name.toString();
+    }
+}
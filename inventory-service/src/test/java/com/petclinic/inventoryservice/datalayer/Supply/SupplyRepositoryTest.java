@@ -5,9 +5,13 @@ import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+
 @DataMongoTest
 class SupplyRepositoryTest {
     @Autowired
@@ -74,6 +78,36 @@ class SupplyRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testFindAllSuppliesByInventoryIdOrderBySupplyNameAsc_WithPage() {
+        Supply supply3 = buildSupply("inventoryId_4", "supplyId_3", "Desc", "Bandages", 5.00, 40, 7.00);
+        Supply otherInventorySupply = buildSupply("inventoryId_5", "supplyId_4", "Desc", "Antibiotics", 20.00, 10, 25.00);
+
+        StepVerifier.create(supplyRepository.saveAll(List.of(supply3, otherInventorySupply)))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        StepVerifier.create(supplyRepository.findAllSuppliesByInventoryIdOrderBySupplyNameAsc("inventoryId_4", PageRequest.of(0, 2))
+                        .map(Supply::getSupplyName))
+                .expectNext("Anxiety Relief Tablets", "Bandages")
+                .verifyComplete();
+
+        StepVerifier.create(supplyRepository.findAllSuppliesByInventoryIdOrderBySupplyNameAsc("inventoryId_4", Pageable.unpaged()))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void testDeleteSuppliesByInventoryId() {
+        StepVerifier.create(supplyRepository.deleteSuppliesByInventoryId("inventoryId_4"))
+                .expectNext(2L)
+                .verifyComplete();
+
+        StepVerifier.create(supplyRepository.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
     private Supply buildSupply(String inventoryId, String supplyId, String supplyDescription, String supplyName, double supplyPrice, int supplyQuantity, double supplySalePrice) {
         return Supply.builder()
                 .inventoryId(inventoryId)
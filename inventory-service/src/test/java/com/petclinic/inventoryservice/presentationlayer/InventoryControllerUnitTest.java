@@ -17,6 +17,7 @@ import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
@@ -1051,6 +1052,32 @@ class InventoryControllerUnitTest {
                 .contains(sampleResponse);
     }
 
+    @Test
+    void searchInventories_WithDescriptionAndTextSearch_ShouldSearchTheWordsOfTheDescription() {
+        // Arrange
+        Pageable page = PageRequest.of(0, 10);
+        String inventoryDescription = "procedures";
+        InventoryResponseDTO sampleResponse = new InventoryResponseDTO();
+
+        when(productInventoryService.searchInventoriesByDescriptionText(page, inventoryDescription))
+                .thenReturn(Flux.just(sampleResponse));
+
+        // Act and Assert
+        webTestClient
+                .get()
+                .uri(uriBuilder -> uriBuilder.path("/inventory")
+                        .queryParam("inventoryDescription", inventoryDescription)
+                        .queryParam("textSearch", true)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(InventoryResponseDTO.class)
+                .hasSize(1)
+                .contains(sampleResponse);
+
+        verify(productInventoryService, never()).searchInventories(any(), any(), any(), any());
+    }
+
     @Test
     void searchInventories_WithNoParams_ShouldReturnAllInventories() {
         // Arrange
@@ -1427,6 +1454,76 @@ class InventoryControllerUnitTest {
 
     }
 
+    @Test
+    void getProductsInInventoryByInventoryIdAndProductFieldPagination_WithRangesAndSort_ShouldPassThemToTheService() {
+        // Arrange
+        String inventoryId = "inventoryId_1";
+        Pageable pageable = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "productPrice"));
+
+        when(productInventoryService.getProductsInInventoryByInventoryIdAndProductsFieldsPagination(inventoryId, null, null, null, 10.00, 50.00, 20, pageable))
+                .thenReturn(Flux.fromIterable(lowStockProducts));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/inventory/{inventoryId}/products-pagination")
+                        .queryParam("minPrice", "10.00")
+                        .queryParam("maxPrice", "50.00")
+                        .queryParam("quantityBelow", "20")
+                        .queryParam("page", "1")
+                        .queryParam("size", "2")
+                        .queryParam("sort", "productPrice,desc")
+                        .build(inventoryId))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ProductResponseDTO.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getProductPageInInventory_ShouldReturnThePageAndTheTotal() {
+        // Arrange
+        String inventoryId = "inventoryId_1";
+        Pageable pageable = PageRequest.of(0, 5);
+        ProductPageResponseDTO productPage = ProductPageResponseDTO.builder()
+                .products(lowStockProducts)
+                .page(0)
+                .size(5)
+                .totalElements(1L)
+                .totalPages(1)
+                .build();
+
+        when(productInventoryService.getProductPageInInventory(inventoryId, null, null, null, null, null, 16, pageable))
+                .thenReturn(Mono.just(productPage));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/inventory/{inventoryId}/products-page")
+                        .queryParam("quantityBelow", "16")
+                        .build(inventoryId))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ProductPageResponseDTO.class)
+                .isEqualTo(productPage);
+    }
+
+    @Test
+    void getTotalNumberOfProductsWithRequestParams_ShouldReturnTheCountOfTheService() {
+        when(productInventoryService.getTotalNumberOfProducts("inventoryId_1", "Ben", null, null, null))
+                .thenReturn(Mono.just(3L));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/inventory/{inventoryId}/products-count")
+                        .queryParam("productName", "Ben")
+                        .build("inventoryId_1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class)
+                .isEqualTo(3L);
+    }
+
     @Test
     void getLowStockProducts_WithDefaultThreshold_ShouldReturnLowStockProducts() {
         // Arrange
@@ -0,0 +1,74 @@
+package com.petclinic.inventoryservice.utils;
+
+import com.petclinic.inventoryservice.datalayer.Inventory.Inventory;
+import com.petclinic.inventoryservice.datalayer.Inventory.InventoryRepository;
+import com.petclinic.inventoryservice.datalayer.Product.Product;
+import com.petclinic.inventoryservice.datalayer.Product.ProductRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataMongoTest
+@Import(SearchKeyBackfill.class)
+class SearchKeyBackfillTest {
+
+    @Autowired
+    private SearchKeyBackfill searchKeyBackfill;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setupDb() {
+        StepVerifier.create(inventoryRepository.deleteAll().then(productRepository.deleteAll()))
+                .verifyComplete();
+    }
+
+    @Test
+    void backfillSearchKeys_GivesTheProductsAndInventoriesWithoutKeysTheirKeys() {
+        //saved as they were before they had search keys
+        Document legacyInventory = new Document("inventoryId", "inventoryId_1")
+                .append("inventoryName", "Medications")
+                .append("inventoryDescription", "Medication for PROCEDURES");
+        Document legacyProduct = new Document("productId", "productId_1")
+                .append("inventoryId", "inventoryId_1")
+                .append("productName", "Benzodiazepines");
+
+        StepVerifier.create(mongoTemplate.insert(legacyInventory, mongoTemplate.getCollectionName(Inventory.class))
+                        .then(mongoTemplate.insert(legacyProduct, mongoTemplate.getCollectionName(Product.class))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(searchKeyBackfill.backfillSearchKeys())
+                .expectNext(2L)
+                .verifyComplete();
+
+        StepVerifier.create(inventoryRepository.findInventoryByInventoryId("inventoryId_1"))
+                .assertNext(inventory -> {
+                    assertEquals("medications", inventory.getInventoryNameKey());
+                    assertEquals("medication for procedures", inventory.getInventoryDescriptionKey());
+                })
+                .verifyComplete();
+        StepVerifier.create(productRepository.findProductByProductId("productId_1"))
+                .assertNext(product -> assertEquals("benzodiazepines", product.getProductNameKey()))
+                .verifyComplete();
+
+        //nothing is left to backfill
+        StepVerifier.create(searchKeyBackfill.backfillSearchKeys())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+}
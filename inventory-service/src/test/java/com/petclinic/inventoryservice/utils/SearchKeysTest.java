@@ -0,0 +1,37 @@
+package com.petclinic.inventoryservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchKeysTest {
+
+    @Test
+    public void toKey_ShouldLowercaseTheValue() {
+        assertEquals("self-adhesive bandages", SearchKeys.toKey("Self-Adhesive BANDAGES"));
+        assertNull(SearchKeys.toKey(null));
+    }
+
+    @Test
+    public void upperBound_ShouldBeThePrefixWithItsLastCharacterIncremented() {
+        assertEquals("ben", SearchKeys.lowerBound("Ben"));
+        assertEquals("beo", SearchKeys.upperBound("Ben"));
+        assertEquals("a!", SearchKeys.upperBound("a "));
+    }
+
+    @Test
+    public void upperBound_ShouldBeAfterEveryKeyStartingWithThePrefix() {
+        String upperBound = SearchKeys.upperBound("ben");
+
+        assertTrue("benzodiazepines".compareTo(upperBound) < 0);
+        assertTrue("ben\uffff".compareTo(upperBound) < 0);
+        assertTrue("beo".compareTo(upperBound) >= 0);
+    }
+
+    @Test
+    public void upperBound_ShouldSkipTheSurrogatesAndTheLastCodePoint() {
+        assertEquals("a\ue000", SearchKeys.upperBound("a\ud7ff"));
+        assertEquals("b", SearchKeys.upperBound("a" + new String(Character.toChars(Character.MAX_CODE_POINT))));
+        assertEquals(new String(Character.toChars(Character.MAX_CODE_POINT)), SearchKeys.upperBound(""));
+    }
+}
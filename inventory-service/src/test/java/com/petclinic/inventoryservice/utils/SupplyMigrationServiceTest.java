@@ -0,0 +1,76 @@
+package com.petclinic.inventoryservice.utils;
+
+import com.petclinic.inventoryservice.datalayer.Inventory.Inventory;
+import com.petclinic.inventoryservice.datalayer.Inventory.InventoryRepository;
+import com.petclinic.inventoryservice.datalayer.Supply.Supply;
+import com.petclinic.inventoryservice.datalayer.Supply.SupplyRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataMongoTest
+@Import(SupplyMigrationService.class)
+class SupplyMigrationServiceTest {
+
+    @Autowired
+    private SupplyMigrationService supplyMigrationService;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private SupplyRepository supplyRepository;
+
+    @BeforeEach
+    void setupDb() {
+        StepVerifier.create(inventoryRepository.deleteAll().then(supplyRepository.deleteAll()))
+                .verifyComplete();
+    }
+
+    @Test
+    void splitInventories_MovesTheEmbeddedSuppliesToTheirCollection() {
+        //an inventory as it was saved when the supplies were embedded in it
+        Document legacyInventory = new Document("inventoryId", "inventoryId_1")
+                .append("inventoryName", "Medications")
+                .append(SupplyMigrationService.EMBEDDED_SUPPLIES, List.of(
+                        new Document("_id", "supplyId_1").append("supplyName", "Bandages").append("supplyQuantity", 10),
+                        new Document("supplyName", "Gauze").append("supplyQuantity", 5)));
+
+        StepVerifier.create(mongoTemplate.insert(legacyInventory, mongoTemplate.getCollectionName(Inventory.class)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(supplyMigrationService.splitInventories())
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(supplyRepository.findAllSuppliesByInventoryId("inventoryId_1").map(Supply::getSupplyName).sort().collectList())
+                .assertNext(names -> assertEquals(List.of("Bandages", "Gauze"), names))
+                .verifyComplete();
+
+        StepVerifier.create(mongoTemplate.findAll(Document.class, mongoTemplate.getCollectionName(Inventory.class)))
+                .assertNext(inventory -> {
+                    assertEquals("Medications", inventory.getString("inventoryName"));
+                    assertFalse(inventory.containsKey(SupplyMigrationService.EMBEDDED_SUPPLIES));
+                })
+                .verifyComplete();
+
+        //nothing is left to split
+        StepVerifier.create(supplyMigrationService.splitInventories())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+}
@@ -1,12 +1,12 @@
 import { useState, useEffect } from 'react';
-import { getAllProducts } from '@/features/products/api/getAllProducts';
+import { getTrendingProducts } from '@/features/products/api/getTrendingProducts';
 import { ProductModel } from '@/features/products/models/ProductModels/ProductModel';
 
 export default function TrendingList(): JSX.Element {
   const [trendingList, setTrendingList] = useState<ProductModel[]>([]);
 
   const fetchProducts = async (): Promise<void> => {
-    const list = await getAllProducts();
+    const list = await getTrendingProducts(4);
     setTrendingList(list);
   };
 
@@ -14,14 +14,10 @@ export default function TrendingList(): JSX.Element {
     fetchProducts();
   }, []);
 
-  const topFourTrending = [...trendingList]
-    .sort((a, b) => b.requestCount - a.requestCount)
-    .slice(0, 4);
-
   return (
     <div>
       <div className="grid">
-        {topFourTrending.map((product: ProductModel) => (
+        {trendingList.map((product: ProductModel) => (
           <div className="card" key={product.productId}>
             <h2>{product.productName}</h2>
             <p>{product.productDescription}</p>
@@ -0,0 +1,11 @@
+import axiosInstance from '@/shared/api/axiosInstance.ts';
+import { ProductModel } from '@/features/products/models/ProductModels/ProductModel';
+
+export async function getTrendingProducts(
+  limit = 4
+): Promise<ProductModel[]> {
+  const res = await axiosInstance.get<ProductModel[]>('/products/trending', {
+    params: { limit },
+  });
+  return res.data;
+}
@@ -0,0 +1,90 @@
+package com.petclinic.products.businesslayer.products;
+
+import com.petclinic.products.datalayer.products.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests of the products in memory and adds them to the products in the background.
+ * Each product has its own LongAdder so concurrent views never wait on each other, and every flush writes the counts
+ * of all the products with one bulk of $inc updates instead of saving each product on every view.
+ * The requestCount of the products is behind by at most one flush interval.
+ */
+@Component
+@Slf4j
+public class ProductRequestCounter {
+
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ProductRepository productRepository;
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public ProductRequestCounter(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public void increment(String productId) {
+        counts.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Drops the requests not yet written of a product, when it is deleted
+     */
+    public void forget(String productId) {
+        counts.remove(productId);
+    }
+
+    /**
+     * Drops the requests not yet written of all the products, when the counts are reset
+     */
+    public void clear() {
+        counts.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Writes the requests counted since the last flush. When the write fails they are counted again for the next one
+     * @return The number of products updated
+     */
+    @Scheduled(fixedDelayString = "${app.request-count.flush-interval:PT5S}")
+    public Mono<Integer> flush() {
+        //the scheduler subscribes to the same Mono on every run, the counts are taken at subscription
+        return Mono.defer(() -> {
+            Map<String, Long> pending = drain();
+            if (pending.isEmpty()) {
+                return Mono.just(0);
+            }
+            return productRepository.incrementRequestCounts(pending)
+                    .onErrorResume(error -> {
+                        log.warn("Could not write the request counts of {} products: {}", pending.size(), error.getMessage());
+                        pending.forEach((productId, count) -> counts.computeIfAbsent(productId, id -> new LongAdder()).add(count));
+                        return Mono.just(0);
+                    });
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+    }
+
+    private Map<String, Long> drain() {
+        Map<String, Long> pending = new HashMap<>();
+        counts.forEach((productId, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                pending.put(productId, count);
+            }
+        });
+        return pending;
+    }
+}
@@ -5,12 +5,16 @@ import com.petclinic.products.presentationlayer.products.ProductResponseModel;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ProductService {
 
     Flux<ProductResponseModel> getAllProducts(Double minPrice, Double maxPrice);
     Mono<ProductResponseModel> getProductByProductId(String productId);
+    Flux<ProductResponseModel> getProductsByProductIds(List<String> productIds);
     Mono<ProductResponseModel> addProduct(Mono<ProductRequestModel> productRequestModel);
     Mono<ProductResponseModel> updateProductByProductId(String productId, Mono<ProductRequestModel> productRequestModel);
     Mono<ProductResponseModel> deleteProductByProductId(String productId);
+    Flux<ProductResponseModel> getTrendingProducts(int limit);
     Mono<Void> requestCount(String productId);
 }
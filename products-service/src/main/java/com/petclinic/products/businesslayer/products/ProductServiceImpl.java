@@ -5,7 +5,6 @@ import org.springframework.stereotype.Service;
 
 
 import com.petclinic.products.datalayer.products.Product;
-import com.petclinic.products.datalayer.ratings.Rating;
 import com.petclinic.products.datalayer.ratings.RatingRepository;
 import com.petclinic.products.utils.EntityModelUtil;
 import com.petclinic.products.datalayer.products.ProductRepository;
@@ -19,6 +18,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Service
 @Slf4j
 public class ProductServiceImpl implements ProductService {
@@ -27,29 +28,18 @@ public class ProductServiceImpl implements ProductService {
 
     private final RatingRepository ratingRepository;
 
-    public ProductServiceImpl(ProductRepository productRepository, RatingRepository ratingRepository) {
+    private final ProductRequestCounter requestCounter;
+
+    public ProductServiceImpl(ProductRepository productRepository, RatingRepository ratingRepository,
+                              ProductRequestCounter requestCounter) {
         this.productRepository = productRepository;
         this.ratingRepository = ratingRepository;
+        this.requestCounter = requestCounter;
     }
 
-    private Mono<Product> getAverageRating(Product product){
-        return ratingRepository.findRatingsByProductId(product.getProductId())
-                .map(Rating::getRating)
-                .collectList()
-                .flatMap(ratings -> {
-                    if(ratings.isEmpty()){
-                        return Mono.just(product);
-                    }
-
-                    Double sumOfRatings = ratings
-                            .stream()
-                            .mapToDouble(Byte::doubleValue)
-                            .sum();
-                    product.setAverageRating(sumOfRatings / ratings.size());
-                    return Mono.just(product);
-                });
-    }
-
+    /**
+     * The average ratings are kept on the products, so the listing is the one query on the products
+     */
     @Override
     public Flux<ProductResponseModel> getAllProducts(Double minPrice, Double maxPrice) {
         Flux<Product> products;
@@ -65,7 +55,6 @@ public class ProductServiceImpl implements ProductService {
         }
 
         return products
-                .flatMap(this::getAverageRating)
                 .map(EntityModelUtil::toProductResponseModel);
     }
 
@@ -73,7 +62,15 @@ public class ProductServiceImpl implements ProductService {
     public Mono<ProductResponseModel> getProductByProductId(String productId) {
         return productRepository.findProductByProductId(productId)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Product id was not found: " + productId))))
-                .flatMap(this::getAverageRating)
+                .map(EntityModelUtil::toProductResponseModel);
+    }
+
+    /**
+     * Looks up all the given products with one query, ids that do not exist are skipped
+     */
+    @Override
+    public Flux<ProductResponseModel> getProductsByProductIds(List<String> productIds) {
+        return productRepository.findAllByProductIdIn(productIds)
                 .map(EntityModelUtil::toProductResponseModel);
     }
 
@@ -83,21 +80,19 @@ public class ProductServiceImpl implements ProductService {
                 .filter(product -> product.getProductSalePrice() > 0)
                 .switchIfEmpty(Mono.error(new InvalidAmountException("Product sale price must be greater than 0")))
                 .map(EntityModelUtil::toProductEntity)
-                .flatMap(this::getAverageRating)
                 .flatMap(productRepository::save)
                 .map(EntityModelUtil::toProductResponseModel);
     }
 
+    /**
+     * Only the fields given in the request are set, the rating totals and the requestCount are left to their $inc
+     */
     @Override
     public Mono<ProductResponseModel> updateProductByProductId(String productId, Mono<ProductRequestModel> productRequestModel) {
-        return productRepository.findProductByProductId(productId)
+        return productRequestModel
+                .flatMap(request -> productRepository.updateProductDetails(productId,
+                        request.getProductName(), request.getProductDescription(), request.getProductSalePrice()))
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Product id was not found: " + productId))))
-                .flatMap(found -> productRequestModel
-                        .map(EntityModelUtil::toProductEntity)
-                        .doOnNext(entity -> entity.setId(found.getId()))
-                        .doOnNext(entity -> entity.setProductId(found.getProductId())))
-                .flatMap(this::getAverageRating)
-                .flatMap(productRepository::save)
                 .map(EntityModelUtil::toProductResponseModel);
     }
 
@@ -107,6 +102,7 @@ public class ProductServiceImpl implements ProductService {
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Product id was not found: " + productId))))
                 .flatMap(found -> {
                     ratingRepository.deleteRatingsByProductId(found.getProductId());
+                    requestCounter.forget(found.getProductId());
                     return productRepository.delete(found)
                             .then(Mono.just(found));
                     }
@@ -115,23 +111,30 @@ public class ProductServiceImpl implements ProductService {
     }
 
 
+    @Override
+    public Flux<ProductResponseModel> getTrendingProducts(int limit) {
+        return productRepository.findTrendingProducts(limit)
+                .map(EntityModelUtil::toProductResponseModel);
+    }
+
+    /**
+     * Counts a request of the product, the count is written by the ProductRequestCounter
+     */
     @Override
     public Mono<Void> requestCount(String productId) {
-        return productRepository.findProductByProductId(productId)
+        return productRepository.existsByProductId(productId)
+                .filter(exists -> exists)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("Product id was not found: " + productId))))
-                .flatMap(product -> {
-                    product.setRequestCount(product.getRequestCount() + 1);
-                    return productRepository.save(product).then(); // Save and complete
-                });
+                .doOnNext(exists -> requestCounter.increment(productId))
+                .then();
     }
 
 
     @Scheduled(cron = "0 0 0 */30 * *")  // Runs every 30 days at midnight
     public Mono<Void> resetRequestCounts() {
-        return productRepository.findAll()
-                .flatMap(product -> {
-                    product.setRequestCount(0);
-                    return productRepository.save(product);
+        return Mono.defer(() -> {
+                    requestCounter.clear();
+                    return productRepository.resetRequestCounts();
                 })
                 .then();
     }
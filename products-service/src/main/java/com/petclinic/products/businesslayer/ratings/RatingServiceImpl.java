@@ -9,10 +9,15 @@ import com.petclinic.products.utils.EntityModelUtil;
 import com.petclinic.products.utils.exceptions.InvalidInputException;
 import com.petclinic.products.utils.exceptions.NotFoundException;
 import com.petclinic.products.utils.exceptions.RatingAlreadyExists;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+/**
+ * Every rating write also changes the ratingCount and ratingSum of its product with a single $inc, by the difference
+ * it made, so the average rating of a product is read from the product alone.
+ */
 @Service
 public class RatingServiceImpl implements RatingService{
     private RatingRepository ratingRepository;
@@ -58,6 +63,10 @@ public class RatingServiceImpl implements RatingService{
                                             ratingRepository.save(
                                                 EntityModelUtil.toRatingEntity(req, productId, customerId)
                                             )
+                                            //a rating added by a concurrent request after the lookup
+                                            .onErrorMap(DuplicateKeyException.class, e -> new RatingAlreadyExists("Rating already exists for customer " + customerId + " for product " + productId))
+                                            .flatMap(saved -> productRepository.incrementRatingTotals(productId, 1, saved.getRating())
+                                                    .thenReturn(saved))
                                     )
                             )
                                     .map(EntityModelUtil::toRatingResponseModel)
@@ -73,12 +82,13 @@ public class RatingServiceImpl implements RatingService{
                 .flatMap(req ->
                         productRepository.findProductByProductId(productId)
                                 .switchIfEmpty(Mono.error(new NotFoundException("Product id not found: " + productId)))
-                                .flatMap(prod -> ratingRepository.findRatingByCustomerIdAndProductId(customerId, productId)
+                                .flatMap(prod -> ratingRepository.replaceRating(customerId, productId, req.getRating())
                                         .switchIfEmpty(Mono.error(new NotFoundException("Rating could not be found for customer " + customerId + " for product " + productId)))
-                                        .flatMap(found -> {
+                                        .flatMap(previous -> {
                                             Rating newRating = EntityModelUtil.toRatingEntity(req, productId, customerId);
-                                            newRating.setId(found.getId());
-                                            return ratingRepository.save(newRating);
+                                            newRating.setId(previous.getId());
+                                            return productRepository.incrementRatingTotals(productId, 0, newRating.getRating() - previous.getRating())
+                                                    .thenReturn(newRating);
                                         })
                                 )
                                 .map(EntityModelUtil::toRatingResponseModel)
@@ -89,9 +99,9 @@ public class RatingServiceImpl implements RatingService{
     public Mono<RatingResponseModel> deleteRatingForProduct(String productId, String customerId) {
         return productRepository.findProductByProductId(productId)
                 .switchIfEmpty(Mono.error(new NotFoundException("Product id not found: " + productId)))
-                .then(ratingRepository.findRatingByCustomerIdAndProductId(customerId, productId)
+                .then(ratingRepository.removeRating(customerId, productId)
                         .switchIfEmpty(Mono.error(new NotFoundException("Rating not found with associated customerId " + customerId + " and productId " + productId)))
-                        .flatMap(rating -> ratingRepository.delete(rating)
+                        .flatMap(rating -> productRepository.incrementRatingTotals(productId, -1, -rating.getRating())
                                 .then(Mono.just(rating))
                         )
                         .map(EntityModelUtil::toRatingResponseModel)
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "products")
@@ -16,11 +18,24 @@ public class Product {
 
     @Id
     private String id;
+    @Indexed
     private String productId;
     private String productName;
     private String productDescription;
+    @Indexed
     private Double productSalePrice;
-    private Double averageRating;
+    //written with $inc by the RatingService when a rating is added, changed or removed, see ProductRepositoryCustom
+    private Integer ratingCount;
+    private Integer ratingSum;
+    //written with $inc by the ProductRequestCounter, see ProductRepositoryCustom
+    @Indexed(direction = IndexDirection.DESCENDING)
     private Integer requestCount;
+
+    public Double getAverageRating() {
+        if (ratingCount == null || ratingCount == 0 || ratingSum == null) {
+            return 0.0;
+        }
+        return ratingSum.doubleValue() / ratingCount;
+    }
 }
 
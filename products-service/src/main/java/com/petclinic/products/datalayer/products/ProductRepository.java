@@ -6,10 +6,16 @@ import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface ProductRepository extends ReactiveMongoRepository<Product, String> {
+import java.util.Collection;
+
+public interface ProductRepository extends ReactiveMongoRepository<Product, String>, ProductRepositoryCustom {
 
     Mono<Product> findProductByProductId(String productId);
 
+    Flux<Product> findAllByProductIdIn(Collection<String> productIds);
+
+    Mono<Boolean> existsByProductId(String productId);
+
 
 
 
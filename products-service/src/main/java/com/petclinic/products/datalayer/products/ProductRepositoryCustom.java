@@ -0,0 +1,51 @@
+package com.petclinic.products.datalayer.products;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Updates and queries of the products built with the ReactiveMongoTemplate. Implemented in ProductRepositoryCustomImpl
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Adds the counts to the requestCount of the products with one bulk write of $inc updates
+     * @param counts The number of requests to add, by productId
+     * @return The number of products updated
+     */
+    Mono<Integer> incrementRequestCounts(Map<String, Long> counts);
+
+    /**
+     * Sets the requestCount of every product back to 0 with a single updateMulti
+     * @return The number of products updated
+     */
+    Mono<Long> resetRequestCounts();
+
+    /**
+     * The most requested products first, served by the index on requestCount
+     */
+    Flux<Product> findTrendingProducts(int limit);
+
+    /**
+     * Sets the fields of a product that are edited by its users with one $set update, so the totals written with $inc
+     * at the same time are kept
+     * @return The product after the change, empty when the product does not exist
+     */
+    Mono<Product> updateProductDetails(String productId, String productName, String productDescription, Double productSalePrice);
+
+    /**
+     * Adds to the ratingCount and ratingSum of a product with one $inc update, so concurrent rating writes never
+     * overwrite each other
+     * @return The number of products updated, 0 when the product does not exist
+     */
+    Mono<Long> incrementRatingTotals(String productId, int ratingCount, int ratingSum);
+
+    /**
+     * Sets the ratingCount and ratingSum of the products saved before they were kept on the product, from their ratings.
+     * Products that already have them are left as they are, so it only does work once
+     * @return The number of products updated
+     */
+    Mono<Long> backfillRatingTotals();
+}
@@ -0,0 +1,107 @@
+package com.petclinic.products.datalayer.products;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.petclinic.products.datalayer.ratings.Rating;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Integer> incrementRequestCounts(Map<String, Long> counts) {
+        if (counts.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        counts.forEach((productId, count) -> bulkOperations.updateOne(
+                new Query(Criteria.where("productId").is(productId)),
+                new Update().inc("requestCount", Math.toIntExact(count))));
+
+        return bulkOperations.execute()
+                .map(BulkWriteResult::getModifiedCount);
+    }
+
+    @Override
+    public Mono<Long> resetRequestCounts() {
+        return mongoTemplate.updateMulti(new Query(), Update.update("requestCount", 0), Product.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Flux<Product> findTrendingProducts(int limit) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.DESC, "requestCount"))
+                .limit(limit);
+
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Mono<Product> updateProductDetails(String productId, String productName, String productDescription, Double productSalePrice) {
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("productId").is(productId)),
+                new Update()
+                        .set("productName", productName)
+                        .set("productDescription", productDescription)
+                        .set("productSalePrice", productSalePrice),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+    }
+
+    @Override
+    public Mono<Long> incrementRatingTotals(String productId, int ratingCount, int ratingSum) {
+        return mongoTemplate.updateFirst(
+                        new Query(Criteria.where("productId").is(productId)),
+                        new Update().inc("ratingCount", ratingCount).inc("ratingSum", ratingSum),
+                        Product.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Mono<Long> backfillRatingTotals() {
+        Aggregation totalsByProduct = Aggregation.newAggregation(
+                Aggregation.group("productId").count().as("ratingCount").sum("rating").as("ratingSum"));
+
+        return mongoTemplate.aggregate(totalsByProduct, Rating.class, Document.class)
+                .collectList()
+                .flatMap(totals -> {
+                    if (totals.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+
+                    ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+                    totals.forEach(total -> bulkOperations.updateOne(
+                            new Query(Criteria.where("productId").is(total.get("_id")).and("ratingCount").exists(false)),
+                            new Update()
+                                    .set("ratingCount", ((Number) total.get("ratingCount")).intValue())
+                                    .set("ratingSum", ((Number) total.get("ratingSum")).intValue())));
+
+                    return bulkOperations.execute()
+                            .map(result -> (long) result.getModifiedCount());
+                })
+                //the products left have no rating
+                .flatMap(rated -> mongoTemplate.updateMulti(
+                                new Query(Criteria.where("ratingCount").exists(false)),
+                                new Update().set("ratingCount", 0).set("ratingSum", 0),
+                                Product.class)
+                        .map(result -> rated + result.getModifiedCount()));
+    }
+}
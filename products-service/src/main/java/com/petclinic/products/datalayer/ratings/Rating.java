@@ -6,9 +6,12 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "product_ratings")
+//one rating per customer and product, concurrent adds of the same rating fail on this index
+@CompoundIndex(name = "product_customer", def = "{'productId': 1, 'customerId': 1}", unique = true)
 @Data
 @Builder
 @NoArgsConstructor
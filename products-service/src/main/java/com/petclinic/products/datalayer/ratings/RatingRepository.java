@@ -4,7 +4,7 @@ import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface RatingRepository extends ReactiveMongoRepository<Rating, String>{
+public interface RatingRepository extends ReactiveMongoRepository<Rating, String>, RatingRepositoryCustom {
     Flux<Rating> findRatingsByProductId(String productId);
     Mono<Rating> findRatingByCustomerIdAndProductId(String customerId, String productId);
     Flux<Rating> deleteRatingsByProductId(String productId);
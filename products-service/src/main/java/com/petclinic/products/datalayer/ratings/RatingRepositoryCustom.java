@@ -0,0 +1,22 @@
+package com.petclinic.products.datalayer.ratings;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Rating writes that return the rating as it was before them, so the totals of the product can be changed by the
+ * difference. Implemented in RatingRepositoryCustomImpl
+ */
+public interface RatingRepositoryCustom {
+
+    /**
+     * Sets the rating of a customer for a product with one findAndModify
+     * @return The rating before the change, empty when the customer did not rate the product
+     */
+    Mono<Rating> replaceRating(String customerId, String productId, Byte rating);
+
+    /**
+     * Deletes the rating of a customer for a product with one findAndRemove
+     * @return The rating deleted, empty when the customer did not rate the product
+     */
+    Mono<Rating> removeRating(String customerId, String productId);
+}
@@ -0,0 +1,28 @@
+package com.petclinic.products.datalayer.ratings;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class RatingRepositoryCustomImpl implements RatingRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Rating> replaceRating(String customerId, String productId, Byte rating) {
+        return mongoTemplate.findAndModify(byCustomerAndProduct(customerId, productId), Update.update("rating", rating), Rating.class);
+    }
+
+    @Override
+    public Mono<Rating> removeRating(String customerId, String productId) {
+        return mongoTemplate.findAndRemove(byCustomerAndProduct(customerId, productId), Rating.class);
+    }
+
+    private Query byCustomerAndProduct(String customerId, String productId) {
+        return new Query(Criteria.where("customerId").is(customerId).and("productId").is(productId));
+    }
+}
@@ -10,10 +10,14 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/products")
 public class ProductController {
 
+    private static final int MAX_TRENDING_LIMIT = 50;
+
     private final ProductService productService;
 
     public ProductController(ProductService productService) {
@@ -27,6 +31,19 @@ public class ProductController {
         return productService.getAllProducts(minPrice, maxPrice);
     }
 
+    @GetMapping(value = "", params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<ProductResponseModel> getProductsByProductIds(@RequestParam List<String> ids) {
+        return productService.getProductsByProductIds(ids);
+    }
+
+    @GetMapping(value = "/trending", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<ProductResponseModel> getTrendingProducts(@RequestParam(defaultValue = "4") int limit) {
+        if (limit < 1 || limit > MAX_TRENDING_LIMIT) {
+            return Flux.error(new InvalidInputException("The limit must be between 1 and " + MAX_TRENDING_LIMIT));
+        }
+        return productService.getTrendingProducts(limit);
+    }
+
     @GetMapping(value = "/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<ProductResponseModel>> getProductByProductId(@PathVariable String productId) {
         return Mono.just(productId)
@@ -25,7 +25,8 @@ public class EntityModelUtil {
                 .productName(productRequestModel.getProductName())
                 .productDescription(productRequestModel.getProductDescription())
                 .productSalePrice(productRequestModel.getProductSalePrice())
-                .averageRating(productRequestModel.getAverageRating())
+                .ratingCount(0)
+                .ratingSum(0)
                 .build();
     }
 
@@ -0,0 +1,42 @@
+package com.petclinic.products.utils;
+
+import com.petclinic.products.datalayer.products.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Gives the products saved before the rating totals were kept on them their ratingCount and ratingSum.
+ * Runs at startup, the products already backfilled are skipped so it does nothing after the first run.
+ */
+@Service
+@Slf4j
+public class RatingTotalsBackfill implements CommandLineRunner {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private final ProductRepository productRepository;
+
+    public RatingTotalsBackfill(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public void run(String... args) {
+        productRepository.backfillRatingTotals()
+                .doOnNext(count -> {
+                    if (count > 0) {
+                        log.info("Backfilled the rating totals of {} products", count);
+                    }
+                })
+                .timeout(TIMEOUT)
+                .onErrorResume(error -> {
+                    log.warn("Could not backfill the rating totals of the products: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+}
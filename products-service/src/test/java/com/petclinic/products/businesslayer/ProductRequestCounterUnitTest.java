@@ -0,0 +1,112 @@
+package com.petclinic.products.businesslayer;
+
+import com.petclinic.products.businesslayer.products.ProductRequestCounter;
+import com.petclinic.products.datalayer.products.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductRequestCounterUnitTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductRequestCounter requestCounter;
+
+    private final String productId1 = "06a7d573-bcab-4db3-956f-773324b92a80";
+    private final String productId2 = "7f2bff03-b304-4b42-9a1d-415e5e6f8ef6";
+
+    @Test
+    void flush_AfterConcurrentRequests_WritesEveryRequestInOneBulk() {
+        when(productRepository.incrementRequestCounts(anyMap())).thenReturn(Mono.just(2));
+
+        Flux.range(0, 1000)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .doOnNext(i -> requestCounter.increment(i % 4 == 0 ? productId2 : productId1))
+                .sequential()
+                .blockLast();
+
+        StepVerifier.create(requestCounter.flush())
+                .expectNext(2)
+                .verifyComplete();
+
+        verify(productRepository, times(1)).incrementRequestCounts(Map.of(productId1, 750L, productId2, 250L));
+    }
+
+    @Test
+    void flush_WithoutNewRequests_DoesNotWrite() {
+        StepVerifier.create(requestCounter.flush())
+                .expectNext(0)
+                .verifyComplete();
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void flush_OnlyWritesTheRequestsSinceTheLastFlush() {
+        when(productRepository.incrementRequestCounts(anyMap())).thenReturn(Mono.just(1));
+        requestCounter.increment(productId1);
+        requestCounter.increment(productId1);
+
+        StepVerifier.create(requestCounter.flush().then(requestCounter.flush()))
+                .expectNext(0)
+                .verifyComplete();
+
+        requestCounter.increment(productId1);
+        StepVerifier.create(requestCounter.flush())
+                .expectNext(1)
+                .verifyComplete();
+
+        verify(productRepository).incrementRequestCounts(Map.of(productId1, 2L));
+        verify(productRepository).incrementRequestCounts(Map.of(productId1, 1L));
+    }
+
+    @Test
+    void flush_WhenTheWriteFails_KeepsTheRequestsForTheNextFlush() {
+        when(productRepository.incrementRequestCounts(anyMap()))
+                .thenReturn(Mono.error(new RuntimeException("Mongo is down")))
+                .thenReturn(Mono.just(1));
+        requestCounter.increment(productId1);
+        requestCounter.increment(productId1);
+
+        StepVerifier.create(requestCounter.flush())
+                .expectNext(0)
+                .verifyComplete();
+
+        requestCounter.increment(productId1);
+        StepVerifier.create(requestCounter.flush())
+                .expectNext(1)
+                .verifyComplete();
+
+        verify(productRepository, times(2)).incrementRequestCounts(Map.of(productId1, 2L));
+        verify(productRepository).incrementRequestCounts(Map.of(productId1, 3L));
+    }
+
+    @Test
+    void forgetAndClear_DropTheRequestsNotWritten() {
+        requestCounter.increment(productId1);
+        requestCounter.increment(productId2);
+        requestCounter.forget(productId1);
+        requestCounter.clear();
+
+        StepVerifier.create(requestCounter.flush())
+                .expectNext(0)
+                .verifyComplete();
+
+        verifyNoInteractions(productRepository);
+    }
+}
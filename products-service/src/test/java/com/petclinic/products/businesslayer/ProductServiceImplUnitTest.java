@@ -1,9 +1,11 @@
 package com.petclinic.products.businesslayer;
 
 
+import com.petclinic.products.businesslayer.products.ProductRequestCounter;
 import com.petclinic.products.businesslayer.products.ProductServiceImpl;
 import com.petclinic.products.datalayer.products.Product;
 import com.petclinic.products.datalayer.products.ProductRepository;
+import com.petclinic.products.datalayer.ratings.RatingRepository;
 import com.petclinic.products.utils.exceptions.NotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +17,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,34 +26,19 @@ class ProductServiceImplUnitTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private ProductRequestCounter requestCounter;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
     @Test
     void testResetRequestCounts() {
-        // Arrange: Create multiple products with non-zero request counts
-        Product product1 = Product.builder()
-                .productId("06a7d573-bcab-4db3-956f-773324b92a80")
-                .productName("Dog Food")
-                .productDescription("Premium dry food for adult dogs")
-                .productSalePrice(45.99)
-                .requestCount(10)
-                .build();
-
-        Product product2 = Product.builder()
-                .productId("7f2bff03-b304-4b42-9a1d-415e5e6f8ef6")
-                .productName("Cat Toy")
-                .productDescription("Interactive toy for cats")
-                .productSalePrice(15.99)
-                .requestCount(5)
-                .build();
-
         // Mocking the behavior of the repository
-        when(productRepository.findAll()).thenReturn(Flux.just(product1, product2));
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
-            Product p = invocation.getArgument(0);
-            return Mono.just(p);
-        });
+        when(productRepository.resetRequestCounts()).thenReturn(Mono.just(2L));
 
         // Act: Call the method to reset request counts
         Mono<Void> result = productService.resetRequestCounts();
@@ -59,31 +47,18 @@ class ProductServiceImplUnitTest {
         StepVerifier.create(result)
                 .verifyComplete();
 
-        // Verify that save was called for each product
-        verify(productRepository, times(2)).save(any(Product.class));
-
-        // Verify that the requestCount is now reset to 0 for both products
-        verify(productRepository).save(argThat(product ->
-                product.getProductId().equals("06a7d573-bcab-4db3-956f-773324b92a80") &&
-                        product.getRequestCount() == 0
-        ));
-        verify(productRepository).save(argThat(product ->
-                product.getProductId().equals("7f2bff03-b304-4b42-9a1d-415e5e6f8ef6") &&
-                        product.getRequestCount() == 0
-        ));
+        // The counts are reset with a single update, the requests not written yet are dropped
+        verify(requestCounter).clear();
+        verify(productRepository).resetRequestCounts();
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     @Test
     void testRequestCount_ProductFound() {
         // Arrange
         String productId = "testProductId";
-        Product product = Product.builder()
-                .productId(productId)
-                .requestCount(5)
-                .build();
 
-        when(productRepository.findProductByProductId(productId)).thenReturn(Mono.just(product));
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(productRepository.existsByProductId(productId)).thenReturn(Mono.just(true));
 
         // Act
         Mono<Void> result = productService.requestCount(productId);
@@ -92,11 +67,9 @@ class ProductServiceImplUnitTest {
         StepVerifier.create(result)
                 .verifyComplete();
 
-        verify(productRepository).findProductByProductId(productId);
-        verify(productRepository).save(argThat(savedProduct ->
-                savedProduct.getProductId().equals(productId) &&
-                        savedProduct.getRequestCount() == 6
-        ));
+        // Counted in memory, the product is not saved
+        verify(requestCounter).increment(productId);
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     @Test
@@ -104,7 +77,7 @@ class ProductServiceImplUnitTest {
         // Arrange
         String productId = "nonExistentProductId";
 
-        when(productRepository.findProductByProductId(productId)).thenReturn(Mono.empty());
+        when(productRepository.existsByProductId(productId)).thenReturn(Mono.just(false));
 
         // Act
         Mono<Void> result = productService.requestCount(productId);
@@ -117,7 +90,29 @@ class ProductServiceImplUnitTest {
                 })
                 .verify();
 
-        verify(productRepository).findProductByProductId(productId);
-        verify(productRepository, never()).save(any(Product.class));
+        verify(productRepository).existsByProductId(productId);
+        verify(requestCounter, never()).increment(anyString());
+    }
+
+    @Test
+    void testGetTrendingProducts() {
+        Product product1 = Product.builder()
+                .productId("06a7d573-bcab-4db3-956f-773324b92a80")
+                .productName("Dog Food")
+                .requestCount(10)
+                .build();
+
+        Product product2 = Product.builder()
+                .productId("7f2bff03-b304-4b42-9a1d-415e5e6f8ef6")
+                .productName("Cat Toy")
+                .requestCount(5)
+                .build();
+
+        when(productRepository.findTrendingProducts(2)).thenReturn(Flux.just(product1, product2));
+
+        StepVerifier.create(productService.getTrendingProducts(2))
+                .expectNextMatches(product -> product.getProductId().equals(product1.getProductId()) && product.getRequestCount() == 10)
+                .expectNextMatches(product -> product.getProductId().equals(product2.getProductId()) && product.getRequestCount() == 5)
+                .verifyComplete();
     }
 }
@@ -3,7 +3,6 @@ package com.petclinic.products.businesslayer;
 import com.petclinic.products.businesslayer.products.ProductServiceImpl;
 import com.petclinic.products.datalayer.products.Product;
 import com.petclinic.products.datalayer.products.ProductRepository;
-import com.petclinic.products.datalayer.ratings.Rating;
 import com.petclinic.products.datalayer.ratings.RatingRepository;
 import com.petclinic.products.presentationlayer.products.ProductResponseModel;
 import org.junit.jupiter.api.Test;
@@ -14,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,7 +34,8 @@ class ProductServiceUnitTest {
             .productName("Dog Food")
             .productDescription("Premium dry food for adult dogs")
             .productSalePrice(45.99)
-            .averageRating(0.0)
+            .ratingCount(2)
+            .ratingSum(7)
             .build();
 
     Product product2 = Product.builder()
@@ -42,18 +43,8 @@ class ProductServiceUnitTest {
             .productName("Cat Litter")
             .productDescription("Clumping cat litter with odor control")
             .productSalePrice(12.99)
-            .averageRating(0.0)
-            .build();
-
-
-    Rating rating1 = Rating.builder()
-            .productId("06a7d573-bcab-4db3-956f-773324b92a80")
-            .rating((byte) 4)
-            .build();
-
-    Rating rating2 = Rating.builder()
-            .productId("06a7d573-bcab-4db3-956f-773324b92a80")
-            .rating((byte) 5)
+            .ratingCount(1)
+            .ratingSum(5)
             .build();
 
 
@@ -62,10 +53,6 @@ class ProductServiceUnitTest {
 
         when(productRepository.findAll())
                 .thenReturn(Flux.just(product1, product2));
-        when(ratingRepository.findRatingsByProductId(product1.getProductId()))
-                .thenReturn(Flux.just(rating1));
-        when(ratingRepository.findRatingsByProductId(product2.getProductId()))
-                .thenReturn(Flux.just(rating2));
 
 
         Flux<ProductResponseModel> result = productService.getAllProducts(null,null);
@@ -74,12 +61,15 @@ class ProductServiceUnitTest {
         StepVerifier.create(result)
                 .expectNextMatches(product ->
                         product.getProductId().equals(product1.getProductId()) &&
-                        product.getAverageRating() == 4)
+                        product.getAverageRating() == 3.5)
                 .expectNextMatches(product ->
                         product.getProductId().equals(product2.getProductId()) &&
                         product.getAverageRating() == 5)
                 .verifyComplete();
 
+        //read from the products, the ratings are not looked up
+        verifyNoInteractions(ratingRepository);
+
     }
     @Test
     public void whenNoProductsFound_thenReturnEmptyFlux() {
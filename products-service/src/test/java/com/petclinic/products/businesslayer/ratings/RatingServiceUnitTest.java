@@ -14,12 +14,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.UUID;
 
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,7 +58,6 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.just(prod));
@@ -92,7 +94,6 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.just(prod));
@@ -114,7 +115,6 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.just(prod));
@@ -133,7 +133,6 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
 
         RatingRequestModel requestModel = RatingRequestModel.builder()
@@ -146,6 +145,8 @@ class RatingServiceUnitTest {
                 .thenReturn(Mono.empty());
         when(ratingRepository.save(any(Rating.class))
         ).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(productRepository.incrementRatingTotals(productId, 1, 5))
+                .thenReturn(Mono.just(1L));
 
         StepVerifier.create(ratingService.addRatingForProduct(productId, rating1.getCustomerId(), Mono.just(requestModel)))
                 .expectNextMatches(response -> {
@@ -154,6 +155,8 @@ class RatingServiceUnitTest {
                     return true;
                 })
                 .verifyComplete();
+
+        verify(productRepository).incrementRatingTotals(productId, 1, 5);
     }
 
     @Test
@@ -177,7 +180,6 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
 
         RatingRequestModel requestModel = RatingRequestModel.builder()
@@ -194,6 +196,35 @@ class RatingServiceUnitTest {
         StepVerifier.create(ratingService.addRatingForProduct(productId, rating1.getCustomerId(), Mono.just(requestModel)))
                 .expectError(RatingAlreadyExists.class)
                 .verify();
+
+        verify(productRepository, never()).incrementRatingTotals(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void whenAddRatingAddedConcurrently_thenReturnRatingAlreadyExists(){
+        Product prod = Product.builder()
+                .productId(productId)
+                .productName("Sample Name")
+                .productDescription("Sample Description")
+                .productSalePrice(100.0)
+                .build();
+
+        RatingRequestModel requestModel = RatingRequestModel.builder()
+                .rating(rating1.getRating())
+                .build();
+
+        when(productRepository.findProductByProductId(productId))
+                .thenReturn(Mono.just(prod));
+        when(ratingRepository.findRatingByCustomerIdAndProductId(rating1.getCustomerId(), productId))
+                .thenReturn(Mono.empty());
+        when(ratingRepository.save(any(Rating.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("product_customer")));
+
+        StepVerifier.create(ratingService.addRatingForProduct(productId, rating1.getCustomerId(), Mono.just(requestModel)))
+                .expectError(RatingAlreadyExists.class)
+                .verify();
+
+        verify(productRepository, never()).incrementRatingTotals(anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -214,19 +245,18 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
 
         RatingRequestModel requestModel = RatingRequestModel.builder()
-                .rating(rating1.getRating())
+                .rating(rating2.getRating())
                 .build();
 
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.just(prod));
-        when(ratingRepository.findRatingByCustomerIdAndProductId(rating1.getCustomerId(), productId))
+        when(ratingRepository.replaceRating(rating1.getCustomerId(), productId, requestModel.getRating()))
                 .thenReturn(Mono.just(rating1));
-        when(ratingRepository.save(any(Rating.class))
-        ).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(productRepository.incrementRatingTotals(productId, 0, -2))
+                .thenReturn(Mono.just(1L));
 
         StepVerifier.create(ratingService.updateRatingForProduct(productId, rating1.getCustomerId(), Mono.just(requestModel)))
                 .expectNextMatches(response -> {
@@ -235,6 +265,9 @@ class RatingServiceUnitTest {
                     return true;
                 })
                 .verifyComplete();
+
+        //the rating went from 5 to 3
+        verify(productRepository).incrementRatingTotals(productId, 0, -2);
     }
 
     @Test
@@ -259,7 +292,7 @@ class RatingServiceUnitTest {
 
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.just(Product.builder().build()));
-        when(ratingRepository.findRatingByCustomerIdAndProductId(rating1.getCustomerId(), productId))
+        when(ratingRepository.replaceRating(rating1.getCustomerId(), productId, requestModel.getRating()))
                 .thenReturn(Mono.empty());
 
         StepVerifier.create(ratingService.updateRatingForProduct(productId, rating1.getCustomerId(), Mono.just(requestModel)))
@@ -285,15 +318,14 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
 
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.just(prod));
-        when(ratingRepository.findRatingByCustomerIdAndProductId(rating1.getCustomerId(), productId))
+        when(ratingRepository.removeRating(rating1.getCustomerId(), productId))
                 .thenReturn(Mono.just(rating1));
-        when(ratingRepository.delete(any(Rating.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(productRepository.incrementRatingTotals(productId, -1, -5))
+                .thenReturn(Mono.just(1L));
 
         StepVerifier.create(ratingService.deleteRatingForProduct(productId, rating1.getCustomerId()))
                 .expectNextMatches(response -> {
@@ -301,13 +333,15 @@ class RatingServiceUnitTest {
                     return true;
                 })
                 .verifyComplete();
+
+        verify(productRepository).incrementRatingTotals(productId, -1, -5);
     }
 
     @Test
     void whenDeleteRatingForNotFoundProduct_thenReturnNotFound(){
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.empty());
-        when(ratingRepository.findRatingByCustomerIdAndProductId(rating1.getCustomerId(), productId))
+        when(ratingRepository.removeRating(rating1.getCustomerId(), productId))
                 .thenReturn(Mono.just(rating1));
 
         StepVerifier.create(ratingService.deleteRatingForProduct(productId, rating1.getCustomerId()))
@@ -322,11 +356,10 @@ class RatingServiceUnitTest {
                 .productName("Sample Name")
                 .productDescription("Sample Description")
                 .productSalePrice(100.0)
-                .averageRating(0.0)
                 .build();
         when(productRepository.findProductByProductId(productId))
                 .thenReturn(Mono.just(prod));
-        when(ratingRepository.findRatingByCustomerIdAndProductId(rating1.getCustomerId(), productId))
+        when(ratingRepository.removeRating(rating1.getCustomerId(), productId))
                 .thenReturn(Mono.empty());
 
         StepVerifier.create(ratingService.deleteRatingForProduct(productId, rating1.getCustomerId()))
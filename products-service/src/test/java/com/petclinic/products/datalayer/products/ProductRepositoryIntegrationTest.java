@@ -1,5 +1,7 @@
 package com.petclinic.products.datalayer.products;
 
+import com.petclinic.products.datalayer.ratings.Rating;
+import com.petclinic.products.datalayer.ratings.RatingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +11,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,6 +23,9 @@ class ProductRepositoryIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private RatingRepository ratingRepository;
+
     @BeforeEach
     public void setupDB(){
         StepVerifier.create(productRepository.deleteAll())
@@ -26,13 +33,12 @@ class ProductRepositoryIntegrationTest {
                 .verifyComplete();
     }
     //Helper method to create a product
-    private Product createProduct(String productName, String productDescription, Double productSalePrice, Double averageRating) {
+    private Product createProduct(String productName, String productDescription, Double productSalePrice) {
         return Product.builder()
                 .productId(UUID.randomUUID().toString())
                 .productName(productName)
                 .productDescription(productDescription)
                 .productSalePrice(productSalePrice)
-                .averageRating(averageRating)
                 .build();
     }
 
@@ -43,6 +49,23 @@ class ProductRepositoryIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void whenFindAllByProductIdIn_thenReturnOnlyTheGivenProducts() {
+        Product product1 = createProduct("Testing Product 1", "This is a testing product 1", 10.00);
+        Product product2 = createProduct("Testing Product 2", "This is a testing product 2", 20.00);
+        Product product3 = createProduct("Testing Product 3", "This is a testing product 3", 30.00);
+        saveProducts(product1, product2, product3);
+
+        StepVerifier.create(productRepository.findAllByProductIdIn(List.of(product1.getProductId(), product3.getProductId(), UUID.randomUUID().toString()))
+                        .map(Product::getProductId)
+                        .collectList())
+                .assertNext(productIds -> {
+                    assertEquals(2, productIds.size());
+                    assertTrue(productIds.containsAll(List.of(product1.getProductId(), product3.getProductId())));
+                })
+                .verifyComplete();
+    }
+
     @Test
     void whenGetAllProducts_thenReturnAllProducts() {
         String id1 = UUID.randomUUID().toString();
@@ -53,21 +76,18 @@ class ProductRepositoryIntegrationTest {
                 .productName("Testing Product 1")
                 .productDescription("This is a testing product 1")
                 .productSalePrice(10.00)
-                .averageRating(5.00)
                 .build();
         Product product2 = Product.builder()
                 .productId(id2)
                 .productName("Testing Product 2")
                 .productDescription("This is a testing product 2")
                 .productSalePrice(20.00)
-                .averageRating(6.00)
                 .build();
         Product product3 = Product.builder()
                 .productId(id3)
                 .productName("Testing Product 3")
                 .productDescription("Testing product 3")
                 .productSalePrice(30.00)
-                .averageRating(7.00)
                 .build();
         StepVerifier.create(productRepository.saveAll(Flux.just(product1,product2,product3)))
                 .expectNextCount(3)
@@ -102,7 +122,6 @@ class ProductRepositoryIntegrationTest {
                 .productName("Sample Product")
                 .productDescription("Sample Description")
                 .productSalePrice(20.00)
-                .averageRating(5.00)
                 .build();
 
         StepVerifier.create(productRepository.save(product))
@@ -137,7 +156,6 @@ class ProductRepositoryIntegrationTest {
                 .productName("Sample Product")
                 .productDescription("Sample Description")
                 .productSalePrice(20.00)
-                .averageRating(5.00)
                 .build();
 
         StepVerifier.create(productRepository.save(product))
@@ -156,7 +174,6 @@ class ProductRepositoryIntegrationTest {
                 .productName("Sample Product")
                 .productDescription("Sample Description")
                 .productSalePrice(20.00)
-                .averageRating(5.00)
                 .build();
 
         Product updatedProduct = Product.builder()
@@ -164,7 +181,6 @@ class ProductRepositoryIntegrationTest {
                 .productName("Changed Product")
                 .productDescription("Changed Description")
                 .productSalePrice(50.00)
-                .averageRating(2.00)
                 .build();
 
         StepVerifier.create(productRepository.save(product))
@@ -211,7 +227,6 @@ class ProductRepositoryIntegrationTest {
                 .productName("Sample Product")
                 .productDescription("Sample Description")
                 .productSalePrice(20.00)
-                .averageRating(5.00)
                 .build();
 
         StepVerifier.create(productRepository.save(product))
@@ -229,9 +244,9 @@ class ProductRepositoryIntegrationTest {
     @Test
     void whenFindByProductSalePriceBetween_thenReturnProductsInRange() {
         // Given
-        Product product1 = createProduct("Product 1", "Description 1", 10.00, 4.0);
-        Product product2 = createProduct("Product 2", "Description 2", 20.00, 4.5);
-        Product product3 = createProduct("Product 3", "Description 3", 30.00, 5.0);
+        Product product1 = createProduct("Product 1", "Description 1", 10.00);
+        Product product2 = createProduct("Product 2", "Description 2", 20.00);
+        Product product3 = createProduct("Product 3", "Description 3", 30.00);
 
         saveProducts(product1, product2, product3);
 
@@ -248,8 +263,8 @@ class ProductRepositoryIntegrationTest {
     @Test
     void whenNoProductsMatchCriteria_thenReturnEmptyFlux() {
         // Given
-        Product product1 = createProduct("Product 1", "Description 1", 10.00, 4.0);
-        Product product2 = createProduct("Product 2", "Description 2", 20.00, 4.5);
+        Product product1 = createProduct("Product 1", "Description 1", 10.00);
+        Product product2 = createProduct("Product 2", "Description 2", 20.00);
 
         saveProducts(product1, product2);
 
@@ -266,8 +281,8 @@ class ProductRepositoryIntegrationTest {
     @Test
     void whenMinPriceGreaterThanMaxPrice_thenReturnEmptyFlux() {
         // Given
-        Product product1 = createProduct("Product 1", "Description 1", 10.00, 4.0);
-        Product product2 = createProduct("Product 2", "Description 2", 20.00, 4.5);
+        Product product1 = createProduct("Product 1", "Description 1", 10.00);
+        Product product2 = createProduct("Product 2", "Description 2", 20.00);
 
         saveProducts(product1, product2);
 
@@ -281,6 +296,159 @@ class ProductRepositoryIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void whenIncrementRequestCounts_thenAddTheCountsWithOneBulkWrite() {
+        Product product1 = createProduct("Product 1", "Description 1", 10.00);
+        product1.setRequestCount(3);
+        //saved before the request count existed
+        Product product2 = createProduct("Product 2", "Description 2", 20.00);
+
+        saveProducts(product1, product2);
+
+        StepVerifier.create(productRepository.incrementRequestCounts(Map.of(
+                        product1.getProductId(), 2L,
+                        product2.getProductId(), 5L,
+                        UUID.randomUUID().toString(), 1L)))
+                .expectNext(2)
+                .verifyComplete();
+
+        StepVerifier.create(productRepository.findProductByProductId(product1.getProductId()))
+                .expectNextMatches(product -> product.getRequestCount() == 5)
+                .verifyComplete();
+        StepVerifier.create(productRepository.findProductByProductId(product2.getProductId()))
+                .expectNextMatches(product -> product.getRequestCount() == 5)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenResetRequestCounts_thenEveryProductIsBackToZero() {
+        Product product1 = createProduct("Product 1", "Description 1", 10.00);
+        product1.setRequestCount(3);
+        Product product2 = createProduct("Product 2", "Description 2", 20.00);
+        product2.setRequestCount(8);
+
+        saveProducts(product1, product2);
+
+        StepVerifier.create(productRepository.resetRequestCounts())
+                .expectNext(2L)
+                .verifyComplete();
+
+        StepVerifier.create(productRepository.findAll())
+                .expectNextMatches(product -> product.getRequestCount() == 0)
+                .expectNextMatches(product -> product.getRequestCount() == 0)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenFindTrendingProducts_thenReturnTheMostRequestedFirst() {
+        Product product1 = createProduct("Product 1", "Description 1", 10.00);
+        product1.setRequestCount(3);
+        Product product2 = createProduct("Product 2", "Description 2", 20.00);
+        product2.setRequestCount(8);
+        Product product3 = createProduct("Product 3", "Description 3", 30.00);
+        product3.setRequestCount(1);
+
+        saveProducts(product1, product2, product3);
+
+        StepVerifier.create(productRepository.findTrendingProducts(2))
+                .expectNextMatches(product -> product.getProductId().equals(product2.getProductId()))
+                .expectNextMatches(product -> product.getProductId().equals(product1.getProductId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenUpdateProductDetails_thenKeepTheTotalsWrittenWithInc() {
+        Product product = createProduct("Product 1", "Description 1", 10.00);
+        product.setRatingCount(2);
+        product.setRatingSum(7);
+        product.setRequestCount(4);
+
+        saveProducts(product);
+
+        //written after the product was read for the update
+        StepVerifier.create(productRepository.incrementRatingTotals(product.getProductId(), 1, 5)
+                        .then(productRepository.updateProductDetails(product.getProductId(), "Product 2", "Description 2", 20.00)))
+                .assertNext(updated -> {
+                    assertEquals("Product 2", updated.getProductName());
+                    assertEquals("Description 2", updated.getProductDescription());
+                    assertEquals(20.00, updated.getProductSalePrice());
+                    assertEquals(3, updated.getRatingCount());
+                    assertEquals(12, updated.getRatingSum());
+                    assertEquals(4, updated.getRequestCount());
+                })
+                .verifyComplete();
+    }
 
+    @Test
+    void whenUpdateProductDetailsOfAProductNotFound_thenReturnEmpty() {
+        StepVerifier.create(productRepository.updateProductDetails(UUID.randomUUID().toString(), "Product 1", "Description 1", 10.00))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenIncrementRatingTotals_thenAddToTheCountAndSum() {
+        Product product = createProduct("Product 1", "Description 1", 10.00);
+        product.setRatingCount(2);
+        product.setRatingSum(7);
 
-}
\ No newline at end of file
+        saveProducts(product);
+
+        StepVerifier.create(productRepository.incrementRatingTotals(product.getProductId(), 1, 5)
+                        .then(productRepository.incrementRatingTotals(product.getProductId(), 0, -2)))
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(productRepository.findProductByProductId(product.getProductId()))
+                .assertNext(found -> {
+                    assertEquals(3, found.getRatingCount());
+                    assertEquals(10, found.getRatingSum());
+                    assertEquals(10 / 3d, found.getAverageRating());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenBackfillRatingTotals_thenSetTheTotalsOfTheProductsWithoutThem() {
+        //saved before the rating totals existed
+        Product rated = createProduct("Product 1", "Description 1", 10.00);
+        Product notRated = createProduct("Product 2", "Description 2", 20.00);
+        //already kept up to date, left as it is
+        Product backfilled = createProduct("Product 3", "Description 3", 30.00);
+        backfilled.setRatingCount(1);
+        backfilled.setRatingSum(2);
+
+        saveProducts(rated, notRated, backfilled);
+        StepVerifier.create(ratingRepository.deleteAll()
+                        .thenMany(ratingRepository.saveAll(Flux.just(
+                                Rating.builder().productId(rated.getProductId()).customerId(UUID.randomUUID().toString()).rating((byte) 4).build(),
+                                Rating.builder().productId(rated.getProductId()).customerId(UUID.randomUUID().toString()).rating((byte) 1).build(),
+                                Rating.builder().productId(backfilled.getProductId()).customerId(UUID.randomUUID().toString()).rating((byte) 2).build()))))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        StepVerifier.create(productRepository.backfillRatingTotals())
+                .expectNext(2L)
+                .verifyComplete();
+        //nothing left to do the second time
+        StepVerifier.create(productRepository.backfillRatingTotals())
+                .expectNext(0L)
+                .verifyComplete();
+
+        StepVerifier.create(productRepository.findProductByProductId(rated.getProductId()))
+                .assertNext(product -> {
+                    assertEquals(2, product.getRatingCount());
+                    assertEquals(5, product.getRatingSum());
+                    assertEquals(2.5, product.getAverageRating());
+                })
+                .verifyComplete();
+        StepVerifier.create(productRepository.findProductByProductId(notRated.getProductId()))
+                .assertNext(product -> {
+                    assertEquals(0, product.getRatingCount());
+                    assertEquals(0.0, product.getAverageRating());
+                })
+                .verifyComplete();
+        StepVerifier.create(productRepository.findProductByProductId(backfilled.getProductId()))
+                .assertNext(product -> assertEquals(1, product.getRatingCount()))
+                .verifyComplete();
+    }
+}
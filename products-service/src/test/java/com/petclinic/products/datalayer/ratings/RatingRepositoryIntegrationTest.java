@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.test.context.ActiveProfiles;
 import reactor.test.StepVerifier;
 
@@ -93,6 +94,27 @@ class RatingRepositoryIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void whenSecondRatingOfCustomerForProduct_thenThrowDuplicateKey(){
+        String productId = UUID.randomUUID().toString();
+        String customerId = UUID.randomUUID().toString();
+
+        StepVerifier.create(ratingRepository.save(Rating.builder()
+                        .productId(productId)
+                        .customerId(customerId)
+                        .rating((byte) 5)
+                        .build()))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(ratingRepository.save(Rating.builder()
+                        .productId(productId)
+                        .customerId(customerId)
+                        .rating((byte) 3)
+                        .build()))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+    }
+
     @Test
     public void whenProductDeleted_deleteAllRatings(){
         String productId = UUID.randomUUID().toString();
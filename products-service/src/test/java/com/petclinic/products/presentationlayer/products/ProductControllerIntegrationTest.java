@@ -40,7 +40,6 @@ class ProductControllerIntegrationTest {
             .productName("Product 1")
             .productDescription("Product 1 Description")
             .productSalePrice(100.00)
-            .averageRating(0.0)
             .build();
 
     private Product product2 = Product.builder()
@@ -48,7 +47,6 @@ class ProductControllerIntegrationTest {
             .productName("Product 2")
             .productDescription("Product 2 Description")
             .productSalePrice(50.00)
-            .averageRating(0.0)
             .build();
 
     private ProductRequestModel productRequestModel = ProductRequestModel.builder()
@@ -10,9 +10,12 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -97,6 +100,85 @@ public class ProductControllerUnitTest {
         verify(productService).getProductByProductId("ae2d3af7-f2a2-407f-ad31-ca7d8220cb7a");
     }
 
+    @Test
+    public void whenGetProductsByProductIds_thenReturnProducts() {
+        ProductResponseModel productResponseModel1 = ProductResponseModel.builder()
+                .productId("ae2d3af7-f2a2-407f-ad31-ca7d8220cb7a")
+                .productName("Bird Cage")
+                .productDescription("Spacious cage for small birds like parakeets")
+                .productSalePrice(29.99)
+                .averageRating(0.0)
+                .build();
+
+        ProductResponseModel productResponseModel2 = ProductResponseModel.builder()
+                .productId("baee7cd2-b67a-449f-b262-91f45dde8a6d")
+                .productName("Flea Collar")
+                .productDescription("Flea and tick prevention for small dogs")
+                .productSalePrice(9.99)
+                .averageRating(0.0)
+                .build();
+        List<String> productIds = List.of(productResponseModel1.getProductId(), productResponseModel2.getProductId());
+
+        when(productService.getProductsByProductIds(productIds)).thenReturn(Flux.just(productResponseModel1, productResponseModel2));
+
+        webClient.get().uri("/api/v1/products?ids=" + String.join(",", productIds))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ProductResponseModel.class)
+                .value(response -> {
+                    assertEquals(2, response.size());
+                    assertEquals(productResponseModel1.getProductId(), response.get(0).getProductId());
+                    assertEquals(productResponseModel2.getProductId(), response.get(1).getProductId());
+                });
+
+        verify(productService).getProductsByProductIds(productIds);
+        verify(productService, never()).getAllProducts(any(), any());
+    }
+
+    @Test
+    public void whenGetTrendingProducts_thenReturnTheMostRequestedProducts() {
+        ProductResponseModel productResponseModel1 = ProductResponseModel.builder()
+                .productId("ae2d3af7-f2a2-407f-ad31-ca7d8220cb7a")
+                .productName("Bird Cage")
+                .productDescription("Spacious cage for small birds like parakeets")
+                .productSalePrice(29.99)
+                .averageRating(0.0)
+                .build();
+
+        ProductResponseModel productResponseModel2 = ProductResponseModel.builder()
+                .productId("baee7cd2-b67a-449f-b262-91f45dde8a6d")
+                .productName("Flea Collar")
+                .productDescription("Flea and tick prevention for small dogs")
+                .productSalePrice(9.99)
+                .averageRating(0.0)
+                .build();
+
+        when(productService.getTrendingProducts(2)).thenReturn(Flux.just(productResponseModel1, productResponseModel2));
+
+        webClient.get().uri("/api/v1/products/trending?limit=2")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ProductResponseModel.class)
+                .value(response -> {
+                    assertEquals(2, response.size());
+                    assertEquals(productResponseModel1.getProductId(), response.get(0).getProductId());
+                });
+
+        verify(productService).getTrendingProducts(2);
+    }
+
+    @Test
+    public void whenGetTrendingProductsWithInvalidLimit_thenReturnUnprocessableEntity() {
+        webClient.get().uri("/api/v1/products/trending?limit=0")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+
+        verify(productService, never()).getTrendingProducts(anyInt());
+    }
+
     @Test
     public void whenAddProduct_thenReturnCreatedProduct() {
         ProductRequestModel productRequestModel = ProductRequestModel.builder()
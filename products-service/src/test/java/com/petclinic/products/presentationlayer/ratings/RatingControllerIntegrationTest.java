@@ -48,6 +48,8 @@ class RatingControllerIntegrationTest {
             .productName("product1")
             .productName("product1 description")
             .productSalePrice(100.0)
+            .ratingCount(2)
+            .ratingSum(6)
             .build();
 
     Product product2 = Product.builder()
@@ -55,6 +57,8 @@ class RatingControllerIntegrationTest {
             .productName("product2")
             .productName("product2 description")
             .productSalePrice(200.0)
+            .ratingCount(2)
+            .ratingSum(8)
             .build();
 
     Rating rating1Prod1 = Rating.builder()
@@ -516,6 +520,32 @@ class RatingControllerIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void whenDeleteRatingForProduct_thenRecalculateAverage(){
+        webClient.delete()
+                .uri("/api/v1/ratings/" + product1.getProductId() + "/" + rating1Prod1.getCustomerId())
+                .exchange()
+                .expectStatus().isOk();
+
+        webClient.get()
+                .uri("/api/v1/products/" + product1.getProductId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ProductResponseModel.class)
+                .consumeWith(response -> {
+                    ProductResponseModel responseModel = response.getResponseBody();
+                    assertNotNull(responseModel);
+                    assertEquals(rating2Prod1.getRating().doubleValue(), responseModel.getAverageRating());
+                });
+
+        StepVerifier.create(productRepository.findProductByProductId(product1.getProductId()))
+                .assertNext(product -> {
+                    assertEquals(1, product.getRatingCount());
+                    assertEquals(rating2Prod1.getRating().intValue(), product.getRatingSum());
+                })
+                .verifyComplete();
+    }
+
     @Test
     public void whenDeleteRatingWithInvalidCustomer_thenReturnInvalidCustomer(){
         webClient.delete()
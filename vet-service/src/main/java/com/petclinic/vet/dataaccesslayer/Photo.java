@@ -8,6 +8,9 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
+/**
+ * The photo of a vet, the image itself is stored in PhotoChunks so it never has to be loaded whole
+ */
 @Data
 @NoArgsConstructor
 @Builder
@@ -22,7 +25,11 @@ public class Photo {
     private String filename;
     @Column("img_type")
     private String imgType;
-    //@Lob
-    @Column("img_data")
-    private byte[] data;
+    @Column("img_size")
+    private Long size;
+    @Column("etag")
+    private String etag;
+    //small jpeg generated on upload, null if the image could not be decoded
+    @Column("thumbnail_data")
+    private byte[] thumbnail;
 }
@@ -0,0 +1,28 @@
+package com.petclinic.vet.dataaccesslayer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A fixed size slice of a Photo, every chunk but the last one holds exactly PhotoUtil.CHUNK_SIZE bytes
+ */
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@Table("image_chunks")
+public class PhotoChunk {
+    @Id
+    private Integer id;
+    @Column("image_id")
+    private Integer imageId;
+    @Column("chunk_index")
+    private Integer chunkIndex;
+    @Column("chunk_data")
+    private byte[] data;
+}
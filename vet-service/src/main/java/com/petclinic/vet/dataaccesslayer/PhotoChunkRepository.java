@@ -0,0 +1,11 @@
+package com.petclinic.vet.dataaccesslayer;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface PhotoChunkRepository extends ReactiveCrudRepository<PhotoChunk, Integer> {
+    Flux<PhotoChunk> findAllByImageIdAndChunkIndexBetweenOrderByChunkIndex(Integer imageId, Integer firstChunkIndex, Integer lastChunkIndex);
+
+    Mono<Integer> deleteByImageId(Integer imageId);
+}
@@ -16,6 +16,8 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Repository
 public interface VetRepository extends ReactiveMongoRepository<Vet, String> {
     Mono<Vet> findVetByVetId(String vetId);
@@ -24,6 +26,8 @@ public interface VetRepository extends ReactiveMongoRepository<Vet, String> {
 
     Flux<Vet> findVetsByActive(boolean isActive);
 
+    Flux<Vet> findVetsByVetIdIn(Collection<String> vetIds);
+
     Mono<Vet> findVetByVetBillId(String vetBillId);
 
    Mono<Vet> findVetByFirstName(String firstName);
@@ -1,5 +1,6 @@
 package com.petclinic.vet.dataaccesslayer.badges;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
@@ -8,6 +9,10 @@ import reactor.core.publisher.Mono;
 public interface BadgeRepository extends ReactiveCrudRepository<Badge, Integer> {
     Mono<Badge> findByVetId(String vetId);
 
+    //the image served with a badge only depends on its title, no need to read img_data
+    @Query("SELECT id, vet_id, badge_title, badge_date FROM badges WHERE vet_id = :vetId")
+    Mono<Badge> findWithoutImageByVetId(String vetId);
+
     Mono<Integer> deleteByVetId(String vetId);
 
 }
@@ -3,5 +3,16 @@ package com.petclinic.vet.dataaccesslayer.badges;
 public enum BadgeTitle {
     VALUED,
     MUCH_APPRECIATED,
-    HIGHLY_RESPECTED
+    HIGHLY_RESPECTED;
+
+    /**
+     * The badge a vet earns with the given average rating
+     */
+    public static BadgeTitle fromAverageRating(double averageRating) {
+        if (averageRating <= 2.0)
+            return VALUED;
+        if (averageRating <= 4.0)
+            return MUCH_APPRECIATED;
+        return HIGHLY_RESPECTED;
+    }
 }
@@ -2,6 +2,7 @@ package com.petclinic.vet.dataaccesslayer.ratings;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 
 @Setter
 @Getter
@@ -12,6 +13,7 @@ public class Rating {
     @Id
     private String id;
     private String ratingId;
+    @Indexed
     private String vetId;
     private Double rateScore;
     private String rateDescription;
@@ -0,0 +1,91 @@
+package com.petclinic.vet.dataaccesslayer.ratings;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Running totals of the ratings of one vet, kept up to date with $inc on every rating write
+ * so the average, the percentages and the badge are read without going through the ratings.
+ * The score histogram is keyed by the whole score ("1" to "5") and the year counts by the year of the rating.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@Document(collection = "vetRatingSummaries")
+public class VetRatingSummary {
+    @Id
+    private String vetId;
+    private long count;
+    private double sum;
+    @Indexed(direction = IndexDirection.DESCENDING)
+    private double average;
+    @Builder.Default
+    private Map<String, Long> scoreCounts = new HashMap<>();
+    @Builder.Default
+    private Map<String, Long> yearCounts = new HashMap<>();
+    //moved by every write, the reconciler only replaces a summary whose version did not move since it read it
+    private Long version;
+
+    public static VetRatingSummary empty(String vetId) {
+        return VetRatingSummary.builder()
+                .vetId(vetId)
+                .build();
+    }
+
+    public static String scoreKey(double rateScore) {
+        return String.valueOf((int) rateScore);
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) a rating from the totals, the average is left to the caller
+     */
+    public VetRatingSummary add(Rating rating, long sign) {
+        count += sign;
+        sum += sign * rating.getRateScore();
+        scoreCounts.merge(scoreKey(rating.getRateScore()), sign, Long::sum);
+        if (rating.getDate() != null) {
+            yearCounts.merge(rating.getDate(), sign, Long::sum);
+        }
+        return this;
+    }
+
+    public double computeAverage() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    public long getScoreCount(String scoreKey) {
+        return scoreCounts.getOrDefault(scoreKey, 0L);
+    }
+
+    /**
+     * Compares the totals, buckets that went back to 0 are the same as missing ones
+     */
+    public boolean hasSameTotalsAs(VetRatingSummary other) {
+        return count == other.count
+                && Double.compare(sum, other.sum) == 0
+                && Double.compare(average, other.average) == 0
+                && Objects.equals(withoutZeros(scoreCounts), withoutZeros(other.scoreCounts))
+                && Objects.equals(withoutZeros(yearCounts), withoutZeros(other.yearCounts));
+    }
+
+    private static Map<String, Long> withoutZeros(Map<String, Long> counts) {
+        Map<String, Long> nonZero = new HashMap<>();
+        if (counts != null) {
+            counts.forEach((key, value) -> {
+                if (value != null && value != 0) {
+                    nonZero.put(key, value);
+                }
+            });
+        }
+        return nonZero;
+    }
+}
@@ -0,0 +1,11 @@
+package com.petclinic.vet.dataaccesslayer.ratings;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface VetRatingSummaryRepository extends ReactiveMongoRepository<VetRatingSummary, String>, VetRatingSummaryRepositoryCustom {
+    Flux<VetRatingSummary> findAllByCountGreaterThan(long count, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.petclinic.vet.dataaccesslayer.ratings;
+
+import reactor.core.publisher.Mono;
+
+public interface VetRatingSummaryRepositoryCustom {
+    /**
+     * Atomically adds the totals of the delta to the summary of the vet
+     * @return The updated summary, empty when the vet has no summary yet
+     */
+    Mono<VetRatingSummary> increment(String vetId, VetRatingSummary delta);
+
+    /**
+     * Replaces the totals of the summary that was read, unless a rating write changed it since
+     * @param read The summary as it was read, with its version
+     * @param replacement The totals to store
+     * @return True when the summary was replaced
+     */
+    Mono<Boolean> replaceIfUnchanged(VetRatingSummary read, VetRatingSummary replacement);
+}
@@ -0,0 +1,70 @@
+package com.petclinic.vet.dataaccesslayer.ratings;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class VetRatingSummaryRepositoryCustomImpl implements VetRatingSummaryRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<VetRatingSummary> increment(String vetId, VetRatingSummary delta) {
+        Update update = new Update()
+                .inc("count", delta.getCount())
+                .inc("sum", delta.getSum())
+                .inc("version", 1);
+        //a rating updated without changing its score or year cancels out, $inc twice on one field is rejected
+        delta.getScoreCounts().forEach((score, count) -> {
+            if (count != 0) update.inc("scoreCounts." + score, count);
+        });
+        delta.getYearCounts().forEach((year, count) -> {
+            if (count != 0) update.inc("yearCounts." + year, count);
+        });
+
+        return mongoTemplate.findAndModify(byVetId(vetId), update, FindAndModifyOptions.options().returnNew(true), VetRatingSummary.class)
+                .flatMap(summary -> updateAverage(summary).thenReturn(summary));
+    }
+
+    @Override
+    public Mono<Boolean> replaceIfUnchanged(VetRatingSummary read, VetRatingSummary replacement) {
+        //a null version also matches the summaries saved before they had one
+        Query unchanged = byVetId(read.getVetId())
+                .addCriteria(Criteria.where("version").is(read.getVersion()));
+
+        Update update = new Update()
+                .set("count", replacement.getCount())
+                .set("sum", replacement.getSum())
+                .set("average", replacement.getAverage())
+                .set("scoreCounts", replacement.getScoreCounts())
+                .set("yearCounts", replacement.getYearCounts())
+                .inc("version", 1);
+
+        return mongoTemplate.updateFirst(unchanged, update, VetRatingSummary.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    /**
+     * The average can not be derived in the $inc itself, it is set from the totals that were just read and only if they
+     * did not move in between: a concurrent write sets it from its own totals, so the last one always wins with the right value
+     */
+    private Mono<Void> updateAverage(VetRatingSummary summary) {
+        summary.setAverage(summary.computeAverage());
+
+        Query unchanged = byVetId(summary.getVetId())
+                .addCriteria(Criteria.where("count").is(summary.getCount()))
+                .addCriteria(Criteria.where("sum").is(summary.getSum()));
+
+        return mongoTemplate.updateFirst(unchanged, new Update().set("average", summary.getAverage()), VetRatingSummary.class)
+                .then();
+    }
+
+    private static Query byVetId(String vetId) {
+        return new Query(Criteria.where("vetId").is(vetId));
+    }
+}
@@ -12,6 +12,7 @@ package com.petclinic.vet.presentationlayer;
  */
 
 
+import com.petclinic.vet.dataaccesslayer.Photo;
 import com.petclinic.vet.exceptions.InvalidInputException;
 import com.petclinic.vet.exceptions.NotFoundException;
 import com.petclinic.vet.servicelayer.*;
@@ -24,20 +25,24 @@ import com.petclinic.vet.servicelayer.ratings.RatingRequestDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingResponseDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingService;
 import com.petclinic.vet.util.EntityDtoUtil;
+import com.petclinic.vet.util.PhotoUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 
-import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 
@@ -155,6 +160,12 @@ public class VetController {
     }
 
 
+    @GetMapping(params = "ids")
+    public Flux<VetResponseDTO> getVetsByVetIds(@RequestParam List<String> ids) {
+        return vetService.getVetsByVetIds(ids);
+    }
+
+
     @GetMapping(value = "/{vetId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<VetResponseDTO>> getVetByVetId(@PathVariable String vetId) {
         return Mono.just(vetId)
@@ -268,10 +279,11 @@ public class VetController {
 
     //Photo
     @GetMapping("{vetId}/photo")
-    public Mono<ResponseEntity<Resource>> getPhotoByVetId(@PathVariable String vetId){
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getPhotoByVetId(@PathVariable String vetId,
+                                                                  @RequestParam(required = false, defaultValue = "full") String size,
+                                                                  @RequestHeader HttpHeaders headers){
         return photoService.getPhotoByVetId(vetId)
-                .map(r -> ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE).body(r))
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .map(photo -> toPhotoResponse(photo, size.equals("thumbnail"), headers));
     }
     @GetMapping("{vetId}/default-photo")
     public Mono<ResponseEntity<PhotoResponseDTO>> getDefaultPhotoByVetId(@PathVariable String vetId){
@@ -280,42 +292,106 @@ public class VetController {
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("{vetId}/photos/{photoName}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> addPhoto(@PathVariable String vetId, @PathVariable String photoName, @RequestBody Flux<DataBuffer> photo){
+        return photoService.insertPhotoOfVet(vetId, photoName, photo)
+                .map(p -> ResponseEntity.status(HttpStatus.CREATED)
+                        .contentType(getPhotoType(p))
+                        .body(photoService.getPhotoData(p, 0, p.getSize() - 1)))
+                .defaultIfEmpty(ResponseEntity.badRequest().build());
+    }
 
-  /*  @PostMapping("{vetId}/photos/{photoName}")
-    public Mono<ResponseEntity<Resource>> addPhoto(
-            @PathVariable String vetId,
-            @PathVariable String photoName,
-            @RequestParam("file") MultipartFile file) throws IOException {
-
-
-        // Convert MultipartFile to Resource
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(file.getBytes()));
-
-
-        return photoService.insertPhotoOfVet(vetId, photoName, photoResource)
-                .map(p -> ResponseEntity.status(HttpStatus.CREATED).body(p))
+    @PutMapping("{vetId}/photos/{photoName}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> updatePhotoByVetId(@PathVariable String vetId, @PathVariable String photoName, @RequestBody Flux<DataBuffer> photo){
+        return photoService.updatePhotoByVetId(vetId, photoName, photo)
+                .map(p -> ResponseEntity.ok()
+                        .contentType(getPhotoType(p))
+                        .body(photoService.getPhotoData(p, 0, p.getSize() - 1)))
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
-*/
 
+    /**
+     * Builds the response of a photo download, honouring If-None-Match and a single byte Range.
+     * The thumbnail has its own ETag since it is a different representation of the photo.
+     */
+    private ResponseEntity<Flux<DataBuffer>> toPhotoResponse(Photo photo, boolean thumbnail, HttpHeaders requestHeaders) {
+        boolean sendThumbnail = thumbnail && photo.getThumbnail() != null;
+        String etag = "\"" + photo.getEtag() + (sendThumbnail ? "-thumbnail" : "") + "\"";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matchesEtag(requestHeaders.getIfNoneMatch(), etag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+
+        if (sendThumbnail) {
+            headers.setContentType(MediaType.parseMediaType(PhotoUtil.THUMBNAIL_TYPE));
+            headers.setContentLength(photo.getThumbnail().length);
+            return ResponseEntity.ok().headers(headers)
+                    .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(photo.getThumbnail())));
+        }
+
+        long length = photo.getSize();
+        List<HttpRange> ranges = getRanges(requestHeaders);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(length);
+            if (start >= length) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            long end = ranges.get(0).getRangeEnd(length);
 
+            headers.setContentType(getPhotoType(photo));
+            headers.setContentLength(end - start + 1);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                    .body(photoService.getPhotoData(photo, start, end));
+        }
 
+        headers.setContentType(getPhotoType(photo));
+        headers.setContentLength(length);
+        return ResponseEntity.ok().headers(headers)
+                .body(photoService.getPhotoData(photo, 0, length - 1));
+    }
 
+    private static boolean matchesEtag(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.replaceFirst("^W/", "").equals(etag))
+                return true;
+        }
+        return false;
+    }
 
+    //a malformed Range header is ignored and the whole photo is sent
+    private static List<HttpRange> getRanges(HttpHeaders headers) {
+        try {
+            return headers.getRange();
+        } catch (IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+    }
 
-    @PutMapping("{vetId}/photos/{photoName}")
-    public Mono<ResponseEntity<Resource>> updatePhotoByVetId(@PathVariable String vetId, @PathVariable String photoName, @RequestBody Mono<Resource> photo){
-        return photoService.updatePhotoByVetId(vetId, photoName, photo)
-                .map(p -> ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE).body(p))
-                .defaultIfEmpty(ResponseEntity.badRequest().build());
+    //a photo saved without a type, or with one that is not a media type, is sent as bytes
+    private static MediaType getPhotoType(Photo photo) {
+        try {
+            return MediaType.parseMediaType(photo.getImgType());
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
     }
 
 
     //Badge
     @GetMapping("{vetId}/badge")
     public Mono<ResponseEntity<BadgeResponseDTO>> getBadgeByVetId(@PathVariable String vetId){
+        //an If-None-Match matching the ETag is answered with 304 by WebFlux
         return badgeService.getBadgeByVetId(vetId)
-                .map(r->ResponseEntity.status(HttpStatus.OK).body(r))
+                .map(r->ResponseEntity.status(HttpStatus.OK)
+                        .eTag(EntityDtoUtil.toBadgeEtag(r))
+                        .cacheControl(CacheControl.noCache())
+                        .body(r))
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 }
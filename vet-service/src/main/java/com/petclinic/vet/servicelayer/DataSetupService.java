@@ -13,7 +13,9 @@ import com.petclinic.vet.dataaccesslayer.ratings.PredefinedDescription;
 import com.petclinic.vet.dataaccesslayer.ratings.Rating;
 import com.petclinic.vet.dataaccesslayer.ratings.RatingRepository;
 import com.petclinic.vet.exceptions.InvalidInputException;
+import com.petclinic.vet.servicelayer.ratings.RatingSummaryService;
 import com.petclinic.vet.util.EntityDtoUtil;
+import com.petclinic.vet.util.PhotoUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.postgresql.ds.PGSimpleDataSource;
 import org.springframework.boot.CommandLineRunner;
@@ -21,12 +23,15 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.*;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 @Slf4j
 @Service
@@ -42,13 +47,15 @@ public class DataSetupService implements CommandLineRunner {
     private final EducationRepository educationRepository;
     private final BadgeRepository badgeRepository;
     private final PhotoRepository photoRepository;
+    private final RatingSummaryService ratingSummaryService;
 
-    public DataSetupService(VetRepository vetRepository, RatingRepository ratingRepository, EducationRepository educationRepository, BadgeRepository badgeRepository, PhotoRepository photoRepository){
+    public DataSetupService(VetRepository vetRepository, RatingRepository ratingRepository, EducationRepository educationRepository, BadgeRepository badgeRepository, PhotoRepository photoRepository, RatingSummaryService ratingSummaryService){
         this.vetRepository = vetRepository;
         this.ratingRepository = ratingRepository;
         this.educationRepository = educationRepository;
         this.badgeRepository=badgeRepository;
         this.photoRepository = photoRepository;
+        this.ratingSummaryService = ratingSummaryService;
     }
 
     @Override
@@ -272,9 +279,11 @@ public class DataSetupService implements CommandLineRunner {
                 .predefinedDescription(PredefinedDescription.GOOD)
                 .date(date4)
                 .build();
+        //the ratings are inserted directly, the summaries are backfilled from them once they are in
         Flux.just(r1, r2, r3, r4)
                 .flatMap(ratingRepository::insert)
                 .log()
+                .then(Mono.defer(ratingSummaryService::reconcileAllSummaries))
                 .subscribe();
         Education e1 = Education.builder()
                 .educationId(UUID.randomUUID().toString())
@@ -332,58 +341,23 @@ public class DataSetupService implements CommandLineRunner {
 
         //default photo
         String defaultPhotoName = "vet_default.jpg";
-        String defaultPhotoType = "image/jpeg";
 
         ClassPathResource defaultPhoto = new ClassPathResource("images/" + defaultPhotoName);
+        List<byte[]> defaultPhotoChunks = PhotoUtil.toChunks(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()));
 
-        Photo photo1 = Photo.builder()
-                .vetId(v1.getVetId())
-                .filename(defaultPhotoName)
-                .imgType(defaultPhotoType)
-                .data(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()))
-                .build();
+        Photo photo1 = EntityDtoUtil.toPhotoEntity(v1.getVetId(), defaultPhotoName, defaultPhoto);
 
-        Photo photo2 = Photo.builder()
-                .vetId(v2.getVetId())
-                .filename(defaultPhotoName)
-                .imgType(defaultPhotoType)
-                .data(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()))
-                .build();
+        Photo photo2 = EntityDtoUtil.toPhotoEntity(v2.getVetId(), defaultPhotoName, defaultPhoto);
 
-        Photo photo3 = Photo.builder()
-                .vetId(v3.getVetId())
-                .filename(defaultPhotoName)
-                .imgType(defaultPhotoType)
-                .data(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()))
-                .build();
+        Photo photo3 = EntityDtoUtil.toPhotoEntity(v3.getVetId(), defaultPhotoName, defaultPhoto);
 
-        Photo photo4 = Photo.builder()
-                .vetId(v4.getVetId())
-                .filename(defaultPhotoName)
-                .imgType(defaultPhotoType)
-                .data(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()))
-                .build();
+        Photo photo4 = EntityDtoUtil.toPhotoEntity(v4.getVetId(), defaultPhotoName, defaultPhoto);
 
-        Photo photo5 = Photo.builder()
-                .vetId(v5.getVetId())
-                .filename(defaultPhotoName)
-                .imgType(defaultPhotoType)
-                .data(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()))
-                .build();
+        Photo photo5 = EntityDtoUtil.toPhotoEntity(v5.getVetId(), defaultPhotoName, defaultPhoto);
 
-        Photo photo6 = Photo.builder()
-                .vetId(v6.getVetId())
-                .filename(defaultPhotoName)
-                .imgType(defaultPhotoType)
-                .data(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()))
-                .build();
+        Photo photo6 = EntityDtoUtil.toPhotoEntity(v6.getVetId(), defaultPhotoName, defaultPhoto);
 
-        Photo photo7 = Photo.builder()
-                .vetId(v7.getVetId())
-                .filename(defaultPhotoName)
-                .imgType(defaultPhotoType)
-                .data(StreamUtils.copyToByteArray(defaultPhoto.getInputStream()))
-                .build();
+        Photo photo7 = EntityDtoUtil.toPhotoEntity(v7.getVetId(), defaultPhotoName, defaultPhoto);
 
 
         Badge b1 = Badge.builder()
@@ -473,8 +447,12 @@ public class DataSetupService implements CommandLineRunner {
 
                 // Prepare INSERT statement
                 PreparedStatement insertStmt = conn.prepareStatement(
-                        "INSERT INTO images (vet_id, filename, img_type, img_data) " +
-                                "VALUES (?, ?, ?, ?)")
+                        "INSERT INTO images (vet_id, filename, img_type, img_size, etag, thumbnail_data) " +
+                                "VALUES (?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+
+                PreparedStatement insertChunkStmt = conn.prepareStatement(
+                        "INSERT INTO image_chunks (image_id, chunk_index, chunk_data) " +
+                                "VALUES (?, ?, ?)")
         ) {
 
             Photo[] photos = {photo1,photo2,photo3,photo4,photo5,photo6, photo7};
@@ -483,13 +461,28 @@ public class DataSetupService implements CommandLineRunner {
                 insertStmt.setString(1, photo.getVetId());
                 insertStmt.setString(2, photo.getFilename());
                 insertStmt.setString(3, photo.getImgType());
-                insertStmt.setBytes(4, photo.getData());
+                insertStmt.setLong(4, photo.getSize());
+                insertStmt.setString(5, photo.getEtag());
+                insertStmt.setBytes(6, photo.getThumbnail());
 
                 int insertedRows = insertStmt.executeUpdate();
                 System.out.printf("Inserted %d defaultPhoto(s)%n", insertedRows);
+
+                try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                    keys.next();
+                    int imageId = keys.getInt(1);
+
+                    for (int chunkIndex = 0; chunkIndex < defaultPhotoChunks.size(); chunkIndex++) {
+                        insertChunkStmt.setInt(1, imageId);
+                        insertChunkStmt.setInt(2, chunkIndex);
+                        insertChunkStmt.setBytes(3, defaultPhotoChunks.get(chunkIndex));
+                        insertChunkStmt.executeUpdate();
+                    }
+                }
             }
 
             insertStmt.close();
+            insertChunkStmt.close();
         }
         catch (SQLException e) {
             // Handle any SQL exceptions
@@ -1,18 +1,19 @@
 package com.petclinic.vet.servicelayer;
 
 
+import com.petclinic.vet.dataaccesslayer.Photo;
 import com.petclinic.vet.presentationlayer.PhotoResponseDTO;
-import org.springframework.core.io.Resource;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 
 public interface PhotoService {
-    Mono<Resource> getPhotoByVetId(String vetId);
+    Mono<Photo> getPhotoByVetId(String vetId);
+    Flux<DataBuffer> getPhotoData(Photo photo, long start, long end);
     Mono<PhotoResponseDTO> getDefaultPhotoByVetId(String vetId);
-    Mono<Resource> insertPhotoOfVet(String vetId, String photoName, Mono<Resource> photo);
-    Mono<Resource> updatePhotoByVetId(String vetId, String photoName, Mono<Resource> photo);
-   // Mono<Resource> insertPhotoOfVet(String vetId, String photoName, MultipartFile photo);
+    Mono<Photo> insertPhotoOfVet(String vetId, String photoName, Flux<DataBuffer> photo);
+    Mono<Photo> updatePhotoByVetId(String vetId, String photoName, Flux<DataBuffer> photo);
 
 
 }
@@ -2,45 +2,75 @@ package com.petclinic.vet.servicelayer;
 
 
 import com.petclinic.vet.dataaccesslayer.Photo;
+import com.petclinic.vet.dataaccesslayer.PhotoChunk;
+import com.petclinic.vet.dataaccesslayer.PhotoChunkRepository;
 import com.petclinic.vet.dataaccesslayer.PhotoRepository;
-import com.petclinic.vet.dataaccesslayer.badges.BadgeTitle;
-import com.petclinic.vet.exceptions.InvalidInputException;
 import com.petclinic.vet.exceptions.NotFoundException;
 import com.petclinic.vet.presentationlayer.PhotoResponseDTO;
 import com.petclinic.vet.util.EntityDtoUtil;
+import com.petclinic.vet.util.PhotoUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StreamUtils;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 
-import java.io.IOException;
-
-
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 
+/**
+ * Photos are streamed in and out as PhotoChunks: an upload is spooled to a temporary file then stored chunk by chunk,
+ * a download fetches a few chunks at a time, so the heap used by a transfer does not depend on the size of the photo.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PhotoServiceImpl implements PhotoService {
+    //chunks fetched by each query of a download
+    private static final int CHUNKS_PER_QUERY = 4;
+
     private final PhotoRepository photoRepository;
+    private final PhotoChunkRepository photoChunkRepository;
+    private final TransactionalOperator transactionalOperator;
 
 
     @Override
-    public Mono<Resource> getPhotoByVetId(String vetId) {
+    public Mono<Photo> getPhotoByVetId(String vetId) {
         return photoRepository.findByVetId(vetId)
-                .switchIfEmpty(Mono.error(new NotFoundException("Photo for vet " + vetId + " does not exist.")))
-                .map(img -> {
-                    ByteArrayResource resource = new ByteArrayResource(img.getData());
+                .switchIfEmpty(Mono.error(new NotFoundException("Photo for vet " + vetId + " does not exist.")));
+    }
 
 
-                    return resource;
+    /**
+     * Streams the bytes from start to end (both inclusive) of the photo
+     */
+    @Override
+    public Flux<DataBuffer> getPhotoData(Photo photo, long start, long end) {
+        if (photo.getSize() == null || start > end) {
+            return Flux.empty();
+        }
+
+        int firstChunkIndex = (int) (start / PhotoUtil.CHUNK_SIZE);
+        int lastChunkIndex = (int) (end / PhotoUtil.CHUNK_SIZE);
+
+        return Flux.range(firstChunkIndex, lastChunkIndex - firstChunkIndex + 1)
+                .buffer(CHUNKS_PER_QUERY)
+                .concatMap(indexes -> photoChunkRepository.findAllByImageIdAndChunkIndexBetweenOrderByChunkIndex(
+                        photo.getId(), indexes.get(0), indexes.get(indexes.size() - 1)), 1)
+                .map(chunk -> {
+                    long chunkStart = (long) chunk.getChunkIndex() * PhotoUtil.CHUNK_SIZE;
+                    int from = (int) Math.max(0, start - chunkStart);
+                    int to = (int) Math.min(chunk.getData().length, end - chunkStart + 1);
+                    return DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(chunk.getData(), from, to - from));
                 });
     }
 
@@ -49,56 +79,70 @@ public class PhotoServiceImpl implements PhotoService {
     public Mono<PhotoResponseDTO> getDefaultPhotoByVetId(String vetId) {
         return photoRepository.findByVetId(vetId)
                 .switchIfEmpty(Mono.error(new NotFoundException("vetId not found: " + vetId)))
-                .map(EntityDtoUtil::toPhotoResponseDTO);
+                .flatMap(photo -> DataBufferUtils.join(getPhotoData(photo, 0, photo.getSize() - 1))
+                        .map(buffer -> {
+                            byte[] data = new byte[buffer.readableByteCount()];
+                            buffer.read(data);
+                            DataBufferUtils.release(buffer);
+                            return data;
+                        })
+                        .defaultIfEmpty(new byte[0])
+                        .map(data -> EntityDtoUtil.toPhotoResponseDTO(photo, data)));
     }
 
 
+    /**
+     * Stores the photo of the vet, replacing the one it already had
+     */
     @Override
-    public Mono<Resource> insertPhotoOfVet(String vetId, String photoName, Mono<Resource> photo) {
-        return photo
-                .map(p -> EntityDtoUtil.toPhotoEntity(vetId, photoName, p))
-                .flatMap(photoRepository::save)
-                .map(img -> {
-                    // Create a Resource from the photo's InputStream
-                    ByteArrayResource resource = new ByteArrayResource(img.getData());
-                    //log.debug("Picture byte array in vet-service toServiceImpl" + resource);
+    public Mono<Photo> insertPhotoOfVet(String vetId, String photoName, Flux<DataBuffer> photo) {
+        return storePhoto(vetId, photoName, photo, photoRepository.findByVetId(vetId));
+    }
 
 
-                    return resource;
-                });
+    @Override
+    public Mono<Photo> updatePhotoByVetId(String vetId, String photoName, Flux<DataBuffer> photo) {
+        return getPhotoByVetId(vetId)
+                .flatMap(existingPhoto -> storePhoto(vetId, photoName, photo, Mono.just(existingPhoto)));
     }
 
 
-    @Override
-    public Mono<Resource> updatePhotoByVetId(String vetId, String photoName, Mono<Resource> photo) {
-        return photoRepository.findByVetId(vetId)
-                .switchIfEmpty(Mono.error(new NotFoundException("Photo for vet " + vetId + " does not exist.")))
-                .flatMap(existingPhoto -> photo.map(resource -> {
-                            Photo updatedPhoto = EntityDtoUtil.toPhotoEntity(vetId, photoName, resource);
-                            updatedPhoto.setId(existingPhoto.getId());
-                            return updatedPhoto;
-                        })
-                        .flatMap(updatedPhoto -> {
-                            return photoRepository.save(updatedPhoto)
-                                    .map(savedPhoto -> {
-                                        ByteArrayResource savedResource = new ByteArrayResource(savedPhoto.getData());
-                                        return savedResource;
-                                    });
-                        }));
+    private Mono<Photo> storePhoto(String vetId, String photoName, Flux<DataBuffer> content, Mono<Photo> existingPhoto) {
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("vet-photo-", ".upload"))
+                        .subscribeOn(Schedulers.boundedElastic()),
+                file -> DataBufferUtils.write(content, file)
+                        .then(Mono.fromCallable(() -> EntityDtoUtil.toPhotoEntity(vetId, photoName, new FileSystemResource(file)))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        //the old chunks, the photo row and the new chunks are replaced together, a failed upload keeps the old photo
+                        .flatMap(photo -> existingPhoto
+                                .flatMap(existing -> {
+                                    photo.setId(existing.getId());
+                                    return photoChunkRepository.deleteByImageId(existing.getId());
+                                })
+                                .then(Mono.defer(() -> photoRepository.save(photo)))
+                                .flatMap(savedPhoto -> storeChunks(savedPhoto, file))
+                                .as(transactionalOperator::transactional)),
+                this::deleteTempFile);
     }
- /*   @Override
-    public Mono<Resource> insertPhotoOfVet(String vetId, String photoName, MultipartFile photo) {
-        return Mono.fromCallable(() -> {
-                    Photo photoEntity = new Photo();
-                    photoEntity.setVetId(vetId);
-                    photoEntity.setFilename(photoName);
-                    photoEntity.setImgType(photo.getContentType());
-                    photoEntity.setData(photo.getBytes());
-                    return photoEntity;
-                })
-                .flatMap(photoRepository::save)
-                .map(savedPhoto -> new ByteArrayResource(savedPhoto.getData()));
+
+    private Mono<Photo> storeChunks(Photo photo, Path file) {
+        return PhotoUtil.readChunks(file)
+                .subscribeOn(Schedulers.boundedElastic())
+                .index()
+                .concatMap(chunk -> photoChunkRepository.save(PhotoChunk.builder()
+                        .imageId(photo.getId())
+                        .chunkIndex(chunk.getT1().intValue())
+                        .data(chunk.getT2())
+                        .build()), 1)
+                .then(Mono.just(photo));
+    }
+
+    private Mono<Boolean> deleteTempFile(Path file) {
+        return Mono.fromCallable(() -> Files.deleteIfExists(file))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(error -> log.warn("Could not delete {}: {}", file, error.getMessage()))
+                .onErrorReturn(false);
     }
-*/
 
 }
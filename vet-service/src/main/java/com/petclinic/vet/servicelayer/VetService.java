@@ -15,12 +15,16 @@ import com.petclinic.vet.presentationlayer.VetRequestDTO;
 import com.petclinic.vet.presentationlayer.VetResponseDTO;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+
+import java.util.List;
+
 public interface VetService {
 
     Flux<VetResponseDTO> getAll();
     Mono<VetResponseDTO> addVet(Mono<VetRequestDTO> vetRequestDto);
     Mono<VetResponseDTO> updateVet(String vetId, Mono<VetRequestDTO> vetRequestDto);
     Mono<VetResponseDTO> getVetByVetId(String vetId);
+    Flux<VetResponseDTO> getVetsByVetIds(List<String> vetIds);
     Mono<Void> deleteVetByVetId(String vetId);
     Flux<VetResponseDTO> getVetByIsActive(boolean isActive);
     Mono<VetResponseDTO> getVetByVetBillId(String vetBillId);
@@ -11,8 +11,6 @@ package com.petclinic.vet.servicelayer;
   * Ticket: feat(VVS-CPC-553): add veterinarian
  */
 
-import com.petclinic.vet.dataaccesslayer.Photo;
-import com.petclinic.vet.dataaccesslayer.PhotoRepository;
 import com.petclinic.vet.dataaccesslayer.Vet;
 import com.petclinic.vet.dataaccesslayer.VetRepository;
 import com.petclinic.vet.dataaccesslayer.badges.Badge;
@@ -24,22 +22,27 @@ import com.petclinic.vet.exceptions.InvalidInputException;
 import com.petclinic.vet.exceptions.NotFoundException;
 import com.petclinic.vet.presentationlayer.VetRequestDTO;
 import com.petclinic.vet.presentationlayer.VetResponseDTO;
+import com.petclinic.vet.servicelayer.badges.BadgeImageCache;
+import com.petclinic.vet.servicelayer.ratings.RatingSummaryService;
 import com.petclinic.vet.util.DatabaseInitializer;
 import com.petclinic.vet.util.EntityDtoUtil;
+import com.petclinic.vet.util.PhotoUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.sql.DataSource;
-import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -48,9 +51,11 @@ public class VetServiceImpl implements VetService {
 
     private final VetRepository vetRepository;
     private final BadgeRepository badgeRepository;
-    private final PhotoRepository photoRepository;
+    private final PhotoService photoService;
     private final RatingRepository ratingRepository;
     private final EducationRepository educationRepository;
+    private final RatingSummaryService ratingSummaryService;
+    private final BadgeImageCache badgeImageCache;
 
     @Override
     public Flux<VetResponseDTO> getAll() {
@@ -105,6 +110,12 @@ public class VetServiceImpl implements VetService {
                 .log();
     }
 
+    @Override
+    public Flux<VetResponseDTO> getVetsByVetIds(List<String> vetIds) {
+        return vetRepository.findVetsByVetIdIn(vetIds)
+                .map(EntityDtoUtil::vetEntityToResponseDTO);
+    }
+
 
     @Override
     public Flux<VetResponseDTO> getVetByIsActive(boolean isActive) {
@@ -143,9 +154,10 @@ public class VetServiceImpl implements VetService {
                     //Mono<Integer> deleteBadges = badgeRepository.deleteByVetId(vetId);
                     //Mono<Integer> deletePhotos = photoRepository.deleteByVetId(vetId);
                     Mono<String> deleteRatings = ratingRepository.deleteByVetId(vetId);
+                    Mono<Void> deleteRatingSummary = ratingSummaryService.deleteSummaryByVetId(vetId);
                     Mono<String> deleteEducations = educationRepository.deleteByVetId(vetId);
 
-                    return Mono.when( deleteRatings, deleteEducations)
+                    return Mono.when( deleteRatings, deleteRatingSummary, deleteEducations)
                             .then(vetRepository.delete(vet))
                             .doOnSuccess(unused -> log.info("Successfully deleted vetId: {}", vetId))
                             .doOnError(error -> log.error("Error deleting vetId: {}", vetId, error));
@@ -153,15 +165,6 @@ public class VetServiceImpl implements VetService {
     }
 
 
-    private byte[] loadImage(String imagePath) {
-        try {
-            ClassPathResource cpr = new ClassPathResource(imagePath);
-            return StreamUtils.copyToByteArray(cpr.getInputStream());
-        } catch (IOException io) {
-            throw new InvalidInputException("Picture does not exist: " + io.getMessage());
-        }
-    }
-
     private Mono<VetRequestDTO> validateVetRequestDTO(VetRequestDTO requestDTO) {
         if(requestDTO.getFirstName().length()>30||requestDTO.getFirstName().length()<2)
             return Mono.error(new InvalidInputException("firstName length should be between 2 and 20 characters: "+requestDTO.getFirstName()));
@@ -180,13 +183,9 @@ public class VetServiceImpl implements VetService {
 
     private Mono<VetRequestDTO> handleDefaultPhoto(VetRequestDTO vet) {
         if (vet.isPhotoDefault()) {
-            Photo photo = Photo.builder()
-                    .vetId(vet.getVetId())
-                    .filename("vet_default.jpg")
-                    .imgType("image/jpeg")
-                    .data(loadImage("images/vet_default.jpg"))
-                    .build();
-            return photoRepository.save(photo)
+            Flux<DataBuffer> photo = DataBufferUtils.read(new ClassPathResource("images/vet_default.jpg"),
+                    DefaultDataBufferFactory.sharedInstance, PhotoUtil.CHUNK_SIZE);
+            return photoService.insertPhotoOfVet(vet.getVetId(), "vet_default.jpg", photo)
                     .thenReturn(vet);
         }
         return Mono.just(vet);
@@ -197,7 +196,7 @@ public class VetServiceImpl implements VetService {
                 .vetId(vetEntity.getVetId())
                 .badgeTitle(BadgeTitle.VALUED)
                 .badgeDate(String.valueOf(LocalDate.now().getYear()))
-                .data(loadImage("images/empty_food_bowl.png"))
+                .data(badgeImageCache.getImageBytes(BadgeTitle.VALUED))
                 .build();
 
         return badgeRepository.save(assignedBadge)
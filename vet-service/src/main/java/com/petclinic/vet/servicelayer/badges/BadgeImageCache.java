@@ -0,0 +1,59 @@
+package com.petclinic.vet.servicelayer.badges;
+
+import com.petclinic.vet.dataaccesslayer.badges.BadgeTitle;
+import com.petclinic.vet.exceptions.InvalidInputException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The badge images, read from the classpath once at startup.
+ * The base64 sent to the clients is encoded once as well, so serving a badge does no I/O.
+ */
+@Component
+public class BadgeImageCache {
+
+    private final Map<BadgeTitle, ByteBuffer> images = new EnumMap<>(BadgeTitle.class);
+    private final Map<BadgeTitle, String> imagesBase64 = new EnumMap<>(BadgeTitle.class);
+
+    public BadgeImageCache() {
+        load(BadgeTitle.VALUED, "images/empty_food_bowl.png");
+        load(BadgeTitle.MUCH_APPRECIATED, "images/half-full_food_bowl.png");
+        load(BadgeTitle.HIGHLY_RESPECTED, "images/full_food_bowl.png");
+    }
+
+    /**
+     * @return A read-only view of the image, each call has its own position
+     */
+    public ByteBuffer getImage(BadgeTitle badgeTitle) {
+        return images.get(badgeTitle).duplicate();
+    }
+
+    public byte[] getImageBytes(BadgeTitle badgeTitle) {
+        ByteBuffer image = getImage(badgeTitle);
+        byte[] bytes = new byte[image.remaining()];
+        image.get(bytes);
+        return bytes;
+    }
+
+    public String getImageBase64(BadgeTitle badgeTitle) {
+        return imagesBase64.get(badgeTitle);
+    }
+
+    private void load(BadgeTitle badgeTitle, String imagePath) {
+        try (InputStream in = new ClassPathResource(imagePath).getInputStream()) {
+            byte[] image = StreamUtils.copyToByteArray(in);
+            images.put(badgeTitle, ByteBuffer.wrap(image).asReadOnlyBuffer());
+            imagesBase64.put(badgeTitle, Base64.getEncoder().encodeToString(image));
+        } catch (IOException io) {
+            throw new InvalidInputException("Picture does not exist: " + io.getMessage());
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.petclinic.vet.servicelayer.ratings;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.petclinic.vet.dataaccesslayer.ratings.Rating;
 import com.petclinic.vet.dataaccesslayer.ratings.RatingRepository;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummary;
 import com.petclinic.vet.dataaccesslayer.VetRepository;
 import com.petclinic.vet.exceptions.NotFoundException;
 
@@ -17,7 +17,6 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
-import reactor.util.function.Tuples;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -27,13 +26,15 @@ public class RatingServiceImpl implements RatingService {
     private final VetRepository vetRepository;
     private final RatingRepository ratingRepository;
     private final ObjectMapper objectMapper;
+    private final RatingSummaryService ratingSummaryService;
 
 
 
-    public RatingServiceImpl(RatingRepository ratingRepository, ObjectMapper objectMapper, VetRepository vetRepository) {
+    public RatingServiceImpl(RatingRepository ratingRepository, ObjectMapper objectMapper, VetRepository vetRepository, RatingSummaryService ratingSummaryService) {
         this.ratingRepository = ratingRepository;
         this.objectMapper = objectMapper;
         this.vetRepository=vetRepository;
+        this.ratingSummaryService = ratingSummaryService;
     }
 
     @Override
@@ -51,7 +52,8 @@ public class RatingServiceImpl implements RatingService {
                 .switchIfEmpty(Mono.error(new NotFoundException("vetId not found: " + vetId)))
                 .then(ratingRepository.findByVetIdAndRatingId(vetId, ratingId)
                         .switchIfEmpty(Mono.error(new NotFoundException("ratingId not found: "+ratingId)))
-                        .flatMap(ratingRepository::delete)
+                        .flatMap(rating -> ratingRepository.delete(rating)
+                                .then(ratingSummaryService.ratingDeleted(rating)))
                 );
     }
 
@@ -78,6 +80,7 @@ public class RatingServiceImpl implements RatingService {
                     r.setDate(String.valueOf(LocalDate.now().getYear()));
                 })
                 .flatMap(ratingRepository::insert)
+                .flatMap(saved -> ratingSummaryService.ratingAdded(saved).thenReturn(saved))
                 .map(EntityDtoUtil::toDTO);
     }
 
@@ -93,18 +96,8 @@ public class RatingServiceImpl implements RatingService {
 
     @Override
     public Mono<Double> getAverageRatingByVetId(String vetId) {
-        return ratingRepository.countAllByVetId(vetId)
-                .flatMap(count -> {
-                    if (count == 0) {
-                        return Mono.just(0.0);
-                    } else {
-                        return ratingRepository.findAllByVetId(vetId)
-                                .switchIfEmpty(Mono.error(new NotFoundException("vetId is Not Found" + vetId)))
-                                .map(EntityDtoUtil::toDTO)
-                                .reduce(0.0, (acc, rating) -> acc + rating.getRateScore())
-                                .map(sum -> sum / count);
-                    }
-                });
+        return ratingSummaryService.getSummaryByVetId(vetId)
+                .map(VetRatingSummary::computeAverage);
     }
     public Flux<RatingResponseDTO> getRatingsOfAVetBasedOnDate(String vetId, Map<String,String> queryParams) {
         String year = queryParams.get("year");
@@ -118,22 +111,13 @@ public class RatingServiceImpl implements RatingService {
 
     @Override
     public Flux<VetAverageRatingDTO> getTopThreeVetsWithHighestAverageRating() {
-        return ratingRepository.findAll()
-                .groupBy(Rating::getVetId)
-                .flatMap(group -> {
-                    String vetId = group.key();
-                    return getAverageRatingByVetId(vetId)
-                            .map(averageRating -> Tuples.of(vetId,averageRating));
-                })
-                .sort((t1, t2) -> Double.compare(t2.getT2(), t1.getT2()))
-                .take(3)
-                .publishOn(Schedulers.boundedElastic())
-                .flatMap(tuple -> {
-                    Mono<VetResponseDTO> vetMono = vetRepository.findVetByVetId(tuple.getT1())
+        return ratingSummaryService.getTopRatedSummaries(3)
+                .concatMap(summary -> {
+                    Mono<VetResponseDTO> vetMono = vetRepository.findVetByVetId(summary.getVetId())
                             .map(EntityDtoUtil::vetEntityToResponseDTO);
 
                     return vetMono.map(vetDTO ->
-                            new VetAverageRatingDTO(vetDTO, tuple.getT1(), tuple.getT2()));
+                            new VetAverageRatingDTO(vetDTO, summary.getVetId(), summary.computeAverage()));
                 });
     }
 
@@ -157,7 +141,9 @@ public class RatingServiceImpl implements RatingService {
                                 .map(EntityDtoUtil::toEntity)
                                 .doOnNext(e -> e.setId(rating.getId()))
                                 .doOnNext(e -> e.setRatingId(rating.getRatingId()))
+                                .doOnNext(e -> e.setVetId(rating.getVetId()))
                                 .flatMap(ratingRepository::save)
+                                .flatMap(saved -> ratingSummaryService.ratingUpdated(rating, saved).thenReturn(saved))
                                 .map(EntityDtoUtil::toDTO))
                 );
     }
@@ -168,30 +154,19 @@ public class RatingServiceImpl implements RatingService {
     public Mono<String> getRatingPercentagesByVetId(String vetId) {
         return vetRepository.findVetByVetId(vetId)
                 .switchIfEmpty(Mono.error(new NotFoundException("vetId not found: " + vetId)))
-                .then(Mono.defer(()->{
-                    Flux<Rating> ratingFlux = ratingRepository.findAllByVetId(vetId);
-                    Map<Double, Integer> ratingCount = new HashMap<>();
+                .then(Mono.defer(() -> ratingSummaryService.getSummaryByVetId(vetId)))
+                .map(summary -> {
+                    Map<Double, Double> ratingPercentages = new LinkedHashMap<>();
                     for(double i = 1.0; i <= 5.0; i += 1.0) {
-                        ratingCount.put(i, 0);
+                        ratingPercentages.put(i, summary.getScoreCount(VetRatingSummary.scoreKey(i)) / (double) summary.getCount());
+                    }
+                    try {
+                        String ratingPercentageJson = objectMapper.writeValueAsString(ratingPercentages);
+                        return ratingPercentageJson;
+                    } catch (JsonProcessingException e) {
+                        throw new RuntimeException(e);
                     }
-                    return ratingFlux
-                            .map(EntityDtoUtil::toDTO)
-                            .map(RatingResponseDTO::getRateScore)
-                            .doOnNext(rating -> ratingCount.put(rating, ratingCount.get(rating) + 1))
-                            .then(Mono.just(ratingCount))
-                            .map(ratingCountMap -> {
-                                Map<Double, Double> ratingPercentages = new LinkedHashMap<>();
-                                for(double i = 1.0; i <= 5.0; i += 1.0) {
-                                    ratingPercentages.put(i, ratingCountMap.get(i) / (double) ratingCountMap.values().stream().mapToInt(Integer::intValue).sum());
-                                }
-                                try {
-                                    String ratingPercentageJson = objectMapper.writeValueAsString(ratingPercentages);
-                                    return ratingPercentageJson;
-                                } catch (JsonProcessingException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            });
-                }));
+                });
 
     }
 }
@@ -0,0 +1,53 @@
+package com.petclinic.vet.servicelayer.ratings;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * Runs reconcileAllSummaries every interval once the application is ready, one run at a time, so the summaries left off
+ * by a failed write or by two writes seeding the same summary are repaired from the ratings.
+ */
+@Component
+@Slf4j
+public class RatingSummaryReconciler {
+
+    private final RatingSummaryService ratingSummaryService;
+    private final Duration interval;
+
+    private Disposable reconciling;
+
+    public RatingSummaryReconciler(RatingSummaryService ratingSummaryService,
+                                   @Value("${rating-summary.reconcile-interval:PT1H}") Duration interval) {
+        this.ratingSummaryService = ratingSummaryService;
+        this.interval = interval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReconciling() {
+        //the data setup reconciles once the ratings are seeded, the first scheduled run waits a whole interval
+        reconciling = Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> ratingSummaryService.reconcileAllSummaries()
+                        .onErrorResume(error -> {
+                            log.warn("Could not reconcile the rating summaries: {}", error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopReconciling() {
+        if (reconciling != null) {
+            reconciling.dispose();
+        }
+    }
+}
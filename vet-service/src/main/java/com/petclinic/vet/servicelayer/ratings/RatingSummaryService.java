@@ -0,0 +1,16 @@
+package com.petclinic.vet.servicelayer.ratings;
+
+import com.petclinic.vet.dataaccesslayer.ratings.Rating;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface RatingSummaryService {
+    Mono<VetRatingSummary> getSummaryByVetId(String vetId);
+    Flux<VetRatingSummary> getTopRatedSummaries(int limit);
+    Mono<Void> ratingAdded(Rating rating);
+    Mono<Void> ratingUpdated(Rating previous, Rating updated);
+    Mono<Void> ratingDeleted(Rating rating);
+    Mono<Void> deleteSummaryByVetId(String vetId);
+    Mono<Long> reconcileAllSummaries();
+}
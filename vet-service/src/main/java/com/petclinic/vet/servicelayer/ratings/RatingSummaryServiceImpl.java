@@ -0,0 +1,114 @@
+package com.petclinic.vet.servicelayer.ratings;
+
+import com.petclinic.vet.dataaccesslayer.ratings.Rating;
+import com.petclinic.vet.dataaccesslayer.ratings.RatingRepository;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummary;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the VetRatingSummary of every vet in step with its ratings.
+ * Every rating write is a single $inc, so concurrent writes never overwrite each other. The first write for a vet without
+ * a summary (ratings written before summaries existed) seeds it from the ratings of the vet, and a read of such a vet
+ * computes it without saving it. reconcileAllSummaries, run by the RatingSummaryReconciler, repairs the summaries that
+ * drifted, and only replaces one if no write moved its version in between.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RatingSummaryServiceImpl implements RatingSummaryService {
+    private final VetRatingSummaryRepository vetRatingSummaryRepository;
+    private final RatingRepository ratingRepository;
+
+    @Override
+    public Mono<VetRatingSummary> getSummaryByVetId(String vetId) {
+        return vetRatingSummaryRepository.findById(vetId)
+                .switchIfEmpty(Mono.defer(() -> computeSummary(vetId)));
+    }
+
+    @Override
+    public Flux<VetRatingSummary> getTopRatedSummaries(int limit) {
+        return vetRatingSummaryRepository.findAllByCountGreaterThan(0, PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "average")));
+    }
+
+    @Override
+    public Mono<Void> ratingAdded(Rating rating) {
+        return increment(rating.getVetId(), VetRatingSummary.empty(rating.getVetId()).add(rating, 1));
+    }
+
+    @Override
+    public Mono<Void> ratingUpdated(Rating previous, Rating updated) {
+        //a rating stays with its vet, whatever vetId the update carried
+        return increment(previous.getVetId(), VetRatingSummary.empty(previous.getVetId())
+                .add(previous, -1)
+                .add(updated, 1));
+    }
+
+    @Override
+    public Mono<Void> ratingDeleted(Rating rating) {
+        return increment(rating.getVetId(), VetRatingSummary.empty(rating.getVetId()).add(rating, -1));
+    }
+
+    @Override
+    public Mono<Void> deleteSummaryByVetId(String vetId) {
+        return vetRatingSummaryRepository.deleteById(vetId);
+    }
+
+    @Override
+    public Mono<Long> reconcileAllSummaries() {
+        //the vets with ratings, and the ones whose summary is left with totals for ratings that no longer exist
+        return ratingRepository.findAll()
+                .map(Rating::getVetId)
+                .concatWith(vetRatingSummaryRepository.findAll().map(VetRatingSummary::getVetId))
+                .distinct()
+                .concatMap(this::reconcileSummary)
+                .filter(repaired -> repaired)
+                .count()
+                .doOnSuccess(repaired -> log.info("Reconciled rating summaries, {} repaired", repaired));
+    }
+
+
+    private Mono<Void> increment(String vetId, VetRatingSummary delta) {
+        return vetRatingSummaryRepository.increment(vetId, delta)
+                //the ratings already hold this write, so the seeded summary does not get the delta
+                .switchIfEmpty(Mono.defer(() -> computeSummary(vetId)
+                        .flatMap(vetRatingSummaryRepository::insert)
+                        //another write seeded it first, a write counted twice by the race is left to the reconciler
+                        .onErrorResume(DuplicateKeyException.class, e -> vetRatingSummaryRepository.increment(vetId, delta))))
+                .then();
+    }
+
+    /**
+     * The stored summary is read before the ratings: a write the ratings miss moves its version after that read,
+     * so the replace is skipped and the summary is looked at again on the next run
+     */
+    private Mono<Boolean> reconcileSummary(String vetId) {
+        return vetRatingSummaryRepository.findById(vetId)
+                .flatMap(stored -> computeSummary(vetId)
+                        .filter(expected -> !stored.hasSameTotalsAs(expected))
+                        .flatMap(expected -> vetRatingSummaryRepository.replaceIfUnchanged(stored, expected))
+                        .defaultIfEmpty(false))
+                .switchIfEmpty(Mono.defer(() -> computeSummary(vetId)
+                        .flatMap(vetRatingSummaryRepository::insert)
+                        .thenReturn(true)
+                        .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false))))
+                .doOnNext(repaired -> {
+                    if (repaired) {
+                        log.warn("Rating summary of vetId {} was out of date, rebuilt from its ratings", vetId);
+                    }
+                });
+    }
+
+    private Mono<VetRatingSummary> computeSummary(String vetId) {
+        return ratingRepository.findAllByVetId(vetId)
+                .reduceWith(() -> VetRatingSummary.empty(vetId), (summary, rating) -> summary.add(rating, 1))
+                .doOnNext(summary -> summary.setAverage(summary.computeAverage()));
+    }
+}
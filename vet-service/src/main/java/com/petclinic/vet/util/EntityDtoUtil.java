@@ -35,7 +35,9 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.core.io.Resource;
 
 import javax.sql.DataSource;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 public class EntityDtoUtil {
@@ -81,9 +83,15 @@ public class EntityDtoUtil {
     public static Photo toPhotoEntity(String vetId, String photoName, Resource resource) {
         Photo photo = new Photo();
         photo.setFilename(photoName);
-        //StreamUtils.copyToByteArray(resource.getInputStream())
+        //the resource is read twice instead of being loaded, it can be a large upload spooled to disk
         try {
-            photo.setData(resource.getInputStream().readAllBytes());
+            try (InputStream in = resource.getInputStream()) {
+                photo.setEtag(PhotoUtil.computeEtag(in));
+            }
+            try (InputStream in = new BufferedInputStream(resource.getInputStream())) {
+                photo.setThumbnail(PhotoUtil.createThumbnail(in));
+            }
+            photo.setSize(resource.contentLength());
         } catch (IOException io){
             throw new InvalidInputException("Picture does not exist" + io.getMessage());
         }
@@ -158,24 +166,32 @@ public class EntityDtoUtil {
         return specialties;
     }
 
-    public static BadgeResponseDTO toBadgeResponseDTO(Badge badge){
+    public static BadgeResponseDTO toBadgeResponseDTO(Badge badge, String imageBase64){
         BadgeResponseDTO badgeResponseDTO=new BadgeResponseDTO();
         badgeResponseDTO.setBadgeDate(badge.getBadgeDate());
         badgeResponseDTO.setBadgeTitle(badge.getBadgeTitle());
         badgeResponseDTO.setVetId(badge.getVetId());
-        badgeResponseDTO.setResourceBase64(Base64.getEncoder().encodeToString(badge.getData()));
+        badgeResponseDTO.setResourceBase64(imageBase64);
         return badgeResponseDTO;
     }
 
-    public static PhotoResponseDTO toPhotoResponseDTO(Photo photo){
+    /**
+     * The badge images are shared strings so their hash code is only computed once
+     */
+    public static String toBadgeEtag(BadgeResponseDTO badge){
+        return "\"" + badge.getBadgeTitle() + "-" + badge.getBadgeDate() + "-"
+                + Integer.toHexString(Objects.hashCode(badge.getResourceBase64())) + "\"";
+    }
+
+    public static PhotoResponseDTO toPhotoResponseDTO(Photo photo, byte[] data){
         PhotoResponseDTO photoResponseDTO = new PhotoResponseDTO();
         photoResponseDTO.setVetId(photo.getVetId());
         photoResponseDTO.setFilename(photo.getFilename());
         photoResponseDTO.setImgType(photo.getImgType());
         if(photo.getFilename().equals("vet_default.jpg"))
-            photoResponseDTO.setResourceBase64(Base64.getEncoder().encodeToString(photo.getData()));
+            photoResponseDTO.setResourceBase64(Base64.getEncoder().encodeToString(data));
         else {
-            photoResponseDTO.setResource(photo.getData());
+            photoResponseDTO.setResource(data);
         }
         return photoResponseDTO;
     }
@@ -0,0 +1,145 @@
+package com.petclinic.vet.util;
+
+import com.petclinic.vet.exceptions.InvalidInputException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Helpers to store photos as fixed size chunks, and to describe them (ETag, thumbnail) without holding them on heap.
+ */
+@Slf4j
+public class PhotoUtil {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+    public static final int THUMBNAIL_SIZE = 160;
+    public static final String THUMBNAIL_TYPE = "image/jpeg";
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Reads a file as CHUNK_SIZE byte arrays, only the last one can be shorter
+     */
+    public static Flux<byte[]> readChunks(Path file) {
+        return Flux.generate(
+                () -> Files.newInputStream(file),
+                (in, sink) -> {
+                    try {
+                        byte[] chunk = new byte[CHUNK_SIZE];
+                        int read = in.readNBytes(chunk, 0, CHUNK_SIZE);
+                        if (read <= 0) {
+                            sink.complete();
+                        } else {
+                            sink.next(read == CHUNK_SIZE ? chunk : Arrays.copyOf(chunk, read));
+                        }
+                    } catch (IOException io) {
+                        sink.error(new InvalidInputException("Photo could not be read: " + io.getMessage()));
+                    }
+                    return in;
+                },
+                PhotoUtil::closeQuietly);
+    }
+
+    public static List<byte[]> toChunks(byte[] data) {
+        List<byte[]> chunks = new ArrayList<>();
+        for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(data, offset, Math.min(offset + CHUNK_SIZE, data.length)));
+        }
+        return chunks;
+    }
+
+    /**
+     * The hex SHA-256 of the content, used as the ETag of the photo
+     */
+    public static String computeEtag(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+
+        StringBuilder etag = new StringBuilder();
+        for (byte b : digest.digest()) {
+            etag.append(String.format("%02x", b));
+        }
+        return etag.toString();
+    }
+
+    /**
+     * Creates a jpeg of at most THUMBNAIL_SIZE pixels on its longest side.
+     * Only every n-th pixel is decoded so a large photo is never expanded in memory.
+     * @return The thumbnail, or null if the image can not be decoded
+     */
+    public static byte[] createThumbnail(InputStream in) {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = imageIn == null ? null : ImageIO.getImageReaders(imageIn);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestSide / THUMBNAIL_SIZE);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage sampled = reader.read(0, param);
+
+                double scale = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(sampled.getWidth(), sampled.getHeight()));
+                int width = Math.max(1, (int) Math.round(sampled.getWidth() * scale));
+                int height = Math.max(1, (int) Math.round(sampled.getHeight() * scale));
+
+                //jpeg has no alpha channel, draw on an rgb image
+                BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D graphics = thumbnail.createGraphics();
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(sampled, 0, 0, width, height, null);
+                graphics.dispose();
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ImageIO.write(thumbnail, "jpeg", out);
+                return out.toByteArray();
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not create a thumbnail: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException io) {
+            log.warn("Could not close photo stream: {}", io.getMessage());
+        }
+    }
+}
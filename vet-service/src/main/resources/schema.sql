@@ -1,3 +1,4 @@
+DROP TABLE IF EXISTS image_chunks;
 DROP TABLE IF EXISTS images;
 
 CREATE TABLE IF NOT EXISTS images(
@@ -5,10 +6,21 @@ CREATE TABLE IF NOT EXISTS images(
     vet_id varchar(36) unique,
     filename varchar(255),
     img_type varchar(10),
-    img_data bytea,
+    img_size bigint,
+    etag varchar(64),
+    thumbnail_data bytea,
     PRIMARY KEY (id)
 );
 
+CREATE TABLE IF NOT EXISTS image_chunks(
+    id SERIAL,
+    image_id int NOT NULL,
+    chunk_index int NOT NULL,
+    chunk_data bytea,
+    PRIMARY KEY (id),
+    UNIQUE (image_id, chunk_index)
+);
+
 DROP TABLE IF EXISTS badges;
 CREATE TABLE IF NOT EXISTS badges (
     id SERIAL,
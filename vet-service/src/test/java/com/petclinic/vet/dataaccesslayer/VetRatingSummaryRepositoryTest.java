@@ -0,0 +1,162 @@
+package com.petclinic.vet.dataaccesslayer;
+
+import com.petclinic.vet.dataaccesslayer.ratings.Rating;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummary;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.r2dbc.init.R2dbcScriptDatabaseInitializer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+class VetRatingSummaryRepositoryTest {
+    @Autowired
+    VetRatingSummaryRepository vetRatingSummaryRepository;
+
+    //To counter missing bean error
+    @MockBean
+    ConnectionFactoryInitializer connectionFactoryInitializer;
+    @MockBean
+    R2dbcScriptDatabaseInitializer r2dbcScriptDatabaseInitializer;
+
+    Rating rating1 = buildRating("1", 5.0, "2023");
+    Rating rating2 = buildRating("1", 3.0, "2022");
+
+    @BeforeEach
+    void setUp() {
+        VetRatingSummary summary1 = VetRatingSummary.empty("1").add(rating1, 1);
+        summary1.setAverage(summary1.computeAverage());
+        Publisher<VetRatingSummary> setUp = vetRatingSummaryRepository.deleteAll()
+                .thenMany(vetRatingSummaryRepository.save(summary1));
+
+        StepVerifier
+                .create(setUp)
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void increment_ShouldAddDeltaAndUpdateAverage() {
+        StepVerifier
+                .create(vetRatingSummaryRepository.increment("1", VetRatingSummary.empty("1").add(rating2, 1)))
+                .consumeNextWith(summary -> {
+                    assertEquals(2, summary.getCount());
+                    assertEquals(8.0, summary.getSum());
+                    assertEquals(4.0, summary.getAverage());
+                })
+                .verifyComplete();
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.findById("1"))
+                .consumeNextWith(summary -> {
+                    assertEquals(4.0, summary.getAverage());
+                    assertEquals(1, summary.getScoreCount("5"));
+                    assertEquals(1, summary.getScoreCount("3"));
+                    assertEquals(Long.valueOf(1), summary.getYearCounts().get("2022"));
+                    assertEquals(Long.valueOf(1), summary.getYearCounts().get("2023"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void increment_WithUnchangedScoreAndYear_ShouldSucceed() {
+        Rating updated = buildRating("1", 5.0, "2023");
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.increment("1", VetRatingSummary.empty("1").add(rating1, -1).add(updated, 1)))
+                .consumeNextWith(summary -> {
+                    assertEquals(1, summary.getCount());
+                    assertEquals(1, summary.getScoreCount("5"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void increment_WithoutSummary_ShouldNotCreateIt() {
+        StepVerifier
+                .create(vetRatingSummaryRepository.increment("2", VetRatingSummary.empty("2").add(buildRating("2", 4.0, "2023"), 1)))
+                .verifyComplete();
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.findById("2"))
+                .verifyComplete();
+    }
+
+    @Test
+    void replaceIfUnchanged_ShouldReplaceTheSummaryThatWasRead() {
+        VetRatingSummary read = vetRatingSummaryRepository.findById("1").block();
+        VetRatingSummary replacement = VetRatingSummary.empty("1").add(rating1, 1).add(rating2, 1);
+        replacement.setAverage(replacement.computeAverage());
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.replaceIfUnchanged(read, replacement))
+                .expectNext(true)
+                .verifyComplete();
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.findById("1"))
+                .consumeNextWith(summary -> {
+                    assertEquals(2, summary.getCount());
+                    assertEquals(4.0, summary.getAverage());
+                    assertEquals(1, summary.getScoreCount("3"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void replaceIfUnchanged_AfterAnIncrement_ShouldKeepTheIncrement() {
+        VetRatingSummary read = vetRatingSummaryRepository.findById("1").block();
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.increment("1", VetRatingSummary.empty("1").add(rating2, 1))
+                        .then(vetRatingSummaryRepository.replaceIfUnchanged(read, VetRatingSummary.empty("1"))))
+                .expectNext(false)
+                .verifyComplete();
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.findById("1"))
+                .consumeNextWith(summary -> {
+                    assertEquals(2, summary.getCount());
+                    assertEquals(Long.valueOf(1), summary.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllByCountGreaterThan_ShouldReturnHighestAveragesFirst() {
+        VetRatingSummary summary2 = VetRatingSummary.empty("2").add(buildRating("2", 4.0, "2023"), 1);
+        summary2.setAverage(summary2.computeAverage());
+        VetRatingSummary summary3 = VetRatingSummary.empty("3");
+        Publisher<VetRatingSummary> setUp = vetRatingSummaryRepository.saveAll(Arrays.asList(summary2, summary3));
+
+        StepVerifier
+                .create(setUp)
+                .expectNextCount(2)
+                .verifyComplete();
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.findAllByCountGreaterThan(0, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "average"))))
+                .consumeNextWith(summary -> assertEquals("1", summary.getVetId()))
+                .consumeNextWith(summary -> assertEquals("2", summary.getVetId()))
+                .verifyComplete();
+    }
+
+    private Rating buildRating(String vetId, Double rateScore, String date) {
+        return Rating.builder()
+                .vetId(vetId)
+                .rateScore(rateScore)
+                .date(date)
+                .build();
+    }
+}
@@ -9,6 +9,7 @@ import com.petclinic.vet.dataaccesslayer.education.EducationRepository;
 import com.petclinic.vet.dataaccesslayer.ratings.PredefinedDescription;
 import com.petclinic.vet.dataaccesslayer.ratings.Rating;
 import com.petclinic.vet.dataaccesslayer.ratings.RatingRepository;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummaryRepository;
 import com.petclinic.vet.servicelayer.*;
 import com.petclinic.vet.servicelayer.badges.BadgeResponseDTO;
 import com.petclinic.vet.servicelayer.education.EducationRequestDTO;
@@ -16,6 +17,7 @@ import com.petclinic.vet.servicelayer.education.EducationResponseDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingRequestDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingResponseDTO;
 import com.petclinic.vet.util.EntityDtoUtil;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +34,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.Base64;
 import java.util.HashSet;
 
@@ -52,6 +55,9 @@ class VetControllerIntegrationTest {
     @Autowired
     RatingRepository ratingRepository;
 
+    @Autowired
+    VetRatingSummaryRepository vetRatingSummaryRepository;
+
     @Autowired
     EducationRepository educationRepository;
 
@@ -101,6 +107,14 @@ class VetControllerIntegrationTest {
     //badge image
     ClassPathResource cpr = new ClassPathResource("images/full_food_bowl.png");
 
+    //the tests write ratings straight to the repository, the summaries are rebuilt from them when first read
+    @BeforeEach
+    void clearRatingSummaries() {
+        StepVerifier
+                .create(vetRatingSummaryRepository.deleteAll())
+                .verifyComplete();
+    }
+
 
     @Test
     void getAllRatingsForAVet_WithValidVetId_ShouldSucceed() {
@@ -621,6 +635,48 @@ class VetControllerIntegrationTest {
                 );
     }
 
+    @Test
+    void addRatingsToAVet_ShouldKeepRatingSummaryUpToDate() {
+        Publisher<Vet> setup = vetRepository.deleteAll()
+                .thenMany(vetRepository.save(vet));
+        StepVerifier
+                .create(setup)
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier
+                .create(ratingRepository.deleteAll())
+                .verifyComplete();
+
+        for (double rateScore : new double[]{5.0, 3.0}) {
+            client.post()
+                    .uri("/vets/" + VET_ID + "/ratings")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(RatingRequestDTO.builder().vetId(VET_ID).rateScore(rateScore).rateDate("21/09/2023").build())
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        client.get()
+                .uri("/vets/" + VET_ID + "/ratings/average")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Double.class)
+                .isEqualTo(4.0);
+
+        StepVerifier
+                .create(vetRatingSummaryRepository.findById(VET_ID))
+                .consumeNextWith(summary -> {
+                    assertEquals(2, summary.getCount());
+                    assertEquals(8.0, summary.getSum());
+                    assertEquals(4.0, summary.getAverage());
+                    assertEquals(1, summary.getScoreCount("5"));
+                    assertEquals(1, summary.getScoreCount("3"));
+                    assertEquals(Long.valueOf(2), summary.getYearCounts().get(String.valueOf(LocalDate.now().getYear())));
+                })
+                .verifyComplete();
+    }
+
     @Test
     void getRatingBasedOnYearDate_ShouldSucceed() {
         Publisher<Rating> setup = ratingRepository.deleteAll()
@@ -789,6 +845,28 @@ class VetControllerIntegrationTest {
 
     }
 
+    @Test
+    void getVetsByVetIds() {
+        Publisher<Vet> setup = vetRepository.deleteAll().thenMany(vetRepository.save(vet));
+
+        StepVerifier
+                .create(setup)
+                .expectNextCount(1)
+                .verifyComplete();
+
+        client
+                .get()
+                .uri(uriBuilder -> uriBuilder.path("/vets").queryParam("ids", vet.getVetId(), NON_EXISTING_VET_ID).build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].vetId").isEqualTo(vet.getVetId())
+                .jsonPath("$[0].firstName").isEqualTo(vet.getFirstName());
+    }
+
     @Test
     void getAllVets() {
         Publisher<Vet> setup = vetRepository.deleteAll().thenMany(vetRepository.save(vet));
@@ -1864,12 +1942,12 @@ class VetControllerIntegrationTest {
     }
 
     private Photo buildPhoto(){
-        byte[] photo = {123, 23, 75, 34};
         return Photo.builder()
                 .vetId(VET_ID)
                 .filename("vet_default.jpg")
                 .imgType("image/jpeg")
-                .data(photo)
+                .size(4L)
+                .etag("5a1f0c")
                 .build();
     }
 
@@ -17,14 +17,16 @@ import com.petclinic.vet.servicelayer.education.EducationService;
 import com.petclinic.vet.servicelayer.ratings.RatingRequestDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingResponseDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingService;
+import com.petclinic.vet.util.EntityDtoUtil;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -109,6 +111,7 @@ class VetControllerUnitTest {
 
 
     private static final String PHOTO_NAME = "test.jpg";
+    private static final byte[] PHOTO_DATA = {123, 23, 75, 34};
 
     @Test
     void getAllRatingForVetByVetId_ShouldSucceed() {
@@ -713,66 +716,161 @@ class VetControllerUnitTest {
     @Test
     void getPhotoByVetId() {
         when(photoService.getPhotoByVetId(anyString()))
-                .thenReturn(Mono.just(buildPhotoData()));
+                .thenReturn(Mono.just(photo));
+        when(photoService.getPhotoData(any(Photo.class), eq(0L), eq(3L)))
+                .thenReturn(Flux.just(buildPhotoData()));
 
         client.get()
                 .uri("/vets/{vetId}/photo", VET_ID)
                 .exchange()
                 .expectStatus().isOk()
                 .expectHeader().contentType(MediaType.IMAGE_JPEG_VALUE)
-                .expectBody(Resource.class)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + photo.getEtag() + "\"")
+                .expectHeader().valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .expectHeader().contentLength(4)
+                .expectBody(byte[].class)
                 .consumeWith(response -> {
-                    assertEquals(buildPhotoData(), response.getResponseBody());
+                    assertArrayEquals(PHOTO_DATA, response.getResponseBody());
                 });
 
         Mockito.verify(photoService, times(1))
                 .getPhotoByVetId(VET_ID);
     }
 
-    // test add photo
- /*   @Test
-    void addPhotoByVetId() {
-        Photo photo = buildPhoto();
-        Resource photoResource = buildPhotoData(photo);
+    @Test
+    void getPhotoByVetId_WithInvalidImgType_ShouldReturnOctetStream() {
+        Photo untyped = buildPhoto();
+        untyped.setImgType("not a media type");
+        when(photoService.getPhotoByVetId(anyString()))
+                .thenReturn(Mono.just(untyped));
+        when(photoService.getPhotoData(any(Photo.class), eq(0L), eq(3L)))
+                .thenReturn(Flux.just(buildPhotoData()));
+
+        client.get()
+                .uri("/vets/{vetId}/photo", VET_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .expectBody(byte[].class)
+                .consumeWith(response -> assertArrayEquals(PHOTO_DATA, response.getResponseBody()));
+    }
+
+    @Test
+    void getPhotoByVetId_WithMatchingEtag_ShouldReturnNotModified() {
+        when(photoService.getPhotoByVetId(anyString()))
+                .thenReturn(Mono.just(photo));
+
+        client.get()
+                .uri("/vets/{vetId}/photo", VET_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + photo.getEtag() + "\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + photo.getEtag() + "\"")
+                .expectBody().isEmpty();
+
+        Mockito.verify(photoService, times(0))
+                .getPhotoData(any(Photo.class), anyLong(), anyLong());
+    }
+
+    @Test
+    void getPhotoByVetId_WithRange_ShouldReturnPartialContent() {
+        when(photoService.getPhotoByVetId(anyString()))
+                .thenReturn(Mono.just(photo));
+        when(photoService.getPhotoData(any(Photo.class), eq(1L), eq(2L)))
+                .thenReturn(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{23, 75})));
+
+        client.get()
+                .uri("/vets/{vetId}/photo", VET_ID)
+                .header(HttpHeaders.RANGE, "bytes=1-2")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 1-2/4")
+                .expectHeader().contentLength(2)
+                .expectBody(byte[].class)
+                .consumeWith(response -> {
+                    assertArrayEquals(new byte[]{23, 75}, response.getResponseBody());
+                });
+    }
+
+    @Test
+    void getPhotoByVetId_WithRangeAfterTheEnd_ShouldReturnRangeNotSatisfiable() {
+        when(photoService.getPhotoByVetId(anyString()))
+                .thenReturn(Mono.just(photo));
+
+        client.get()
+                .uri("/vets/{vetId}/photo", VET_ID)
+                .header(HttpHeaders.RANGE, "bytes=10-20")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */4");
+    }
+
+    @Test
+    void getPhotoByVetId_Thumbnail_ShouldReturnThumbnailWithItsOwnEtag() {
+        byte[] thumbnail = {1, 2};
+        photo.setThumbnail(thumbnail);
+        when(photoService.getPhotoByVetId(anyString()))
+                .thenReturn(Mono.just(photo));
 
-        when(photoService.insertPhotoOfVet(anyString(), anyString(), any(Mono.class)))
-                .thenReturn(Mono.just(photoResource));
+        client.get()
+                .uri("/vets/{vetId}/photo?size=thumbnail", VET_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.IMAGE_JPEG_VALUE)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + photo.getEtag() + "-thumbnail\"")
+                .expectBody(byte[].class)
+                .consumeWith(response -> {
+                    assertArrayEquals(thumbnail, response.getResponseBody());
+                });
+
+        Mockito.verify(photoService, times(0))
+                .getPhotoData(any(Photo.class), anyLong(), anyLong());
+    }
+
+    @Test
+    void addPhotoByVetId() {
+        when(photoService.insertPhotoOfVet(anyString(), anyString(), any(Flux.class)))
+                .thenReturn(Mono.just(photo));
+        when(photoService.getPhotoData(any(Photo.class), anyLong(), anyLong()))
+                .thenReturn(Flux.just(buildPhotoData()));
 
         client.post()
                 .uri("/vets/{vetId}/photos/{photoName}", VET_ID, photo.getFilename())
-                .bodyValue(photoResource) // Use the Resource here
-                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(PHOTO_DATA)
                 .exchange()
                 .expectStatus().isCreated()
-                .expectHeader().contentType(MediaType.APPLICATION_JSON)
-                .expectBody();
+                .expectHeader().contentType(MediaType.IMAGE_JPEG_VALUE)
+                .expectBody(byte[].class)
+                .consumeWith(response -> {
+                    assertArrayEquals(PHOTO_DATA, response.getResponseBody());
+                });
 
         Mockito.verify(photoService, times(1))
-                .insertPhotoOfVet(anyString(), anyString(), any(Mono.class));
+                .insertPhotoOfVet(anyString(), anyString(), any(Flux.class));
     }
-*/
+
     @Test
     void updatePhotoByVetId() {
-        Photo photo = buildPhoto();
-        Resource photoResource = buildPhotoData(photo);
-
-        when(photoService.updatePhotoByVetId(anyString(), anyString(), any(Mono.class)))
-                .thenReturn(Mono.just(photoResource));
+        when(photoService.updatePhotoByVetId(anyString(), anyString(), any(Flux.class)))
+                .thenReturn(Mono.just(photo));
+        when(photoService.getPhotoData(any(Photo.class), anyLong(), anyLong()))
+                .thenReturn(Flux.just(buildPhotoData()));
 
         client.put()
                 .uri("/vets/{vetId}/photos/{photoName}", VET_ID, photo.getFilename())
-                .bodyValue(photoResource)
-                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(PHOTO_DATA)
                 .exchange()
                 .expectStatus().isOk()
                 .expectHeader().contentType(MediaType.IMAGE_JPEG_VALUE)
-                .expectBody(Resource.class)
+                .expectBody(byte[].class)
                 .consumeWith(response -> {
-                    assertEquals(buildPhotoData(), response.getResponseBody());
+                    assertArrayEquals(PHOTO_DATA, response.getResponseBody());
                 });
 
         Mockito.verify(photoService, times(1))
-                .updatePhotoByVetId(anyString(), anyString(), any(Mono.class));
+                .updatePhotoByVetId(anyString(), anyString(), any(Flux.class));
     }
 
     @Test
@@ -795,6 +893,29 @@ class VetControllerUnitTest {
                     assertEquals(badgeResponseDTO.getResourceBase64(), responseDTO.getResourceBase64());
                 });
     }
+
+    @Test
+    void getBadgeByVetId_withMatchingEtag_shouldReturnNotModified() throws IOException {
+        BadgeResponseDTO badgeResponseDTO = buildBadgeResponseDTO();
+        String etag = EntityDtoUtil.toBadgeEtag(badgeResponseDTO);
+
+        when(badgeService.getBadgeByVetId(anyString()))
+                .thenReturn(Mono.just(badgeResponseDTO));
+
+        client.get()
+                .uri("/vets/{vetId}/badge", VET_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectHeader().cacheControl(CacheControl.noCache());
+
+        client.get()
+                .uri("/vets/{vetId}/badge", VET_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
     @Test
     void getDefaultPhotoByVetId_shouldSucceed() throws IOException {
         PhotoResponseDTO photoResponseDTO = buildPhotoResponseDTO();
@@ -817,11 +938,6 @@ class VetControllerUnitTest {
     }
 
 
-    private Resource buildPhotoData(Photo photo) {
-        ByteArrayResource resource = new ByteArrayResource(photo.getData());
-        return resource;
-    }
-
     private BadgeResponseDTO buildBadgeResponseDTO() throws IOException {
         return BadgeResponseDTO.builder()
                 .vetId("cf25e779-548b-4788-aefa-6d58621c2feb")
@@ -958,18 +1074,18 @@ class VetControllerUnitTest {
     }
 
     private Photo buildPhoto(){
-        byte[] photo = {123, 23, 75, 34};
         return Photo.builder()
+                .id(1)
                 .vetId(VET_ID)
                 .filename("vet_default.jpg")
                 .imgType("image/jpeg")
-                .data(photo)
+                .size((long) PHOTO_DATA.length)
+                .etag("5a1f0c")
                 .build();
     }
 
-    private Resource buildPhotoData(){
-        ByteArrayResource resource = new ByteArrayResource(photo.getData());
-        return resource;
+    private DataBuffer buildPhotoData(){
+        return DefaultDataBufferFactory.sharedInstance.wrap(PHOTO_DATA);
     }
 
     private VetAverageRatingDTO buildVetAverageRatingDTO1(){
@@ -7,6 +7,8 @@ import com.petclinic.vet.dataaccesslayer.badges.BadgeTitle;
 import com.petclinic.vet.dataaccesslayer.ratings.PredefinedDescription;
 import com.petclinic.vet.dataaccesslayer.ratings.Rating;
 import com.petclinic.vet.dataaccesslayer.ratings.RatingRepository;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummary;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummaryRepository;
 import com.petclinic.vet.exceptions.InvalidInputException;
 import com.petclinic.vet.exceptions.NotFoundException;
 import com.petclinic.vet.servicelayer.badges.BadgeResponseDTO;
@@ -28,6 +30,7 @@ import java.io.IOException;
 import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 @SpringBootTest
@@ -39,6 +42,8 @@ class BadgeServiceImplTest {
     BadgeRepository badgeRepository;
     @MockBean
     RatingRepository ratingRepository;
+    @MockBean
+    VetRatingSummaryRepository vetRatingSummaryRepository;
 
     //To counter missing bean error
     @MockBean
@@ -62,8 +67,9 @@ class BadgeServiceImplTest {
         Rating rating1 = buildRating("12346", "db0c8f13-89d2-4ef7-bcd5-3776a3734150", 4.0);
         Rating rating2 = buildRating("12347", "db0c8f13-89d2-4ef7-bcd5-3776a3734150", 5.0);
 
-        when(badgeRepository.findByVetId(anyString())).thenReturn(Mono.just(badge1));
-        when(ratingRepository.countAllByVetId(anyString())).thenReturn(Mono.just(2L));
+        when(badgeRepository.findWithoutImageByVetId(anyString())).thenReturn(Mono.just(badge1));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(vetRatingSummaryRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.just(rating1, rating2));
 
         Mono<BadgeResponseDTO> badgeResponseDTO=badgeService.getBadgeByVetId(VET_ID);
@@ -82,8 +88,9 @@ class BadgeServiceImplTest {
 
     @Test
     void getBadgeByValidVetId_with0Rating_shouldSucceed(){
-        when(badgeRepository.findByVetId(anyString())).thenReturn(Mono.just(badge3));
-        when(ratingRepository.countAllByVetId(anyString())).thenReturn(Mono.just(0L));
+        when(badgeRepository.findWithoutImageByVetId(anyString())).thenReturn(Mono.just(badge3));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.empty());
 
         Mono<BadgeResponseDTO> badgeResponseDTO=badgeService.getBadgeByVetId(VET_ID);
 
@@ -103,8 +110,8 @@ class BadgeServiceImplTest {
     void getBadge_withRatingInvalidVetId_shouldNotSucceed(){
         String invalidVetId="123";
 
-        when(badgeRepository.findByVetId(anyString())).thenReturn(Mono.just(badge1));
-        when(ratingRepository.countAllByVetId(anyString())).thenReturn(Mono.just(3L));
+        when(badgeRepository.findWithoutImageByVetId(anyString())).thenReturn(Mono.just(badge1));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.empty());
         when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.error(new NotFoundException("vetId is Not Found" + invalidVetId)));
 
         Mono<BadgeResponseDTO> badgeResponseDTO=badgeService.getBadgeByVetId(VET_ID);
@@ -123,8 +130,9 @@ class BadgeServiceImplTest {
         Rating rating1 = buildRating("12346", "db0c8f13-89d2-4ef7-bcd5-3776a3734150", 4.0);
         Rating rating2 = buildRating("12347", "db0c8f13-89d2-4ef7-bcd5-3776a3734150", 3.0);
 
-        when(badgeRepository.findByVetId(anyString())).thenReturn(Mono.just(badge2));
-        when(ratingRepository.countAllByVetId(anyString())).thenReturn(Mono.just(2L));
+        when(badgeRepository.findWithoutImageByVetId(anyString())).thenReturn(Mono.just(badge2));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(vetRatingSummaryRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.just(rating1, rating2));
 
         Mono<BadgeResponseDTO> badgeResponseDTO=badgeService.getBadgeByVetId(VET_ID);
@@ -141,6 +149,25 @@ class BadgeServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getBadge_withRatingSummary_shouldNotReadRatings(){
+        VetRatingSummary summary = VetRatingSummary.empty(VET_ID);
+        summary.setCount(2);
+        summary.setSum(10.0);
+
+        when(badgeRepository.findWithoutImageByVetId(anyString())).thenReturn(Mono.just(badge1));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.just(summary));
+
+        Mono<BadgeResponseDTO> badgeResponseDTO=badgeService.getBadgeByVetId(VET_ID);
+
+        StepVerifier
+                .create(badgeResponseDTO)
+                .consumeNextWith(responseDTO -> assertEquals(BadgeTitle.HIGHLY_RESPECTED, responseDTO.getBadgeTitle()))
+                .verifyComplete();
+
+        verify(ratingRepository, never()).findAllByVetId(anyString());
+    }
+
     private Badge buildBadge(BadgeTitle b, ClassPathResource c) throws IOException {
         return Badge.builder()
                 .vetId("db0c8f13-89d2-4ef7-bcd5-3776a3734150")
@@ -1,31 +1,34 @@
 package com.petclinic.vet.servicelayer;
 
 import com.petclinic.vet.dataaccesslayer.Photo;
+import com.petclinic.vet.dataaccesslayer.PhotoChunk;
+import com.petclinic.vet.dataaccesslayer.PhotoChunkRepository;
 import com.petclinic.vet.dataaccesslayer.PhotoRepository;
-import com.petclinic.vet.exceptions.InvalidInputException;
+import com.petclinic.vet.exceptions.NotFoundException;
 import com.petclinic.vet.presentationlayer.PhotoResponseDTO;
+import com.petclinic.vet.util.PhotoUtil;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.r2dbc.init.R2dbcScriptDatabaseInitializer;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -36,6 +39,8 @@ class PhotoServiceImplTest {
 
     @MockBean
     PhotoRepository photoRepository;
+    @MockBean
+    PhotoChunkRepository photoChunkRepository;
 
     //To counter missing bean error
     @MockBean
@@ -46,49 +51,75 @@ class PhotoServiceImplTest {
     String VET_ID = "6748786";
     byte[] photoData = {123, 23, 75, 34};
     Photo photo = Photo.builder()
+            .id(1)
             .vetId(VET_ID)
             .filename("vet_default.jpg")
             .imgType("image/jpeg")
-            .data(photoData)
+            .size((long) photoData.length)
+            .etag("etag")
             .build();
 
     @Test
     void getPhotoByValidVetId() {
         when(photoRepository.findByVetId(anyString())).thenReturn(Mono.just(photo));
 
-        Mono<Resource> photoMono = photoService.getPhotoByVetId(VET_ID);
+        Mono<Photo> photoMono = photoService.getPhotoByVetId(VET_ID);
 
         StepVerifier
                 .create(photoMono)
-                .consumeNextWith(image -> {
-                    assertNotNull(image);
+                .consumeNextWith(image -> assertEquals(photo, image))
+                .verifyComplete();
+    }
 
-                    Resource photo = photoMono.block();
-                    assertEquals(photo, image);
-                })
+    @Test
+    void getPhotoByInvalidVetId_ShouldThrowNotFoundException() {
+        when(photoRepository.findByVetId(anyString())).thenReturn(Mono.empty());
+
+        StepVerifier
+                .create(photoService.getPhotoByVetId(VET_ID))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getPhotoData_WithRangeOverTwoChunks_ShouldOnlyReturnTheRange() {
+        byte[] firstChunk = new byte[PhotoUtil.CHUNK_SIZE];
+        Arrays.fill(firstChunk, (byte) 1);
+        byte[] secondChunk = {2, 3, 4, 5, 6};
+        Photo largePhoto = Photo.builder()
+                .id(1)
+                .vetId(VET_ID)
+                .imgType("image/jpeg")
+                .size((long) PhotoUtil.CHUNK_SIZE + secondChunk.length)
+                .build();
+
+        when(photoChunkRepository.findAllByImageIdAndChunkIndexBetweenOrderByChunkIndex(eq(1), eq(0), eq(1)))
+                .thenReturn(Flux.just(
+                        PhotoChunk.builder().imageId(1).chunkIndex(0).data(firstChunk).build(),
+                        PhotoChunk.builder().imageId(1).chunkIndex(1).data(secondChunk).build()));
+
+        long start = PhotoUtil.CHUNK_SIZE - 2;
+        long end = PhotoUtil.CHUNK_SIZE + 1;
+
+        StepVerifier
+                .create(join(photoService.getPhotoData(largePhoto, start, end)))
+                .consumeNextWith(data -> assertArrayEquals(new byte[]{1, 1, 2, 3}, data))
                 .verifyComplete();
     }
+
     @Test
     void getDefaultPhotoByValidVetId() {
-        String photoName = "vet_default.jpg";
-        Photo savedDefaultPhoto = new Photo();
-        savedDefaultPhoto.setVetId(VET_ID);
-        savedDefaultPhoto.setFilename(photoName);
-        savedDefaultPhoto.setImgType("image/jpeg");
-        savedDefaultPhoto.setData(photoData);
-        when(photoRepository.save(any(Photo.class))).thenReturn(Mono.just(savedDefaultPhoto));
-
         when(photoRepository.findByVetId(anyString())).thenReturn(Mono.just(photo));
+        when(photoChunkRepository.findAllByImageIdAndChunkIndexBetweenOrderByChunkIndex(anyInt(), anyInt(), anyInt()))
+                .thenReturn(Flux.just(PhotoChunk.builder().imageId(1).chunkIndex(0).data(photoData).build()));
 
         Mono<PhotoResponseDTO> defaultPhotoMono = photoService.getDefaultPhotoByVetId(VET_ID);
 
         StepVerifier
                 .create(defaultPhotoMono)
                 .consumeNextWith(image -> {
-                    assertNotNull(image);
-
-                    PhotoResponseDTO photo = defaultPhotoMono.block();
-                    assertEquals(photo.getVetId(), image.getVetId());
+                    assertEquals(VET_ID, image.getVetId());
+                    assertNotNull(image.getResourceBase64());
                 })
                 .verifyComplete();
     }
@@ -96,50 +127,89 @@ class PhotoServiceImplTest {
     @Test
     void insertPhotoOfVet() {
         String photoName = "vet_default.jpg";
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(photoData));
-        Photo savedPhoto = new Photo();
-        savedPhoto.setVetId(VET_ID);
-        savedPhoto.setFilename(photoName);
-        savedPhoto.setImgType("image/jpeg");
-        savedPhoto.setData(photoData);
-        when(photoRepository.save(any(Photo.class))).thenReturn(Mono.just(savedPhoto));
+        when(photoRepository.findByVetId(anyString())).thenReturn(Mono.empty());
+        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> {
+            Photo saved = invocation.getArgument(0);
+            saved.setId(1);
+            return Mono.just(saved);
+        });
+        when(photoChunkRepository.save(any(PhotoChunk.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
-        Mono<Resource> savedPhotoMono = photoService.insertPhotoOfVet(VET_ID, photoName, photoResource);
+        Mono<Photo> savedPhotoMono = photoService.insertPhotoOfVet(VET_ID, photoName, toDataBuffers(photoData));
 
         StepVerifier
                 .create(savedPhotoMono)
-                .consumeNextWith(image -> {
-                    assertNotNull(image);
-
-                    Resource photo = savedPhotoMono.block();
-                    assertEquals(photo, image);
+                .consumeNextWith(saved -> {
+                    assertEquals(1, saved.getId());
+                    assertEquals(VET_ID, saved.getVetId());
+                    assertEquals("image/jpeg", saved.getImgType());
+                    assertEquals(Long.valueOf(photoData.length), saved.getSize());
+                    assertNotNull(saved.getEtag());
                 })
                 .verifyComplete();
+
+        verify(photoChunkRepository, never()).deleteByImageId(anyInt());
+        verify(photoChunkRepository, times(1)).save(any(PhotoChunk.class));
     }
 
     @Test
     void updatePhotoOfVet() {
-        String photoName = "vet_default.jpg";
-        Mono<Resource> photoResource = Mono.just(new ByteArrayResource(photoData));
-        Photo savedPhoto = new Photo();
-        savedPhoto.setVetId(VET_ID);
-        savedPhoto.setFilename(photoName);
-        savedPhoto.setImgType("image/jpeg");
-        savedPhoto.setData(photoData);
-
-        when(photoRepository.save(any(Photo.class))).thenReturn(Mono.just(savedPhoto));
-        when(photoRepository.findByVetId(anyString())).thenReturn(Mono.just(savedPhoto));
+        String photoName = "vet_photo.png";
+        when(photoRepository.findByVetId(anyString())).thenReturn(Mono.just(photo));
+        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(photoChunkRepository.deleteByImageId(anyInt())).thenReturn(Mono.just(1));
+        when(photoChunkRepository.save(any(PhotoChunk.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
-        Mono<Resource> savedPhotoMono = photoService.updatePhotoByVetId(VET_ID, photoName, photoResource);
+        Mono<Photo> savedPhotoMono = photoService.updatePhotoByVetId(VET_ID, photoName, toDataBuffers(photoData));
 
         StepVerifier
                 .create(savedPhotoMono)
-                .consumeNextWith(image -> {
-                    assertNotNull(image);
-
-                    Resource photo = savedPhotoMono.block();
-                    assertEquals(photo, image);
+                .consumeNextWith(saved -> {
+                    assertEquals(photo.getId(), saved.getId());
+                    assertEquals(photoName, saved.getFilename());
+                    assertEquals("image/png", saved.getImgType());
                 })
                 .verifyComplete();
+
+        verify(photoChunkRepository, times(1)).deleteByImageId(photo.getId());
+        verify(photoChunkRepository, times(1)).save(any(PhotoChunk.class));
+    }
+
+    @Test
+    void updatePhotoOfVet_ChunksCannotBeSaved_ShouldReturnTheError() {
+        when(photoRepository.findByVetId(anyString())).thenReturn(Mono.just(photo));
+        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(photoChunkRepository.deleteByImageId(anyInt())).thenReturn(Mono.just(1));
+        when(photoChunkRepository.save(any(PhotoChunk.class))).thenReturn(Mono.error(new IllegalStateException("database down")));
+
+        StepVerifier
+                .create(photoService.updatePhotoByVetId(VET_ID, "vet_photo.png", toDataBuffers(photoData)))
+                .expectErrorMessage("database down")
+                .verify();
+    }
+
+    @Test
+    void updatePhotoOfVet_WithoutPhoto_ShouldThrowNotFoundException() {
+        when(photoRepository.findByVetId(anyString())).thenReturn(Mono.empty());
+
+        StepVerifier
+                .create(photoService.updatePhotoByVetId(VET_ID, "vet_photo.png", toDataBuffers(photoData)))
+                .expectError(NotFoundException.class)
+                .verify();
+
+        verify(photoRepository, never()).save(any(Photo.class));
+    }
+
+    private Flux<DataBuffer> toDataBuffers(byte[] data) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(data));
+    }
+
+    private Mono<byte[]> join(Flux<DataBuffer> buffers) {
+        return DataBufferUtils.join(buffers)
+                .map(buffer -> {
+                    byte[] data = new byte[buffer.readableByteCount()];
+                    buffer.read(data);
+                    return data;
+                });
     }
-}
\ No newline at end of file
+}
@@ -5,15 +5,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.petclinic.vet.dataaccesslayer.*;
 import com.petclinic.vet.dataaccesslayer.ratings.Rating;
 import com.petclinic.vet.dataaccesslayer.ratings.RatingRepository;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummary;
+import com.petclinic.vet.dataaccesslayer.ratings.VetRatingSummaryRepository;
 import com.petclinic.vet.servicelayer.ratings.RatingRequestDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingResponseDTO;
 import com.petclinic.vet.servicelayer.ratings.RatingService;
+import com.petclinic.vet.servicelayer.ratings.RatingSummaryService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.r2dbc.init.R2dbcScriptDatabaseInitializer;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -25,8 +29,14 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -37,10 +47,14 @@ class RatingServiceImplTest {
     RatingService ratingService;
     @Autowired
     PhotoService photoService;
+    @Autowired
+    RatingSummaryService ratingSummaryService;
 
     @MockBean
     RatingRepository ratingRepository;
     @MockBean
+    VetRatingSummaryRepository vetRatingSummaryRepository;
+    @MockBean
     VetRepository vetRepository;
 
     //To counter missing bean error
@@ -84,12 +98,16 @@ class RatingServiceImplTest {
         when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
         when(ratingRepository.findByVetIdAndRatingId(anyString(), anyString())).thenReturn(Mono.just(rating));
         when(ratingRepository.delete(any())).thenReturn(Mono.empty());
+        when(vetRatingSummaryRepository.increment(anyString(), any())).thenReturn(Mono.just(buildSummary("vetId", 0, 0.0)));
 
         Mono<Void> deletedRating = ratingService.deleteRatingByRatingId(rating.getVetId(), rating.getRatingId());
 
         StepVerifier
                 .create(deletedRating)
                 .verifyComplete();
+
+        verify(vetRatingSummaryRepository).increment(eq(rating.getVetId()), argThat(delta ->
+                delta.getCount() == -1 && delta.getSum() == -5.0 && delta.getScoreCount("5") == -1));
     }
 
     @Test
@@ -105,11 +123,67 @@ class RatingServiceImplTest {
                 });
     }
 
+    @Test
+    void addRatingToVet_ShouldIncrementRatingSummary() {
+        when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
+        when(ratingRepository.insert(any(Rating.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(vetRatingSummaryRepository.increment(anyString(), any())).thenReturn(Mono.just(buildSummary("vetId", 1, 5.0)));
+
+        StepVerifier
+                .create(ratingService.addRatingToVet(rating.getVetId(), Mono.just(ratingRequestDTO)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(vetRatingSummaryRepository).increment(eq("vetId"), argThat(delta ->
+                delta.getCount() == 1 && delta.getSum() == 5.0 && delta.getScoreCount("5") == 1
+                        && delta.getYearCounts().size() == 1));
+        verify(vetRatingSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void addRatingToVet_WithoutRatingSummary_ShouldSeedItFromTheRatings() {
+        rating2.setVetId("vetId");
+        when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
+        when(ratingRepository.insert(any(Rating.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(vetRatingSummaryRepository.increment(anyString(), any())).thenReturn(Mono.empty());
+        //the rating written before summaries existed and the one just added
+        when(ratingRepository.findAllByVetId("vetId")).thenReturn(Flux.just(rating, rating2));
+        when(vetRatingSummaryRepository.insert(any(VetRatingSummary.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier
+                .create(ratingService.addRatingToVet(rating.getVetId(), Mono.just(ratingRequestDTO)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(vetRatingSummaryRepository).insert(argThat((VetRatingSummary summary) -> "vetId".equals(summary.getVetId())
+                && summary.getCount() == 2 && summary.getAverage() == 3.0));
+        verify(vetRatingSummaryRepository, times(1)).increment(anyString(), any());
+    }
+
+    @Test
+    void addRatingToVet_SummarySeededByAnotherWrite_ShouldIncrementIt() {
+        when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
+        when(ratingRepository.insert(any(Rating.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(vetRatingSummaryRepository.increment(anyString(), any()))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(buildSummary("vetId", 2, 10.0)));
+        when(ratingRepository.findAllByVetId("vetId")).thenReturn(Flux.just(rating));
+        when(vetRatingSummaryRepository.insert(any(VetRatingSummary.class))).thenReturn(Mono.error(new DuplicateKeyException("vetId")));
+
+        StepVerifier
+                .create(ratingService.addRatingToVet(rating.getVetId(), Mono.just(ratingRequestDTO)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(vetRatingSummaryRepository, times(2)).increment(eq("vetId"), any());
+    }
+
     @Test
     void updateRatingOfVet(){
         when(ratingRepository.save(any())).thenReturn(Mono.just(rating));
         when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
         when(ratingRepository.findByVetIdAndRatingId(anyString(), anyString())).thenReturn(Mono.just(rating));
+        when(vetRatingSummaryRepository.increment(anyString(), any())).thenReturn(Mono.just(buildSummary("vetId", 1, 5.0)));
 
         Mono<RatingResponseDTO> ratingResponseDTO=ratingService.updateRatingByVetIdAndRatingId(existingVet.getVetId(), rating.getRatingId(), Mono.just(ratingRequestDTO));
 
@@ -126,6 +200,26 @@ class RatingServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void updateRatingOfVet_ShouldIncrementTheSummaryOfTheStoredVet() {
+        RatingRequestDTO movedRating = buildRatingRequestDTO();
+        movedRating.setVetId("otherVetId");
+        movedRating.setRateScore(3.0);
+        when(ratingRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
+        when(ratingRepository.findByVetIdAndRatingId(anyString(), anyString())).thenReturn(Mono.just(rating));
+        when(vetRatingSummaryRepository.increment(anyString(), any())).thenReturn(Mono.just(buildSummary(rating.getVetId(), 1, 3.0)));
+
+        StepVerifier
+                .create(ratingService.updateRatingByVetIdAndRatingId(rating.getVetId(), rating.getRatingId(), Mono.just(movedRating)))
+                .consumeNextWith(updated -> assertEquals(rating.getVetId(), updated.getVetId()))
+                .verifyComplete();
+
+        verify(vetRatingSummaryRepository).increment(eq(rating.getVetId()), argThat(delta ->
+                delta.getCount() == 0 && delta.getSum() == 3.0 - rating.getRateScore()));
+        verify(vetRatingSummaryRepository, never()).increment(eq("otherVetId"), any());
+    }
+
     @Test
     void getNumberOfRatingsByVetId() {
         when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
@@ -145,8 +239,7 @@ class RatingServiceImplTest {
 
     @Test
     void getAverageRatingByVetId() {
-        when(ratingRepository.countAllByVetId(anyString())).thenReturn(Mono.just(1L));
-        when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.just(rating));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.just(buildSummary("vetId", 1, 5.0)));
 
         Mono<Double> averageRating = ratingService.getAverageRatingByVetId(rating.getVetId());
 
@@ -159,6 +252,33 @@ class RatingServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getAverageRatingByVetId_WithoutRatingSummary_ShouldComputeItFromRatings() {
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.just(rating, rating2));
+
+        StepVerifier
+                .create(ratingService.getAverageRatingByVetId(rating.getVetId()))
+                .expectNext(3.0)
+                .verifyComplete();
+
+        //only the reconciler writes whole summaries
+        verify(vetRatingSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void getAverageRatingByVetId_WithNoRatings_ShouldReturnZero() {
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.empty());
+
+        StepVerifier
+                .create(ratingService.getAverageRatingByVetId("unknownVetId"))
+                .expectNext(0.0)
+                .verifyComplete();
+
+        verify(vetRatingSummaryRepository, never()).save(any());
+    }
+
 
     @Test
     void getTopThreeVetsWithHighestRating() {
@@ -213,25 +333,24 @@ class RatingServiceImplTest {
                 .build();
 
 
-        when(ratingRepository.countAllByVetId(anyString())).thenReturn(Mono.just(5L));
         when(vetRepository.findVetByVetId(rating.getVetId())).thenReturn(Mono.just(vet1));
         when(vetRepository.findVetByVetId(rating2.getVetId())).thenReturn(Mono.just(vet2));
         when(vetRepository.findVetByVetId(rating3.getVetId())).thenReturn(Mono.just(vet3));
 
-
-
-        when(ratingRepository.findAll()).thenReturn(Flux.just(rating,rating2,rating3));
-
-        when(ratingRepository.findAllByVetId(rating.getVetId())).thenReturn(Flux.just(rating));
-        when(ratingRepository.findAllByVetId(rating2.getVetId())).thenReturn(Flux.just(rating2));
-        when(ratingRepository.findAllByVetId(rating3.getVetId())).thenReturn(Flux.just(rating3));
+        //the summaries come back already sorted by average from the index
+        when(vetRatingSummaryRepository.findAllByCountGreaterThan(anyLong(), any())).thenReturn(Flux.just(
+                buildSummary(rating.getVetId(), 1, rating.getRateScore()),
+                buildSummary(rating3.getVetId(), 1, rating3.getRateScore()),
+                buildSummary(rating2.getVetId(), 1, rating2.getRateScore())));
 
 
         Flux<VetAverageRatingDTO> averageRatingDTOFlux = ratingService.getTopThreeVetsWithHighestAverageRating();
 
         StepVerifier
                 .create(averageRatingDTOFlux)
-                .expectNextCount(3)
+                .consumeNextWith(top -> assertEquals(4.0, top.getAverageRating()))
+                .consumeNextWith(second -> assertEquals(2.0, second.getAverageRating()))
+                .consumeNextWith(third -> assertEquals(1.0, third.getAverageRating()))
                 .verifyComplete();
 
     }
@@ -282,7 +401,7 @@ class RatingServiceImplTest {
     @Test
     void getRatingPercentagesByVetId() throws JsonProcessingException {
         when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
-        when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.just(rating));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.just(buildSummary("vetId", 1, 5.0)));
         when(objectMapper.writeValueAsString(any())).thenReturn("{\"1.0\":0.0,\"2.0\":0.0,\"4.0\":0.0,\"5.0\":1.0,\"3.0\":0.0}");
         Mono<String> ratingPercent = ratingService.getRatingPercentagesByVetId(rating.getVetId());
 
@@ -299,6 +418,7 @@ class RatingServiceImplTest {
     @Test
     void getRatingPercentagesByVetIdError() throws JsonProcessingException {
         when(vetRepository.findVetByVetId(anyString())).thenReturn(Mono.just(existingVet));
+        when(vetRatingSummaryRepository.findById(anyString())).thenReturn(Mono.empty());
         when(ratingRepository.findAllByVetId(anyString())).thenReturn(Flux.empty());
         when(objectMapper.writeValueAsString(any())).thenThrow(JsonProcessingException.class);
         Mono<String> ratingPercent = ratingService.getRatingPercentagesByVetId(rating.getVetId());
@@ -309,6 +429,59 @@ class RatingServiceImplTest {
                 .verify();
     }
 
+    @Test
+    void reconcileAllSummaries_ShouldRepairOutOfDateSummaries() {
+        rating.setDate("2023");
+        rating2.setVetId("vetId");
+        rating2.setDate("2023");
+        VetRatingSummary upToDate = buildSummary(rating3.getVetId(), 1, rating3.getRateScore());
+        VetRatingSummary outOfDate = buildSummary("vetId", 1, 5.0);
+        VetRatingSummary orphan = buildSummary("deletedVetId", 2, 8.0);
+
+        Rating newVetRating = buildRating3();
+        newVetRating.setVetId("newVetId");
+
+        when(ratingRepository.findAll()).thenReturn(Flux.just(rating, rating2, rating3, newVetRating));
+        when(ratingRepository.findAllByVetId("vetId")).thenReturn(Flux.just(rating, rating2));
+        when(ratingRepository.findAllByVetId(rating3.getVetId())).thenReturn(Flux.just(rating3));
+        when(ratingRepository.findAllByVetId("newVetId")).thenReturn(Flux.just(newVetRating));
+        when(ratingRepository.findAllByVetId("deletedVetId")).thenReturn(Flux.empty());
+        when(vetRatingSummaryRepository.findAll()).thenReturn(Flux.just(upToDate, outOfDate, orphan));
+        when(vetRatingSummaryRepository.findById("vetId")).thenReturn(Mono.just(outOfDate));
+        when(vetRatingSummaryRepository.findById(rating3.getVetId())).thenReturn(Mono.just(upToDate));
+        when(vetRatingSummaryRepository.findById("newVetId")).thenReturn(Mono.empty());
+        when(vetRatingSummaryRepository.findById("deletedVetId")).thenReturn(Mono.just(orphan));
+        when(vetRatingSummaryRepository.replaceIfUnchanged(any(), any())).thenReturn(Mono.just(true));
+        when(vetRatingSummaryRepository.insert(any(VetRatingSummary.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier
+                .create(ratingSummaryService.reconcileAllSummaries())
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(vetRatingSummaryRepository).replaceIfUnchanged(eq(outOfDate), argThat(summary -> "vetId".equals(summary.getVetId())
+                && summary.getCount() == 2 && summary.getAverage() == 3.0 && summary.getYearCounts().get("2023") == 2));
+        verify(vetRatingSummaryRepository).replaceIfUnchanged(eq(orphan), argThat(summary -> summary.getCount() == 0));
+        verify(vetRatingSummaryRepository).insert(argThat((VetRatingSummary summary) -> "newVetId".equals(summary.getVetId()) && summary.getCount() == 1));
+        verify(vetRatingSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void reconcileAllSummaries_SummaryWrittenInBetween_ShouldNotCountIt() {
+        VetRatingSummary outOfDate = buildSummary("vetId", 1, 1.0);
+
+        when(ratingRepository.findAll()).thenReturn(Flux.just(rating));
+        when(ratingRepository.findAllByVetId("vetId")).thenReturn(Flux.just(rating));
+        when(vetRatingSummaryRepository.findAll()).thenReturn(Flux.just(outOfDate));
+        when(vetRatingSummaryRepository.findById("vetId")).thenReturn(Mono.just(outOfDate));
+        when(vetRatingSummaryRepository.replaceIfUnchanged(any(), any())).thenReturn(Mono.just(false));
+
+        StepVerifier
+                .create(ratingSummaryService.reconcileAllSummaries())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
     private Rating buildRating() {
         return Rating.builder()
                 .id("1")
@@ -364,6 +537,17 @@ class RatingServiceImplTest {
                 .build();
     }
 
+    private VetRatingSummary buildSummary(String vetId, long count, double sum) {
+        VetRatingSummary summary = VetRatingSummary.empty(vetId);
+        summary.setCount(count);
+        summary.setSum(sum);
+        summary.setAverage(summary.computeAverage());
+        for (long i = 0; i < count; i++) {
+            summary.getScoreCounts().merge(VetRatingSummary.scoreKey(sum / count), 1L, Long::sum);
+        }
+        return summary;
+    }
+
     private VetAverageRatingDTO buildVetAverageRatingDTO(){
         return VetAverageRatingDTO.builder()
                 .averageRating(5.0)
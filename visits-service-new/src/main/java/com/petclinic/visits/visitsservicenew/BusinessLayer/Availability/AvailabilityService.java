@@ -0,0 +1,23 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Availability;
+
+import com.petclinic.visits.visitsservicenew.PresentationLayer.Availability.AvailableSlotResponseDTO;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AvailabilityService {
+
+    /**
+     * The free slots of the vets, earliest first
+     *
+     * @param practitionerIds The vets to search, all the active vets when empty
+     * @param specialty       Only the vets with this specialty, if present
+     * @param from            First day, today when not present
+     * @param to              Last day, one year after from when not present
+     * @param duration        The duration of the visit in minutes, VisitSlot.DEFAULT_VISIT_MINUTES when not present
+     * @param limit           The maximum number of slots returned
+     */
+    Flux<AvailableSlotResponseDTO> getAvailableSlots(List<String> practitionerIds, String specialty,
+                                                     LocalDate from, LocalDate to, Integer duration, Integer limit);
+}
@@ -0,0 +1,189 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Availability;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlot;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlotRepo;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.VetDTO;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.VetsClient;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Workday;
+import com.petclinic.visits.visitsservicenew.Exceptions.BadRequestException;
+import com.petclinic.visits.visitsservicenew.PresentationLayer.Availability.AvailableSlotResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the free slots of the vets from their work hours and the slots already booked (see VisitSlot).
+ * The work hours of each vet are parsed once and kept until vet-service sends different ones, and the list of the active
+ * vets is kept for a short time. The booked slots are read a week at a time, so a search that finds its slots in the
+ * first weeks does not read the rest of the range.
+ */
+@Service
+@Slf4j
+public class AvailabilityServiceImpl implements AvailabilityService {
+
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 500;
+    private static final int MAX_VISIT_MINUTES = 8 * 60;
+    private static final int DAYS_PER_WINDOW = 7;
+    private static final int MAX_CACHED_SCHEDULES = 5000;
+    private static final Duration VETS_CACHE_TTL = Duration.ofMinutes(1);
+
+    private final VetsClient vetsClient;
+    private final VisitSlotRepo slotRepo;
+
+    private final Map<String, CachedSchedule> schedules = new ConcurrentHashMap<>();
+    private final Mono<List<VetDTO>> activeVets;
+
+    public AvailabilityServiceImpl(VetsClient vetsClient, VisitSlotRepo slotRepo) {
+        this.vetsClient = vetsClient;
+        this.slotRepo = slotRepo;
+        //errors are not kept, the next search asks vet-service again
+        this.activeVets = Mono.defer(() -> vetsClient.getAllVets()
+                        .filter(VetDTO::isActive)
+                        .collectList())
+                .cache(vets -> VETS_CACHE_TTL, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @Override
+    public Flux<AvailableSlotResponseDTO> getAvailableSlots(List<String> practitionerIds, String specialty,
+                                                            LocalDate from, LocalDate to, Integer duration, Integer limit) {
+        LocalDate firstDay = from == null ? LocalDate.now() : from;
+        LocalDate lastDay = to == null ? firstDay.plusYears(1) : to;
+        int visitMinutes = duration == null ? VisitSlot.DEFAULT_VISIT_MINUTES : duration;
+        int maxSlots = limit == null ? DEFAULT_LIMIT : limit;
+
+        if (lastDay.isBefore(firstDay)) {
+            return Flux.error(new BadRequestException("The last day cannot be before the first day"));
+        } else if (lastDay.isAfter(firstDay.plusYears(1))) {
+            return Flux.error(new BadRequestException("Free slots can be searched over one year at most"));
+        } else if (visitMinutes <= 0 || visitMinutes > MAX_VISIT_MINUTES) {
+            return Flux.error(new BadRequestException("The duration of a visit must be between 1 and " + MAX_VISIT_MINUTES + " minutes"));
+        } else if (maxSlots <= 0 || maxSlots > MAX_LIMIT) {
+            return Flux.error(new BadRequestException("The limit must be between 1 and " + MAX_LIMIT));
+        }
+
+        //no slot is free in the past
+        LocalDate today = LocalDate.now();
+        LocalDate start = firstDay.isBefore(today) ? today : firstDay;
+        LocalDate end = lastDay.plusDays(1);
+
+        return getVets(practitionerIds, specialty)
+                .flatMapMany(vets -> {
+                    Map<String, VetDTO> vetsById = new LinkedHashMap<>();
+                    Map<String, WorkSchedule> workSchedules = new LinkedHashMap<>();
+                    for (VetDTO vet : vets) {
+                        WorkSchedule schedule = getWorkSchedule(vet);
+                        if (!schedule.isEmpty()) {
+                            vetsById.put(vet.getVetId(), vet);
+                            workSchedules.put(vet.getVetId(), schedule);
+                        }
+                    }
+                    if (workSchedules.isEmpty() || !start.isBefore(end)) {
+                        return Flux.<AvailableSlotResponseDTO>empty();
+                    }
+
+                    LocalDateTime notBefore = LocalDateTime.now();
+                    int windows = (int) ((ChronoUnit.DAYS.between(start, end) + DAYS_PER_WINDOW - 1) / DAYS_PER_WINDOW);
+                    return Flux.range(0, windows)
+                            .map(window -> start.plusDays((long) window * DAYS_PER_WINDOW))
+                            .concatMap(windowStart -> {
+                                LocalDate windowEnd = windowStart.plusDays(DAYS_PER_WINDOW);
+                                return getFreeSlots(vetsById, workSchedules, windowStart,
+                                        windowEnd.isAfter(end) ? end : windowEnd, visitMinutes, notBefore);
+                            });
+                })
+                .take(maxSlots);
+    }
+
+    private Mono<List<VetDTO>> getVets(List<String> practitionerIds, String specialty) {
+        Flux<VetDTO> vets = practitionerIds == null || practitionerIds.isEmpty()
+                ? activeVets.flatMapIterable(list -> list)
+                : Flux.fromIterable(new LinkedHashSet<>(practitionerIds)).flatMapSequential(vetsClient::loadVetById);
+
+        return vets
+                .filter(vet -> specialty == null || specialty.isBlank() || hasSpecialty(vet, specialty))
+                .collectList();
+    }
+
+    private boolean hasSpecialty(VetDTO vet, String specialty) {
+        return vet.getSpecialties() != null && vet.getSpecialties().stream()
+                .anyMatch(s -> specialty.equalsIgnoreCase(s.getName()) || specialty.equals(s.getSpecialtyId()));
+    }
+
+    /**
+     * The work hours of the vet are only parsed again when they changed in vet-service
+     */
+    private WorkSchedule getWorkSchedule(VetDTO vet) {
+        CachedSchedule cached = schedules.get(vet.getVetId());
+        if (cached != null && cached.isFor(vet)) {
+            return cached.schedule();
+        }
+
+        WorkSchedule schedule;
+        try {
+            schedule = WorkSchedule.parse(vet.getWorkHoursJson(), vet.getWorkday());
+        } catch (JsonProcessingException e) {
+            log.warn("The work hours of vet {} could not be read: {}", vet.getVetId(), e.getOriginalMessage());
+            schedule = WorkSchedule.EMPTY;
+        }
+
+        if (schedules.size() >= MAX_CACHED_SCHEDULES) {
+            schedules.clear();
+        }
+        schedules.put(vet.getVetId(), new CachedSchedule(vet.getWorkHoursJson(), vet.getWorkday(), schedule));
+        return schedule;
+    }
+
+    /**
+     * The free slots of the vets in a window of days, earliest first, from one read of the slots booked in the window
+     */
+    private Flux<AvailableSlotResponseDTO> getFreeSlots(Map<String, VetDTO> vets, Map<String, WorkSchedule> workSchedules,
+                                                        LocalDate from, LocalDate before, int duration, LocalDateTime notBefore) {
+        return slotRepo.findBookedSlots(workSchedules.keySet(), from.atStartOfDay(), before.atStartOfDay())
+                .collectMultimap(VisitSlot::getPractitionerId, VisitSlot::getSlotStart)
+                .flatMapIterable(bookedSlots -> {
+                    List<AvailableSlotResponseDTO> freeSlots = new ArrayList<>();
+                    workSchedules.forEach((vetId, schedule) -> {
+                        //sorted so the slot taken after a time is found without going through the day
+                        NavigableSet<LocalDateTime> booked = new TreeSet<>(bookedSlots.getOrDefault(vetId, List.of()));
+                        VetDTO vet = vets.get(vetId);
+                        schedule.forEachFreeSlot(from, before, duration, booked, notBefore, start ->
+                                freeSlots.add(AvailableSlotResponseDTO.builder()
+                                        .practitionerId(vetId)
+                                        .vetFirstName(vet.getFirstName())
+                                        .vetLastName(vet.getLastName())
+                                        .start(start)
+                                        .end(start.plusMinutes(duration))
+                                        .build()));
+                    });
+                    freeSlots.sort(Comparator.comparing(AvailableSlotResponseDTO::getStart)
+                            .thenComparing(AvailableSlotResponseDTO::getPractitionerId));
+                    return freeSlots;
+                });
+    }
+
+    private record CachedSchedule(String workHoursJson, Set<Workday> workdays, WorkSchedule schedule) {
+
+        private boolean isFor(VetDTO vet) {
+            return Objects.equals(workHoursJson, vet.getWorkHoursJson()) && Objects.equals(workdays, vet.getWorkday());
+        }
+    }
+}
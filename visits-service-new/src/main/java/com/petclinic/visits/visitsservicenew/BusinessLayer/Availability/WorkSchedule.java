@@ -0,0 +1,141 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Availability;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlot;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.WorkHour;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Workday;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * The weekly working hours of a vet, parsed once from the workHoursJson of vet-service.
+ * Consecutive work hours of a day are merged in a single interval.
+ */
+public class WorkSchedule {
+
+    public static final WorkSchedule EMPTY = new WorkSchedule(new EnumMap<>(DayOfWeek.class));
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<DayOfWeek, List<Interval>> hours;
+
+    private WorkSchedule(Map<DayOfWeek, List<Interval>> hours) {
+        this.hours = hours;
+    }
+
+    /**
+     * @param workHoursJson The work hours of each workday, as saved by vet-service ({"Monday":["Hour_8_9", ...]})
+     * @param workdays      The workdays of the vet, the hours of the other days are left out. Not applied when null
+     * @return The schedule, EMPTY when there are no work hours
+     * @throws JsonProcessingException When the work hours are not in the format of vet-service
+     */
+    public static WorkSchedule parse(String workHoursJson, Set<Workday> workdays) throws JsonProcessingException {
+        if (workHoursJson == null || workHoursJson.isBlank()) {
+            return EMPTY;
+        }
+
+        Map<Workday, List<WorkHour>> workHours = OBJECT_MAPPER.readValue(workHoursJson, new TypeReference<>() {
+        });
+
+        Map<DayOfWeek, List<Interval>> hours = new EnumMap<>(DayOfWeek.class);
+        workHours.forEach((workday, dayHours) -> {
+            if (workday == null || dayHours == null || (workdays != null && !workdays.contains(workday))) {
+                return;
+            }
+
+            TreeSet<Integer> startHours = new TreeSet<>();
+            dayHours.forEach(workHour -> startHours.add(workHour.getStartHour()));
+
+            List<Interval> intervals = new ArrayList<>();
+            Integer start = null;
+            Integer end = null;
+            for (int startHour : startHours) {
+                if (end == null || startHour != end) {
+                    if (start != null) {
+                        intervals.add(new Interval(LocalTime.of(start, 0), LocalTime.of(end, 0)));
+                    }
+                    start = startHour;
+                }
+                end = startHour + 1;
+            }
+            if (start != null) {
+                intervals.add(new Interval(LocalTime.of(start, 0), LocalTime.of(end, 0)));
+                hours.put(DayOfWeek.valueOf(workday.name().toUpperCase()), intervals);
+            }
+        });
+        return new WorkSchedule(hours);
+    }
+
+    public boolean isEmpty() {
+        return hours.isEmpty();
+    }
+
+    /**
+     * Finds the free slots of the vet from the earliest, back to back, skipping over the booked slots
+     *
+     * @param from        First day, inclusive
+     * @param before      Last day, exclusive
+     * @param duration    The duration of the visits in minutes
+     * @param bookedSlots The start of the slots already taken in the schedule of the vet
+     * @param notBefore   No slot starts before this time
+     * @param freeSlot    Called with the start of each free slot, in order
+     */
+    public void forEachFreeSlot(LocalDate from, LocalDate before, int duration, NavigableSet<LocalDateTime> bookedSlots,
+                                LocalDateTime notBefore, Consumer<LocalDateTime> freeSlot) {
+        //visits start on the slot grid so a free slot does not overlap one of the slots next to it
+        int step = (duration + VisitSlot.SLOT_MINUTES - 1) / VisitSlot.SLOT_MINUTES * VisitSlot.SLOT_MINUTES;
+
+        for (LocalDate day = from; day.isBefore(before); day = day.plusDays(1)) {
+            List<Interval> intervals = hours.get(day.getDayOfWeek());
+            if (intervals == null) {
+                continue;
+            }
+
+            for (Interval interval : intervals) {
+                LocalDateTime end = day.atTime(interval.end());
+                LocalDateTime start = day.atTime(interval.start());
+                if (start.isBefore(notBefore)) {
+                    start = nextSlot(start, notBefore);
+                }
+
+                while (!start.plusMinutes(duration).isAfter(end)) {
+                    LocalDateTime booked = bookedSlots.ceiling(start);
+                    if (booked != null && booked.isBefore(start.plusMinutes(duration))) {
+                        //taken, the next candidate starts right after the booked slot
+                        start = booked.plusMinutes(VisitSlot.SLOT_MINUTES);
+                        continue;
+                    }
+                    freeSlot.accept(start);
+                    start = start.plusMinutes(step);
+                }
+            }
+        }
+    }
+
+    /**
+     * The first slot of the grid starting at start that is not before notBefore
+     */
+    private static LocalDateTime nextSlot(LocalDateTime start, LocalDateTime notBefore) {
+        long minutes = Duration.between(start, notBefore).toMinutes();
+        long slots = (minutes + VisitSlot.SLOT_MINUTES - 1) / VisitSlot.SLOT_MINUTES;
+        LocalDateTime next = start.plusMinutes(slots * VisitSlot.SLOT_MINUTES);
+        return next.isBefore(notBefore) ? next.plusMinutes(VisitSlot.SLOT_MINUTES) : next;
+    }
+
+    private record Interval(LocalTime start, LocalTime end) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Outbox;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMail;
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMailRepo;
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxStatus;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.MailService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the OutboxMail collection from a Flux.interval started once the application is ready, one poll at a time.
+ * A poll claims the due mails one findAndModify after the other, builds each of them with the OutboxMailResolver and
+ * hands them to the blocking Retrofit mailer on boundedElastic, concurrency at a time. When building or sending a mail
+ * fails, its claim is released with the next attempt pushed back exponentially; a 4xx from mailer-service, or the
+ * last of maxAttempts, leaves it FAILED. Published as the visits.mail.outbox.* meters.
+ */
+@Component
+@Slf4j
+public class MailOutboxDispatcher {
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final OutboxMailRepo outboxMailRepo;
+    private final OutboxMailResolver outboxMailResolver;
+    private final MailService mailService;
+
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration lease;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Timer sendTimer;
+    private final Timer delayTimer;
+    private final Counter retried;
+    private final Counter givenUp;
+
+    private Disposable polling;
+
+    public MailOutboxDispatcher(OutboxMailRepo outboxMailRepo,
+                                OutboxMailResolver outboxMailResolver,
+                                MailService mailService,
+                                MeterRegistry meterRegistry,
+                                @Value("${mail-outbox.poll-interval:PT5S}") Duration pollInterval,
+                                @Value("${mail-outbox.batch-size:50}") int batchSize,
+                                @Value("${mail-outbox.concurrency:4}") int concurrency,
+                                @Value("${mail-outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${mail-outbox.initial-backoff:PT30S}") Duration initialBackoff,
+                                @Value("${mail-outbox.lease:PT5M}") Duration lease) {
+        this.outboxMailRepo = outboxMailRepo;
+        this.outboxMailResolver = outboxMailResolver;
+        this.mailService = mailService;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.lease = lease;
+
+        meterRegistry.gauge("visits.mail.outbox.size", Tags.of("status", "pending"), pending);
+        meterRegistry.gauge("visits.mail.outbox.size", Tags.of("status", "failed"), failed);
+        this.sendTimer = meterRegistry.timer("visits.mail.outbox.send");
+        this.delayTimer = meterRegistry.timer("visits.mail.outbox.delay");
+        this.retried = meterRegistry.counter("visits.mail.outbox.attempts", "result", "retry");
+        this.givenUp = meterRegistry.counter("visits.mail.outbox.attempts", "result", "failed");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPolling() {
+        polling = Flux.interval(Duration.ZERO, pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> dispatchAll()
+                        .onErrorResume(error -> {
+                            log.warn("Could not dispatch the outbox mails: {}", error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopPolling() {
+        if (polling != null) {
+            polling.dispose();
+        }
+    }
+
+    /**
+     * Sends batches of due mails until a batch is not full, then refreshes the size of the outbox
+     * @return The number of mails claimed
+     */
+    public Mono<Long> dispatchAll() {
+        return dispatchBatch()
+                .expand(claimed -> claimed < batchSize ? Mono.empty() : dispatchBatch())
+                .reduce(0L, Long::sum)
+                .flatMap(claimed -> refreshSize().thenReturn(claimed));
+    }
+
+    /**
+     * Claims up to batchSize due mails and sends them, concurrency at a time
+     * @return The number of mails claimed
+     */
+    public Mono<Long> dispatchBatch() {
+        return claimBatch()
+                .flatMap(this::send, concurrency)
+                .count();
+    }
+
+    private Flux<OutboxMail> claimBatch() {
+        return Mono.defer(() -> {
+                    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+                    return outboxMailRepo.claimNext(now, now.minus(lease));
+                })
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                //one claim at a time, stopping at the first one that finds nothing due
+                .repeat(batchSize - 1)
+                .takeWhile(Optional::isPresent)
+                .map(Optional::get);
+    }
+
+    private Mono<OutboxMail> send(OutboxMail claimed) {
+        //the mailer client blocks, it must not run on the thread that claimed the mail
+        return outboxMailResolver.toMail(claimed)
+                .flatMap(mail -> {
+                    Timer.Sample sample = Timer.start();
+                    return Mono.fromCallable(() -> mailService.sendMail(mail))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .doFinally(signal -> sample.stop(sendTimer));
+                })
+                .then(Mono.defer(() -> {
+                    if (claimed.getCreatedAt() != null) {
+                        delayTimer.record(Duration.between(claimed.getCreatedAt(), LocalDateTime.now()));
+                    }
+                    return outboxMailRepo.deleteByIdAndClaimedAt(claimed.getId(), claimed.getClaimedAt());
+                }))
+                .thenReturn(claimed)
+                .onErrorResume(error -> giveBack(claimed, error).thenReturn(claimed));
+    }
+
+    private Mono<Boolean> giveBack(OutboxMail claimed, Throwable error) {
+        boolean refused = error instanceof HttpClientErrorException clientError && clientError.getStatusCode().is4xxClientError();
+        if (refused || claimed.getAttempts() >= maxAttempts) {
+            log.warn("Gave up sending the mail {} after {} attempts: {}", claimed.getId(), claimed.getAttempts(), error.getMessage());
+            givenUp.increment();
+            return outboxMailRepo.release(claimed, OutboxStatus.FAILED, null, error.getMessage());
+        }
+
+        log.debug("Could not send the mail {}, attempt {}: {}", claimed.getId(), claimed.getAttempts(), error.getMessage());
+        retried.increment();
+        return outboxMailRepo.release(claimed, OutboxStatus.PENDING,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).plus(backoff(claimed.getAttempts())), error.getMessage());
+    }
+
+    /**
+     * initialBackoff doubled after each attempt, up to MAX_BACKOFF
+     */
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+    private Mono<Void> refreshSize() {
+        return Mono.zip(outboxMailRepo.countByStatus(OutboxStatus.PENDING), outboxMailRepo.countByStatus(OutboxStatus.FAILED))
+                .doOnNext(sizes -> {
+                    pending.set(sizes.getT1());
+                    failed.set(sizes.getT2());
+                })
+                .then();
+    }
+}
@@ -0,0 +1,137 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Outbox;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMail;
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMailRepo;
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxStatus;
+import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Auth.AuthServiceClient;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Auth.UserDetails;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.Mail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Queues the mails in the outbox instead of calling mailer-service in the request, see MailOutboxDispatcher
+ */
+@Service
+@RequiredArgsConstructor
+public class MailOutboxService {
+
+    private final OutboxMailRepo outboxMailRepo;
+    private final AuthServiceClient authServiceClient;
+
+    /**
+     * @param mail The mail to send
+     * @return The queued mail
+     */
+    public Mono<OutboxMail> enqueue(Mail mail) {
+        return insert(OutboxMail.builder()
+                .to(mail.getTo())
+                .subject(mail.getSubject())
+                .message(mail.getMessage()));
+    }
+
+    /**
+     * Queues the mail telling the owner that the visit was requested. The owner is read from auth-service here, with the
+     * token of the request, so the token is never stored; the mail is only sent once the visit is saved, see
+     * OutboxMailResolver
+     * @param jwtToken The token of the user who booked the visit
+     * @return The queued mail, errors when the owner cannot be read
+     */
+    public Mono<OutboxMail> enqueueVisitRequest(Visit visit, String jwtToken) {
+        return authServiceClient.getUserById(jwtToken, visit.getOwnerId())
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new IllegalStateException("The owner " + visit.getOwnerId() + " was not found"))))
+                .map(owner -> generateVisitRequestEmail(owner, visit.getPetId(), visit.getVisitDate()))
+                .flatMap(mail -> insert(OutboxMail.builder()
+                        .visitId(visit.getVisitId())
+                        .to(mail.getTo())
+                        .subject(mail.getSubject())
+                        .message(mail.getMessage())));
+    }
+
+    /**
+     * Removes a queued mail whose change could not be saved
+     */
+    public Mono<Void> cancel(OutboxMail mail) {
+        return outboxMailRepo.deleteById(mail.getId());
+    }
+
+    private Mono<OutboxMail> insert(OutboxMail.OutboxMailBuilder mail) {
+        return Mono.defer(() -> {
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            return outboxMailRepo.insert(mail
+                    .status(OutboxStatus.PENDING)
+                    .attempts(0)
+                    .createdAt(now)
+                    .nextAttemptAt(now)
+                    .build());
+        });
+    }
+
+    /**
+     * Generates an email through an already defined template. Uses the mailer Service through
+     *
+     * @param user      UserDetails from DomainClientLayer/Auth/UserDetails
+     * @param petName   The Pet name
+     * @param visitDate The Date of the visit
+     * @return The email built from the message
+     */
+    private Mail generateVisitRequestEmail(UserDetails user, String petName, LocalDateTime visitDate) {
+        return Mail.builder()
+                .message(
+                        format("""
+                                <!DOCTYPE html>
+                                <html lang="en">
+                                <head>
+                                    <meta charset="UTF-8">
+                                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                                    <title>Email Verification</title>
+                                    <style>
+                                        body {
+                                            font-family: Arial, sans-serif;
+                                            background-color: #f4f4f4;
+                                            margin: 0;
+                                            padding: 0;
+                                        }
+                                        .container {
+                                            max-width: 600px;
+                                            margin: 0 auto;
+                                            padding: 20px;
+                                            background-color: #fff;
+                                            border-radius: 5px;
+                                            box-shadow: 0 2px 5px rgba(0, 0, 0, 0.1);
+                                        }
+                                        h1 {
+                                            color: #333;
+                                        }
+                                        p {
+                                            color: #555;
+                                        }
+                                        a {
+                                            color: #007BFF;
+                                        }
+                                    </style>
+                                </head>
+                                <body>
+                                    <div class="container">
+                                        <h1>Dear %s,</h1>
+                                        <h3>We have received a request to schedule a visit for your pet with id: %s on the following date and time: %s.</h3>
+                                        \s
+                                        <p>If you do not wish to create an account, please disregard this email.</p>
+                                        \s
+                                        <p>Thank you for choosing Pet Clinic.</p>
+                                    </div>
+                                </body>
+                                </html>
+                                """, user.getUsername(), petName, visitDate.toString()))
+                .subject("PetClinic Visit request")
+                .to(user.getEmail())
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Outbox;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMail;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.Mail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives the mail of an outbox row to the dispatcher when it sends it. A visit request is queued with the id of its
+ * visit before the visit is inserted, it is only handed out once the visit is saved.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxMailResolver {
+
+    private final VisitRepo visitRepo;
+
+    /**
+     * @return The mail as it was queued. Errors when it is the mail of a visit that is not saved (yet)
+     */
+    public Mono<Mail> toMail(OutboxMail queued) {
+        Mail mail = Mail.builder()
+                .to(queued.getTo())
+                .subject(queued.getSubject())
+                .message(queued.getMessage())
+                .build();
+        if (queued.getVisitId() == null) {
+            return Mono.just(mail);
+        }
+
+        return visitRepo.existsByVisitId(queued.getVisitId())
+                .flatMap(saved -> saved
+                        ? Mono.just(mail)
+                        : Mono.error(new IllegalStateException("The visit " + queued.getVisitId() + " is not saved")));
+    }
+}
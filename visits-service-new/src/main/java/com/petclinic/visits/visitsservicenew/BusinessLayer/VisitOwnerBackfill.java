@@ -0,0 +1,46 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.PetsClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Visits saved before the ownerId was kept on them get the owner of their pet when the service starts.
+ * The pets are fetched in batches and the visits of each pet are updated with a single query.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VisitOwnerBackfill {
+
+    private final VisitRepo repo;
+    private final PetsClient petsClient;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfillOwnerIds()
+                .filter(updated -> updated > 0)
+                .subscribe(
+                        updated -> log.info("Set the ownerId of {} visits", updated),
+                        error -> log.warn("Could not set the ownerId of the visits: {}", error.getMessage()));
+    }
+
+    /**
+     * @return The number of visits that were given an ownerId
+     */
+    public Mono<Long> backfillOwnerIds() {
+        return Flux.defer(repo::findPetIdsOfVisitsWithoutOwner)
+                .collectList()
+                .filter(petIds -> !petIds.isEmpty())
+                .flatMapMany(petsClient::getPetsByPetIds)
+                .filter(pet -> pet.getOwnerId() != null)
+                .concatMap(pet -> repo.setOwnerIdOfPetVisits(pet.getPetId(), pet.getOwnerId()))
+                .reduce(0L, Long::sum);
+    }
+}
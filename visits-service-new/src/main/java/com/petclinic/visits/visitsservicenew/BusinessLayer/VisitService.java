@@ -1,16 +1,20 @@
 package com.petclinic.visits.visitsservicenew.BusinessLayer;
 
+import com.petclinic.visits.visitsservicenew.DataLayer.Status;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.VisitRequestDTO;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.VisitResponseDTO;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 /**
  * Simple interface for all the request controller. Implemented in VisitServiceImpl
  */
 public interface VisitService {
     Flux<VisitResponseDTO> getAllVisits();
     Flux<VisitResponseDTO> getVisitsForPet(String petId);
+    Flux<VisitResponseDTO> getVisitsForOwner(String ownerId, LocalDate from, LocalDate to, Status status);
     Flux<VisitResponseDTO> getVisitsForStatus(String statusString);
     Flux<VisitResponseDTO> getVisitsForPractitioner(String vetId);
     //Flux<VisitResponseDTO> getVisitsByPractitionerIdAndMonth(int practitionerId, int month);
@@ -1,17 +1,14 @@
 package com.petclinic.visits.visitsservicenew.BusinessLayer;
 
+import com.petclinic.visits.visitsservicenew.BusinessLayer.Outbox.MailOutboxService;
 import com.petclinic.visits.visitsservicenew.DataLayer.Status;
+import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
 import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
-import com.petclinic.visits.visitsservicenew.DomainClientLayer.Auth.AuthServiceClient;
-import com.petclinic.visits.visitsservicenew.DomainClientLayer.Auth.UserDetails;
-import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.Mail;
-import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.MailService;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.PetResponseDTO;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.PetsClient;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.VetDTO;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.VetsClient;
 import com.petclinic.visits.visitsservicenew.Exceptions.BadRequestException;
-import com.petclinic.visits.visitsservicenew.Exceptions.DuplicateTimeException;
 import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.VisitRequestDTO;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.VisitResponseDTO;
@@ -22,15 +19,17 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
-import static java.lang.String.format;
-
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class VisitServiceImpl implements VisitService {
+
+    private static final int MAX_VISIT_MINUTES = 8 * 60;
+
     /**
      * Access the hardcoded values created in DataSetupService. We have access to VisitRepo commands. LOOK AT DATALAYER
      */
@@ -47,8 +46,14 @@ public class VisitServiceImpl implements VisitService {
      * Access to the util class to change one datatype to another
      */
     private final EntityDtoUtil entityDtoUtil;
-    private final AuthServiceClient authServiceClient;
-    private final MailService mailService;
+    /**
+     * Queues the mails sent to the owners, see MailOutboxDispatcher
+     */
+    private final MailOutboxService mailOutboxService;
+    /**
+     * Books the time of the visits in the schedule of the vets
+     */
+    private final VisitSlotService visitSlotService;
 
     /**
      * Get all visits from the repo
@@ -74,6 +79,24 @@ public class VisitServiceImpl implements VisitService {
                         .flatMap(entityDtoUtil::toVisitResponseDTO));
     }
 
+    /**
+     * Gets the visits of all the pets of an owner, most recent first, from the ownerId saved on the visits
+     *
+     * @param ownerId The owner of the pets
+     * @param from    Only the visits on or after this day, if present
+     * @param to      Only the visits on or before this day, if present
+     * @param status  Only the visits with this status, if present
+     * @return Flux VisitResponseDTO
+     */
+    @Override
+    public Flux<VisitResponseDTO> getVisitsForOwner(String ownerId, LocalDate from, LocalDate to, Status status) {
+        return repo.findVisitsOfOwner(ownerId,
+                        from == null ? null : from.atStartOfDay(),
+                        to == null ? null : to.plusDays(1).atStartOfDay(),
+                        status)
+                .flatMapSequential(entityDtoUtil::toVisitResponseDTO);
+    }
+
     /**
      * Returns all the visit with the corresponding status
      *
@@ -140,52 +163,25 @@ public class VisitServiceImpl implements VisitService {
         return visitRequestDTOMono
                 .flatMap(visitRequestDTO -> validateVisitRequest(visitRequestDTO)
                         .then(validatePetId(visitRequestDTO.getPetId()))//Validate the pet
+                        .doOnNext(pet -> setOwnerId(visitRequestDTO, pet))
                         .then(validateVetId(visitRequestDTO.getPractitionerId()))// Validate the Vet
                         .then(Mono.just(visitRequestDTO)) // Used to say we are continuing work with the RequestDTO
-                        .doOnNext(s -> {
-
-                            authServiceClient.getUserById(
-                                            visitRequestDTO.getJwtToken(),
-                                            visitRequestDTO.getOwnerId())
-                                    .subscribe(
-                                            //WILL HAVE TO BET MODIFIED IN ORDER TO USE THE NEW MAIL SERVICE
-                                            user -> mailService
-                                                    .sendMail(
-                                                            generateVisitRequestEmail(
-                                                                    user,
-                                                                    visitRequestDTO
-                                                                            .getPetId(),
-                                                                    visitRequestDTO
-                                                                            .getVisitDate()
-                                                            )
-                                                    )
-                                    );
-
-                            //                    Mono<UserDetails> user = getUserById(auth, ownerId);
-                            //                    try{
-                            //                        simpleJavaMailClient.sendMail(emailBuilder("test@email.com"));
-                            //                    }catch(Exception e){System.out.println("Email failed to send: "+e.getMessage());}
-                        })
                 )
 //                .doOnNext(v -> System.out.println("Request Date: " + v.getVisitDate())) // Debugging
 
                 //Converts Request DTO ( JSON ) into an entity
-                .map(entityDtoUtil::toVisitEntity)
-                //Creating a new ID for the visit
-                .doOnNext(x -> x.setVisitId(entityDtoUtil.generateVisitIdString()))
-//                .doOnNext(v -> System.out.println("Entity Date: " + v.getVisitDate())) // Debugging
-                //FLATENS THE MONO
-                .flatMap(visit ->
-                        repo.findByVisitDateAndPractitionerId(visit.getVisitDate(), visit.getPractitionerId()) // FindVisits method in repository
-                                .collectList()
-                                .flatMap(existingVisits -> {
-                                    if (existingVisits.isEmpty()) {// If there are no existing visits
-                                        return repo.insert(visit); // Insert the visit
-                                    } else {
-                                        //return exception if a visits already exists at the specific day and time for a specific practitioner
-                                        return Mono.error(new DuplicateTimeException("A visit with the same time and practitioner already exists."));
-                                    }
-                                })
+                .flatMap(visitRequestDTO -> Mono.just(visitRequestDTO).map(entityDtoUtil::toVisitEntity)
+                        //Creating a new ID for the visit
+                        .doOnNext(x -> x.setVisitId(entityDtoUtil.generateVisitIdString()))
+//                        .doOnNext(v -> System.out.println("Entity Date: " + v.getVisitDate())) // Debugging
+                        //Books the slots of the visit first, DuplicateTimeException if one of them is already taken by another visit of the practitioner
+                        //Then queues the mail of the owner in the outbox, sent by the MailOutboxDispatcher once the visit is saved
+                        .flatMap(visit -> visitSlotService.reserve(visit)
+                                .then(mailOutboxService.enqueueVisitRequest(visit, visitRequestDTO.getJwtToken())
+                                        .flatMap(mail -> repo.insert(visit)
+                                                .onErrorResume(e -> mailOutboxService.cancel(mail).then(Mono.error(e))))
+                                        .onErrorResume(e -> visitSlotService.release(visit.getVisitId()).then(Mono.error(e))))
+                        )
                 )
                 .flatMap(entityDtoUtil::toVisitResponseDTO);
     }
@@ -202,7 +198,8 @@ public class VisitServiceImpl implements VisitService {
 
         return repo.findByVisitId(visitId)
                 .switchIfEmpty(Mono.error(new NotFoundException("No visit was found with visitId: " + visitId)))
-                .flatMap(foundVisit -> repo.deleteByVisitId(foundVisit.getVisitId()));
+                .flatMap(foundVisit -> repo.deleteByVisitId(foundVisit.getVisitId())
+                        .then(visitSlotService.release(foundVisit.getVisitId())));
     }
 
     /**
@@ -249,15 +246,19 @@ public class VisitServiceImpl implements VisitService {
                 .flatMap(visitEntity -> visitRequestDTOMono
                         //Validate Pet and Vet
                         .flatMap(visitRequestDTO -> validatePetId(visitRequestDTO.getPetId())
+                                .doOnNext(pet -> setOwnerId(visitRequestDTO, pet))
                                 .then(validateVetId(visitRequestDTO.getPractitionerId()))
                                 .then(Mono.just(visitRequestDTO)))
                         .map(entityDtoUtil::toVisitEntity)
                         .doOnNext(visitEntityToUpdate -> {
                             visitEntityToUpdate.setVisitId(visitEntity.getVisitId());
                             visitEntityToUpdate.setId(visitEntity.getId());
-                        }))
-                //Save
-                .flatMap(repo::save)
+                        })
+                        //Moves the slots of the visit if its time or vet changed, and moves them back if the visit cannot be saved
+                        .flatMap(visitEntityToUpdate -> visitSlotService.rebook(visitEntity, visitEntityToUpdate)
+                                .then(Mono.defer(() -> repo.save(visitEntityToUpdate)
+                                        .onErrorResume(e -> visitSlotService.restore(visitEntity, visitEntityToUpdate)
+                                                .then(Mono.error(e)))))))
                 .flatMap(entityDtoUtil::toVisitResponseDTO);
     }
 
@@ -294,8 +295,14 @@ public class VisitServiceImpl implements VisitService {
         return repo.findByVisitId(visitId)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("No visit was found with visitId: " + visitId)))
                 )
-                .doOnNext(v -> v.setStatus(newStatus))
-                .flatMap(repo::save)
+                //A cancelled visit gives its slots back, and takes them again if it cannot be saved
+                .flatMap(v -> {
+                    Visit updatedVisit = v.toBuilder().status(newStatus).build();
+                    return visitSlotService.rebook(v, updatedVisit)
+                            .then(Mono.defer(() -> repo.save(updatedVisit)
+                                    .onErrorResume(e -> visitSlotService.restore(v, updatedVisit)
+                                            .then(Mono.error(e)))));
+                })
                 .flatMap(entityDtoUtil::toVisitResponseDTO);
     }
 
@@ -311,6 +318,18 @@ public class VisitServiceImpl implements VisitService {
                 .switchIfEmpty(Mono.error(new NotFoundException("No pet was found with petId: " + petId)));
     }
 
+    /**
+     * The visit is saved with the owner of its pet, the ownerId sent with the request is only kept if the pet has none
+     *
+     * @param dto The VisitRequest DTO that will be saved
+     * @param pet The pet of the visit
+     */
+    private void setOwnerId(VisitRequestDTO dto, PetResponseDTO pet) {
+        if (pet.getOwnerId() != null) {
+            dto.setOwnerId(pet.getOwnerId());
+        }
+    }
+
     /**
      * Validate if a vet exist. If it doesn't exist, returns 404 NotFound
      *
@@ -340,71 +359,12 @@ public class VisitServiceImpl implements VisitService {
             return Mono.error(new BadRequestException("PetId cannot be null or blank"));
         } else if (dto.getPractitionerId() == null || dto.getPractitionerId().isBlank()) {
             return Mono.error(new BadRequestException("VetId cannot be null or blank"));
+        } else if (dto.getDuration() != null && (dto.getDuration() <= 0 || dto.getDuration() > MAX_VISIT_MINUTES)) {
+            return Mono.error(new BadRequestException("The duration of a visit must be between 1 and " + MAX_VISIT_MINUTES + " minutes"));
         } else if (dto.getStatus() != Status.UPCOMING) {
             return Mono.error(new BadRequestException("Status is being set wrong!"));
         } else {
             return Mono.just(dto);
         }
     }
-
-    /**
-     * Generates an email through an already defined template. Uses the mailer Service through
-     *
-     * @param user      UserDetails from DomainClientLayer/Auth/UserDetails
-     * @param petName   The Pet name
-     * @param visitDate The Date of the visit
-     * @return The email built from the message
-     */
-    private Mail generateVisitRequestEmail(UserDetails user, String petName, LocalDateTime visitDate) {
-        return Mail.builder()
-                .message(
-                        format("""
-                                <!DOCTYPE html>
-                                <html lang="en">
-                                <head>
-                                    <meta charset="UTF-8">
-                                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                                    <title>Email Verification</title>
-                                    <style>
-                                        body {
-                                            font-family: Arial, sans-serif;
-                                            background-color: #f4f4f4;
-                                            margin: 0;
-                                            padding: 0;
-                                        }
-                                        .container {
-                                            max-width: 600px;
-                                            margin: 0 auto;
-                                            padding: 20px;
-                                            background-color: #fff;
-                                            border-radius: 5px;
-                                            box-shadow: 0 2px 5px rgba(0, 0, 0, 0.1);
-                                        }
-                                        h1 {
-                                            color: #333;
-                                        }
-                                        p {
-                                            color: #555;
-                                        }
-                                        a {
-                                            color: #007BFF;
-                                        }
-                                    </style>
-                                </head>
-                                <body>
-                                    <div class="container">
-                                        <h1>Dear %s,</h1>
-                                        <h3>We have received a request to schedule a visit for your pet with id: %s on the following date and time: %s.</h3>
-                                        \s
-                                        <p>If you do not wish to create an account, please disregard this email.</p>
-                                        \s
-                                        <p>Thank you for choosing Pet Clinic.</p>
-                                    </div>
-                                </body>
-                                </html>
-                                """, user.getUsername(), petName, visitDate.toString()))
-                .subject("PetClinic Visit request")
-                .to(user.getEmail())
-                .build();
-    }
-}
\ No newline at end of file
+}
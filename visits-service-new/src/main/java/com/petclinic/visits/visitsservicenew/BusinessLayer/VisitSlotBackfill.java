@@ -0,0 +1,50 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
+import com.petclinic.visits.visitsservicenew.Exceptions.DuplicateTimeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Upcoming visits saved before the slots were kept book their slots when the service starts, so a new visit cannot be
+ * booked over them. Two of them that overlap cannot both hold the slots, the one that loses is logged and left as it is.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VisitSlotBackfill {
+
+    private final VisitRepo repo;
+    private final VisitSlotService visitSlotService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfillSlots()
+                .filter(booked -> booked > 0)
+                .subscribe(
+                        booked -> log.info("Booked the slots of {} visits", booked),
+                        error -> log.warn("Could not book the slots of the visits: {}", error.getMessage()));
+    }
+
+    /**
+     * @return The number of visits that were given their slots
+     */
+    public Mono<Long> backfillSlots() {
+        //the visits that already ended do not stop any booking
+        return Flux.defer(() -> repo.findAllByVisitDateGreaterThanEqual(LocalDateTime.now().minusDays(1)))
+                .concatMap(visit -> visitSlotService.backfill(visit)
+                        .onErrorResume(DuplicateTimeException.class, e -> {
+                            log.warn("Visit {} overlaps another visit of vet {}", visit.getVisitId(), visit.getPractitionerId());
+                            return Mono.just(false);
+                        }))
+                .filter(booked -> booked)
+                .count();
+    }
+}
@@ -0,0 +1,107 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlot;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlotRepo;
+import com.petclinic.visits.visitsservicenew.Exceptions.DuplicateTimeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Books the slots of the visits in the schedule of their vet.
+ * A slot is taken by inserting it, so the unique practitionerId/slotStart index decides which of two concurrent bookings gets it
+ * instead of a read of the existing visits followed by an insert.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VisitSlotService {
+
+    private final VisitSlotRepo slotRepo;
+
+    /**
+     * Takes every slot the visit covers. If one of them is already taken, the slots taken so far are given back
+     *
+     * @param visit The visit to book, with its visitId
+     * @return Empty when the visit holds its slots, DuplicateTimeException otherwise
+     */
+    public Mono<Void> reserve(Visit visit) {
+        List<VisitSlot> slots = VisitSlot.slotsOf(visit);
+        if (slots.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return Flux.fromIterable(slots)
+                .concatMap(slotRepo::insert)
+                .then()
+                .onErrorResume(DuplicateKeyException.class, e -> release(visit.getVisitId())
+                        .then(Mono.error(new DuplicateTimeException("A visit with the same time and practitioner already exists."))));
+    }
+
+    /**
+     * Frees the slots held by a visit
+     *
+     * @param visitId The visit that holds the slots
+     */
+    public Mono<Void> release(String visitId) {
+        return slotRepo.deleteByVisitId(visitId);
+    }
+
+    /**
+     * Moves the slots of a visit whose time, duration, vet or status changed.
+     * When the new slots are taken, the visit gets its previous slots back
+     *
+     * @param previous The visit as it is saved
+     * @param updated  The visit as it will be saved
+     * @return Empty when the updated visit holds its slots, DuplicateTimeException otherwise
+     */
+    public Mono<Void> rebook(Visit previous, Visit updated) {
+        if (VisitSlot.slotsOf(previous).equals(VisitSlot.slotsOf(updated))) {
+            return Mono.empty();
+        }
+
+        return release(previous.getVisitId())
+                .then(reserve(updated))
+                .onErrorResume(DuplicateTimeException.class, e -> reserve(previous)
+                        .onErrorResume(DuplicateTimeException.class, lost -> {
+                            log.warn("The previous slots of visit {} were booked by another visit", previous.getVisitId());
+                            return Mono.empty();
+                        })
+                        .then(Mono.error(e)));
+    }
+
+    /**
+     * Gives a visit back the slots it held before a rebook, when the updated visit could not be saved.
+     * If another visit booked them in the meantime, the visit keeps the updated slots
+     *
+     * @param previous The visit as it is still saved
+     * @param updated  The visit that was not saved
+     */
+    public Mono<Void> restore(Visit previous, Visit updated) {
+        return rebook(updated, previous)
+                .onErrorResume(DuplicateTimeException.class, e -> {
+                    log.warn("Could not give visit {} its slots back", previous.getVisitId());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Takes the slots of a visit saved before the slots were kept, unless it already holds them
+     *
+     * @return True when the visit was given its slots
+     */
+    public Mono<Boolean> backfill(Visit visit) {
+        if (VisitSlot.slotsOf(visit).isEmpty()) {
+            return Mono.just(false);
+        }
+
+        return slotRepo.existsByVisitId(visit.getVisitId())
+                .flatMap(booked -> booked ? Mono.just(false) : reserve(visit).thenReturn(true));
+    }
+}
@@ -9,6 +9,7 @@ import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
 import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,6 +22,7 @@ import java.time.format.DateTimeFormatter;
 public class DataSetupService implements CommandLineRunner {
     private final VisitRepo visitRepo;
     private final ReviewRepository reviewRepository;
+    private final VisitSlotRepo visitSlotRepo;
 
     @Override
     public void run(String... args) throws Exception {
@@ -29,16 +31,19 @@ public class DataSetupService implements CommandLineRunner {
     }
 
     private void setupVisits() {
-        Visit visit1 = buildVisit("visitId1", "2022-11-24 13:00", "this is a dummy description", "ecb109cd-57ea-4b85-b51e-99751fd1c349", "69f852ca-625b-11ee-8c99-0242ac120002", Status.COMPLETED);
-        Visit visit2 = buildVisit("visitId2", "2022-03-01 13:00", "Dog Needs Meds", "0e4d8481-b611-4e52-baed-af16caa8bf8a", "69f85766-625b-11ee-8c99-0242ac120002", Status.COMPLETED);
-        Visit visit3 = buildVisit("visitId3", "2020-07-19 13:00","Dog Needs Surgery After Meds", "0e4d8481-b611-4e52-baed-af16caa8bf8a", "69f85bda-625b-11ee-8c99-0242ac120002", Status.COMPLETED);
-        Visit visit4 = buildVisit("visitId4", "2022-12-24 13:00", "Dog Needs Physio-Therapy", "0e4d8481-b611-4e52-baed-af16caa8bf8a", "69f85d2e-625b-11ee-8c99-0242ac120002", Status.UPCOMING);
-        Visit visit5 = buildVisit("visitId5", "2023-12-24 13:00", "Cat Needs Check-Up", "53163352-8398-4513-bdff-b7715c056d1d", "ac9adeb8-625b-11ee-8c99-0242ac120002", Status.UPCOMING);
-        Visit visit6 = buildVisit("visitId6", "2023-12-05 15:00", "Animal Needs Operation", "53163352-8398-4513-bdff-b7715c056d1d", "ac9adeb8-625b-11ee-8c99-0242ac120002", Status.UPCOMING);
-        Visit visit7 = buildVisit("visitId7", "2022-05-20 09:00", "Cat Needs Check-Up", "7056652d-f2fd-4873-a480-5d2e86bed641", "ac9adeb8-625b-11ee-8c99-0242ac120002", Status.CONFIRMED);
+        Visit visit1 = buildVisit("visitId1", "2022-11-24 13:00", "this is a dummy description", "ecb109cd-57ea-4b85-b51e-99751fd1c349", "e6c7398e-8ac4-4e10-9ee0-03ef33f0361a", "69f852ca-625b-11ee-8c99-0242ac120002", Status.COMPLETED);
+        Visit visit2 = buildVisit("visitId2", "2022-03-01 13:00", "Dog Needs Meds", "0e4d8481-b611-4e52-baed-af16caa8bf8a", "f470653d-05c5-4c45-b7a0-7d70f003d2ac", "69f85766-625b-11ee-8c99-0242ac120002", Status.COMPLETED);
+        Visit visit3 = buildVisit("visitId3", "2020-07-19 13:00","Dog Needs Surgery After Meds", "0e4d8481-b611-4e52-baed-af16caa8bf8a", "f470653d-05c5-4c45-b7a0-7d70f003d2ac", "69f85bda-625b-11ee-8c99-0242ac120002", Status.COMPLETED);
+        Visit visit4 = buildVisit("visitId4", "2022-12-24 13:00", "Dog Needs Physio-Therapy", "0e4d8481-b611-4e52-baed-af16caa8bf8a", "f470653d-05c5-4c45-b7a0-7d70f003d2ac", "69f85d2e-625b-11ee-8c99-0242ac120002", Status.UPCOMING);
+        Visit visit5 = buildVisit("visitId5", "2023-12-24 13:00", "Cat Needs Check-Up", "53163352-8398-4513-bdff-b7715c056d1d", "3f59dca2-903e-495c-90c3-7f4d01f3a2aa", "ac9adeb8-625b-11ee-8c99-0242ac120002", Status.UPCOMING);
+        Visit visit6 = buildVisit("visitId6", "2023-12-05 15:00", "Animal Needs Operation", "53163352-8398-4513-bdff-b7715c056d1d", "3f59dca2-903e-495c-90c3-7f4d01f3a2aa", "ac9adeb8-625b-11ee-8c99-0242ac120002", Status.UPCOMING);
+        Visit visit7 = buildVisit("visitId7", "2022-05-20 09:00", "Cat Needs Check-Up", "7056652d-f2fd-4873-a480-5d2e86bed641", "3f59dca2-903e-495c-90c3-7f4d01f3a2aa", "ac9adeb8-625b-11ee-8c99-0242ac120002", Status.CONFIRMED);
 
         Flux.just(visit1, visit2, visit3,visit4,visit5,visit6,visit7)
                 .flatMap(visitRepo::insert)
+                .flatMapIterable(VisitSlot::slotsOf)
+                //the slots are already there when the database was kept from a previous run
+                .flatMap(slot -> visitSlotRepo.insert(slot).onErrorResume(DuplicateKeyException.class, e -> Mono.empty()))
                 .subscribe();
     }
 
@@ -50,7 +55,7 @@ public class DataSetupService implements CommandLineRunner {
                 .subscribe();
     }
 
-    private Visit buildVisit(String visitId, String visitDate, String description, String petId, String practitionerId, Status status) {
+    private Visit buildVisit(String visitId, String visitDate, String description, String petId, String ownerId, String practitionerId, Status status) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         LocalDateTime parsedVisitDate = LocalDateTime.parse(visitDate, formatter);
         return Visit.builder()
@@ -58,6 +63,7 @@ public class DataSetupService implements CommandLineRunner {
                 .visitDate(parsedVisitDate)
                 .description(description)
                 .petId(petId)
+                .ownerId(ownerId)
                 .practitionerId(practitionerId)
                 .status(status)
                 .build();
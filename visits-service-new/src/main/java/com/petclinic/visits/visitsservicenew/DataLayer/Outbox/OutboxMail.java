@@ -0,0 +1,47 @@
+package com.petclinic.visits.visitsservicenew.DataLayer.Outbox;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A mail waiting to be sent to mailer-service. It is saved with the change that triggers it and sent later by the
+ * MailOutboxDispatcher, a sent mail is removed from the outbox.
+ */
+@Document
+@CompoundIndex(name = "status_next_attempt", def = "{'status': 1, 'nextAttemptAt': 1}")
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMail {
+
+    @Id
+    private String id;
+
+    private String to;
+
+    private String subject;
+
+    private String message;
+
+    //the visit of a visit request, which is queued before the visit is inserted and only sent once it is saved
+    private String visitId;
+
+    private OutboxStatus status;
+
+    //number of times the mail was handed to a dispatcher
+    private int attempts;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime nextAttemptAt;
+
+    //when a dispatcher took the mail, another one can take it back once the lease is over
+    private LocalDateTime claimedAt;
+
+    private String lastError;
+}
@@ -0,0 +1,18 @@
+package com.petclinic.visits.visitsservicenew.DataLayer.Outbox;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxMailRepo extends ReactiveMongoRepository<OutboxMail, String>, OutboxMailRepoCustom {
+
+    Mono<Long> countByStatus(OutboxStatus status);
+
+    /**
+     * Removes a sent mail, unless another dispatcher took it back in between
+     */
+    Mono<Long> deleteByIdAndClaimedAt(String id, LocalDateTime claimedAt);
+}
@@ -0,0 +1,28 @@
+package com.petclinic.visits.visitsservicenew.DataLayer.Outbox;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Atomic updates of the outbox built with the MongoTemplate. Implemented in OutboxMailRepoCustomImpl
+ */
+public interface OutboxMailRepoCustom {
+
+    /**
+     * Takes the oldest mail that is due, or that was taken by a dispatcher whose lease is over, and marks it SENDING
+     * in one findAndModify so two dispatchers never send the same mail
+     * @param now The time of the claim, saved as claimedAt
+     * @param leaseExpiredBefore Mails claimed before this time are taken back
+     * @return The claimed mail, empty when nothing is due
+     */
+    Mono<OutboxMail> claimNext(LocalDateTime now, LocalDateTime leaseExpiredBefore);
+
+    /**
+     * Gives back a mail the dispatcher could not send, as long as no other dispatcher took it in between
+     * @param claimed The mail as it was claimed
+     * @param status PENDING to send it again at nextAttemptAt, FAILED to stop trying
+     * @return true when the mail was updated
+     */
+    Mono<Boolean> release(OutboxMail claimed, OutboxStatus status, LocalDateTime nextAttemptAt, String lastError);
+}
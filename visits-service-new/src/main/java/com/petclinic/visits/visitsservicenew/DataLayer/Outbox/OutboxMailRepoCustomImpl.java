@@ -0,0 +1,49 @@
+package com.petclinic.visits.visitsservicenew.DataLayer.Outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class OutboxMailRepoCustomImpl implements OutboxMailRepoCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<OutboxMail> claimNext(LocalDateTime now, LocalDateTime leaseExpiredBefore) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(OutboxStatus.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(OutboxStatus.SENDING).and("claimedAt").lt(leaseExpiredBefore)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+
+        Update update = new Update()
+                .set("status", OutboxStatus.SENDING)
+                .set("claimedAt", now)
+                .inc("attempts", 1);
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), OutboxMail.class);
+    }
+
+    @Override
+    public Mono<Boolean> release(OutboxMail claimed, OutboxStatus status, LocalDateTime nextAttemptAt, String lastError) {
+        Query query = new Query(Criteria.where("_id").is(claimed.getId())
+                .and("status").is(OutboxStatus.SENDING)
+                .and("claimedAt").is(claimed.getClaimedAt()));
+
+        Update update = new Update()
+                .set("status", status)
+                .set("nextAttemptAt", nextAttemptAt)
+                .set("lastError", lastError)
+                .unset("claimedAt");
+
+        return mongoTemplate.updateFirst(query, update, OutboxMail.class)
+                .map(result -> result.getModifiedCount() > 0);
+    }
+}
@@ -0,0 +1,9 @@
+package com.petclinic.visits.visitsservicenew.DataLayer.Outbox;
+
+//Part of the mail outbox
+public enum OutboxStatus {
+
+    PENDING,
+    SENDING,
+    FAILED
+}
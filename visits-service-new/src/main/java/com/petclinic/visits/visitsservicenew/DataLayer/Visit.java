@@ -3,12 +3,18 @@ package com.petclinic.visits.visitsservicenew.DataLayer;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 /**
  * Visit Entity
+ * The ownerId of the pet is kept on the visit so the visits of an owner are found without asking for their pets
+ * The time taken by the visit in the schedule of the vet is held in VisitSlot
  */
-@Builder
+@Document
+@CompoundIndex(name = "owner_visit_date", def = "{'ownerId': 1, 'visitDate': -1}")
+@Builder(toBuilder = true)
 @Data
 @ToString
 @NoArgsConstructor
@@ -23,10 +29,15 @@ public class Visit {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
     LocalDateTime visitDate;
 
+    //in minutes, VisitSlot.DEFAULT_VISIT_MINUTES when not set
+    private Integer duration;
+
     private String description;
 
     private String petId;
 
+    private String ownerId;
+
     private String practitionerId;
 
     private Status status;
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
  * Interface not implemented. Basically use Mongo for a smart search throughout a database. Calling a function here will have result on the database.
  */
 @Repository
-public interface VisitRepo extends ReactiveMongoRepository<Visit, String> {
+public interface VisitRepo extends ReactiveMongoRepository<Visit, String>, VisitRepoCustom {
 
     Flux<Visit> findByPetId(String petId);
 
@@ -27,6 +27,8 @@ public interface VisitRepo extends ReactiveMongoRepository<Visit, String> {
 
     Flux<Visit> findAllByStatus(String status);
 
+    Flux<Visit> findAllByVisitDateGreaterThanEqual(LocalDateTime visitDate);
+
     // In your VisitRepo interface
     Flux<Visit> findByVisitDateAndPractitionerId(LocalDateTime visitDate, String practitionerId);
 }
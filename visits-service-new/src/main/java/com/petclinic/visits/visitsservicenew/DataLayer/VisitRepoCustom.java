@@ -0,0 +1,30 @@
+package com.petclinic.visits.visitsservicenew.DataLayer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queries of the visits built with the MongoTemplate. Implemented in VisitRepoCustomImpl
+ */
+public interface VisitRepoCustom {
+
+    /**
+     * The visits of an owner, most recent first. A null filter is not applied
+     * @param from Earliest visit date, inclusive
+     * @param before Latest visit date, exclusive
+     */
+    Flux<Visit> findVisitsOfOwner(String ownerId, LocalDateTime from, LocalDateTime before, Status status);
+
+    /**
+     * The pets of the visits that were saved without an ownerId
+     */
+    Flux<String> findPetIdsOfVisitsWithoutOwner();
+
+    /**
+     * Sets the ownerId of the visits of the pet that do not have one
+     * @return The number of visits updated
+     */
+    Mono<Long> setOwnerIdOfPetVisits(String petId, String ownerId);
+}
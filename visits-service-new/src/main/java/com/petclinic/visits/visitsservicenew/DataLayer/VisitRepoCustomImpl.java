@@ -0,0 +1,52 @@
+package com.petclinic.visits.visitsservicenew.DataLayer;
+
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class VisitRepoCustomImpl implements VisitRepoCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Visit> findVisitsOfOwner(String ownerId, LocalDateTime from, LocalDateTime before, Status status) {
+        Criteria criteria = Criteria.where("ownerId").is(ownerId);
+
+        if (from != null || before != null) {
+            Criteria visitDate = criteria.and("visitDate");
+            if (from != null) {
+                visitDate.gte(from);
+            }
+            if (before != null) {
+                visitDate.lt(before);
+            }
+        }
+        if (status != null) {
+            criteria.and("status").is(status);
+        }
+
+        return mongoTemplate.find(new Query(criteria).with(Sort.by(Sort.Direction.DESC, "visitDate")), Visit.class);
+    }
+
+    @Override
+    public Flux<String> findPetIdsOfVisitsWithoutOwner() {
+        return mongoTemplate.findDistinct(new Query(Criteria.where("ownerId").is(null)), "petId", Visit.class, String.class);
+    }
+
+    @Override
+    public Mono<Long> setOwnerIdOfPetVisits(String petId, String ownerId) {
+        Query query = new Query(Criteria.where("petId").is(petId).and("ownerId").is(null));
+
+        return mongoTemplate.updateMulti(query, Update.update("ownerId", ownerId), Visit.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+}
@@ -0,0 +1,66 @@
+package com.petclinic.visits.visitsservicenew.DataLayer;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A slot of SLOT_MINUTES in the schedule of a vet, held by one visit.
+ * The unique index on the practitionerId and the start of the slot is what stops two visits from being booked at the same time
+ */
+@Document
+@CompoundIndex(name = "practitioner_slot", def = "{'practitionerId': 1, 'slotStart': 1}", unique = true)
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitSlot {
+
+    public static final int SLOT_MINUTES = 15;
+
+    //used when a visit is booked without a duration
+    public static final int DEFAULT_VISIT_MINUTES = 30;
+
+    @Id
+    private String id;
+
+    private String practitionerId;
+
+    private LocalDateTime slotStart;
+
+    @Indexed
+    private String visitId;
+
+    /**
+     * The slots covered by the visit, from the slot the visit starts in to the one it ends in.
+     * A cancelled visit holds no slot
+     */
+    public static List<VisitSlot> slotsOf(Visit visit) {
+        List<VisitSlot> slots = new ArrayList<>();
+        if (visit.getVisitDate() == null || visit.getPractitionerId() == null || visit.getStatus() == Status.CANCELLED) {
+            return slots;
+        }
+
+        int duration = visit.getDuration() == null ? DEFAULT_VISIT_MINUTES : visit.getDuration();
+        LocalDateTime end = visit.getVisitDate().plusMinutes(duration);
+        LocalDateTime slotStart = visit.getVisitDate()
+                .withSecond(0)
+                .withNano(0)
+                .withMinute(visit.getVisitDate().getMinute() / SLOT_MINUTES * SLOT_MINUTES);
+
+        for (; slotStart.isBefore(end); slotStart = slotStart.plusMinutes(SLOT_MINUTES)) {
+            slots.add(VisitSlot.builder()
+                    .practitionerId(visit.getPractitionerId())
+                    .slotStart(slotStart)
+                    .visitId(visit.getVisitId())
+                    .build());
+        }
+        return slots;
+    }
+}
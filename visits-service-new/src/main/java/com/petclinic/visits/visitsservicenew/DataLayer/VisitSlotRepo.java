@@ -0,0 +1,30 @@
+package com.petclinic.visits.visitsservicenew.DataLayer;
+
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface VisitSlotRepo extends ReactiveMongoRepository<VisitSlot, String> {
+
+    Flux<VisitSlot> findByVisitId(String visitId);
+
+    Flux<VisitSlot> findByPractitionerId(String practitionerId);
+
+    Mono<Void> deleteByVisitId(String visitId);
+
+    Mono<Boolean> existsByVisitId(String visitId);
+
+    /**
+     * The slots taken in the schedule of the vets, served by the practitionerId/slotStart index
+     * @param from First slot start, inclusive
+     * @param before Last slot start, exclusive
+     */
+    @Query("{ 'practitionerId': { $in: ?0 }, 'slotStart': { $gte: ?1, $lt: ?2 } }")
+    Flux<VisitSlot> findBookedSlots(Collection<String> practitionerIds, LocalDateTime from, LocalDateTime before);
+}
@@ -0,0 +1,99 @@
+package com.petclinic.visits.visitsservicenew.DomainClientLayer;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces single lookups into batched calls.
+ * Every id asked for within the window (or until the buffer is full) is deduplicated and resolved with one call
+ * to the batch function, then each caller gets its own value back.
+ * @param <V> The type returned by the downstream service
+ */
+@Slf4j
+public class BatchLoader<V> {
+
+    private final Sinks.Many<PendingLoad<V>> pendingLoads = Sinks.many().unicast().onBackpressureBuffer();
+
+    private final Function<Set<String>, Flux<V>> batchFunction;
+    private final Function<V, String> idExtractor;
+    private final Function<String, Throwable> notFound;
+
+    /**
+     * @param batchFunction Fetches every value of the given ids, missing ids are simply left out
+     * @param idExtractor Gets the id of a value returned by the batch function
+     * @param notFound The error given to a caller whose id was not returned
+     * @param maxBatchSize The maximum number of loads sent in one batch
+     * @param window How long a load waits for others before the batch is sent
+     */
+    public BatchLoader(Function<Set<String>, Flux<V>> batchFunction, Function<V, String> idExtractor,
+                       Function<String, Throwable> notFound, int maxBatchSize, Duration window) {
+        this.batchFunction = batchFunction;
+        this.idExtractor = idExtractor;
+        this.notFound = notFound;
+
+        pendingLoads.asFlux()
+                .bufferTimeout(maxBatchSize, window)
+                .flatMap(this::dispatch)
+                .subscribe();
+    }
+
+    /**
+     * Load one value, the call is deferred until the batch containing it is sent
+     * @param id The id to load
+     * @return The value of the id or the not found error if the batch did not return it
+     */
+    public Mono<V> load(String id) {
+        return Mono.create(sink -> {
+            Sinks.EmitResult result;
+            //the loads come from several event loops, they are queued one at a time instead of retried in a busy loop
+            synchronized (pendingLoads) {
+                result = pendingLoads.tryEmitNext(new PendingLoad<>(id, sink));
+            }
+            if (result.isFailure()) {
+                sink.error(new IllegalStateException("Could not queue the load of " + id + ": " + result));
+            }
+        });
+    }
+
+    private Mono<Void> dispatch(List<PendingLoad<V>> loads) {
+        Set<String> ids = loads.stream()
+                .map(PendingLoad::id)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        log.debug("Loading {} ids for {} pending loads", ids.size(), loads.size());
+
+        return Flux.defer(() -> batchFunction.apply(ids))
+                .collectMap(idExtractor)
+                .doOnNext(values -> loads.forEach(load -> complete(load, values)))
+                .onErrorResume(error -> {
+                    //the whole batch failed, every caller gets the error but the loader keeps running
+                    loads.forEach(load -> load.sink().error(error));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void complete(PendingLoad<V> load, Map<String, V> values) {
+        V value = values.get(load.id());
+        if (value == null) {
+            load.sink().error(notFound.apply(load.id()));
+        } else {
+            load.sink().success(value);
+        }
+    }
+
+
+    private record PendingLoad<V>(String id, MonoSink<V> sink) {
+    }
+}
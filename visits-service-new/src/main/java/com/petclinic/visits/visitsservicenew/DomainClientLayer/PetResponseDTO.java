@@ -17,6 +17,7 @@ import java.util.Date;
 public class PetResponseDTO {
 
     private String ownerId;
+    private String petId;
     private String name;
     private Date birthDate;
     private String petTypeId;
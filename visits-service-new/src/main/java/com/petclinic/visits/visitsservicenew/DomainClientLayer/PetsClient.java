@@ -2,24 +2,41 @@ package com.petclinic.visits.visitsservicenew.DomainClientLayer;
 
 
 import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
+
 /**
  * Access point to the Pets
+ * Single pets are kept in a ReferenceCache since the same ones are asked for again and again
  */
 @Service
 public class PetsClient {
 
+    //keeps the query string well under the 4096 bytes request line limit of netty
+    private static final int MAX_IDS_PER_REQUEST = 50;
+    private static final Duration BATCH_WINDOW = Duration.ofMillis(5);
+
     private final WebClient webClient;
     private final String petClientServiceBaseURL;
+    private final BatchLoader<PetResponseDTO> petLoader;
+    private final ReferenceCache<PetResponseDTO> petCache;
 
     public PetsClient(@Value("${app.customers-service-reactive.host}") String petsServiceHost,
-                      @Value("${app.customers-service-reactive.port}") String petsServicePort){
+                      @Value("${app.customers-service-reactive.port}") String petsServicePort,
+                      MeterRegistry meterRegistry,
+                      @Value("${reference-cache.max-size:5000}") int cacheMaxSize,
+                      @Value("${reference-cache.ttl:PT5M}") Duration cacheTtl,
+                      @Value("${reference-cache.not-found-ttl:PT30S}") Duration cacheNotFoundTtl,
+                      @Value("${reference-cache.load-timeout:PT5S}") Duration cacheLoadTimeout) {
 
         petClientServiceBaseURL = "http://" + petsServiceHost + ":" + petsServicePort + "/pet";
 
@@ -27,6 +44,10 @@ public class PetsClient {
                 .baseUrl(petClientServiceBaseURL)
                 .build();
 
+        this.petLoader = new BatchLoader<>(this::getPetsByPetIds, PetResponseDTO::getPetId,
+                petId -> new NotFoundException("No pet was found with petId: " + petId),
+                MAX_IDS_PER_REQUEST, BATCH_WINDOW);
+        this.petCache = new ReferenceCache<>("pets", cacheMaxSize, cacheTtl, cacheNotFoundTtl, cacheLoadTimeout, meterRegistry);
         }
 
     /**
@@ -35,6 +56,19 @@ public class PetsClient {
      * @return The pet response DTO of the string we searched
      */
     public Mono<PetResponseDTO> getPetById( final String petId){
+            return petCache.get(petId, this::fetchPetById);
+        }
+
+    /**
+     * Same as getPetById but the call is batched with the other pets requested at the same time
+     * @param petId Pet ID to search for
+     * @return The pet response DTO of the string we searched
+     */
+    public Mono<PetResponseDTO> loadPetById(final String petId){
+            return petCache.get(petId, petLoader::load);
+        }
+
+    private Mono<PetResponseDTO> fetchPetById( final String petId){
             return webClient
                     .get()
                     .uri(petClientServiceBaseURL + "/{petId}",petId)
@@ -50,6 +84,24 @@ public class PetsClient {
                     )
                     .bodyToMono(PetResponseDTO.class);
         }
+
+    /**
+     * We are accessing customers-service-reactive/src/main/java/com.petclinic.customerservice/business/PetServiceImpl -- getPetsByPetIds()
+     * @param petIds Pet IDs to search for, the ones that do not exist are left out
+     * @return The pet response DTOs that were found
+     */
+    public Flux<PetResponseDTO> getPetsByPetIds(final Collection<String> petIds){
+            return Flux.fromIterable(petIds)
+                    .buffer(MAX_IDS_PER_REQUEST)
+                    .concatMap(ids -> webClient
+                            .get()
+                            .uri(uriBuilder -> uriBuilder.queryParam("ids", ids).build())
+                            .retrieve()
+                            .onStatus(HttpStatusCode::isError, error ->
+                                    Mono.error(new IllegalArgumentException("Something went wrong"))
+                            )
+                            .bodyToFlux(PetResponseDTO.class));
+        }
     }
 
 
@@ -0,0 +1,166 @@
+package com.petclinic.visits.visitsservicenew.DomainClientLayer;
+
+import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process cache for the reference data (pets, vets) the visits are enriched with.
+ * Concurrent misses for one id share the same in flight call, pets or vets that do not exist are remembered for a
+ * shorter time so a bad id does not hit the downstream service every time, any other error is not cached.
+ * A load that takes longer than the load timeout fails and is dropped, so a hung call is not shared by every later caller.
+ * Nothing is invalidated by hand, the pets and vets are changed in other services so an entry lives until its ttl.
+ * When the cache is full the expired entries are dropped first, then the values loaded the longest ago; a load in flight
+ * is never dropped, so the callers sharing it keep sharing it.
+ * Hits, misses and load times are published as visits.client.cache.* meters tagged with the cache name.
+ * @param <V> The type returned by the downstream service
+ */
+public class ReferenceCache<V> {
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final Duration notFoundTtl;
+    private final Duration loadTimeout;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loads;
+
+    /**
+     * @param name The name of the cache, used as the cache tag of the meters
+     * @param maxSize The maximum number of ids kept
+     * @param ttl How long a value is kept
+     * @param notFoundTtl How long a NotFoundException is kept
+     * @param loadTimeout How long a load can take before it fails with a TimeoutException
+     * @param meterRegistry Where the hit, miss and load meters are registered
+     */
+    public ReferenceCache(String name, int maxSize, Duration ttl, Duration notFoundTtl, Duration loadTimeout,
+                          MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.notFoundTtl = notFoundTtl;
+        this.loadTimeout = loadTimeout;
+
+        this.hits = meterRegistry.counter("visits.client.cache.gets", "cache", name, "result", "hit");
+        this.misses = meterRegistry.counter("visits.client.cache.gets", "cache", name, "result", "miss");
+        this.loads = meterRegistry.timer("visits.client.cache.loads", "cache", name);
+        meterRegistry.gaugeMapSize("visits.client.cache.size", Tags.of("cache", name), entries);
+    }
+
+    /**
+     * Get the value of an id, loading it if it is not cached or expired
+     * @param id The id to get
+     * @param loader Loads the value when it is not cached
+     * @return The cached or loaded value
+     */
+    public Mono<V> get(String id, Function<String, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+
+            Entry<V> entry = entries.get(id);
+            if (entry != null && !entry.isExpired(now)) {
+                hits.increment();
+                return entry.value;
+            }
+
+            Entry<V> created = newEntry(id, loader);
+            Entry<V> current = entries.compute(id, (key, existing) ->
+                    existing != null && !existing.isExpired(now) ? existing : created);
+
+            if (current == created) {
+                misses.increment();
+                evictIfFull(now);
+            } else {
+                //another caller started the load in between
+                hits.increment();
+            }
+
+            return current.value;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+
+    private Entry<V> newEntry(String id, Function<String, Mono<V>> loader) {
+        Entry<V> entry = new Entry<>();
+
+        entry.value = Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return loader.apply(id)
+                            .timeout(loadTimeout)
+                            .doOnSuccess(value -> {
+                                loads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                                if (value == null) {
+                                    entries.remove(id, entry);
+                                } else {
+                                    entry.expireAfter(ttl);
+                                }
+                            })
+                            .doOnError(error -> {
+                                loads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                                if (error instanceof NotFoundException) {
+                                    entry.expireAfter(notFoundTtl);
+                                } else {
+                                    entries.remove(id, entry);
+                                }
+                            });
+                })
+                .cache();
+
+        return entry;
+    }
+
+    private void evictIfFull(long now) {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        //still full of live entries, a tenth more than needed is dropped so a full cache is not sorted on every miss
+        int excess = entries.size() - (maxSize - maxSize / 10);
+        if (excess <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+                .filter(entry -> entry.getValue().loaded)
+                .sorted((first, second) -> Long.signum(first.getValue().loadedAt - second.getValue().loadedAt))
+                .limit(excess)
+                .collect(Collectors.toList())
+                .forEach(entry -> entries.remove(entry.getKey(), entry.getValue()));
+    }
+
+
+    private static class Entry<V> {
+        private Mono<V> value;
+        //an entry never expires or is evicted while it is loading
+        private volatile boolean loaded;
+        private volatile long loadedAt;
+        private volatile long expiresAt;
+
+        private void expireAfter(Duration duration) {
+            loadedAt = System.nanoTime();
+            expiresAt = loadedAt + duration.toNanos();
+            loaded = true;
+        }
+
+        private boolean isExpired(long now) {
+            return loaded && now - expiresAt >= 0;
+        }
+    }
+}
@@ -1,25 +1,41 @@
 package com.petclinic.visits.visitsservicenew.DomainClientLayer;
 import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Objects;
 
 /**
  * Access point to the Vets
+ * Single vets are kept in a ReferenceCache since the same ones are asked for again and again
  */
 @Service
 public class VetsClient {
 
+    //keeps the query string well under the 4096 bytes request line limit of netty
+    private static final int MAX_IDS_PER_REQUEST = 50;
+    private static final Duration BATCH_WINDOW = Duration.ofMillis(5);
+
     private final WebClient webClient;
     private final String vetClientServiceBaseURL;
+    private final BatchLoader<VetDTO> vetLoader;
+    private final ReferenceCache<VetDTO> vetCache;
 
     public VetsClient(@Value("${app.vet-service.host}") String vetServiceHost,
-                      @Value("${app.vet-service.port}") String vetServicePort) {
+                      @Value("${app.vet-service.port}") String vetServicePort,
+                      MeterRegistry meterRegistry,
+                      @Value("${reference-cache.max-size:5000}") int cacheMaxSize,
+                      @Value("${reference-cache.ttl:PT5M}") Duration cacheTtl,
+                      @Value("${reference-cache.not-found-ttl:PT30S}") Duration cacheNotFoundTtl,
+                      @Value("${reference-cache.load-timeout:PT5S}") Duration cacheLoadTimeout) {
 
         vetClientServiceBaseURL = "http://" + vetServiceHost + ":" + vetServicePort + "/vets";
 
@@ -27,6 +43,10 @@ public class VetsClient {
                 .baseUrl(vetClientServiceBaseURL)
                 .build();
 
+        this.vetLoader = new BatchLoader<>(this::getVetsByVetIds, VetDTO::getVetId,
+                vetId -> new NotFoundException("No veterinarian was found with vetId: " + vetId),
+                MAX_IDS_PER_REQUEST, BATCH_WINDOW);
+        this.vetCache = new ReferenceCache<>("vets", cacheMaxSize, cacheTtl, cacheNotFoundTtl, cacheLoadTimeout, meterRegistry);
     }
 
     /**
@@ -35,6 +55,19 @@ public class VetsClient {
      * @return The pet response DTO of the string we searched
      */
     public Mono<VetDTO> getVetByVetId(String vetId) {
+                return vetCache.get(vetId, this::fetchVetByVetId);
+    }
+
+    /**
+     * Same as getVetByVetId but the call is batched with the other vets requested at the same time
+     * @param vetId Vet ID to search for
+     * @return The vet DTO of the string we searched
+     */
+    public Mono<VetDTO> loadVetById(String vetId) {
+                return vetCache.get(vetId, vetLoader::load);
+    }
+
+    private Mono<VetDTO> fetchVetByVetId(String vetId) {
                 return webClient
                         .get()
                         .uri(vetClientServiceBaseURL + "/{vetId}", vetId)
@@ -50,4 +83,36 @@ public class VetsClient {
                         )
                         .bodyToMono(VetDTO.class);
     }
+
+    /**
+     * We are accessing the vet-service/src/main/java/com/petclinic/vet/servicelayer/VetServiceImpl.java --  getAll()
+     * @return All the vets
+     */
+    public Flux<VetDTO> getAllVets() {
+                return webClient
+                        .get()
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError, error ->
+                                Mono.error(new IllegalArgumentException("Something went wrong"))
+                        )
+                        .bodyToFlux(VetDTO.class);
+    }
+
+    /**
+     * We are accessing the vet-service/src/main/java/com/petclinic/vet/servicelayer/VetServiceImpl.java --  getVetsByVetIds()
+     * @param vetIds Vet IDs to search for, the ones that do not exist are left out
+     * @return The vet DTOs that were found
+     */
+    public Flux<VetDTO> getVetsByVetIds(Collection<String> vetIds) {
+                return Flux.fromIterable(vetIds)
+                        .buffer(MAX_IDS_PER_REQUEST)
+                        .concatMap(ids -> webClient
+                                .get()
+                                .uri(uriBuilder -> uriBuilder.queryParam("ids", ids).build())
+                                .retrieve()
+                                .onStatus(HttpStatusCode::isError, error ->
+                                        Mono.error(new IllegalArgumentException("Something went wrong"))
+                                )
+                                .bodyToFlux(VetDTO.class));
+    }
 }
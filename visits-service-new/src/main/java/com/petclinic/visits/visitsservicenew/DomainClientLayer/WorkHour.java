@@ -0,0 +1,33 @@
+package com.petclinic.visits.visitsservicenew.DomainClientLayer;
+
+/**
+ * Part of the workHoursJson of the VetDTO, one hour of a workday
+ */
+public enum WorkHour {
+    Hour_8_9(8),
+    Hour_9_10(9),
+    Hour_10_11(10),
+    Hour_11_12(11),
+    Hour_12_13(12),
+    Hour_13_14(13),
+    Hour_14_15(14),
+    Hour_15_16(15),
+    Hour_16_17(16),
+    Hour_17_18(17),
+    Hour_18_19(18),
+    Hour_19_20(19);
+
+    private final int startHour;
+
+    WorkHour(int startHour) {
+        this.startHour = startHour;
+    }
+
+    public int getStartHour() {
+        return startHour;
+    }
+
+    public int getEndHour() {
+        return startHour + 1;
+    }
+}
@@ -0,0 +1,23 @@
+package com.petclinic.visits.visitsservicenew.PresentationLayer.Availability;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableSlotResponseDTO {
+    private String practitionerId;
+    private String vetFirstName;
+    private String vetLastName;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    private LocalDateTime start;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    private LocalDateTime end;
+}
@@ -1,12 +1,16 @@
 package com.petclinic.visits.visitsservicenew.PresentationLayer;
 
 
+import com.petclinic.visits.visitsservicenew.BusinessLayer.Availability.AvailabilityService;
 import com.petclinic.visits.visitsservicenew.BusinessLayer.Review.ReviewService;
 import com.petclinic.visits.visitsservicenew.BusinessLayer.VisitService;
+import com.petclinic.visits.visitsservicenew.DataLayer.Status;
 import com.petclinic.visits.visitsservicenew.Exceptions.InvalidInputException;
+import com.petclinic.visits.visitsservicenew.PresentationLayer.Availability.AvailableSlotResponseDTO;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.Review.ReviewRequestDTO;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.Review.ReviewResponseDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +18,9 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * Application Endpoint for Visit
  */
@@ -27,6 +34,7 @@ public class VisitController {
      */
     private final VisitService visitService;
     private final ReviewService reviewService;
+    private final AvailabilityService availabilityService;
 
     /**
      * Simple Get all Visits
@@ -60,6 +68,23 @@ public class VisitController {
         return visitService.getVisitsForPet(petId);
     }
 
+    /**
+     * Get the visits of all the pets of an owner, most recent first
+     * localhost:8080/visits/owners/{ownerId}?from=2024-01-01&to=2024-12-31&status=UPCOMING
+     * @param ownerId The owner of the pets
+     * @param from Optional first day of the visits
+     * @param to Optional last day of the visits
+     * @param status Optional status of the visits
+     * @return The visits of the owner matching the filters
+     */
+    @GetMapping(value="/owners/{ownerId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<VisitResponseDTO> getVisitsForOwner(@PathVariable String ownerId,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                    @RequestParam(required = false) Status status){
+        return visitService.getVisitsForOwner(ownerId, from, to, status);
+    }
+
     /**
      * Get all the visits by their status ( EX : DataLayer/Status ( ENUM ) )
      * localhost:8080/visits/status/{Status.toString}
@@ -71,6 +96,28 @@ public class VisitController {
         return visitService.getVisitsForStatus(status);
     }
 
+    /**
+     * Get the free slots of the vets, earliest first
+     * localhost:8080/visits/availability?specialty=Surgery&duration=30&limit=10
+     * localhost:8080/visits/availability?practitionerIds={VET_ID}&from=2024-01-01&to=2024-01-31
+     * @param practitionerIds Optional vets to search, all the active vets when not present
+     * @param specialty Optional specialty name or id of the vets
+     * @param from Optional first day, today when not present
+     * @param to Optional last day, one year after the first day when not present
+     * @param duration Optional duration of the visit in minutes
+     * @param limit Optional maximum number of slots, 10 when not present
+     * @return The free slots
+     */
+    @GetMapping(value = "/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<AvailableSlotResponseDTO> getAvailableSlots(@RequestParam(required = false) List<String> practitionerIds,
+                                                            @RequestParam(required = false) String specialty,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                            @RequestParam(required = false) Integer duration,
+                                                            @RequestParam(required = false) Integer limit){
+        return availabilityService.getAvailableSlots(practitionerIds, specialty, from, to, duration, limit);
+    }
+
     /**
      * Get a visit by its ID
      * localhost:8080/visits/{searchedVisitID}
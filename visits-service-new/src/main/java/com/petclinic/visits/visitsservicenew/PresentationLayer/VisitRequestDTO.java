@@ -16,6 +16,7 @@ import java.time.LocalDateTime;
 public class VisitRequestDTO {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
     private LocalDateTime visitDate;
+    private Integer duration;//in minutes
     private String description;
     private String petId;
     private String ownerId;
@@ -35,8 +35,8 @@ public class EntityDtoUtil {
     public Mono<VisitResponseDTO> toVisitResponseDTO(Visit visit) {
        // System.out.println("Entity Date in Mapping: " + visit.getVisitDate()); // Debugging
 
-        Mono<PetResponseDTO> petResponseDTOMono = petsClient.getPetById(visit.getPetId());
-        Mono<VetDTO> vetResponseDTOMono = vetsClient.getVetByVetId(visit.getPractitionerId());
+        Mono<PetResponseDTO> petResponseDTOMono = petsClient.loadPetById(visit.getPetId());
+        Mono<VetDTO> vetResponseDTOMono = vetsClient.loadVetById(visit.getPractitionerId());
 
         return Mono.zip(petResponseDTOMono, vetResponseDTOMono)
                 .flatMap(tuple -> {
@@ -46,8 +46,10 @@ public class EntityDtoUtil {
                     return Mono.just(VisitResponseDTO.builder()
                             .visitId(visit.getVisitId())
                             .visitDate(visit.getVisitDate())
+                            .duration(visit.getDuration())
                             .description(visit.getDescription())
                             .petId(visit.getPetId())
+                            .ownerId(visit.getOwnerId())
                             .petName(petResponseDTO.getName())
                             .petBirthDate(petResponseDTO.getBirthDate())
                             .practitionerId(visit.getPractitionerId())
@@ -0,0 +1,150 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Availability;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlot;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlotRepo;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.SpecialtyDTO;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.VetDTO;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.VetsClient;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Workday;
+import com.petclinic.visits.visitsservicenew.Exceptions.BadRequestException;
+import com.petclinic.visits.visitsservicenew.PresentationLayer.Availability.AvailableSlotResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityServiceImplTest {
+
+    @Mock
+    private VetsClient vetsClient;
+
+    @Mock
+    private VisitSlotRepo visitSlotRepo;
+
+    private AvailabilityServiceImpl availabilityService;
+
+    //a Monday
+    private final LocalDate monday = LocalDate.of(2030, 1, 7);
+
+    private final VetDTO surgeon1 = buildVet("vet1", "{\"Monday\":[\"Hour_8_9\",\"Hour_9_10\"]}", Set.of(Workday.Monday), "Surgery", true);
+    private final VetDTO surgeon2 = buildVet("vet2", "{\"Tuesday\":[\"Hour_13_14\"]}", Set.of(Workday.Tuesday), "Surgery", true);
+    private final VetDTO dentist = buildVet("vet3", "{\"Monday\":[\"Hour_8_9\"]}", Set.of(Workday.Monday), "Dentistry", true);
+    private final VetDTO inactiveSurgeon = buildVet("vet4", "{\"Monday\":[\"Hour_8_9\"]}", Set.of(Workday.Monday), "Surgery", false);
+
+    @BeforeEach
+    void setUp() {
+        availabilityService = new AvailabilityServiceImpl(vetsClient, visitSlotRepo);
+    }
+
+    @Test
+    void getAvailableSlots_ForOneVet_SkipsTheBookedSlots() {
+        when(vetsClient.loadVetById("vet1")).thenReturn(Mono.just(surgeon1));
+        when(visitSlotRepo.findBookedSlots(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Flux.just(bookedSlot("vet1", monday.atTime(8, 0)), bookedSlot("vet1", monday.atTime(8, 15))));
+
+        StepVerifier.create(availabilityService.getAvailableSlots(List.of("vet1"), null, monday, monday, 30, null)
+                        .map(AvailableSlotResponseDTO::getStart))
+                .expectNext(monday.atTime(8, 30), monday.atTime(9, 0), monday.atTime(9, 30))
+                .verifyComplete();
+    }
+
+    @Test
+    void getAvailableSlots_ForASpecialty_ReturnsTheNextSlotsOfTheActiveVetsWithTheSpecialty() {
+        when(vetsClient.getAllVets()).thenReturn(Flux.just(surgeon1, surgeon2, dentist, inactiveSurgeon));
+        when(visitSlotRepo.findBookedSlots(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(availabilityService.getAvailableSlots(null, "surgery", monday, null, 30, 10).collectList())
+                .assertNext(slots -> {
+                    assertEquals(10, slots.size());
+                    assertTrue(slots.stream().allMatch(slot -> slot.getPractitionerId().equals("vet1") || slot.getPractitionerId().equals("vet2")));
+                    assertEquals(monday.atTime(8, 0), slots.get(0).getStart());
+                    assertEquals(monday.plusDays(1).atTime(13, 0), slots.get(4).getStart());
+                    for (int i = 1; i < slots.size(); i++) {
+                        assertTrue(!slots.get(i).getStart().isBefore(slots.get(i - 1).getStart()));
+                    }
+                })
+                .verifyComplete();
+
+        //6 slots a week, the search stops in the second week of the year
+        verify(visitSlotRepo, times(2)).findBookedSlots(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void getAvailableSlots_KeepsTheVetsBetweenSearches() {
+        when(vetsClient.getAllVets()).thenReturn(Flux.just(surgeon1));
+        when(visitSlotRepo.findBookedSlots(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(availabilityService.getAvailableSlots(null, null, monday, monday, 30, null)
+                        .thenMany(availabilityService.getAvailableSlots(null, null, monday, monday, 60, null)))
+                .expectNextCount(6)
+                .verifyComplete();
+
+        verify(vetsClient, times(1)).getAllVets();
+    }
+
+    @Test
+    void getAvailableSlots_WithoutWorkHours_ReturnsNoSlot() {
+        VetDTO vet = buildVet("vet5", null, Set.of(Workday.Monday), "Surgery", true);
+        when(vetsClient.loadVetById("vet5")).thenReturn(Mono.just(vet));
+
+        StepVerifier.create(availabilityService.getAvailableSlots(List.of("vet5"), null, monday, null, null, null))
+                .verifyComplete();
+
+        verifyNoInteractions(visitSlotRepo);
+    }
+
+    @Test
+    void getAvailableSlots_WithLastDayBeforeFirstDay_ThrowsBadRequestException() {
+        StepVerifier.create(availabilityService.getAvailableSlots(null, null, monday, monday.minusDays(1), null, null))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    @Test
+    void getAvailableSlots_OverMoreThanAYear_ThrowsBadRequestException() {
+        StepVerifier.create(availabilityService.getAvailableSlots(null, null, monday, monday.plusYears(2), null, null))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    @Test
+    void getAvailableSlots_WithInvalidLimit_ThrowsBadRequestException() {
+        StepVerifier.create(availabilityService.getAvailableSlots(null, null, monday, null, null, AvailabilityServiceImpl.MAX_LIMIT + 1))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    private VisitSlot bookedSlot(String vetId, LocalDateTime slotStart) {
+        return VisitSlot.builder().practitionerId(vetId).slotStart(slotStart).visitId("visitId").build();
+    }
+
+    private VetDTO buildVet(String vetId, String workHoursJson, Set<Workday> workdays, String specialty, boolean active) {
+        return VetDTO.builder()
+                .vetId(vetId)
+                .firstName("First" + vetId)
+                .lastName("Last" + vetId)
+                .workday(workdays)
+                .workHoursJson(workHoursJson)
+                .specialties(Set.of(new SpecialtyDTO(specialty.toLowerCase(), specialty)))
+                .active(active)
+                .build();
+    }
+}
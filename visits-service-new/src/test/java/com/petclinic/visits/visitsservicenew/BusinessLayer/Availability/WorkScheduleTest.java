@@ -0,0 +1,75 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Availability;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Workday;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkScheduleTest {
+
+    //a Monday
+    private final LocalDate monday = LocalDate.of(2030, 1, 7);
+
+    @Test
+    void parse_MergesConsecutiveHours() throws JsonProcessingException {
+        WorkSchedule schedule = WorkSchedule.parse("{\"Monday\":[\"Hour_8_9\",\"Hour_9_10\",\"Hour_13_14\"]}", Set.of(Workday.Monday));
+
+        List<LocalDateTime> freeSlots = freeSlots(schedule, monday, 60, new TreeSet<>());
+
+        assertEquals(List.of(monday.atTime(8, 0), monday.atTime(9, 0), monday.atTime(13, 0)), freeSlots);
+    }
+
+    @Test
+    void parse_LeavesOutTheDaysThatAreNotWorkdays() throws JsonProcessingException {
+        WorkSchedule schedule = WorkSchedule.parse("{\"Monday\":[\"Hour_8_9\"],\"Tuesday\":[\"Hour_8_9\"]}", Set.of(Workday.Tuesday));
+
+        assertTrue(freeSlots(schedule, monday, 30, new TreeSet<>()).isEmpty());
+        assertEquals(2, freeSlots(schedule, monday.plusDays(1), 30, new TreeSet<>()).size());
+    }
+
+    @Test
+    void parse_WithoutWorkHours_ReturnsEmptySchedule() throws JsonProcessingException {
+        assertTrue(WorkSchedule.parse(null, Set.of(Workday.Monday)).isEmpty());
+        assertTrue(WorkSchedule.parse(" ", Set.of(Workday.Monday)).isEmpty());
+    }
+
+    @Test
+    void parse_InvalidWorkHours_ThrowsJsonProcessingException() {
+        assertThrows(JsonProcessingException.class, () -> WorkSchedule.parse("{\"Monday\":[\"8am\"]}", null));
+    }
+
+    @Test
+    void forEachFreeSlot_SkipsTheBookedSlots() throws JsonProcessingException {
+        WorkSchedule schedule = WorkSchedule.parse("{\"Monday\":[\"Hour_8_9\",\"Hour_9_10\"]}", null);
+        //a visit from 8:15 to 8:45
+        TreeSet<LocalDateTime> booked = new TreeSet<>(List.of(monday.atTime(8, 15), monday.atTime(8, 30)));
+
+        List<LocalDateTime> freeSlots = freeSlots(schedule, monday, 30, booked);
+
+        assertEquals(List.of(monday.atTime(8, 45), monday.atTime(9, 15)), freeSlots);
+    }
+
+    @Test
+    void forEachFreeSlot_StartsAfterNotBefore() throws JsonProcessingException {
+        WorkSchedule schedule = WorkSchedule.parse("{\"Monday\":[\"Hour_8_9\"]}", null);
+        List<LocalDateTime> freeSlots = new ArrayList<>();
+
+        schedule.forEachFreeSlot(monday, monday.plusDays(1), 15, new TreeSet<>(), monday.atTime(8, 20), freeSlots::add);
+
+        assertEquals(List.of(monday.atTime(8, 30), monday.atTime(8, 45)), freeSlots);
+    }
+
+    private List<LocalDateTime> freeSlots(WorkSchedule schedule, LocalDate day, int duration, TreeSet<LocalDateTime> booked) {
+        List<LocalDateTime> freeSlots = new ArrayList<>();
+        schedule.forEachFreeSlot(day, day.plusDays(1), duration, booked, day.atStartOfDay(), freeSlots::add);
+        return freeSlots;
+    }
+}
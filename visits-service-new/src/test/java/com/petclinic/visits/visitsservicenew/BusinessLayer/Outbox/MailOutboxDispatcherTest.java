@@ -0,0 +1,333 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer.Outbox;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMail;
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMailRepo;
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxStatus;
+import com.petclinic.visits.visitsservicenew.DataLayer.Status;
+import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Auth.AuthServiceClient;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Auth.UserDetails;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.Mail;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.MailService;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.MailServiceCall;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.MailServiceImpl;
+import com.petclinic.visits.visitsservicenew.Exceptions.GenericHttpException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the dispatcher against a local stub of mailer-service, through the same Retrofit client as the service
+ */
+@DataMongoTest
+class MailOutboxDispatcherTest {
+
+    @Autowired
+    private OutboxMailRepo outboxMailRepo;
+
+    @Autowired
+    private VisitRepo visitRepo;
+
+    private final AuthServiceClient authServiceClient = mock(AuthServiceClient.class);
+
+    private MockWebServer stubMailer;
+    private SimpleMeterRegistry meterRegistry;
+    private MailOutboxService mailOutboxService;
+    private MailOutboxDispatcher dispatcher;
+
+    //true for each mail sent from a reactor thread that must not block
+    private final List<Boolean> sentFromNonBlockingThread = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubMailer = new MockWebServer();
+        stubMailer.start();
+
+        MailServiceCall mailServiceCall = new Retrofit.Builder()
+                .baseUrl(stubMailer.url("/"))
+                .addConverterFactory(JacksonConverterFactory.create())
+                .build()
+                .create(MailServiceCall.class);
+        MailService mailer = new MailServiceImpl(mailServiceCall);
+        MailService recordingMailer = mail -> {
+            sentFromNonBlockingThread.add(Schedulers.isInNonBlockingThread());
+            return mailer.sendMail(mail);
+        };
+
+        meterRegistry = new SimpleMeterRegistry();
+        mailOutboxService = new MailOutboxService(outboxMailRepo, authServiceClient);
+        dispatcher = new MailOutboxDispatcher(outboxMailRepo, new OutboxMailResolver(visitRepo),
+                recordingMailer, meterRegistry, Duration.ofSeconds(5), 2, 2, 3, Duration.ofMinutes(1), Duration.ofMinutes(5));
+
+        StepVerifier.create(outboxMailRepo.deleteAll().then(visitRepo.deleteAll()))
+                .verifyComplete();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        stubMailer.shutdown();
+    }
+
+    @Test
+    void dispatchAll_SlowMailer_SendsEveryMailOffTheReactorThreads() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            stubMailer.enqueue(sent().setBodyDelay(200, TimeUnit.MILLISECONDS));
+            StepVerifier.create(mailOutboxService.enqueue(buildMail("owner" + i + "@email.com")))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        //batches of 2 until one is not full
+        StepVerifier.create(dispatcher.dispatchAll().subscribeOn(Schedulers.parallel()))
+                .expectNext(5L)
+                .verifyComplete();
+
+        assertEquals(5, stubMailer.getRequestCount());
+        assertEquals("/mail", stubMailer.takeRequest(1, TimeUnit.SECONDS).getPath());
+        assertEquals(5, sentFromNonBlockingThread.size());
+        assertFalse(sentFromNonBlockingThread.contains(true));
+
+        StepVerifier.create(outboxMailRepo.count())
+                .expectNext(0L)
+                .verifyComplete();
+        assertEquals(5, meterRegistry.get("visits.mail.outbox.send").timer().count());
+        assertTrue(meterRegistry.get("visits.mail.outbox.send").timer().totalTime(TimeUnit.MILLISECONDS) >= 5 * 200);
+        assertEquals(0, meterRegistry.get("visits.mail.outbox.size").tag("status", "pending").gauge().value());
+    }
+
+    @Test
+    void dispatchAll_FailingMailer_RetriesTheMailAfterTheBackoff() {
+        stubMailer.enqueue(new MockResponse().setResponseCode(500));
+        stubMailer.enqueue(sent());
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("owner@email.com")).block();
+
+        StepVerifier.create(dispatcher.dispatchAll())
+                .expectNext(1L)
+                .verifyComplete();
+
+        OutboxMail retried = outboxMailRepo.findById(queued.getId()).block();
+        assertEquals(OutboxStatus.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertNotNull(retried.getLastError());
+        assertTrue(retried.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+        assertEquals(1, meterRegistry.get("visits.mail.outbox.size").tag("status", "pending").gauge().value());
+        assertEquals(1, meterRegistry.get("visits.mail.outbox.attempts").tag("result", "retry").counter().count());
+
+        //not due yet
+        StepVerifier.create(dispatcher.dispatchAll())
+                .expectNext(0L)
+                .verifyComplete();
+        assertEquals(1, stubMailer.getRequestCount());
+
+        //the backoff is over
+        StepVerifier.create(outboxMailRepo.save(retried.toBuilder().nextAttemptAt(LocalDateTime.now().minusSeconds(1)).build())
+                        .then(dispatcher.dispatchAll()))
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertEquals(2, stubMailer.getRequestCount());
+        StepVerifier.create(outboxMailRepo.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void dispatchAll_MailerKeepsFailing_MarksTheMailFailedAfterMaxAttempts() {
+        for (int i = 0; i < 3; i++) {
+            stubMailer.enqueue(new MockResponse().setResponseCode(503));
+        }
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("owner@email.com")).block();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(outboxMailRepo.findById(queued.getId())
+                            .flatMap(mail -> outboxMailRepo.save(mail.toBuilder().nextAttemptAt(LocalDateTime.now().minusSeconds(1)).build()))
+                            .then(dispatcher.dispatchAll()))
+                    .expectNext(1L)
+                    .verifyComplete();
+        }
+
+        OutboxMail failed = outboxMailRepo.findById(queued.getId()).block();
+        assertEquals(OutboxStatus.FAILED, failed.getStatus());
+        assertEquals(3, failed.getAttempts());
+        assertEquals(1, meterRegistry.get("visits.mail.outbox.size").tag("status", "failed").gauge().value());
+        assertEquals(1, meterRegistry.get("visits.mail.outbox.attempts").tag("result", "failed").counter().count());
+
+        //a failed mail is not sent again
+        StepVerifier.create(dispatcher.dispatchAll())
+                .expectNext(0L)
+                .verifyComplete();
+        assertEquals(3, stubMailer.getRequestCount());
+    }
+
+    @Test
+    void dispatchAll_MailRefusedByTheMailer_IsNotRetried() {
+        stubMailer.enqueue(new MockResponse()
+                .setResponseCode(400)
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody("\"e-mail not found\""));
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("not an email")).block();
+
+        StepVerifier.create(dispatcher.dispatchAll())
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertEquals(OutboxStatus.FAILED, outboxMailRepo.findById(queued.getId()).block().getStatus());
+        assertEquals(1, stubMailer.getRequestCount());
+    }
+
+    @Test
+    void dispatchAll_MailRefusedWithAnother4xx_IsNotRetried() {
+        stubMailer.enqueue(new MockResponse().setResponseCode(422));
+        OutboxMail queued = mailOutboxService.enqueue(buildMail("owner@email.com")).block();
+
+        StepVerifier.create(dispatcher.dispatchAll())
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertEquals(OutboxStatus.FAILED, outboxMailRepo.findById(queued.getId()).block().getStatus());
+        assertEquals(1, meterRegistry.get("visits.mail.outbox.attempts").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void dispatchAll_VisitRequest_IsSentToTheOwnerReadWhenItIsQueued() throws InterruptedException {
+        stubMailer.enqueue(sent());
+        Visit visit = buildVisit();
+        when(authServiceClient.getUserById("token", "ownerId")).thenReturn(Mono.just(buildOwner()));
+
+        OutboxMail queued = mailOutboxService.enqueueVisitRequest(visit, "token").block();
+        assertEquals("owner@email.com", queued.getTo());
+
+        StepVerifier.create(visitRepo.insert(visit).then(dispatcher.dispatchAll()))
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertTrue(stubMailer.takeRequest(1, TimeUnit.SECONDS).getBody().readUtf8().contains("owner@email.com"));
+        StepVerifier.create(outboxMailRepo.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void dispatchAll_VisitRequestOfAVisitNotSaved_IsRetried() {
+        when(authServiceClient.getUserById("token", "ownerId")).thenReturn(Mono.just(buildOwner()));
+        OutboxMail queued = mailOutboxService.enqueueVisitRequest(buildVisit(), "token").block();
+
+        StepVerifier.create(dispatcher.dispatchAll())
+                .expectNext(1L)
+                .verifyComplete();
+
+        OutboxMail retried = outboxMailRepo.findById(queued.getId()).block();
+        assertEquals(OutboxStatus.PENDING, retried.getStatus());
+        assertEquals("owner@email.com", retried.getTo());
+        assertEquals(0, stubMailer.getRequestCount());
+    }
+
+    @Test
+    void enqueueVisitRequest_OwnerRefusedByAuthService_QueuesNothing() {
+        when(authServiceClient.getUserById(eq("token"), eq("ownerId")))
+                .thenReturn(Mono.error(new GenericHttpException("User not found", HttpStatus.NOT_FOUND)));
+
+        StepVerifier.create(mailOutboxService.enqueueVisitRequest(buildVisit(), "token"))
+                .expectError(GenericHttpException.class)
+                .verify();
+
+        StepVerifier.create(outboxMailRepo.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void dispatchAll_MailOfAStoppedDispatcher_IsSentOnceTheLeaseIsOver() {
+        stubMailer.enqueue(sent());
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MILLIS);
+        StepVerifier.create(outboxMailRepo.insert(OutboxMail.builder()
+                        .to("owner@email.com")
+                        .subject("subject")
+                        .message("message")
+                        .status(OutboxStatus.SENDING)
+                        .attempts(1)
+                        .createdAt(claimedAt)
+                        .nextAttemptAt(claimedAt)
+                        .claimedAt(claimedAt)
+                        .build()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(dispatcher.dispatchAll())
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertEquals(1, stubMailer.getRequestCount());
+        StepVerifier.create(outboxMailRepo.count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void backoff_DoublesAfterEachAttempt() {
+        assertEquals(Duration.ofMinutes(1), dispatcher.backoff(1));
+        assertEquals(Duration.ofMinutes(4), dispatcher.backoff(3));
+        assertEquals(Duration.ofHours(1), dispatcher.backoff(30));
+    }
+
+    private MockResponse sent() {
+        return new MockResponse()
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody("\"Message sent\"");
+    }
+
+    private Mail buildMail(String to) {
+        return Mail.builder()
+                .to(to)
+                .subject("Visit request")
+                .message("message")
+                .build();
+    }
+
+    private UserDetails buildOwner() {
+        return UserDetails.builder()
+                .userId("ownerId")
+                .username("owner")
+                .email("owner@email.com")
+                .build();
+    }
+
+    private Visit buildVisit() {
+        return Visit.builder()
+                .visitId("visitId")
+                .visitDate(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MILLIS))
+                .description("description")
+                .petId("petId")
+                .ownerId("ownerId")
+                .practitionerId("vetId")
+                .status(Status.UPCOMING)
+                .build();
+    }
+}
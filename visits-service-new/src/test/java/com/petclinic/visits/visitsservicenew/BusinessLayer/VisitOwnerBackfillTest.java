@@ -0,0 +1,60 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.PetResponseDTO;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.PetsClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitOwnerBackfillTest {
+
+    @Mock
+    private VisitRepo visitRepo;
+
+    @Mock
+    private PetsClient petsClient;
+
+    @InjectMocks
+    private VisitOwnerBackfill visitOwnerBackfill;
+
+    @Test
+    void backfillOwnerIds_ShouldSetTheOwnerOfEachPetOnItsVisits() {
+        PetResponseDTO pet1 = PetResponseDTO.builder().petId("pet1").ownerId("owner1").build();
+        PetResponseDTO pet2 = PetResponseDTO.builder().petId("pet2").ownerId("owner2").build();
+        when(visitRepo.findPetIdsOfVisitsWithoutOwner()).thenReturn(Flux.just("pet1", "pet2", "pet3"));
+        when(petsClient.getPetsByPetIds(List.of("pet1", "pet2", "pet3"))).thenReturn(Flux.just(pet1, pet2));
+        when(visitRepo.setOwnerIdOfPetVisits("pet1", "owner1")).thenReturn(Mono.just(3L));
+        when(visitRepo.setOwnerIdOfPetVisits("pet2", "owner2")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(visitOwnerBackfill.backfillOwnerIds())
+                .expectNext(4L)
+                .verifyComplete();
+
+        verify(petsClient, times(1)).getPetsByPetIds(anyCollection());
+    }
+
+    @Test
+    void backfillOwnerIds_WithoutVisitsToUpdate_ShouldNotCallPetsService() {
+        when(visitRepo.findPetIdsOfVisitsWithoutOwner()).thenReturn(Flux.empty());
+
+        StepVerifier.create(visitOwnerBackfill.backfillOwnerIds())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(petsClient);
+        verify(visitRepo, never()).setOwnerIdOfPetVisits(anyString(), anyString());
+    }
+}
@@ -1,9 +1,11 @@
 package com.petclinic.visits.visitsservicenew.BusinessLayer;
 
+import com.petclinic.visits.visitsservicenew.BusinessLayer.Outbox.MailOutboxService;
+import com.petclinic.visits.visitsservicenew.DataLayer.Outbox.OutboxMail;
 import com.petclinic.visits.visitsservicenew.DataLayer.Status;
 import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
 import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
-import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.Mail;
+import com.petclinic.visits.visitsservicenew.DomainClientLayer.Auth.AuthServiceClient;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.Mailing.MailService;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.*;
 import com.petclinic.visits.visitsservicenew.Exceptions.BadRequestException;
@@ -12,6 +14,7 @@ import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.VisitRequestDTO;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.VisitResponseDTO;
 import com.petclinic.visits.visitsservicenew.Utils.EntityDtoUtil;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +25,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -51,6 +55,15 @@ class VisitServiceImplTest {
     @MockBean
     private EntityDtoUtil entityDtoUtil;
 
+    @MockBean
+    private VisitSlotService visitSlotService;
+
+    @MockBean
+    private MailOutboxService mailOutboxService;
+
+    @MockBean
+    private AuthServiceClient authServiceClient;
+
 //    private final Long dbSize = 2L;
 
     private final VisitResponseDTO visitResponseDTO = buildVisitResponseDTO();
@@ -95,6 +108,18 @@ class VisitServiceImplTest {
     Visit visit1 = buildVisit("this is a dummy description");
 //    Visit visit2 = buildVisit("this is a dummy description");
 
+    @BeforeEach
+    void setUpSlots() {
+        when(visitSlotService.reserve(any(Visit.class))).thenReturn(Mono.empty());
+        when(visitSlotService.release(anyString())).thenReturn(Mono.empty());
+        when(visitSlotService.rebook(any(Visit.class), any(Visit.class))).thenReturn(Mono.empty());
+        when(visitSlotService.restore(any(Visit.class), any(Visit.class))).thenReturn(Mono.empty());
+        when(mailOutboxService.enqueueVisitRequest(any(Visit.class), any())).thenAnswer(invocation -> Mono.just(OutboxMail.builder()
+                .id("mailId")
+                .visitId(invocation.<Visit>getArgument(0).getVisitId())
+                .build()));
+        when(mailOutboxService.cancel(any(OutboxMail.class))).thenReturn(Mono.empty());
+    }
 
     @Test
     void getAllVisits() {
@@ -169,6 +194,32 @@ class VisitServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getVisitsForOwner_WithDateRange_ShouldIncludeTheWholeLastDay() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        when(visitRepo.findVisitsOfOwner(uuidOwner, from.atStartOfDay(), LocalDate.of(2025, 1, 1).atStartOfDay(), Status.UPCOMING))
+                .thenReturn(Flux.just(visit1));
+        when(entityDtoUtil.toVisitResponseDTO(visit1)).thenReturn(Mono.just(visitResponseDTO));
+
+        StepVerifier.create(visitService.getVisitsForOwner(uuidOwner, from, to, Status.UPCOMING))
+                .expectNext(visitResponseDTO)
+                .verifyComplete();
+
+        // The owner's visits are found without asking for their pets
+        verify(petsClient, never()).getPetById(anyString());
+    }
+
+    @Test
+    void getVisitsForOwner_WithoutFilters_ShouldReturnAllTheOwnerVisits() {
+        when(visitRepo.findVisitsOfOwner(uuidOwner, null, null, null)).thenReturn(Flux.just(visit1, visit1));
+        when(entityDtoUtil.toVisitResponseDTO(visit1)).thenReturn(Mono.just(visitResponseDTO));
+
+        StepVerifier.create(visitService.getVisitsForOwner(uuidOwner, null, null, null))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
     @Test
     void getVisitsForStatus () {
         when(visitRepo.findAllByStatus(anyString())).thenReturn(Flux.just(visit1));
@@ -223,8 +274,6 @@ class VisitServiceImplTest {
         when(visitRepo.insert(any(Visit.class))).thenReturn(Mono.just(visit1));
         when(petsClient.getPetById(anyString())).thenReturn(Mono.just(petResponseDTO));
         when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(vet));
-        // This line ensures that a Flux<Visit> is returned, even if it's empty, to prevent NullPointerException
-        when(visitRepo.findByVisitDateAndPractitionerId(any(LocalDateTime.class), anyString())).thenReturn(Flux.empty());
         when(entityDtoUtil.toVisitEntity(any())).thenReturn(visit1);
 
 
@@ -244,7 +293,69 @@ class VisitServiceImplTest {
         verify(visitRepo, times(1)).insert(any(Visit.class));
         verify(petsClient, times(1)).getPetById(anyString());
         verify(vetsClient, times(1)).getVetByVetId(anyString());
-        verify(visitRepo, times(1)).findByVisitDateAndPractitionerId(any(LocalDateTime.class), anyString());
+        verify(visitSlotService, times(1)).reserve(visit1);
+        // The visit is saved with the owner of its pet
+        assertEquals(petResponseDTO.getOwnerId(), visitRequestDTO.getOwnerId());
+    }
+
+    @Test
+    void addVisit_QueuesTheMailOfTheOwner() {
+        VisitRequestDTO request = buildVisitRequestDTO();
+        request.setVisitDate(LocalDateTime.now().plusDays(1));
+        request.setJwtToken("token");
+
+        when(petsClient.getPetById(anyString())).thenReturn(Mono.just(petResponseDTO));
+        when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(vet));
+        when(entityDtoUtil.toVisitEntity(any())).thenReturn(visit1);
+        when(entityDtoUtil.generateVisitIdString()).thenReturn("yourVisitId");
+        when(visitRepo.insert(any(Visit.class))).thenReturn(Mono.just(visit1));
+        when(entityDtoUtil.toVisitResponseDTO(any())).thenReturn(Mono.just(visitResponseDTO));
+
+        StepVerifier.create(visitService.addVisit(Mono.just(request)))
+                .expectNext(visitResponseDTO)
+                .verifyComplete();
+
+        //the owner is read by the outbox with the token of the request, which is not kept
+        verify(mailOutboxService, times(1)).enqueueVisitRequest(visit1, "token");
+        verify(mailOutboxService, never()).cancel(any(OutboxMail.class));
+    }
+
+    @Test
+    void addVisit_MailCannotBeQueued_ReleasesTheSlots() {
+        VisitRequestDTO request = buildVisitRequestDTO();
+        request.setVisitDate(LocalDateTime.now().plusDays(1));
+
+        when(petsClient.getPetById(anyString())).thenReturn(Mono.just(petResponseDTO));
+        when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(vet));
+        when(entityDtoUtil.toVisitEntity(any())).thenReturn(visit1);
+        when(entityDtoUtil.generateVisitIdString()).thenReturn("yourVisitId");
+        when(mailOutboxService.enqueueVisitRequest(any(Visit.class), any())).thenReturn(Mono.error(new RuntimeException("outbox down")));
+
+        StepVerifier.create(visitService.addVisit(Mono.just(request)))
+                .expectErrorMessage("outbox down")
+                .verify();
+
+        verify(visitRepo, never()).insert(any(Visit.class));
+        verify(visitSlotService, times(1)).release(visit1.getVisitId());
+    }
+
+    @Test
+    void addVisit_VisitCannotBeInserted_CancelsTheMail() {
+        VisitRequestDTO request = buildVisitRequestDTO();
+        request.setVisitDate(LocalDateTime.now().plusDays(1));
+
+        when(petsClient.getPetById(anyString())).thenReturn(Mono.just(petResponseDTO));
+        when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(vet));
+        when(entityDtoUtil.toVisitEntity(any())).thenReturn(visit1);
+        when(entityDtoUtil.generateVisitIdString()).thenReturn("yourVisitId");
+        when(visitRepo.insert(any(Visit.class))).thenReturn(Mono.error(new RuntimeException("mongo down")));
+
+        StepVerifier.create(visitService.addVisit(Mono.just(request)))
+                .expectErrorMessage("mongo down")
+                .verify();
+
+        verify(mailOutboxService, times(1)).cancel(argThat(mail -> mail.getId().equals("mailId")));
+        verify(visitSlotService, times(1)).release(visit1.getVisitId());
     }
 
     @Test
@@ -270,7 +381,6 @@ class VisitServiceImplTest {
         when(visitRepo.insert(any(Visit.class))).thenReturn(Mono.just(visit));
         when(petsClient.getPetById(anyString())).thenReturn(Mono.just(new PetResponseDTO()));
         when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(new VetDTO()));
-        when(visitRepo.findByVisitDateAndPractitionerId(any(LocalDateTime.class), anyString())).thenReturn(Flux.empty());
         when(entityDtoUtil.toVisitEntity(any())).thenReturn(visit1);
         when(entityDtoUtil.generateVisitIdString()).thenReturn("yourVisitId");
         when(visitRepo.insert(visit1)).thenReturn(Mono.just(visit1));
@@ -314,8 +424,8 @@ class VisitServiceImplTest {
 
         when(petsClient.getPetById(anyString())).thenReturn(Mono.just(mockPetResponse));
         when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(mockVetResponse)); // This ensures a non-null Mono is returned
-        when(visitRepo.findByVisitDateAndPractitionerId(any(), any()))
-                .thenReturn(Flux.just(existingVisit)); // Return existingVisit in case of conflict
+        when(visitSlotService.reserve(any(Visit.class)))
+                .thenReturn(Mono.error(new DuplicateTimeException("A visit with the same time and practitioner already exists."))); // The slot is already held by existingVisit
         when(entityDtoUtil.toVisitEntity(any())).thenReturn(visit1);
         when(entityDtoUtil.generateVisitIdString()).thenReturn("yourVisitId");
         when(visitRepo.insert(visit1)).thenReturn(Mono.just(visit1));
@@ -334,6 +444,37 @@ class VisitServiceImplTest {
         verify(visitRepo, times(0)).insert(any(Visit.class));
     }
 
+    @Test
+    void addVisit_InsertFails_ReleasesTheSlots () {
+        when(petsClient.getPetById(anyString())).thenReturn(Mono.just(petResponseDTO));
+        when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(vet));
+        when(entityDtoUtil.toVisitEntity(any())).thenReturn(visit1);
+        when(entityDtoUtil.generateVisitIdString()).thenReturn("yourVisitId");
+        when(visitRepo.insert(any(Visit.class))).thenReturn(Mono.error(new RuntimeException("Failed to insert visit")));
+        VisitRequestDTO requestDTO = buildVisitRequestDTO();
+        requestDTO.setVisitDate(LocalDateTime.now().plusDays(1));
+
+        StepVerifier.create(visitService.addVisit(Mono.just(requestDTO)))
+                .expectError(RuntimeException.class)
+                .verify();
+
+        verify(visitSlotService, times(1)).release("yourVisitId");
+    }
+
+    @Test
+    void addVisit_WithInvalidDuration_ThrowsBadRequestException () {
+        VisitRequestDTO requestDTO = buildVisitRequestDTO();
+        requestDTO.setVisitDate(LocalDateTime.now().plusDays(1));
+        requestDTO.setDuration(0);
+
+        StepVerifier.create(visitService.addVisit(Mono.just(requestDTO)))
+                .expectErrorMatches(throwable -> throwable instanceof BadRequestException
+                        && throwable.getMessage().contains("duration"))
+                .verify();
+
+        verify(visitSlotService, never()).reserve(any(Visit.class));
+    }
+
     @Test
     public void testAddVisit_NoDescription () {
         // Arrange
@@ -540,6 +681,9 @@ class VisitServiceImplTest {
         StepVerifier.create(result)
                 .expectNext(visitResponseDTO)
                 .verifyComplete();
+
+        // The cancelled visit gives its slots back
+        verify(visitSlotService, times(1)).rebook(eq(visit1), argThat(visit -> visit.getStatus() == Status.CANCELLED));
     }
     @Test
     void updateStatusForVisitByVisitId_UPCOMING() {
@@ -575,6 +719,40 @@ class VisitServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void updateVisit_ToATakenTime_ThrowsDuplicateTimeException() {
+        when(visitRepo.findByVisitId(anyString())).thenReturn(Mono.just(visit1));
+        when(petsClient.getPetById(anyString())).thenReturn(Mono.just(petResponseDTO));
+        when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(vet));
+        when(entityDtoUtil.toVisitEntity(any())).thenReturn(buildVisit("moved visit"));
+        when(visitSlotService.rebook(any(Visit.class), any(Visit.class)))
+                .thenReturn(Mono.error(new DuplicateTimeException("A visit with the same time and practitioner already exists.")));
+
+        StepVerifier.create(visitService.updateVisit(visitResponseDTO.getVisitId(), buildRequestDtoMono()))
+                .expectError(DuplicateTimeException.class)
+                .verify();
+
+        verify(visitRepo, never()).save(any(Visit.class));
+        verify(visitSlotService, never()).restore(any(Visit.class), any(Visit.class));
+    }
+
+    @Test
+    void updateVisit_VisitCannotBeSaved_RestoresTheSlots() {
+        Visit movedVisit = buildVisit("moved visit");
+        when(visitRepo.findByVisitId(anyString())).thenReturn(Mono.just(visit1));
+        when(petsClient.getPetById(anyString())).thenReturn(Mono.just(petResponseDTO));
+        when(vetsClient.getVetByVetId(anyString())).thenReturn(Mono.just(vet));
+        when(entityDtoUtil.toVisitEntity(any())).thenReturn(movedVisit);
+        when(visitRepo.save(any(Visit.class))).thenReturn(Mono.error(new RuntimeException("Mongo is down")));
+
+        StepVerifier.create(visitService.updateVisit(visitResponseDTO.getVisitId(), buildRequestDtoMono()))
+                .expectErrorMessage("Mongo is down")
+                .verify();
+
+        verify(visitSlotService, times(1)).rebook(visit1, movedVisit);
+        verify(visitSlotService, times(1)).restore(visit1, movedVisit);
+    }
+
     @Test
     void deleteVisitById_visitId_shouldSucceed () {
         //arrange
@@ -591,6 +769,7 @@ class VisitServiceImplTest {
                 .verifyComplete();
 
         Mockito.verify(visitRepo, Mockito.times(1)).deleteByVisitId(visitId);
+        Mockito.verify(visitSlotService, Mockito.times(1)).release(visitId);
 
     }
 
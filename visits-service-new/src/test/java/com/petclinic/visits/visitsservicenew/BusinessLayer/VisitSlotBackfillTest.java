@@ -0,0 +1,60 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitRepo;
+import com.petclinic.visits.visitsservicenew.Exceptions.DuplicateTimeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitSlotBackfillTest {
+
+    @Mock
+    private VisitRepo visitRepo;
+
+    @Mock
+    private VisitSlotService visitSlotService;
+
+    @InjectMocks
+    private VisitSlotBackfill visitSlotBackfill;
+
+    @Test
+    void backfillSlots_ShouldCountTheVisitsGivenTheirSlots() {
+        Visit visit1 = Visit.builder().visitId("visit1").build();
+        Visit visit2 = Visit.builder().visitId("visit2").build();
+        Visit visit3 = Visit.builder().visitId("visit3").build();
+        when(visitRepo.findAllByVisitDateGreaterThanEqual(any(LocalDateTime.class))).thenReturn(Flux.just(visit1, visit2, visit3));
+        when(visitSlotService.backfill(visit1)).thenReturn(Mono.just(true));
+        when(visitSlotService.backfill(visit2)).thenReturn(Mono.just(false));
+        when(visitSlotService.backfill(visit3)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(visitSlotBackfill.backfillSlots())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void backfillSlots_OverlappingVisit_ShouldBookTheOthers() {
+        Visit visit1 = Visit.builder().visitId("visit1").build();
+        Visit visit2 = Visit.builder().visitId("visit2").build();
+        when(visitRepo.findAllByVisitDateGreaterThanEqual(any(LocalDateTime.class))).thenReturn(Flux.just(visit1, visit2));
+        when(visitSlotService.backfill(visit1))
+                .thenReturn(Mono.error(new DuplicateTimeException("A visit with the same time and practitioner already exists.")));
+        when(visitSlotService.backfill(visit2)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(visitSlotBackfill.backfillSlots())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,174 @@
+package com.petclinic.visits.visitsservicenew.BusinessLayer;
+
+import com.petclinic.visits.visitsservicenew.DataLayer.Status;
+import com.petclinic.visits.visitsservicenew.DataLayer.Visit;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlot;
+import com.petclinic.visits.visitsservicenew.DataLayer.VisitSlotRepo;
+import com.petclinic.visits.visitsservicenew.Exceptions.DuplicateTimeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@DataMongoTest
+@Import(VisitSlotService.class)
+class VisitSlotServiceTest {
+
+    @Autowired
+    private VisitSlotService visitSlotService;
+
+    @Autowired
+    private VisitSlotRepo visitSlotRepo;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private final String vetId = UUID.randomUUID().toString();
+    private final LocalDateTime visitDate = LocalDateTime.of(2030, 1, 15, 13, 0);
+
+    @BeforeEach
+    void setupDb() {
+        //same index as the one declared on VisitSlot, created here so the test does not wait on the index creation at startup
+        StepVerifier.create(visitSlotRepo.deleteAll()
+                        .then(mongoTemplate.indexOps(VisitSlot.class).ensureIndex(new Index()
+                                .on("practitionerId", Sort.Direction.ASC)
+                                .on("slotStart", Sort.Direction.ASC)
+                                .unique()
+                                .named("practitioner_slot"))))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void reserve_ManyBookingsOfTheSameSlot_OnlyOneSucceeds() {
+        int bookings = 300;
+
+        Mono<Long> succeeded = Flux.range(0, bookings)
+                .flatMap(i -> visitSlotService.reserve(buildVisit(visitDate, 30))
+                                .thenReturn(true)
+                                .onErrorResume(DuplicateTimeException.class, e -> Mono.just(false))
+                                .subscribeOn(Schedulers.parallel()),
+                        bookings)
+                .filter(booked -> booked)
+                .count();
+
+        StepVerifier.create(succeeded)
+                .expectNext(1L)
+                .verifyComplete();
+
+        //the 30 minutes of the visit that got the slot, nothing left behind by the others
+        StepVerifier.create(visitSlotRepo.findByPractitionerId(vetId).map(VisitSlot::getVisitId).distinct())
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(visitSlotRepo.findByPractitionerId(vetId))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void reserve_OverlappingVisit_ThrowsDuplicateTimeExceptionAndKeepsNoSlot() {
+        Visit longVisit = buildVisit(visitDate, 60);
+        Visit overlappingVisit = buildVisit(visitDate.plusMinutes(45), 30);
+
+        StepVerifier.create(visitSlotService.reserve(longVisit)
+                        .then(visitSlotService.reserve(overlappingVisit)))
+                .expectError(DuplicateTimeException.class)
+                .verify();
+
+        StepVerifier.create(visitSlotRepo.findByVisitId(overlappingVisit.getVisitId()))
+                .verifyComplete();
+        StepVerifier.create(visitSlotRepo.findByVisitId(longVisit.getVisitId()))
+                .expectNextCount(4)
+                .verifyComplete();
+    }
+
+    @Test
+    void reserve_BackToBackVisits_BothSucceed() {
+        StepVerifier.create(visitSlotService.reserve(buildVisit(visitDate, 30))
+                        .then(visitSlotService.reserve(buildVisit(visitDate.plusMinutes(30), 30))))
+                .verifyComplete();
+    }
+
+    @Test
+    void rebook_CancelledVisit_ReleasesItsSlots() {
+        Visit visit = buildVisit(visitDate, 30);
+        Visit cancelledVisit = visit.toBuilder().status(Status.CANCELLED).build();
+
+        StepVerifier.create(visitSlotService.reserve(visit)
+                        .then(visitSlotService.rebook(visit, cancelledVisit))
+                        .then(visitSlotService.reserve(buildVisit(visitDate, 30))))
+                .verifyComplete();
+    }
+
+    @Test
+    void rebook_ToATakenTime_KeepsThePreviousSlots() {
+        Visit visit = buildVisit(visitDate, 30);
+        Visit otherVisit = buildVisit(visitDate.plusHours(1), 30);
+        Visit movedVisit = visit.toBuilder().visitDate(otherVisit.getVisitDate()).build();
+
+        StepVerifier.create(visitSlotService.reserve(visit)
+                        .then(visitSlotService.reserve(otherVisit))
+                        .then(visitSlotService.rebook(visit, movedVisit)))
+                .expectError(DuplicateTimeException.class)
+                .verify();
+
+        StepVerifier.create(visitSlotRepo.findByVisitId(visit.getVisitId()).map(VisitSlot::getSlotStart).sort().collectList())
+                .expectNext(List.of(visitDate, visitDate.plusMinutes(15)))
+                .verifyComplete();
+    }
+
+    @Test
+    void restore_ShouldGiveTheVisitItsPreviousSlotsBack() {
+        Visit visit = buildVisit(visitDate, 30);
+        Visit movedVisit = visit.toBuilder().visitDate(visitDate.plusHours(1)).build();
+
+        StepVerifier.create(visitSlotService.reserve(visit)
+                        .then(visitSlotService.rebook(visit, movedVisit))
+                        .then(visitSlotService.restore(visit, movedVisit)))
+                .verifyComplete();
+
+        StepVerifier.create(visitSlotRepo.findByVisitId(visit.getVisitId()).map(VisitSlot::getSlotStart).sort().collectList())
+                .expectNext(List.of(visitDate, visitDate.plusMinutes(15)))
+                .verifyComplete();
+    }
+
+    @Test
+    void backfill_ShouldOnlyBookTheVisitsWithoutSlots() {
+        Visit visit = buildVisit(visitDate, 30);
+        Visit bookedVisit = buildVisit(visitDate.plusHours(1), 30);
+        Visit cancelledVisit = buildVisit(visitDate.plusHours(2), 30).toBuilder().status(Status.CANCELLED).build();
+
+        StepVerifier.create(visitSlotService.reserve(bookedVisit)
+                        .thenMany(Flux.just(visit, bookedVisit, cancelledVisit).concatMap(visitSlotService::backfill)))
+                .expectNext(true, false, false)
+                .verifyComplete();
+
+        StepVerifier.create(visitSlotRepo.findByPractitionerId(vetId).count())
+                .expectNext(4L)
+                .verifyComplete();
+    }
+
+    private Visit buildVisit(LocalDateTime visitDate, int duration) {
+        return Visit.builder()
+                .visitId(UUID.randomUUID().toString())
+                .visitDate(visitDate)
+                .duration(duration)
+                .description("slot test")
+                .petId("ecb109cd-57ea-4b85-b51e-99751fd1c349")
+                .practitionerId(vetId)
+                .status(Status.UPCOMING)
+                .build();
+    }
+}
@@ -9,6 +9,7 @@ import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -73,6 +74,55 @@ class VisitRepoTest {
     }
      */
 
+    @Test
+    void findVisitsOfOwner_ShouldApplyTheFiltersAndReturnTheMostRecentFirst(){
+        Visit older = buildVisit(UUID.randomUUID().toString(), "older", "2200334");
+        older.setOwnerId("owner1");
+        older.setVisitDate(LocalDateTime.of(2023, 1, 10, 9, 0));
+        Visit newer = buildVisit(UUID.randomUUID().toString(), "newer", "2200334");
+        newer.setOwnerId("owner1");
+        newer.setVisitDate(LocalDateTime.of(2023, 6, 10, 9, 0));
+        Visit cancelled = buildVisit(UUID.randomUUID().toString(), "cancelled", "2200334");
+        cancelled.setOwnerId("owner1");
+        cancelled.setVisitDate(LocalDateTime.of(2023, 3, 10, 9, 0));
+        cancelled.setStatus(Status.CANCELLED);
+
+        StepVerifier.create(visitRepo.saveAll(Arrays.asList(older, newer, cancelled)))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        StepVerifier.create(visitRepo.findVisitsOfOwner("owner1", null, null, null))
+                .consumeNextWith(visit -> assertEquals("newer", visit.getDescription()))
+                .consumeNextWith(visit -> assertEquals("cancelled", visit.getDescription()))
+                .consumeNextWith(visit -> assertEquals("older", visit.getDescription()))
+                .verifyComplete();
+
+        StepVerifier.create(visitRepo.findVisitsOfOwner("owner1", LocalDateTime.of(2023, 1, 11, 0, 0), LocalDateTime.of(2023, 12, 31, 0, 0), Status.UPCOMING))
+                .consumeNextWith(visit -> assertEquals("newer", visit.getDescription()))
+                .verifyComplete();
+    }
+
+    @Test
+    void setOwnerIdOfPetVisits_ShouldOnlyUpdateTheVisitsWithoutOwner(){
+        StepVerifier.create(visitRepo.findPetIdsOfVisitsWithoutOwner())
+                .expectNext("2")
+                .verifyComplete();
+
+        StepVerifier.create(visitRepo.setOwnerIdOfPetVisits("2", "owner2"))
+                .expectNext(2L)
+                .verifyComplete();
+
+        StepVerifier.create(visitRepo.setOwnerIdOfPetVisits("2", "owner3"))
+                .expectNext(0L)
+                .verifyComplete();
+
+        StepVerifier.create(visitRepo.findVisitsOfOwner("owner2", null, null, null))
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(visitRepo.findPetIdsOfVisitsWithoutOwner())
+                .verifyComplete();
+    }
+
     @Test
     void deleteVisitByVisitId(){
         StepVerifier
@@ -0,0 +1,85 @@
+package com.petclinic.visits.visitsservicenew.DomainClientLayer;
+
+import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLoaderTest {
+
+    private final List<Set<String>> batches = new CopyOnWriteArrayList<>();
+
+    private BatchLoader<String> loaderOf(Set<String> existingIds, int maxBatchSize) {
+        return new BatchLoader<>(ids -> {
+            batches.add(ids);
+            return Flux.fromIterable(ids).filter(existingIds::contains);
+        }, id -> id, id -> new NotFoundException("No pet was found with petId: " + id), maxBatchSize, Duration.ofMillis(20));
+    }
+
+    @Test
+    void load_ManyVisitsForFewIds_AreResolvedWithFewBatches() {
+        BatchLoader<String> loader = loaderOf(Set.of("0", "1", "2", "3", "4"), 1000);
+
+        Flux<String> loaded = Flux.range(0, 10000)
+                .flatMap(i -> loader.load(String.valueOf(i % 5)), 10000);
+
+        StepVerifier.create(loaded)
+                .expectNextCount(10000)
+                .verifyComplete();
+
+        assertTrue(batches.size() <= 10, "10000 loads should take at most 10 batches but took " + batches.size());
+        batches.forEach(batch -> assertTrue(batch.size() <= 5));
+    }
+
+    @Test
+    void load_FromManyThreads_IsResolvedForEveryCaller() {
+        BatchLoader<String> loader = loaderOf(Set.of("0", "1", "2", "3", "4"), 1000);
+
+        Flux<String> loaded = Flux.range(0, 10000)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> loader.load(String.valueOf(i % 5)))
+                .sequential();
+
+        StepVerifier.create(loaded)
+                .expectNextCount(10000)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void load_IdIsNotReturned_ErrorsOnlyThatCaller() {
+        BatchLoader<String> loader = loaderOf(Set.of("1"), 10);
+
+        StepVerifier.create(Flux.merge(loader.load("1"), loader.load("2").onErrorReturn(NotFoundException.class, "missing")))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void load_BatchFails_ErrorsEveryCallerAndKeepsLoading() {
+        BatchLoader<String> loader = new BatchLoader<>(ids -> {
+            batches.add(ids);
+            return batches.size() == 1 ? Flux.error(new IllegalArgumentException("Something went wrong")) : Flux.fromIterable(ids);
+        }, id -> id, NotFoundException::new, 10, Duration.ofMillis(20));
+
+        StepVerifier.create(loader.load("1"))
+                .expectErrorMatches(throwable -> throwable instanceof IllegalArgumentException && throwable.getMessage().equals("Something went wrong"))
+                .verify();
+
+        StepVerifier.create(loader.load("1"))
+                .expectNext("1")
+                .verifyComplete();
+    }
+}
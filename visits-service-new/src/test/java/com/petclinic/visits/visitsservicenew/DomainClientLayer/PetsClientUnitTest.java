@@ -2,6 +2,7 @@ package com.petclinic.visits.visitsservicenew.DomainClientLayer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.AfterAll;
@@ -13,10 +14,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @WebFluxTest(PetsClient.class)
 class PetsClientUnitTest {
@@ -39,7 +45,8 @@ class PetsClientUnitTest {
 
     @BeforeEach
     void initialize(){
-        petsClient = new PetsClient("localhost", String.valueOf(mockBackEnd.getPort()));
+        petsClient = new PetsClient("localhost", String.valueOf(mockBackEnd.getPort()), new SimpleMeterRegistry(),
+                5000, Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(5));
     }
 
     @AfterAll
@@ -50,7 +57,7 @@ class PetsClientUnitTest {
     @Test
     void getPetById_Valid() throws IOException {
         // Create a sample pet response
-        PetResponseDTO petResponseDTO = new PetResponseDTO("123", "Billy", new Date(), "dog", "123");
+        PetResponseDTO petResponseDTO = new PetResponseDTO("123", "123", "Billy", new Date(), "dog", "123");
 
         // Enqueue a mock response from the server
         mockBackEnd.enqueue(new MockResponse()
@@ -115,4 +122,45 @@ class PetsClientUnitTest {
                 .verify();
     }
 
-}
\ No newline at end of file
+    @Test
+    void loadPetById_ConcurrentLoads_AreSentInOneRequest() throws IOException {
+        PetResponseDTO billy = new PetResponseDTO("123", "1", "Billy", new Date(), "dog", "123");
+        PetResponseDTO rex = new PetResponseDTO("123", "2", "Rex", new Date(), "dog", "456");
+
+        mockBackEnd.enqueue(new MockResponse()
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(objectMapper.writeValueAsString(List.of(billy, rex)))
+        );
+
+        int requestsBefore = mockBackEnd.getRequestCount();
+
+        Flux<String> names = Flux.just("1", "2", "1", "2")
+                .flatMap(petId -> petsClient.loadPetById(petId))
+                .map(PetResponseDTO::getName);
+
+        StepVerifier.create(names)
+                .expectNextCount(4)
+                .verifyComplete();
+
+        assertEquals(1, mockBackEnd.getRequestCount() - requestsBefore);
+    }
+
+    @Test
+    void getPetById_CalledTwice_IsFetchedOnce() throws IOException {
+        PetResponseDTO petResponseDTO = new PetResponseDTO("123", "123", "Billy", new Date(), "dog", "123");
+
+        mockBackEnd.enqueue(new MockResponse()
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(objectMapper.writeValueAsString(petResponseDTO))
+        );
+
+        int requestsBefore = mockBackEnd.getRequestCount();
+
+        StepVerifier.create(petsClient.getPetById("123").then(petsClient.loadPetById("123")))
+                .expectNextMatches(response -> response.getName().equals("Billy"))
+                .verifyComplete();
+
+        assertEquals(1, mockBackEnd.getRequestCount() - requestsBefore);
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.petclinic.visits.visitsservicenew.DomainClientLayer;
+
+import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReferenceCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final Function<String, Mono<String>> slowLoader = id -> {
+        loadCount.incrementAndGet();
+        return Mono.just("value" + id).delayElement(Duration.ofMillis(50));
+    };
+
+    private ReferenceCache<String> cacheOf(int maxSize, Duration ttl) {
+        return new ReferenceCache<>("test", maxSize, ttl, Duration.ofMinutes(1), Duration.ofMillis(200), meterRegistry);
+    }
+
+    @Test
+    void get_ConcurrentMisses_ShareOneLoad() {
+        ReferenceCache<String> cache = cacheOf(10, Duration.ofMinutes(1));
+
+        StepVerifier.create(Flux.range(0, 100).flatMap(i -> cache.get("1", slowLoader)))
+                .expectNextCount(100)
+                .verifyComplete();
+
+        assertEquals(1, loadCount.get());
+        assertEquals(99, meterRegistry.counter("visits.client.cache.gets", "cache", "test", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("visits.client.cache.gets", "cache", "test", "result", "miss").count());
+        assertEquals(1, meterRegistry.timer("visits.client.cache.loads", "cache", "test").count());
+    }
+
+    @Test
+    void get_ValueExpired_IsLoadedAgain() {
+        ReferenceCache<String> cache = cacheOf(10, Duration.ZERO);
+
+        StepVerifier.create(cache.get("1", slowLoader).then(cache.get("1", slowLoader)))
+                .expectNext("value1")
+                .verifyComplete();
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void get_NotFound_IsCached() {
+        ReferenceCache<String> cache = cacheOf(10, Duration.ofMinutes(1));
+        Function<String, Mono<String>> notFoundLoader = id -> {
+            loadCount.incrementAndGet();
+            return Mono.error(new NotFoundException("No pet was found with petId: " + id));
+        };
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.get("1", notFoundLoader))
+                    .expectErrorMatches(throwable -> throwable instanceof NotFoundException && throwable.getMessage().equals("No pet was found with petId: 1"))
+                    .verify();
+        }
+
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    void get_OtherError_IsNotCached() {
+        ReferenceCache<String> cache = cacheOf(10, Duration.ofMinutes(1));
+        Function<String, Mono<String>> failingLoader = id -> {
+            loadCount.incrementAndGet();
+            return Mono.error(new IllegalArgumentException("Something went wrong"));
+        };
+
+        StepVerifier.create(cache.get("1", failingLoader))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(cache.get("1", slowLoader))
+                .expectNext("value1")
+                .verifyComplete();
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void get_MoreIdsThanMaxSize_KeepsSizeBounded() {
+        ReferenceCache<String> cache = cacheOf(5, Duration.ofMinutes(1));
+
+        StepVerifier.create(Flux.range(0, 20).concatMap(i -> cache.get(String.valueOf(i), id -> Mono.just("value" + id))))
+                .expectNextCount(20)
+                .verifyComplete();
+
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    void get_Full_EvictsTheOldestValuesAndNotTheLoadsInFlight() {
+        ReferenceCache<String> cache = cacheOf(2, Duration.ofMinutes(1));
+
+        StepVerifier.create(cache.get("1", slowLoader).then(cache.get("2", slowLoader)))
+                .expectNext("value2")
+                .verifyComplete();
+        //3 is still loading when 4 needs room, so 1 and then 2 make room
+        StepVerifier.create(Mono.zip(cache.get("3", slowLoader), cache.get("4", slowLoader)))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(cache.get("3", slowLoader).then(cache.get("4", slowLoader)))
+                .expectNext("value4")
+                .verifyComplete();
+
+        assertEquals(4, loadCount.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void get_LoadTimesOut_IsNotCached() {
+        ReferenceCache<String> cache = cacheOf(10, Duration.ofMinutes(1));
+        Function<String, Mono<String>> hangingLoader = id -> {
+            loadCount.incrementAndGet();
+            return Mono.never();
+        };
+
+        StepVerifier.create(cache.get("1", hangingLoader))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(cache.get("1", slowLoader))
+                .expectNext("value1")
+                .verifyComplete();
+
+        assertEquals(2, loadCount.get());
+    }
+}
@@ -2,6 +2,7 @@ package com.petclinic.visits.visitsservicenew.DomainClientLayer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.AfterAll;
@@ -16,6 +17,9 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 
 @WebFluxTest(VetsClient.class)
 class VetsClientUnitTest {
@@ -38,7 +42,8 @@ class VetsClientUnitTest {
 
     @BeforeEach
     void initialize(){
-        vetsClient = new VetsClient("localhost", String.valueOf(mockBackEnd.getPort()));
+        vetsClient = new VetsClient("localhost", String.valueOf(mockBackEnd.getPort()), new SimpleMeterRegistry(),
+                5000, Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(5));
     }
 
     @AfterAll
@@ -67,6 +72,24 @@ class VetsClientUnitTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getAllVets_Valid() throws IOException {
+        VetDTO vetDTO = new VetDTO();
+        vetDTO.setVetId("123");
+        vetDTO.setWorkday(Set.of(Workday.Monday));
+        vetDTO.setWorkHoursJson("{\"Monday\":[\"Hour_8_9\"]}");
+
+        mockBackEnd.enqueue(new MockResponse()
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(objectMapper.writeValueAsString(List.of(vetDTO)))
+        );
+
+        StepVerifier.create(vetsClient.getAllVets())
+                .expectNextMatches(response -> response.getVetId().equals("123")
+                        && response.getWorkHoursJson().equals(vetDTO.getWorkHoursJson()))
+                .verifyComplete();
+    }
+
     @Test
     void getVetByVetId_VetNotFound() {
         String invalidVetId = "3333";
@@ -1,13 +1,16 @@
 package com.petclinic.visits.visitsservicenew.PresentationLayer;
 
 
+import com.petclinic.visits.visitsservicenew.BusinessLayer.Availability.AvailabilityService;
 import com.petclinic.visits.visitsservicenew.BusinessLayer.Review.ReviewService;
 import com.petclinic.visits.visitsservicenew.BusinessLayer.VisitService;
 import com.petclinic.visits.visitsservicenew.DataLayer.Status;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.SpecialtyDTO;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.VetDTO;
 import com.petclinic.visits.visitsservicenew.DomainClientLayer.Workday;
+import com.petclinic.visits.visitsservicenew.Exceptions.BadRequestException;
 import com.petclinic.visits.visitsservicenew.Exceptions.NotFoundException;
+import com.petclinic.visits.visitsservicenew.PresentationLayer.Availability.AvailableSlotResponseDTO;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.Review.ReviewRequestDTO;
 import com.petclinic.visits.visitsservicenew.PresentationLayer.Review.ReviewResponseDTO;
 import org.junit.jupiter.api.Test;
@@ -19,11 +22,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -36,6 +42,9 @@ class VisitControllerUnitTest {
     @MockBean
    private ReviewService reviewService;
 
+    @MockBean
+    private AvailabilityService availabilityService;
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -104,6 +113,71 @@ class VisitControllerUnitTest {
         verify(visitService, times(1)).getAllVisits();
     }
 
+    @Test
+    void getVisitsForOwner(){
+        String ownerId = UUID.randomUUID().toString();
+        when(visitService.getVisitsForOwner(ownerId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), Status.UPCOMING))
+                .thenReturn(Flux.just(visitResponseDTO));
+
+        webTestClient.get()
+                .uri("/visits/owners/{ownerId}?from=2024-01-01&to=2024-12-31&status=UPCOMING", ownerId)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.TEXT_EVENT_STREAM + ";charset=UTF-8")
+                .expectBodyList(VisitResponseDTO.class)
+                .value(visits -> assertEquals(1, visits.size()));
+
+        verify(visitService, times(1)).getVisitsForOwner(ownerId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), Status.UPCOMING);
+    }
+
+    @Test
+    void getAvailableSlots(){
+        AvailableSlotResponseDTO slot = AvailableSlotResponseDTO.builder()
+                .practitionerId(uuidVet)
+                .start(LocalDateTime.of(2030, 1, 7, 8, 0))
+                .end(LocalDateTime.of(2030, 1, 7, 8, 30))
+                .build();
+        when(availabilityService.getAvailableSlots(List.of(uuidVet), null, LocalDate.of(2030, 1, 7), LocalDate.of(2030, 1, 31), 30, 5))
+                .thenReturn(Flux.just(slot));
+
+        webTestClient.get()
+                .uri("/visits/availability?practitionerIds={vetId}&from=2030-01-07&to=2030-01-31&duration=30&limit=5", uuidVet)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(AvailableSlotResponseDTO.class)
+                .value(slots -> {
+                    assertEquals(1, slots.size());
+                    assertEquals(slot.getStart(), slots.get(0).getStart());
+                });
+    }
+
+    @Test
+    void getAvailableSlots_WithInvalidRange_ReturnsBadRequest(){
+        when(availabilityService.getAvailableSlots(null, "Surgery", LocalDate.of(2030, 1, 7), LocalDate.of(2030, 1, 1), null, null))
+                .thenReturn(Flux.error(new BadRequestException("The last day cannot be before the first day")));
+
+        webTestClient.get()
+                .uri("/visits/availability?specialty=Surgery&from=2030-01-07&to=2030-01-01")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getVisitsForOwner_WithoutFilters(){
+        String ownerId = UUID.randomUUID().toString();
+        when(visitService.getVisitsForOwner(ownerId, null, null, null)).thenReturn(Flux.empty());
+
+        webTestClient.get()
+                .uri("/visits/owners/{ownerId}", ownerId)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(visitService, times(1)).getVisitsForOwner(ownerId, null, null, null);
+    }
+
     @Test
     void getVisitByVisitId(){
         when(visitService.getVisitByVisitId(anyString())).thenReturn(Mono.just(visitResponseDTO));
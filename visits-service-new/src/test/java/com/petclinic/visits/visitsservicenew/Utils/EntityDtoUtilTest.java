@@ -68,9 +68,9 @@ public class EntityDtoUtilTest {
     @Test
     public void testToVisitResponseDTO() {
         // Mock responses for petsClient and vetsClient
-        when(petsClient.getPetById(eq(testPetUUID)))
-                .thenReturn(Mono.just(new PetResponseDTO("ownerId", "petName", new Date(2023, 2, 21), "petType", "newPhoto")));
-        when(vetsClient.getVetByVetId(eq(testVetUUID)))
+        when(petsClient.loadPetById(eq(testPetUUID)))
+                .thenReturn(Mono.just(new PetResponseDTO("ownerId", testPetUUID, "petName", new Date(2023, 2, 21), "petType", "newPhoto")));
+        when(vetsClient.loadVetById(eq(testVetUUID)))
                 .thenReturn(Mono.just(
                         VetDTO.builder()
                                 .vetId("vetId")